@@ -16,18 +16,24 @@ import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.transaction.EntityVersionService;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
 
+/**
+ * Notifies entity listeners of entity updates and increases the change version of the entity type on each change.
+ */
 public class EntityListenerRepositoryDecorator implements Repository
 {
 	private final Repository decoratedRepository;
+	private final EntityVersionService entityVersionService;
 	private SetMultimap<Object, EntityListener> entityListeners;
 
-	public EntityListenerRepositoryDecorator(Repository decoratedRepository)
+	public EntityListenerRepositoryDecorator(Repository decoratedRepository, EntityVersionService entityVersionService)
 	{
 		this.decoratedRepository = requireNonNull(decoratedRepository);
+		this.entityVersionService = requireNonNull(entityVersionService);
 	}
 
 	@Override
@@ -130,6 +136,7 @@ public class EntityListenerRepositoryDecorator implements Repository
 	public void update(Entity entity)
 	{
 		decoratedRepository.update(entity);
+		incrementVersion();
 
 		if (entityListeners != null)
 		{
@@ -154,48 +161,57 @@ public class EntityListenerRepositoryDecorator implements Repository
 			});
 		}
 		decoratedRepository.update(entities);
+		incrementVersion();
 	}
 
 	@Override
 	public void delete(Entity entity)
 	{
 		decoratedRepository.delete(entity);
+		incrementVersion();
 	}
 
 	@Override
 	public void delete(Stream<? extends Entity> entities)
 	{
 		decoratedRepository.delete(entities);
+		incrementVersion();
 	}
 
 	@Override
 	public void deleteById(Object id)
 	{
 		decoratedRepository.deleteById(id);
+		incrementVersion();
 	}
 
 	@Override
 	public void deleteById(Stream<Object> ids)
 	{
 		decoratedRepository.deleteById(ids);
+		incrementVersion();
 	}
 
 	@Override
 	public void deleteAll()
 	{
 		decoratedRepository.deleteAll();
+		incrementVersion();
 	}
 
 	@Override
 	public void add(Entity entity)
 	{
 		decoratedRepository.add(entity);
+		incrementVersion();
 	}
 
 	@Override
 	public Integer add(Stream<? extends Entity> entities)
 	{
-		return decoratedRepository.add(entities);
+		Integer count = decoratedRepository.add(entities);
+		incrementVersion();
+		return count;
 	}
 
 	@Override
@@ -220,6 +236,7 @@ public class EntityListenerRepositoryDecorator implements Repository
 	public void drop()
 	{
 		decoratedRepository.drop();
+		incrementVersion();
 	}
 
 	@Override
@@ -246,4 +263,9 @@ public class EntityListenerRepositoryDecorator implements Repository
 			entityListeners.remove(entityListener.getEntityId(), entityListener);
 		}
 	}
+
+	private void incrementVersion()
+	{
+		entityVersionService.increment(getName());
+	}
 }
@@ -0,0 +1,23 @@
+package org.molgenis.ui;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * {@link ShallowEtagHeaderFilter} that leaves responses alone for which the controller already created an ETag, e.g.
+ * based on entity change versions, so that the ETag of the controller is returned in subsequent If-None-Match headers.
+ */
+public class EtagHeaderFilter extends ShallowEtagHeaderFilter
+{
+	private static final String HEADER_ETAG = "ETag";
+
+	@Override
+	protected boolean isEligibleForEtag(HttpServletRequest request, HttpServletResponse response,
+			int responseStatusCode, byte[] responseBody)
+	{
+		return !response.containsHeader(HEADER_ETAG)
+				&& super.isEligibleForEtag(request, response, responseStatusCode, responseBody);
+	}
+}
@@ -14,6 +14,7 @@ import org.molgenis.data.RepositorySecurityDecorator;
 import org.molgenis.data.mysql.MysqlRepositoryCollection;
 import org.molgenis.data.settings.AppSettings;
 import org.molgenis.data.support.OwnedEntityMetaData;
+import org.molgenis.data.transaction.EntityVersionService;
 import org.molgenis.data.transaction.TransactionLogRepositoryDecorator;
 import org.molgenis.data.transaction.TransactionLogService;
 import org.molgenis.data.validation.EntityAttributesValidator;
@@ -27,6 +28,7 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
 {
 	private final EntityManager entityManager;
 	private final TransactionLogService transactionLogService;
+	private final EntityVersionService entityVersionService;
 	private final EntityAttributesValidator entityAttributesValidator;
 	private final IdGenerator idGenerator;
 	private final AppSettings appSettings;
@@ -35,12 +37,13 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
 	private final RepositoryDecoratorRegistry repositoryDecoratorRegistry;
 
 	public MolgenisRepositoryDecoratorFactory(EntityManager entityManager, TransactionLogService transactionLogService,
-			EntityAttributesValidator entityAttributesValidator, IdGenerator idGenerator, AppSettings appSettings,
-			DataService dataService, ExpressionValidator expressionValidator,
-			RepositoryDecoratorRegistry repositoryDecoratorRegistry)
+			EntityVersionService entityVersionService, EntityAttributesValidator entityAttributesValidator,
+			IdGenerator idGenerator, AppSettings appSettings, DataService dataService,
+			ExpressionValidator expressionValidator, RepositoryDecoratorRegistry repositoryDecoratorRegistry)
 	{
 		this.entityManager = entityManager;
 		this.transactionLogService = transactionLogService;
+		this.entityVersionService = entityVersionService;
 		this.entityAttributesValidator = entityAttributesValidator;
 		this.idGenerator = idGenerator;
 		this.appSettings = appSettings;
@@ -72,7 +75,7 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
 		decoratedRepository = new ComputedEntityValuesDecorator(decoratedRepository);
 
 		// 6. Entity listener
-		decoratedRepository = new EntityListenerRepositoryDecorator(decoratedRepository);
+		decoratedRepository = new EntityListenerRepositoryDecorator(decoratedRepository, entityVersionService);
 
 		// 5. Transaction log decorator
 		decoratedRepository = new TransactionLogRepositoryDecorator(decoratedRepository, transactionLogService);
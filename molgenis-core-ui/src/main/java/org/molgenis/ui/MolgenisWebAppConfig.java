@@ -38,6 +38,7 @@ import org.molgenis.data.meta.MetaDataServiceImpl;
 import org.molgenis.data.mysql.MySqlEntityFactory;
 import org.molgenis.data.settings.AppSettings;
 import org.molgenis.data.support.DataServiceImpl;
+import org.molgenis.data.transaction.EntityVersionService;
 import org.molgenis.data.transaction.TransactionLogService;
 import org.molgenis.data.validation.EntityAttributesValidator;
 import org.molgenis.data.validation.ExpressionValidator;
@@ -129,6 +130,9 @@ public abstract class MolgenisWebAppConfig extends WebMvcConfigurerAdapter
 	@Autowired
 	public TransactionLogService transactionLogService;
 
+	@Autowired
+	public EntityVersionService entityVersionService;
+
 	@Autowired
 	public IdGenerator idGenerator;
 
@@ -528,8 +532,8 @@ public abstract class MolgenisWebAppConfig extends WebMvcConfigurerAdapter
 			public Repository createDecoratedRepository(Repository repository)
 			{
 				return new MolgenisRepositoryDecoratorFactory(entityManager(), transactionLogService,
-						entityAttributesValidator, idGenerator, appSettings, dataService(), expressionValidator,
-						repositoryDecoratorRegistry()).createDecoratedRepository(repository);
+						entityVersionService, entityAttributesValidator, idGenerator, appSettings, dataService(),
+						expressionValidator, repositoryDecoratorRegistry()).createDecoratedRepository(repository);
 			}
 		};
 	}
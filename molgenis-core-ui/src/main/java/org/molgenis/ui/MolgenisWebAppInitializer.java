@@ -16,7 +16,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.web.context.ContextLoaderListener;
 import org.springframework.web.context.request.RequestContextListener;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
-import org.springframework.web.filter.ShallowEtagHeaderFilter;
 import org.springframework.web.servlet.DispatcherServlet;
 
 public class MolgenisWebAppInitializer
@@ -76,7 +75,7 @@ public class MolgenisWebAppInitializer
 				.addFilter("browserDetectionFilter", BrowserDetectionFilter.class);
 		browserDetectionFiler.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), false, "*");
 
-		Dynamic etagFilter = servletContext.addFilter("etagFilter", ShallowEtagHeaderFilter.class);
+		Dynamic etagFilter = servletContext.addFilter("etagFilter", EtagHeaderFilter.class);
 		etagFilter.addMappingForServletNames(EnumSet.of(DispatcherType.REQUEST), true, "dispatcher");
 
 		Dynamic corsFilter = servletContext.addFilter("corsFilter", CorsFilter.class);
@@ -1,8 +1,10 @@
 package org.molgenis.ui;
 
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 
@@ -11,31 +13,37 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityListener;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
+import org.molgenis.data.transaction.EntityVersionService;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 public class EntityListenerRepositoryDecoratorTest
 {
 	private Repository decoratedRepository;
+	private EntityVersionService entityVersionService;
 	private EntityListenerRepositoryDecorator entityListenerRepositoryDecorator;
 
 	@BeforeMethod
 	public void setUpBeforeMethod()
 	{
 		decoratedRepository = mock(Repository.class);
-		entityListenerRepositoryDecorator = new EntityListenerRepositoryDecorator(decoratedRepository);
+		when(decoratedRepository.getName()).thenReturn("entity");
+		entityVersionService = mock(EntityVersionService.class);
+		entityListenerRepositoryDecorator = new EntityListenerRepositoryDecorator(
+				decoratedRepository, entityVersionService);
 	}
 
 	@SuppressWarnings("resource")
 	@Test(expectedExceptions = NullPointerException.class)
 	public void EntityListenerRepositoryDecorator()
 	{
-		new EntityListenerRepositoryDecorator(null);
+		new EntityListenerRepositoryDecorator(null, entityVersionService);
 	}
 
 	@Test
@@ -44,6 +52,45 @@ public class EntityListenerRepositoryDecoratorTest
 		Stream<Entity> entities = Stream.empty();
 		when(decoratedRepository.add(entities)).thenReturn(Integer.valueOf(123));
 		assertEquals(entityListenerRepositoryDecorator.add(entities), Integer.valueOf(123));
+		verify(entityVersionService).increment("entity");
+	}
+
+	@Test
+	public void addIncrementsVersionAfterAdd()
+	{
+		Entity entity = mock(Entity.class);
+		entityListenerRepositoryDecorator.add(entity);
+		InOrder inOrder = inOrder(decoratedRepository, entityVersionService);
+		inOrder.verify(decoratedRepository).add(entity);
+		inOrder.verify(entityVersionService).increment("entity");
+	}
+
+	@Test
+	public void updateIncrementsVersion()
+	{
+		entityListenerRepositoryDecorator.update(mock(Entity.class));
+		verify(entityVersionService).increment("entity");
+	}
+
+	@Test
+	public void deleteByIdIncrementsVersion()
+	{
+		entityListenerRepositoryDecorator.deleteById("id");
+		verify(entityVersionService).increment("entity");
+	}
+
+	@Test
+	public void deleteAllIncrementsVersion()
+	{
+		entityListenerRepositoryDecorator.deleteAll();
+		verify(entityVersionService).increment("entity");
+	}
+
+	@Test
+	public void findOneDoesNotIncrementVersion()
+	{
+		entityListenerRepositoryDecorator.findOne("id");
+		verifyZeroInteractions(entityVersionService);
 	}
 
 	@Test
@@ -52,6 +99,7 @@ public class EntityListenerRepositoryDecoratorTest
 		Stream<Entity> entities = Stream.empty();
 		entityListenerRepositoryDecorator.delete(entities);
 		verify(decoratedRepository, times(1)).delete(entities);
+		verify(entityVersionService).increment("entity");
 	}
 
 	@SuppressWarnings("resource")
@@ -60,7 +108,7 @@ public class EntityListenerRepositoryDecoratorTest
 	{
 		Repository decoratedRepository = mock(Repository.class);
 		EntityListenerRepositoryDecorator entityListenerRepositoryDecorator = new EntityListenerRepositoryDecorator(
-				decoratedRepository);
+				decoratedRepository, entityVersionService);
 		EntityListener entityListener0 = when(mock(EntityListener.class).getEntityId()).thenReturn(Integer.valueOf(1))
 				.getMock();
 		entityListenerRepositoryDecorator.addEntityListener(entityListener0);
@@ -78,7 +126,7 @@ public class EntityListenerRepositoryDecoratorTest
 	{
 		Repository decoratedRepository = mock(Repository.class);
 		EntityListenerRepositoryDecorator entityListenerRepositoryDecorator = new EntityListenerRepositoryDecorator(
-				decoratedRepository);
+				decoratedRepository, entityVersionService);
 		EntityListener entityListener0 = when(mock(EntityListener.class).getEntityId()).thenReturn(Integer.valueOf(1))
 				.getMock();
 		EntityListener entityListener1 = when(mock(EntityListener.class).getEntityId()).thenReturn(Integer.valueOf(1))
@@ -100,7 +148,7 @@ public class EntityListenerRepositoryDecoratorTest
 	{
 		Repository decoratedRepository = mock(Repository.class);
 		EntityListenerRepositoryDecorator entityListenerRepositoryDecorator = new EntityListenerRepositoryDecorator(
-				decoratedRepository);
+				decoratedRepository, entityVersionService);
 		EntityListener entityListener0 = when(mock(EntityListener.class).getEntityId()).thenReturn(Integer.valueOf(-1))
 				.getMock();
 		entityListenerRepositoryDecorator.addEntityListener(entityListener0);
@@ -118,7 +166,7 @@ public class EntityListenerRepositoryDecoratorTest
 	{
 		Repository decoratedRepository = mock(Repository.class);
 		EntityListenerRepositoryDecorator entityListenerRepositoryDecorator = new EntityListenerRepositoryDecorator(
-				decoratedRepository);
+				decoratedRepository, entityVersionService);
 
 		Entity entity = when(mock(Entity.class).getIdValue()).thenReturn(Integer.valueOf(1)).getMock();
 		entityListenerRepositoryDecorator.update(entity);
@@ -133,7 +181,7 @@ public class EntityListenerRepositoryDecoratorTest
 	{
 		Repository decoratedRepository = mock(Repository.class);
 		EntityListenerRepositoryDecorator entityListenerRepositoryDecorator = new EntityListenerRepositoryDecorator(
-				decoratedRepository);
+				decoratedRepository, entityVersionService);
 		EntityListener entityListener0 = when(mock(EntityListener.class).getEntityId()).thenReturn(Integer.valueOf(1))
 				.getMock();
 		EntityListener entityListener1 = when(mock(EntityListener.class).getEntityId()).thenReturn(Integer.valueOf(2))
@@ -161,7 +209,7 @@ public class EntityListenerRepositoryDecoratorTest
 	{
 		Repository decoratedRepository = mock(Repository.class);
 		EntityListenerRepositoryDecorator entityListenerRepositoryDecorator = new EntityListenerRepositoryDecorator(
-				decoratedRepository);
+				decoratedRepository, entityVersionService);
 		EntityListener entityListener1 = when(mock(EntityListener.class).getEntityId()).thenReturn(Integer.valueOf(2))
 				.getMock();
 		entityListenerRepositoryDecorator.addEntityListener(entityListener1);
@@ -184,7 +232,7 @@ public class EntityListenerRepositoryDecoratorTest
 	{
 		Repository decoratedRepository = mock(Repository.class);
 		EntityListenerRepositoryDecorator entityListenerRepositoryDecorator = new EntityListenerRepositoryDecorator(
-				decoratedRepository);
+				decoratedRepository, entityVersionService);
 
 		Entity entity0 = when(mock(Entity.class).getIdValue()).thenReturn(Integer.valueOf(1)).getMock();
 		Entity entity1 = when(mock(Entity.class).getIdValue()).thenReturn(Integer.valueOf(2)).getMock();
@@ -202,7 +250,7 @@ public class EntityListenerRepositoryDecoratorTest
 	{
 		Repository decoratedRepository = mock(Repository.class);
 		EntityListenerRepositoryDecorator entityListenerRepositoryDecorator = new EntityListenerRepositoryDecorator(
-				decoratedRepository);
+				decoratedRepository, entityVersionService);
 		EntityListener entityListener0 = when(mock(EntityListener.class).getEntityId()).thenReturn(Integer.valueOf(1))
 				.getMock();
 		entityListenerRepositoryDecorator.addEntityListener(entityListener0);
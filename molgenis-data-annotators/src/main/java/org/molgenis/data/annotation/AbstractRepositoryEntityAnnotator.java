@@ -5,11 +5,18 @@ import org.molgenis.security.core.runas.RunAsSystem;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 public abstract class AbstractRepositoryEntityAnnotator extends AbstractRepositoryAnnotator
 {
+	/**
+	 * Number of source entities that are read ahead and annotated together
+	 */
+	private static final int ANNOTATE_BATCH_SIZE = 1000;
+
 	@Override
 	@Transactional
 	@RunAsSystem
@@ -26,53 +33,56 @@ public abstract class AbstractRepositoryEntityAnnotator extends AbstractReposito
 		Iterator<Entity> source = sourceIterable.iterator();
 		return new Iterator<Entity>()
 		{
-			int current = 0;
-			int size = 0;
-			List<Entity> results;
-			Entity result;
+			Iterator<Entity> results = Collections.emptyIterator();
 
 			@Override
 			public boolean hasNext()
 			{
-				return current < size || source.hasNext();
+				return results.hasNext() || source.hasNext();
 			}
 
 			@Override
 			public Entity next()
 			{
-				Entity sourceEntity = null;
-				if (current >= size)
+				if (!results.hasNext())
 				{
-					if (source.hasNext())
+					List<Entity> sourceEntities = new ArrayList<>(ANNOTATE_BATCH_SIZE);
+					while (source.hasNext() && sourceEntities.size() < ANNOTATE_BATCH_SIZE)
 					{
-						try
-						{
-							sourceEntity = source.next();
-							results = annotateEntity(sourceEntity, updateMode);
-						}
-						catch (IOException e)
+						sourceEntities.add(source.next());
+					}
+
+					List<List<Entity>> resultsPerSourceEntity;
+					try
+					{
+						resultsPerSourceEntity = annotateEntities(sourceEntities, updateMode);
+					}
+					catch (IOException e)
+					{
+						throw new RuntimeException(e);
+					}
+					catch (InterruptedException e)
+					{
+						throw new RuntimeException(e);
+					}
+
+					// source entities without annotation results are returned as is
+					List<Entity> batchResults = new ArrayList<>(sourceEntities.size());
+					for (int i = 0; i < sourceEntities.size(); ++i)
+					{
+						List<Entity> sourceEntityResults = resultsPerSourceEntity.get(i);
+						if (sourceEntityResults.size() > 0)
 						{
-							throw new RuntimeException(e);
+							batchResults.addAll(sourceEntityResults);
 						}
-						catch (InterruptedException e)
+						else
 						{
-							throw new RuntimeException(e);
+							batchResults.add(sourceEntities.get(i));
 						}
-
-						size = results.size();
 					}
-					current = 0;
+					results = batchResults.iterator();
 				}
-				if (results.size() > 0)
-				{
-					result = results.get(current);
-				}
-				else
-				{
-					result = sourceEntity;
-				}
-				++current;
-				return result;
+				return results.next();
 			}
 
 			@Override
@@ -83,6 +93,26 @@ public abstract class AbstractRepositoryEntityAnnotator extends AbstractReposito
 		};
 	}
 
+	/**
+	 * Annotates a batch of entities. Override to annotate a batch more efficiently than entity by entity.
+	 * 
+	 * @param entities
+	 *            the entities to annotate
+	 * @param updateMode
+	 *            boolean indicating if existing annotations should be updated
+	 * @return for each entity the annotated entities
+	 */
+	protected List<List<Entity>> annotateEntities(List<Entity> entities, boolean updateMode) throws IOException,
+			InterruptedException
+	{
+		List<List<Entity>> results = new ArrayList<>(entities.size());
+		for (Entity entity : entities)
+		{
+			results.add(annotateEntity(entity, updateMode));
+		}
+		return results;
+	}
+
 	public abstract List<Entity> annotateEntity(Entity entity, boolean updateMode)
 			throws IOException, InterruptedException;
 
@@ -1,5 +1,6 @@
 package org.molgenis.data.annotation;
 
+import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
 import org.molgenis.data.DatabaseAction;
 import org.molgenis.data.Entity;
@@ -9,21 +10,32 @@ import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.annotation.utils.AnnotatorUtils;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.fieldtypes.FieldType;
+import org.molgenis.fieldtypes.MrefField;
+import org.molgenis.fieldtypes.XrefField;
 import org.molgenis.security.core.runas.RunAsSystemProxy;
 import org.molgenis.security.permission.PermissionSystemService;
+import org.molgenis.util.OrderedBatchExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+import javax.annotation.PreDestroy;
+
 import static org.molgenis.security.core.runas.RunAsSystemProxy.runAsSystem;
 
 @Component
@@ -35,12 +47,25 @@ public class CrudRepositoryAnnotator
 
 	private final DataService dataService;
 	private final PermissionSystemService permissionSystemService;
+	private final OrderedBatchExecutor annotationExecutor;
 
+	/**
+	 * @param dataService
+	 * @param permissionSystemService
+	 * @param annotatorThreads
+	 *            number of worker threads that annotate batches of entities
+	 */
 	@Autowired
-	public CrudRepositoryAnnotator(DataService dataService, PermissionSystemService permissionSystemService)
+	public CrudRepositoryAnnotator(DataService dataService, PermissionSystemService permissionSystemService,
+			@Value("${annotators.threads:4}") int annotatorThreads)
 	{
+		if (annotatorThreads < 1)
+		{
+			throw new IllegalArgumentException("Number of annotator threads must be at least 1");
+		}
 		this.dataService = dataService;
 		this.permissionSystemService = permissionSystemService;
+		this.annotationExecutor = new OrderedBatchExecutor("annotator-%d", annotatorThreads);
 	}
 
 	/**
@@ -97,7 +122,7 @@ public class CrudRepositoryAnnotator
 						.getCompoundResultAttribute(annotator, entityMetaData);
 
 				runAsSystem(() -> addAnnotatorMetadataToRepositories(entityMetaData, compoundAttributeMetaData));
-				crudRepository = iterateOverEntitiesAndAnnotate(repository, repository, annotator,
+				crudRepository = iterateOverBatchesAndAnnotate(repository, repository, annotator,
 						DatabaseAction.UPDATE);
 			}
 
@@ -156,6 +181,84 @@ public class CrudRepositoryAnnotator
 		return targetRepository;
 	}
 
+	/**
+	 * Iterates over all the entities within a repository in batches and annotates the batches on worker threads. The
+	 * calling thread reads the next batches and writes the annotated batches in source order.
+	 * 
+	 * Writes are not handed off to other threads: the transaction of {@link #annotate(RepositoryAnnotator, Repository)}
+	 * and its connection are bound to the calling thread, a write on another thread would not be part of it. The
+	 * references that the annotator requires are resolved on the calling thread before a batch is handed off, so that
+	 * workers do not load referenced entities outside the transaction.
+	 */
+	private Repository iterateOverBatchesAndAnnotate(Repository sourceRepository, Repository targetRepository,
+			RepositoryAnnotator annotator, DatabaseAction action)
+	{
+		List<AttributeMetaData> requiredAttributes = annotator.getRequiredAttributes();
+		Iterator<List<Entity>> batches = Iterators.transform(
+				Iterables.partition(sourceRepository, BATCH_SIZE).iterator(),
+				batch -> resolveReferences(batch, requiredAttributes));
+		annotationExecutor.process(batches, batch -> Lists.newArrayList(annotator.annotate(batch)),
+				annotatedBatch -> processBatch(annotatedBatch, targetRepository, action));
+		return targetRepository;
+	}
+
+	/**
+	 * Loads the entities referenced by the required reference attributes and stores them in the entities, so that
+	 * reading them again does not query the data service.
+	 */
+	private static List<Entity> resolveReferences(List<Entity> batch, List<AttributeMetaData> requiredAttributes)
+	{
+		for (Entity entity : batch)
+		{
+			for (AttributeMetaData requiredAttribute : requiredAttributes)
+			{
+				String attributeName = requiredAttribute.getName();
+				AttributeMetaData attribute = entity.getEntityMetaData().getAttribute(attributeName);
+				if (attribute == null) continue;
+
+				FieldType dataType = attribute.getDataType();
+				if (dataType instanceof XrefField)
+				{
+					Entity refEntity = entity.getEntity(attributeName);
+					if (refEntity != null)
+					{
+						loadReferencedEntity(refEntity, requiredAttribute);
+						entity.set(attributeName, refEntity);
+					}
+				}
+				else if (dataType instanceof MrefField)
+				{
+					List<Entity> refEntities = Lists.newArrayList(entity.getEntities(attributeName));
+					refEntities.forEach(refEntity -> loadReferencedEntity(refEntity, requiredAttribute));
+					entity.set(attributeName, refEntities);
+				}
+			}
+		}
+		return batch;
+	}
+
+	private static void loadReferencedEntity(Entity refEntity, AttributeMetaData requiredAttribute)
+	{
+		EntityMetaData requiredRefEntity = requiredAttribute.getRefEntity();
+		if (requiredRefEntity != null)
+		{
+			requiredRefEntity.getAtomicAttributes().forEach(refAttribute -> refEntity.get(refAttribute.getName()));
+		}
+		else
+		{
+			refEntity.getLabelValue();
+		}
+	}
+
+	/**
+	 * Stops the annotation worker threads
+	 */
+	@PreDestroy
+	public void close()
+	{
+		annotationExecutor.close();
+	}
+
 	private void processBatch(List<Entity> batch, Repository repository, DatabaseAction action)
 	{
 		switch (action)
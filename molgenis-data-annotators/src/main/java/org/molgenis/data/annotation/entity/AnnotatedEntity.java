@@ -0,0 +1,112 @@
+package org.molgenis.data.annotation.entity;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.support.AbstractEntity;
+import org.molgenis.data.support.EntityMetaDataUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+/**
+ * Entity that adds annotation values to an annotated entity without copying the values of the annotated entity.
+ * Values that are set on this entity do not change the annotated entity.
+ */
+public class AnnotatedEntity extends AbstractEntity
+{
+	private static final long serialVersionUID = 1L;
+
+	private final Entity entity;
+	private final EntityMetaData entityMetaData;
+	private final Map<String, Object> values = new LinkedCaseInsensitiveMap<>();
+
+	/**
+	 * @param entity
+	 *            annotated entity
+	 * @param entityMetaData
+	 *            meta data of the annotated entity including the annotation attributes
+	 */
+	public AnnotatedEntity(Entity entity, EntityMetaData entityMetaData)
+	{
+		this.entity = requireNonNull(entity);
+		this.entityMetaData = requireNonNull(entityMetaData);
+	}
+
+	@Override
+	public EntityMetaData getEntityMetaData()
+	{
+		return entityMetaData;
+	}
+
+	@Override
+	public Iterable<String> getAttributeNames()
+	{
+		return EntityMetaDataUtils.getAttributeNames(entityMetaData.getAtomicAttributes());
+	}
+
+	@Override
+	public Object getIdValue()
+	{
+		AttributeMetaData idAttr = entityMetaData.getIdAttribute();
+		return idAttr != null ? get(idAttr.getName()) : null;
+	}
+
+	@Override
+	public Object get(String attributeName)
+	{
+		if (values.containsKey(attributeName))
+		{
+			return values.get(attributeName);
+		}
+
+		// annotation attributes that were not set do not exist in the annotated entity
+		EntityMetaData annotatedEntityMetaData = entity.getEntityMetaData();
+		if (annotatedEntityMetaData != null && annotatedEntityMetaData.getAttribute(attributeName) == null)
+		{
+			return null;
+		}
+		return entity.get(attributeName);
+	}
+
+	@Override
+	public void set(String attributeName, Object value)
+	{
+		values.put(attributeName, value);
+	}
+
+	@Override
+	public void set(Entity other)
+	{
+		for (String attributeName : other.getAttributeNames())
+		{
+			set(attributeName, other.get(attributeName));
+		}
+	}
+
+	@Override
+	public int hashCode()
+	{
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + entityMetaData.hashCode();
+		result = prime * result + entity.hashCode();
+		result = prime * result + values.hashCode();
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		AnnotatedEntity other = (AnnotatedEntity) obj;
+		if (!entityMetaData.equals(other.entityMetaData)) return false;
+		if (!entity.equals(other.entity)) return false;
+		if (!values.equals(other.values)) return false;
+		return true;
+	}
+}
@@ -4,6 +4,8 @@ import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
 import org.molgenis.data.annotation.CmdLineAnnotatorSettingsConfigurer;
 
+import static java.util.stream.Collectors.toList;
+
 import java.util.List;
 
 /**
@@ -25,6 +27,22 @@ public interface EntityAnnotator extends Annotator
 	 */
 	Iterable<Entity> annotateEntity(Entity sourceEntity, boolean updateMode);
 
+	/**
+	 * Annotates a batch of entities. Annotators that can look up the annotations of many entities at once override
+	 * this method, by default the entities are annotated one by one.
+	 *
+	 * @param sourceEntities
+	 *            the entities to annotate
+	 * @param updateMode
+	 *            boolean indicating if existing annotations should be updated
+	 * @return for each source entity the {@link Iterable} for the annotated data
+	 */
+	default List<Iterable<Entity>> annotateEntities(List<Entity> sourceEntities, boolean updateMode)
+	{
+		return sourceEntities.stream().map(sourceEntity -> annotateEntity(sourceEntity, updateMode))
+				.collect(toList());
+	}
+
 	/**
 	 * @return the {@link List<AttributeMetaData>} that must be present in the source entity.
 	 */
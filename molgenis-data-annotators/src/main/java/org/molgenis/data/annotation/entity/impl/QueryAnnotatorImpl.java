@@ -4,20 +4,31 @@ import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
 import org.molgenis.data.annotation.CmdLineAnnotatorSettingsConfigurer;
+import org.molgenis.data.annotation.entity.AnnotatedEntity;
 import org.molgenis.data.annotation.entity.AnnotatorInfo;
 import org.molgenis.data.annotation.entity.EntityAnnotator;
 import org.molgenis.data.annotation.entity.QueryCreator;
+import org.molgenis.data.annotation.query.LocusQueryCreator;
 import org.molgenis.data.annotation.resources.Resources;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
-import org.molgenis.data.support.MapEntity;
+import org.molgenis.data.vcf.VcfRepository;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
 
@@ -37,6 +48,18 @@ public abstract class QueryAnnotatorImpl implements EntityAnnotator
 	private final String sourceRepositoryName;
 	private final AnnotatorInfo info;
 	private final CmdLineAnnotatorSettingsConfigurer cmdLineAnnotatorSettingsConfigurer;
+	/**
+	 * Meta data of annotated entities per meta data of input entities (compared by identity)
+	 */
+	private final LoadingCache<EntityMetaData, EntityMetaData> annotatedEntityMetaDataCache = CacheBuilder.newBuilder()
+			.weakKeys().build(new CacheLoader<EntityMetaData, EntityMetaData>()
+			{
+				@Override
+				public EntityMetaData load(EntityMetaData entityMetaData)
+				{
+					return createAnnotatedEntityMetaData(entityMetaData);
+				}
+			});
 
 	public QueryAnnotatorImpl(String sourceRepositoryName, AnnotatorInfo info, QueryCreator queryCreator,
 			DataService dataService, Resources resources,
@@ -100,13 +123,88 @@ public abstract class QueryAnnotatorImpl implements EntityAnnotator
 				}
 			};
 		}
-		DefaultEntityMetaData meta = new DefaultEntityMetaData(entity.getEntityMetaData());
-		info.getOutputAttributes().forEach(meta::addAttributeMetaData);
-		Entity resultEntity = new MapEntity(entity, meta);
+		return annotateEntity(entity, annotatationSourceEntities, updateMode);
+	}
+
+	/**
+	 * Annotates a batch of entities. If the annotation source is queried by locus, the entities are grouped per
+	 * chromosome and the sorted positions of each chromosome are looked up in the annotation source at once instead of
+	 * querying the source for each entity. Each batch is looked up independently. Entities with an unknown locus and
+	 * entities annotated with other queries are annotated one by one.
+	 */
+	@Override
+	public List<Iterable<Entity>> annotateEntities(List<Entity> entities, boolean updateMode)
+	{
+		if (!(queryCreator instanceof LocusQueryCreator) || !resources.hasRepository(sourceRepositoryName))
+		{
+			return EntityAnnotator.super.annotateEntities(entities, updateMode);
+		}
+
+		// positions of the entities per chromosome, in order of appearance
+		Map<String, List<Long>> positionsPerChrom = new LinkedHashMap<>();
+		for (Entity entity : entities)
+		{
+			String chrom = entity.getString(VcfRepository.CHROM);
+			Long pos = entity.getLong(VcfRepository.POS);
+			if (chrom != null && pos != null)
+			{
+				positionsPerChrom.computeIfAbsent(chrom, key -> new ArrayList<>()).add(pos);
+			}
+		}
+
+		// one lookup of the sorted positions in the annotation source per chromosome
+		Map<String, long[]> sortedPositionsPerChrom = new LinkedHashMap<>();
+		Map<String, List<Iterable<Entity>>> sourceEntitiesPerChrom = new LinkedHashMap<>();
+		for (Map.Entry<String, List<Long>> entry : positionsPerChrom.entrySet())
+		{
+			String chrom = entry.getKey();
+			long[] sortedPositions = entry.getValue().stream().mapToLong(Long::longValue).sorted().distinct()
+					.toArray();
+			List<Iterable<Entity>> sourceEntities = resources.findAll(sourceRepositoryName, chrom, sortedPositions);
+			if (sourceEntities.size() != sortedPositions.length)
+			{
+				throw new MolgenisDataException("Annotation source [" + sourceRepositoryName + "] returned "
+						+ sourceEntities.size() + " results for " + sortedPositions.length + " positions of chromosome ["
+						+ chrom + "]");
+			}
+			sortedPositionsPerChrom.put(chrom, sortedPositions);
+			sourceEntitiesPerChrom.put(chrom, sourceEntities);
+		}
+
+		List<Iterable<Entity>> result = new ArrayList<>(entities.size());
+		for (Entity entity : entities)
+		{
+			String chrom = entity.getString(VcfRepository.CHROM);
+			Long pos = entity.getLong(VcfRepository.POS);
+			if (chrom != null && pos != null)
+			{
+				int index = Arrays.binarySearch(sortedPositionsPerChrom.get(chrom), pos);
+				result.add(annotateEntity(entity, sourceEntitiesPerChrom.get(chrom).get(index), updateMode));
+			}
+			else
+			{
+				result.add(annotateEntity(entity, updateMode));
+			}
+		}
+		return result;
+	}
+
+	private List<Entity> annotateEntity(Entity entity, Iterable<Entity> annotatationSourceEntities,
+			boolean updateMode)
+	{
+		EntityMetaData meta = annotatedEntityMetaDataCache.getUnchecked(entity.getEntityMetaData());
+		Entity resultEntity = new AnnotatedEntity(entity, meta);
 		processQueryResults(entity, annotatationSourceEntities, resultEntity, updateMode);
 		return Collections.singletonList(resultEntity);
 	}
 
+	private EntityMetaData createAnnotatedEntityMetaData(EntityMetaData entityMetaData)
+	{
+		DefaultEntityMetaData meta = new DefaultEntityMetaData(entityMetaData);
+		info.getOutputAttributes().forEach(meta::addAttributeMetaData);
+		return meta;
+	}
+
 	@Override
 	public CmdLineAnnotatorSettingsConfigurer getCmdLineAnnotatorSettingsConfigurer()
 	{
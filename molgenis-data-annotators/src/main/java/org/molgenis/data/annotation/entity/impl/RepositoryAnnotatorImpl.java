@@ -53,6 +53,17 @@ public class RepositoryAnnotatorImpl extends AbstractRepositoryEntityAnnotator
 		return Lists.newArrayList(entityAnnotator.annotateEntity(entity, updateMode));
 	}
 
+	@Override
+	protected List<List<Entity>> annotateEntities(List<Entity> entities, boolean updateMode)
+	{
+		List<List<Entity>> results = new ArrayList<>(entities.size());
+		for (Iterable<Entity> entityResults : entityAnnotator.annotateEntities(entities, updateMode))
+		{
+			results.add(Lists.newArrayList(entityResults));
+		}
+		return results;
+	}
+
 	@Override
 	public AnnotatorInfo getInfo()
 	{
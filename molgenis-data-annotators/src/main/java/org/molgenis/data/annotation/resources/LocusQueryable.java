@@ -0,0 +1,25 @@
+package org.molgenis.data.annotation.resources;
+
+import java.util.List;
+
+import org.molgenis.data.Entity;
+
+/**
+ * Repository sorted on chromosome and position that can look up many positions of a chromosome in a single forward
+ * pass through its data instead of seeking to every position separately.
+ */
+public interface LocusQueryable
+{
+	/**
+	 * Finds the entities at the given positions of a chromosome.
+	 *
+	 * @param chrom
+	 *            name of the chromosome
+	 * @param positions
+	 *            positions in ascending order
+	 * @return for each position the entities found
+	 * @throws IllegalArgumentException
+	 *             if the positions are not sorted
+	 */
+	List<? extends List<Entity>> query(String chrom, long[] positions);
+}
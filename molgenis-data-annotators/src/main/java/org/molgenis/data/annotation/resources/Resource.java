@@ -1,7 +1,12 @@
 package org.molgenis.data.annotation.resources;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
+import org.molgenis.data.annotation.datastructures.Locus;
+import org.molgenis.data.annotation.query.LocusQueryCreator;
 
 /**
  * A Resource that can be queried and that may be unavailable. Used to annotate entities.
@@ -26,4 +31,24 @@ public interface Resource
 	 * @return the {@link Entity}s found
 	 */
 	Iterable<Entity> findAll(Query q);
+
+	/**
+	 * Finds the entities at many positions of one chromosome. By default each position is queried separately,
+	 * resources that are backed by a {@link LocusQueryable} repository look up all positions in one pass.
+	 * 
+	 * @param chrom
+	 *            name of the chromosome
+	 * @param positions
+	 *            positions in ascending order
+	 * @return for each position the {@link Entity}s found
+	 */
+	default List<Iterable<Entity>> findAll(String chrom, long[] positions)
+	{
+		List<Iterable<Entity>> result = new ArrayList<>(positions.length);
+		for (long pos : positions)
+		{
+			result.add(findAll(LocusQueryCreator.createQuery(new Locus(chrom, pos))));
+		}
+		return result;
+	}
 }
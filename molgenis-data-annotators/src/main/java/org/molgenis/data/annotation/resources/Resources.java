@@ -1,5 +1,6 @@
 package org.molgenis.data.annotation.resources;
 
+import java.util.List;
 import java.util.Set;
 
 import org.molgenis.data.Entity;
@@ -26,5 +27,18 @@ public interface Resources
 	 */
 	Iterable<Entity> findAll(String name, Query q);
 
+	/**
+	 * Finds the entities at many positions of one chromosome in a resource.
+	 * 
+	 * @param name
+	 *            the name of the {@link Resource} to query
+	 * @param chrom
+	 *            name of the chromosome
+	 * @param positions
+	 *            positions in ascending order
+	 * @return for each position the {@link Entity}s found
+	 */
+	List<Iterable<Entity>> findAll(String name, String chrom, long[] positions);
+
 	Set<String> getResourcesNames();
 }
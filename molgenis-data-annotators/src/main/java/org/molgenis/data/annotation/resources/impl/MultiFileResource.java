@@ -2,7 +2,9 @@ package org.molgenis.data.annotation.resources.impl;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -99,4 +101,15 @@ public class MultiFileResource implements Resource {
         return result;
     }
 
+    @Override
+    public List<Iterable<Entity>> findAll(String chrom, long[] positions) {
+        // initialize after autowiring is complete and resources is empty
+        isAvailable();
+        Resource resource = resources.get(chrom);
+        if (resource == null) {
+            LOG.debug("No file for chromosome {} skipping..", chrom);
+            return Collections.<Iterable<Entity>> nCopies(positions.length, Collections.<Entity> emptyList());
+        }
+        return resource.findAll(chrom, positions);
+    }
 }
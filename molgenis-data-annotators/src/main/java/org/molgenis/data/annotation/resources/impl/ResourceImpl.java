@@ -1,11 +1,15 @@
 package org.molgenis.data.annotation.resources.impl;
 
+import static java.util.Collections.unmodifiableList;
+
 import java.io.File;
 import java.util.Iterator;
+import java.util.List;
 
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
+import org.molgenis.data.annotation.resources.LocusQueryable;
 import org.molgenis.data.annotation.resources.Resource;
 import org.molgenis.data.annotation.resources.ResourceConfig;
 import org.slf4j.Logger;
@@ -83,6 +87,21 @@ public class ResourceImpl implements Resource
 		};
 	}
 
+	/**
+	 * Finds the entities at many positions of one chromosome in a single pass if the repository is a
+	 * {@link LocusQueryable}, else queries the positions one by one.
+	 */
+	@Override
+	public List<Iterable<Entity>> findAll(String chrom, long[] positions)
+	{
+		Repository repository = getRepository();
+		if (repository instanceof LocusQueryable)
+		{
+			return unmodifiableList(((LocusQueryable) repository).query(chrom, positions));
+		}
+		return Resource.super.findAll(chrom, positions);
+	}
+
 	private boolean needsRefresh()
 	{
 		File newFile = config.getFile();
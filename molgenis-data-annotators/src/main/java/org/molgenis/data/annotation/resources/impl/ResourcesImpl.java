@@ -2,6 +2,7 @@ package org.molgenis.data.annotation.resources.impl;
 
 import static java.util.stream.Collectors.toMap;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +11,8 @@ import java.util.Set;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
+import org.molgenis.data.annotation.datastructures.Locus;
+import org.molgenis.data.annotation.query.LocusQueryCreator;
 import org.molgenis.data.annotation.resources.Resource;
 import org.molgenis.data.annotation.resources.Resources;
 import org.slf4j.Logger;
@@ -71,6 +74,43 @@ public class ResourcesImpl implements Resources
 		};
 	}
 
+	@Override
+	public List<Iterable<Entity>> findAll(String name, String chrom, long[] positions)
+	{
+		if (resources.containsKey(name))
+		{
+			// Don't check isAvailable() yet, it's too costly.
+			try
+			{
+				return resources.get(name).findAll(chrom, positions);
+			}
+			catch (Exception ex)
+			{
+				// something went wrong, find out what is the cause
+				if (resources.get(name).isAvailable())
+				{
+					LOG.error("Error querying Resource {}.", name);
+					throw ex;
+				}
+				LOG.warn("Resource {} is unavailable, trying dataService instead.", name);
+			}
+		}
+		List<Iterable<Entity>> result = new ArrayList<>(positions.length);
+		for (long pos : positions)
+		{
+			Query q = LocusQueryCreator.createQuery(new Locus(chrom, pos));
+			result.add(new Iterable<Entity>()
+			{
+				@Override
+				public Iterator<Entity> iterator()
+				{
+					return dataService.findAll(name, q).iterator();
+				}
+			});
+		}
+		return result;
+	}
+
 	@Override
 	public Set<String> getResourcesNames()
 	{
@@ -0,0 +1,214 @@
+package org.molgenis.data.annotator.tabix;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * BGZF (block compressed gzip) file of which the blocks can be read by multiple threads at the same time. Blocks are
+ * read with positional reads on a shared file channel and the most recently decompressed blocks are cached.
+ * 
+ * A file channel is closed when a thread that is reading from it is interrupted, for example by cancelling a query
+ * with Future.cancel(true). The interrupted read fails and the channel is reopened for the other readers.
+ */
+class BlockCompressedFile implements Closeable
+{
+	private static final int MAX_BLOCK_SIZE = 64 * 1024;
+	private static final int BLOCK_HEADER_LENGTH = 12;
+	private static final int BLOCK_FOOTER_LENGTH = 8;
+
+	private final Path path;
+	private final Cache<Long, Block> blockCache;
+	private volatile FileChannel fileChannel;
+	private volatile boolean closed;
+
+	/**
+	 * @param file
+	 *            BGZF file
+	 * @param maxCachedBlocks
+	 *            maximum number of decompressed blocks to cache
+	 */
+	BlockCompressedFile(File file, int maxCachedBlocks) throws IOException
+	{
+		this.path = file.toPath();
+		this.fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+		this.blockCache = CacheBuilder.newBuilder().maximumSize(maxCachedBlocks).build();
+	}
+
+	/**
+	 * Returns the decompressed block that starts at the given file position
+	 *
+	 * @param blockAddress
+	 *            position of the compressed block in the file
+	 * @return decompressed block or null if the position is at the end of the file
+	 */
+	Block getBlock(long blockAddress) throws IOException
+	{
+		try
+		{
+			Block block = blockCache.get(blockAddress, () -> readBlock(blockAddress));
+			return block != Block.END_OF_FILE ? block : null;
+		}
+		catch (ExecutionException | UncheckedExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+			{
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private Block readBlock(long blockAddress) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(MAX_BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining())
+		{
+			int nrBytes = read(buffer, blockAddress + buffer.position());
+			if (nrBytes < 0) break;
+		}
+		if (buffer.position() == 0)
+		{
+			return Block.END_OF_FILE;
+		}
+		if (buffer.position() < BLOCK_HEADER_LENGTH || buffer.get(0) != 31 || (buffer.get(1) & 0xff) != 139)
+		{
+			throw new IOException("Invalid BGZF block at file position " + blockAddress);
+		}
+
+		// find the total block size in the 'BC' subfield of the extra field
+		int extraLength = buffer.getShort(10) & 0xffff;
+		int blockSize = -1;
+		for (int i = BLOCK_HEADER_LENGTH; i + 4 <= BLOCK_HEADER_LENGTH + extraLength;)
+		{
+			int subfieldLength = buffer.getShort(i + 2) & 0xffff;
+			if (buffer.get(i) == 'B' && buffer.get(i + 1) == 'C' && subfieldLength == 2)
+			{
+				blockSize = (buffer.getShort(i + 4) & 0xffff) + 1;
+				break;
+			}
+			i += 4 + subfieldLength;
+		}
+		if (blockSize < 0 || blockSize > buffer.position())
+		{
+			throw new IOException("Invalid BGZF block at file position " + blockAddress);
+		}
+
+		int uncompressedSize = buffer.getInt(blockSize - 4);
+		byte[] data = new byte[uncompressedSize];
+		Inflater inflater = new Inflater(true);
+		try
+		{
+			int compressedOffset = BLOCK_HEADER_LENGTH + extraLength;
+			inflater.setInput(buffer.array(), compressedOffset, blockSize - compressedOffset - BLOCK_FOOTER_LENGTH);
+			int inflatedSize = 0;
+			while (inflatedSize < uncompressedSize && !inflater.finished())
+			{
+				int nrBytes = inflater.inflate(data, inflatedSize, uncompressedSize - inflatedSize);
+				if (nrBytes == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+				inflatedSize += nrBytes;
+			}
+			if (inflatedSize != uncompressedSize)
+			{
+				throw new IOException("Invalid BGZF block at file position " + blockAddress);
+			}
+		}
+		catch (DataFormatException e)
+		{
+			throw new IOException("Invalid BGZF block at file position " + blockAddress, e);
+		}
+		finally
+		{
+			inflater.end();
+		}
+		return new Block(data, blockSize);
+	}
+
+	private int read(ByteBuffer buffer, long position) throws IOException
+	{
+		while (true)
+		{
+			FileChannel channel = fileChannel;
+			try
+			{
+				return channel.read(buffer, position);
+			}
+			catch (ClosedByInterruptException e)
+			{
+				// this thread was interrupted
+				throw e;
+			}
+			catch (ClosedChannelException e)
+			{
+				// the channel was closed by the interrupt of another reader
+				if (closed) throw e;
+				reopen(channel);
+			}
+		}
+	}
+
+	private synchronized void reopen(FileChannel closedChannel) throws IOException
+	{
+		if (!closed && fileChannel == closedChannel)
+		{
+			fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		closed = true;
+		fileChannel.close();
+	}
+
+	/**
+	 * Decompressed BGZF block
+	 */
+	static class Block
+	{
+		private static final Block END_OF_FILE = new Block(new byte[0], 0);
+
+		private final byte[] data;
+		private final int compressedSize;
+
+		Block(byte[] data, int compressedSize)
+		{
+			this.data = requireNonNull(data);
+			this.compressedSize = compressedSize;
+		}
+
+		/**
+		 * @return decompressed bytes, must not be modified
+		 */
+		byte[] getData()
+		{
+			return data;
+		}
+
+		/**
+		 * @return size of the compressed block in the file
+		 */
+		int getCompressedSize()
+		{
+			return compressedSize;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package org.molgenis.data.annotator.tabix;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.molgenis.data.annotator.tabix.BlockCompressedFile.Block;
+
+/**
+ * Reads lines from a {@link BlockCompressedFile} starting at a virtual file pointer. A virtual file pointer consists
+ * of the position of the compressed block in the file in the upper 48 bits and the offset in the decompressed block
+ * in the lower 16 bits.
+ *
+ * Readers are cheap to create but not thread-safe, create one reader per thread or query.
+ */
+class BlockCompressedLineReader
+{
+	private final BlockCompressedFile blockCompressedFile;
+
+	private long blockAddress;
+	private Block block;
+	private int blockOffset;
+
+	BlockCompressedLineReader(BlockCompressedFile blockCompressedFile)
+	{
+		this.blockCompressedFile = requireNonNull(blockCompressedFile);
+	}
+
+	/**
+	 * Moves to the given virtual file pointer
+	 */
+	void seek(long filePointer) throws IOException
+	{
+		long newBlockAddress = filePointer >>> 16;
+		if (block == null || newBlockAddress != blockAddress)
+		{
+			blockAddress = newBlockAddress;
+			block = blockCompressedFile.getBlock(blockAddress);
+		}
+		blockOffset = (int) (filePointer & 0xffff);
+		if (block != null && blockOffset > block.getData().length)
+		{
+			throw new IOException("Invalid file pointer " + filePointer);
+		}
+	}
+
+	/**
+	 * Returns the virtual file pointer of the next byte. At the end of a block it points to the start of the next
+	 * block.
+	 */
+	long getFilePointer()
+	{
+		if (block != null && blockOffset == block.getData().length)
+		{
+			return (blockAddress + block.getCompressedSize()) << 16;
+		}
+		return blockAddress << 16 | blockOffset;
+	}
+
+	/**
+	 * Reads the next line without the line terminator
+	 *
+	 * @return line or null at the end of the file
+	 */
+	String readLine() throws IOException
+	{
+		ByteArrayOutputStream lineParts = null;
+		for (;;)
+		{
+			if (!nextBlockIfExhausted())
+			{
+				return lineParts != null && lineParts.size() > 0 ? lineParts.toString(ISO_8859_1.name()) : null;
+			}
+
+			byte[] data = block.getData();
+			int lineStart = blockOffset;
+			int lineEnd = lineStart;
+			while (lineEnd < data.length && data[lineEnd] != '\n')
+			{
+				++lineEnd;
+			}
+
+			if (lineEnd < data.length)
+			{
+				blockOffset = lineEnd + 1;
+				if (lineParts == null)
+				{
+					return new String(data, lineStart, lineEnd - lineStart, ISO_8859_1);
+				}
+				lineParts.write(data, lineStart, lineEnd - lineStart);
+				return lineParts.toString(ISO_8859_1.name());
+			}
+
+			// line continues in the next block
+			if (lineParts == null)
+			{
+				lineParts = new ByteArrayOutputStream();
+			}
+			lineParts.write(data, lineStart, lineEnd - lineStart);
+			blockOffset = lineEnd;
+		}
+	}
+
+	/**
+	 * Moves to the next non-empty block if all bytes of the current block were read
+	 *
+	 * @return false at the end of the file
+	 */
+	private boolean nextBlockIfExhausted() throws IOException
+	{
+		while (block != null && blockOffset == block.getData().length)
+		{
+			blockAddress += block.getCompressedSize();
+			block = blockCompressedFile.getBlock(blockAddress);
+			blockOffset = 0;
+		}
+		return block != null;
+	}
+}
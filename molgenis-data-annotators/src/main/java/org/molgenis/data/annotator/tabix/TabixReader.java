@@ -27,21 +27,31 @@ package org.molgenis.data.annotator.tabix;
 
 /* Contact: Heng Li <hengli@broadinstitute.org> */
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 import net.sf.samtools.util.BlockCompressedInputStream;
 
 public class TabixReader
 {
+	/**
+	 * Maximum number of decompressed blocks that are cached per file
+	 */
+	private static final int MAX_CACHED_BLOCKS = 128;
+
 	public String filename;
 	public BlockCompressedInputStream blockCompressedInputStream;
+	private final BlockCompressedFile blockCompressedFile;
 
 	private int mPreset;
 	private int mSc;
@@ -73,6 +83,7 @@ public class TabixReader
 	{
 		this.filename = filename;
 		this.blockCompressedInputStream = new BlockCompressedInputStream(new File(filename));
+		this.blockCompressedFile = new BlockCompressedFile(new File(filename), MAX_CACHED_BLOCKS);
 		readIndex(filename);
 	}
 
@@ -338,16 +349,21 @@ public class TabixReader
 		return intv;
 	}
 
-	public class Iterator
+	public class Iterator implements Closeable
 	{
 		private int i;
 		private final int internalChromosomeID, beginPosition, endPosition;
 		private final TPair64[] off;
+		private final BlockCompressedLineReader is;
 		private long curr_off;
 		private boolean isEndOfFile;
 
+		/**
+		 * Creates an iterator with its own line reader, iterators can be used concurrently
+		 */
 		public Iterator(final int _tid, final int _beg, final int _end, final TPair64[] _off)
 		{
+			this.is = new BlockCompressedLineReader(blockCompressedFile);
 			i = -1;
 			curr_off = 0;
 			isEndOfFile = false;
@@ -362,47 +378,185 @@ public class TabixReader
 			if (isEndOfFile) return null;
 			for (;;)
 			{
-				synchronized (blockCompressedInputStream)
-				{
-					if (curr_off == 0 || !less64(curr_off, off[i].v))
-					{ // then jump to the next chunk
-						if (i == off.length - 1) break; // no more chunks
-						if (i >= 0) assert (curr_off == off[i].v); // otherwise bug
-						if (i < 0 || off[i].v != off[i + 1].u)
-						{ // not adjacent chunks; then seek
-							blockCompressedInputStream.seek(off[i + 1].u);
-							curr_off = blockCompressedInputStream.getFilePointer();
-						}
-						++i;
-					}
-					else
-					{
-						blockCompressedInputStream.seek(curr_off);
-					}
-					String s;
-					if ((s = readLine(blockCompressedInputStream)) != null)
-					{
-						TIntv intv;
-						char[] str = s.toCharArray();
-						curr_off = blockCompressedInputStream.getFilePointer();
-						if (str.length == 0 || str[0] == mMeta) continue;
-						intv = getIntv(s);
-						if (intv.internalChromosomeID != internalChromosomeID || intv.beginPosition >= endPosition) break; // no
-						// need
-						// to
-						// proceed
-						else if (intv.end > beginPosition && intv.beginPosition < endPosition) return s; // overlap;
-						// return
+				if (curr_off == 0 || !less64(curr_off, off[i].v))
+				{ // then jump to the next chunk
+					if (i == off.length - 1) break; // no more chunks
+					if (i >= 0) assert (curr_off == off[i].v); // otherwise bug
+					if (i < 0 || off[i].v != off[i + 1].u)
+					{ // not adjacent chunks; then seek
+						is.seek(off[i + 1].u);
+						curr_off = is.getFilePointer();
 					}
-					else break; // end of file
+					++i;
 				}
+				else
+				{
+					is.seek(curr_off);
+				}
+				String s;
+				if ((s = is.readLine()) != null)
+				{
+					TIntv intv;
+					char[] str = s.toCharArray();
+					curr_off = is.getFilePointer();
+					if (str.length == 0 || str[0] == mMeta) continue;
+					intv = getIntv(s);
+					if (intv.internalChromosomeID != internalChromosomeID || intv.beginPosition >= endPosition) break; // no
+					// need
+					// to
+					// proceed
+					else if (intv.end > beginPosition && intv.beginPosition < endPosition) return s; // overlap;
+					// return
+				}
+				else break; // end of file
 			}
 			isEndOfFile = true;
 			return null;
 		}
+
+		/**
+		 * Ends the iteration, the data file is shared with the reader and stays open
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			isEndOfFile = true;
+		}
 	};
 
 	public Iterator query(final int internalChromosomeID, final int beginPosition, final int endPosition)
+	{
+		TPair64[] chunks = getChunks(internalChromosomeID, beginPosition, endPosition);
+		if (chunks == null) return null;
+		return new TabixReader.Iterator(internalChromosomeID, beginPosition, endPosition, chunks);
+	}
+
+	/**
+	 * Queries a region with an iterator that has its own line reader over the shared data file. Iterators created by
+	 * this method can be used concurrently.
+	 *
+	 * @param chromosome
+	 *            chromosome name
+	 * @param beginPosition
+	 *            region begin position, 1-based and inclusive
+	 * @param endPosition
+	 *            region end position, 1-based and inclusive
+	 * @return An iterator over the lines that overlap the region or null if the index contains no lines for the region
+	 */
+	public Iterator openQuery(final String chromosome, final int beginPosition, final int endPosition)
+			throws IOException
+	{
+		int internalChromosomeID = chr2tid(chromosome);
+		if (internalChromosomeID < 0) return null;
+		int beg = Math.max(beginPosition - 1, 0);
+		TPair64[] chunks = getChunks(internalChromosomeID, beg, endPosition);
+		if (chunks == null) return null;
+		return new TabixReader.Iterator(internalChromosomeID, beg, endPosition, chunks);
+	}
+
+	/**
+	 * Queries many positions on one chromosome in a single forward sweep through the data file. Lines that were read
+	 * for one position are not read again for the next position and the data file is only sought forward.
+	 *
+	 * @param chromosome
+	 *            chromosome name
+	 * @param positions
+	 *            1-based positions in ascending order
+	 * @return for each position the lines that start at the position, in file order
+	 * @throws IllegalArgumentException
+	 *             if the positions are not sorted
+	 */
+	public List<List<String>> queryPositions(final String chromosome, final int[] positions) throws IOException
+	{
+		List<List<String>> result = new ArrayList<>(positions.length);
+		int internalChromosomeID = chr2tid(chromosome);
+		if (internalChromosomeID < 0)
+		{
+			for (int i = 0; i < positions.length; ++i)
+				result.add(Collections.emptyList());
+			return result;
+		}
+
+		BlockCompressedLineReader lineReader = new BlockCompressedLineReader(blockCompressedFile);
+		boolean positioned = false;
+		boolean isEndOfFile = false;
+		// line that was read but starts after the previous position
+		String nextLine = null;
+		TIntv nextIntv = null;
+		long nextLineOffset = 0;
+
+		for (int i = 0; i < positions.length; ++i)
+		{
+			if (i > 0 && positions[i] < positions[i - 1])
+			{
+				throw new IllegalArgumentException("Positions are not sorted");
+			}
+			if (i > 0 && positions[i] == positions[i - 1])
+			{
+				result.add(result.get(i - 1));
+				continue;
+			}
+
+			int beginPosition = Math.max(positions[i] - 1, 0);
+			TPair64[] chunks = getChunks(internalChromosomeID, beginPosition, beginPosition + 1);
+			if (chunks == null)
+			{
+				result.add(Collections.emptyList());
+				continue;
+			}
+
+			// seek forward if the lines of this position start after the current line
+			long currentOffset = nextLine != null ? nextLineOffset : lineReader.getFilePointer();
+			if (!positioned || less64(currentOffset, chunks[0].u))
+			{
+				lineReader.seek(chunks[0].u);
+				positioned = true;
+				isEndOfFile = false;
+				nextLine = null;
+			}
+
+			List<String> lines = new ArrayList<>();
+			while (!isEndOfFile)
+			{
+				if (nextLine == null)
+				{
+					nextLineOffset = lineReader.getFilePointer();
+					nextLine = lineReader.readLine();
+					if (nextLine == null)
+					{
+						isEndOfFile = true;
+						break;
+					}
+					if (nextLine.isEmpty() || nextLine.charAt(0) == mMeta)
+					{
+						nextLine = null;
+						continue;
+					}
+					nextIntv = getIntv(nextLine);
+				}
+
+				if (nextIntv.internalChromosomeID == internalChromosomeID
+						&& nextIntv.beginPosition > beginPosition)
+				{
+					break;
+				}
+				if (nextIntv.internalChromosomeID > internalChromosomeID)
+				{
+					break;
+				}
+				if (nextIntv.internalChromosomeID == internalChromosomeID
+						&& nextIntv.beginPosition == beginPosition)
+				{
+					lines.add(nextLine);
+				}
+				nextLine = null;
+			}
+			result.add(lines);
+		}
+		return result;
+	}
+
+	private TPair64[] getChunks(final int internalChromosomeID, final int beginPosition, final int endPosition)
 	{
 		TPair64[] off, chunks;
 		long min_off;
@@ -452,7 +606,7 @@ public class TabixReader
 		TPair64[] ret = new TPair64[n_off];
 		for (i = 0; i < n_off; ++i)
 			ret[i] = new TPair64(off[i].u, off[i].v); // in C, this is inefficient
-		return new TabixReader.Iterator(internalChromosomeID, beginPosition, endPosition, ret);
+		return ret;
 	}
 
 	public Iterator query(final String queryString)
@@ -20,6 +20,7 @@ import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Query;
 import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.annotation.resources.LocusQueryable;
 import org.molgenis.data.support.AbstractRepository;
 import org.molgenis.data.support.MapEntity;
 import org.slf4j.Logger;
@@ -30,7 +31,7 @@ import com.google.common.collect.ImmutableList.Builder;
 
 import au.com.bytecode.opencsv.CSVParser;
 
-public class TabixRepository extends AbstractRepository
+public class TabixRepository extends AbstractRepository implements LocusQueryable
 {
 	private static final Logger LOG = LoggerFactory.getLogger(TabixRepository.class);
 
@@ -115,21 +116,46 @@ public class TabixRepository extends AbstractRepository
 	 *            position
 	 * @return {@link ImmutableList} of entities found
 	 */
-	private synchronized ImmutableList<Entity> query(String chrom, long pos)
+	private ImmutableList<Entity> query(String chrom, long pos)
 	{
-		String queryString = String.format("%s:%s-%2$s", chrom, pos);
-		LOG.debug("query({})", queryString);
-		Builder<Entity> builder = ImmutableList.<Entity> builder();
+		return query(chrom, new long[]
+		{ pos }).get(0);
+	}
+
+	/**
+	 * Queries many positions on one chromosome in a single forward sweep through the tabix file. Can be called by
+	 * multiple threads at the same time.
+	 * 
+	 * @param chrom
+	 *            name of the chromosome
+	 * @param positions
+	 *            positions in ascending order
+	 * @return for each position the {@link ImmutableList} of entities found
+	 * @throws IllegalArgumentException
+	 *             if the positions are not sorted
+	 */
+	@Override
+	public List<ImmutableList<Entity>> query(String chrom, long[] positions)
+	{
+		LOG.debug("query({}, {} positions)", chrom, positions.length);
+		List<ImmutableList<Entity>> result = new ArrayList<>(positions.length);
 		try
 		{
-			org.molgenis.data.annotator.tabix.TabixReader.Iterator iterator = reader.query(queryString);
-			if (iterator != null)
+			int[] tabixPositions = new int[positions.length];
+			for (int i = 0; i < positions.length; ++i)
+			{
+				tabixPositions[i] = (int) Math.max(0, Math.min(positions[i], Integer.MAX_VALUE));
+			}
+			List<List<String>> linesPerPosition = reader.queryPositions(chrom, tabixPositions);
+
+			CSVParser csvParser = getCsvParser();
+			for (int i = 0; i < positions.length; ++i)
 			{
-				String line = iterator.next();
-				while (line != null)
+				Builder<Entity> builder = ImmutableList.<Entity> builder();
+				for (String line : linesPerPosition.get(i))
 				{
-					Entity entity = toEntity(line);
-					if (entity.getLong(positionAttributeName) == pos)
+					Entity entity = toEntity(csvParser, line);
+					if (entity.getLong(positionAttributeName) == positions[i])
 					{
 						builder.add(entity);
 					}
@@ -137,31 +163,19 @@ public class TabixRepository extends AbstractRepository
 					{
 						LOG.warn("TabixReader returns entity that does not match the query!");
 					}
-					line = iterator.next();
 				}
-			}
-			else
-			{
-				return ImmutableList.of(); // empty list
+				result.add(builder.build());
 			}
 		}
 		catch (IOException e)
 		{
 			LOG.error("Error reading from tabix resource", e);
+			for (int i = result.size(); i < positions.length; ++i)
+			{
+				result.add(ImmutableList.of());
+			}
 		}
-		catch (NullPointerException e)
-		{
-			LOG.warn("Unable to read from tabix resource for query: " + queryString
-					+ " (Position not present in resource file?)");
-			LOG.debug("", e);
-		}
-		catch (ArrayIndexOutOfBoundsException e)
-		{
-			LOG.warn("Unable to read from tabix resource for query: " + queryString
-					+ " (Chromosome not present in resource file?)");
-			LOG.debug("", e);
-		}
-		return builder.build();
+		return result;
 	}
 
 	private static Object getFirstEqualsValueFor(String attributeName, Query q)
@@ -170,9 +184,13 @@ public class TabixRepository extends AbstractRepository
 	}
 
 	protected Entity toEntity(String line) throws IOException
+	{
+		return toEntity(getCsvParser(), line);
+	}
+
+	private Entity toEntity(CSVParser csvParser, String line) throws IOException
 	{
 		Entity result = new MapEntity(entityMetaData);
-		CSVParser csvParser = getCsvParser();
 		String[] columns = csvParser.parseLine(line);
 		int i = 0;
 		for (AttributeMetaData amd : entityMetaData.getAtomicAttributes())
@@ -0,0 +1,30 @@
+package org.molgenis.data.annotator.tabix;
+
+import javax.annotation.PostConstruct;
+
+import org.molgenis.data.FileRepositoryCollectionFactory;
+import org.molgenis.data.vcf.VcfDataConfig;
+import org.molgenis.data.vcf.VcfRepositoryCollection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TabixVcfDataConfig
+{
+	@Autowired
+	private FileRepositoryCollectionFactory fileRepositorySourceFactory;
+
+	// registers the VCF repository collection first, so that it is replaced below
+	@Autowired
+	private VcfDataConfig vcfDataConfig;
+
+	/**
+	 * Replaces the VcfRepositorySource factory so that indexed VCF files can answer region queries
+	 */
+	@PostConstruct
+	public void registerTabixVcfRepositorySource()
+	{
+		fileRepositorySourceFactory.addFileRepositoryCollectionClass(TabixVcfRepositoryCollection.class,
+				VcfRepositoryCollection.EXTENSIONS);
+	}
+}
@@ -1,88 +1,132 @@
 package org.molgenis.data.annotator.tabix;
 
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+import static java.util.stream.Collectors.toList;
 import static org.elasticsearch.common.base.Preconditions.checkNotNull;
+import static org.molgenis.data.RepositoryCapability.QUERYABLE;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.MolgenisQueryException;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.annotation.resources.LocusQueryable;
 import org.molgenis.data.vcf.VcfReaderFactory;
+import org.molgenis.data.vcf.VcfReaderFactoryImpl;
 import org.molgenis.data.vcf.VcfRepository;
+import org.molgenis.data.vcf.format.VcfToEntity;
+import org.molgenis.vcf.VcfReader;
+import org.molgenis.vcf.VcfRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableList.Builder;
 
 /**
- * An indexed VCF Repository
+ * An indexed VCF Repository for bgzipped VCF files with a tabix index (.tbi) that answers region queries by seeking
+ * through the index.
  */
-public class TabixVcfRepository extends VcfRepository
+public class TabixVcfRepository extends VcfRepository implements LocusQueryable
 {
 	private static final Logger LOG = LoggerFactory.getLogger(TabixVcfRepository.class);
+	private final VcfReaderFactory readerFactory;
 	private final TabixReader tabixReader;
 
 	public TabixVcfRepository(File file, String entityName) throws IOException
 	{
-		super(file, entityName);
-		tabixReader = new TabixReader(file.getCanonicalPath());
+		this(new VcfReaderFactoryImpl(file), new TabixReader(file.getCanonicalPath()), entityName);
 	}
 
 	TabixVcfRepository(VcfReaderFactory readerFactory, TabixReader tabixReader, String entityName)
 	{
 		super(readerFactory, entityName);
+		this.readerFactory = readerFactory;
 		this.tabixReader = tabixReader;
 	}
 
+	/**
+	 * Returns an iterator over all entities that reads from its own VCF reader, so that iterators can be used
+	 * concurrently. The reader is closed after the last entity.
+	 */
+	@Override
+	public Iterator<Entity> iterator()
+	{
+		return new EntityIterator(readerFactory.get(), vcfToEntitySupplier.get());
+	}
+
 	@Override
 	public Set<RepositoryCapability> getCapabilities()
 	{
-		return Collections.emptySet();
+		return EnumSet.of(QUERYABLE);
 	}
 
 	/**
-	 * Examines a {@link Query} and finds the first {@link QueryRule} with operator {@link Operator#EQUALS} whose field
-	 * matches an attributeName. It returns the value of that first matching {@link QueryRule}.
+	 * Finds the entities in the region described by a query. The query must contain an {@link Operator#EQUALS} rule
+	 * on {@link VcfRepository#CHROM} and can contain {@link Operator#EQUALS}, {@link Operator#RANGE},
+	 * {@link Operator#GREATER}, {@link Operator#GREATER_EQUAL}, {@link Operator#LESS} and
+	 * {@link Operator#LESS_EQUAL} rules on {@link VcfRepository#POS}, combined with {@link Operator#AND}. A query
+	 * without rules returns all entities.
 	 * 
-	 * @param attributeName
-	 *            the query field name to match
-	 * @param q
-	 *            the query to search in
-	 * @return the value from the first matching query rule
+	 * Each query reads from its own data file stream, so queries can be executed concurrently. The stream of a query
+	 * without rules or of a region that spans multiple positions is read lazily and is closed when it has been consumed
+	 * or when the returned stream is closed.
 	 */
-	private static Object getFirstEqualsValueFor(String attributeName, Query q)
+	@Override
+	public Stream<Entity> findAll(Query q)
 	{
-		return q.getRules().stream()
-				.filter(rule -> attributeName.equals(rule.getField()) && rule.getOperator() == Operator.EQUALS)
-				.findFirst().get().getValue();
+		Stream<Entity> entities;
+		if (q.getRules().isEmpty())
+		{
+			EntityIterator entityIterator = new EntityIterator(readerFactory.get(), vcfToEntitySupplier.get());
+			entities = StreamSupport.stream(spliteratorUnknownSize(entityIterator, ORDERED | NONNULL), false)
+					.onClose(entityIterator::close);
+		}
+		else
+		{
+			Region region = getRegion(q);
+			entities = region != null ? findAll(region) : Stream.empty();
+		}
+
+		if (q.getOffset() > 0) entities = entities.skip(q.getOffset());
+		if (q.getPageSize() > 0) entities = entities.limit(q.getPageSize());
+		return entities;
 	}
 
 	@Override
-	public Stream<Entity> findAll(Query q)
+	public Entity findOne(Query q)
 	{
-		Object posValue = getFirstEqualsValueFor(VcfRepository.POS, q);
-		Object chromValue = getFirstEqualsValueFor(VcfRepository.CHROM, q);
-		List<Entity> result = new ArrayList<Entity>();
+		try (Stream<Entity> entities = findAll(q))
+		{
+			return entities.findFirst().orElse(null);
+		}
+	}
 
-		// if one of both required attributes is null, skip the query and return an empty list
-		if (posValue != null && chromValue != null)
+	@Override
+	public long count(Query q)
+	{
+		if (q.getRules().isEmpty() && q.getOffset() == 0 && q.getPageSize() == 0)
+		{
+			return count();
+		}
+		try (Stream<Entity> entities = findAll(q))
 		{
-			long posLongValue = Long.parseLong(posValue.toString());
-			String chromStringValue = chromValue.toString();
-			result = query(chromStringValue, Long.valueOf(posLongValue), Long.valueOf(posLongValue));
+			return entities.count();
 		}
-		return result.stream();
 	}
 
 	/**
@@ -96,29 +140,185 @@ public class TabixVcfRepository extends VcfRepository
 	 *            position upper bound (inclusive)
 	 * @return {@link ImmutableList} of entities found
 	 */
-	public synchronized List<Entity> query(String chrom, long posFrom, long posTo)
+	public List<Entity> query(String chrom, long posFrom, long posTo)
+	{
+		try (Stream<Entity> entities = findAll(new Region(checkNotNull(chrom), checkNotNull(posFrom),
+				checkNotNull(posTo))))
+		{
+			return entities.collect(toList());
+		}
+	}
+
+	/**
+	 * Queries many positions on one chromosome in a single forward sweep through the tabix file. Can be called by
+	 * multiple threads at the same time.
+	 * 
+	 * @param chrom
+	 *            name of the chromosome
+	 * @param positions
+	 *            positions in ascending order
+	 * @return for each position the entities found
+	 * @throws IllegalArgumentException
+	 *             if the positions are not sorted
+	 */
+	@Override
+	public List<List<Entity>> query(String chrom, long[] positions)
+	{
+		int[] tabixPositions = new int[positions.length];
+		for (int i = 0; i < positions.length; ++i)
+		{
+			tabixPositions[i] = toTabixPos(positions[i]);
+		}
+
+		List<List<String>> linesPerPosition;
+		try
+		{
+			linesPerPosition = tabixReader.queryPositions(checkNotNull(chrom), tabixPositions);
+		}
+		catch (IOException e)
+		{
+			throw new MolgenisDataException("Error reading from tabix resource for chromosome: " + chrom, e);
+		}
+
+		VcfToEntity vcfToEntity = vcfToEntitySupplier.get();
+		List<List<Entity>> result = new ArrayList<>(positions.length);
+		for (int i = 0; i < positions.length; ++i)
+		{
+			long pos = positions[i];
+			result.add(linesPerPosition.get(i).stream().map(line -> toEntity(vcfToEntity, line))
+					.filter(entity -> positionMatches(entity, pos, pos)).collect(toList()));
+		}
+		return result;
+	}
+
+	private Stream<Entity> findAll(Region region)
 	{
-		String queryString = String.format("%s:%s-%s", checkNotNull(chrom), checkNotNull(posFrom), checkNotNull(posTo));
+		if (region.getPosFrom() > region.getPosTo()) return Stream.empty();
+
+		TabixReader.Iterator iterator;
 		try
 		{
-			Collection<String> lines = getLines(tabixReader.query(queryString));
-			return lines.stream().map(line -> line.split("\t")).map(vcfToEntitySupplier.get()::toEntity)
-					.filter(entity -> positionMatches(entity, posFrom, posTo)).collect(Collectors.toList());
+			iterator = tabixReader.openQuery(region.getChrom(), toTabixPos(region.getPosFrom()),
+					toTabixPos(region.getPosTo()));
 		}
-		catch (NullPointerException e)
+		catch (IOException e)
 		{
-			LOG.warn("Unable to read from tabix resource for query: " + queryString
-					+ " (Position not present in resource file?)");
-			LOG.debug("", e);
+			throw new MolgenisDataException("Error reading from tabix resource for query: " + region, e);
 		}
-		catch (ArrayIndexOutOfBoundsException e)
+		if (iterator == null) return Stream.empty();
+
+		VcfToEntity vcfToEntity = vcfToEntitySupplier.get();
+		LineIterator lineIterator = new LineIterator(iterator);
+		if (region.getPosFrom() == region.getPosTo())
 		{
-			LOG.warn("Unable to read from tabix resource for query: " + queryString
-					+ " (Chromosome not present in resource file?)");
-			LOG.debug("", e);
+			// read the few lines at a single position at once so that the data file stream is always closed
+			List<String> lines;
+			try
+			{
+				lines = ImmutableList.copyOf(lineIterator);
+			}
+			finally
+			{
+				lineIterator.close();
+			}
+			return lines.stream().map(line -> toEntity(vcfToEntity, line))
+					.filter(entity -> positionMatches(entity, region.getPosFrom(), region.getPosTo()));
 		}
+		return StreamSupport.stream(spliteratorUnknownSize(lineIterator, ORDERED | NONNULL), false)
+				.map(line -> toEntity(vcfToEntity, line))
+				.filter(entity -> positionMatches(entity, region.getPosFrom(), region.getPosTo()))
+				.onClose(lineIterator::close);
+	}
 
-		return Collections.emptyList();
+	private static Entity toEntity(VcfToEntity vcfToEntity, String line)
+	{
+		return vcfToEntity.toEntity(line.split("\t"));
+	}
+
+	private static int toTabixPos(long pos)
+	{
+		return (int) Math.max(0, Math.min(pos, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Converts a query to the region that it describes.
+	 * 
+	 * @return region or null if a query rule value is null or the query rules describe an empty region
+	 * @throws MolgenisQueryException
+	 *             if the query is not a region query
+	 */
+	private Region getRegion(Query q)
+	{
+		String chrom = null;
+		long posFrom = 0;
+		long posTo = Long.MAX_VALUE;
+		boolean isChromRule = false;
+
+		for (QueryRule rule : q.getRules())
+		{
+			Operator operator = rule.getOperator();
+			if (operator == Operator.AND) continue;
+
+			String field = rule.getField();
+			Object value = rule.getValue();
+			if (CHROM.equals(field) && operator == Operator.EQUALS)
+			{
+				if (value == null) return null;
+				if (chrom != null && !chrom.equals(value.toString())) return null;
+				chrom = value.toString();
+				isChromRule = true;
+			}
+			else if (POS.equals(field))
+			{
+				if (value == null) return null;
+				switch (operator)
+				{
+					case EQUALS:
+						posFrom = Math.max(posFrom, toPos(value));
+						posTo = Math.min(posTo, toPos(value));
+						break;
+					case GREATER:
+						posFrom = Math.max(posFrom, toPos(value) + 1);
+						break;
+					case GREATER_EQUAL:
+						posFrom = Math.max(posFrom, toPos(value));
+						break;
+					case LESS:
+						posTo = Math.min(posTo, toPos(value) - 1);
+						break;
+					case LESS_EQUAL:
+						posTo = Math.min(posTo, toPos(value));
+						break;
+					case RANGE:
+						Iterator<?> rangeValues = ((Iterable<?>) value).iterator();
+						Object fromValue = rangeValues.next();
+						Object toValue = rangeValues.next();
+						if (fromValue != null) posFrom = Math.max(posFrom, toPos(fromValue));
+						if (toValue != null) posTo = Math.min(posTo, toPos(toValue));
+						break;
+					default:
+						throw new MolgenisQueryException(
+								"Unsupported query operator [" + operator + "] for attribute [" + POS + "]");
+				}
+			}
+			else
+			{
+				throw new MolgenisQueryException("Unsupported query rule [" + rule + "] for repository [" + getName()
+						+ "], only region queries on [" + CHROM + "] and [" + POS + "] are supported");
+			}
+		}
+
+		if (!isChromRule)
+		{
+			throw new MolgenisQueryException("Query for repository [" + getName() + "] requires an ["
+					+ Operator.EQUALS + "] rule on attribute [" + CHROM + "]");
+		}
+		return new Region(chrom, posFrom, posTo);
+	}
+
+	private static long toPos(Object value)
+	{
+		return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
 	}
 
 	/**
@@ -141,33 +341,147 @@ public class TabixVcfRepository extends VcfRepository
 		return entityPos >= posFrom && entityPos <= posTo;
 	}
 
+	private static class Region
+	{
+		private final String chrom;
+		private final long posFrom;
+		private final long posTo;
+
+		public Region(String chrom, long posFrom, long posTo)
+		{
+			this.chrom = chrom;
+			this.posFrom = posFrom;
+			this.posTo = posTo;
+		}
+
+		public String getChrom()
+		{
+			return chrom;
+		}
+
+		public long getPosFrom()
+		{
+			return posFrom;
+		}
+
+		public long getPosTo()
+		{
+			return posTo;
+		}
+
+		@Override
+		public String toString()
+		{
+			return chrom + ":" + posFrom + "-" + posTo;
+		}
+	}
+
 	/**
-	 * Collect the lines returned in a {@link TabixReader.Iterator}.
-	 * 
-	 * @param iterator
-	 *            the iterator from which the lines are collected, may be null.
-	 * @return {@link Collection} of lines, is empty if the iterator was null.
+	 * Iterates over the lines returned by a {@link TabixReader.Iterator} and closes it after the last line.
 	 */
-	protected Collection<String> getLines(org.molgenis.data.annotator.tabix.TabixReader.Iterator iterator)
+	private static class LineIterator implements Iterator<String>
 	{
-		Builder<String> builder = ImmutableList.<String> builder();
-		if (iterator != null)
+		private final TabixReader.Iterator iterator;
+		private String nextLine;
+		private boolean closed;
+
+		public LineIterator(TabixReader.Iterator iterator)
 		{
-			try
+			this.iterator = iterator;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			if (nextLine == null && !closed)
 			{
-				String line = iterator.next();
-				while (line != null)
+				try
 				{
-					builder.add(line);
-					line = iterator.next();
+					nextLine = iterator.next();
 				}
+				catch (IOException e)
+				{
+					close();
+					throw new MolgenisDataException("Error reading from tabix reader.", e);
+				}
+				if (nextLine == null) close();
 			}
-			catch (IOException e)
+			return nextLine != null;
+		}
+
+		@Override
+		public String next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			String line = nextLine;
+			nextLine = null;
+			return line;
+		}
+
+		public void close()
+		{
+			if (!closed)
 			{
-				LOG.error("Error reading from tabix reader.", e);
+				closed = true;
+				try
+				{
+					iterator.close();
+				}
+				catch (IOException e)
+				{
+					LOG.warn("Error closing tabix reader.", e);
+				}
 			}
 		}
-		return builder.build();
 	}
 
+	/**
+	 * Iterates over the entities of a {@link VcfReader} and closes it after the last entity.
+	 */
+	private static class EntityIterator implements Iterator<Entity>
+	{
+		private final VcfReader vcfReader;
+		private final Iterator<VcfRecord> vcfRecordIterator;
+		private final VcfToEntity vcfToEntity;
+		private boolean closed;
+
+		public EntityIterator(VcfReader vcfReader, VcfToEntity vcfToEntity)
+		{
+			this.vcfReader = vcfReader;
+			this.vcfRecordIterator = vcfReader.iterator();
+			this.vcfToEntity = vcfToEntity;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			if (closed) return false;
+			boolean hasNext = vcfRecordIterator.hasNext();
+			if (!hasNext) close();
+			return hasNext;
+		}
+
+		@Override
+		public Entity next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			return vcfToEntity.toEntity(vcfRecordIterator.next());
+		}
+
+		public void close()
+		{
+			if (!closed)
+			{
+				closed = true;
+				try
+				{
+					vcfReader.close();
+				}
+				catch (IOException e)
+				{
+					LOG.warn("Error closing VCF reader.", e);
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,33 @@
+package org.molgenis.data.annotator.tabix;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.molgenis.data.vcf.VcfRepository;
+import org.molgenis.data.vcf.VcfRepositoryCollection;
+
+/**
+ * VCF RepositoryCollection that creates a {@link TabixVcfRepository} for bgzipped VCF files with a tabix index (.tbi)
+ * next to them, so that region queries on the file repository seek through the index instead of reading the whole
+ * file. Other VCF files are read by a {@link VcfRepository}.
+ */
+public class TabixVcfRepositoryCollection extends VcfRepositoryCollection
+{
+	private static final String EXTENSION_GZ = ".gz";
+	private static final String EXTENSION_TBI = ".tbi";
+
+	public TabixVcfRepositoryCollection(File file) throws IOException
+	{
+		super(file);
+	}
+
+	@Override
+	protected VcfRepository createRepository(File file, String entityName) throws IOException
+	{
+		if (file.getName().endsWith(EXTENSION_GZ) && new File(file.getPath() + EXTENSION_TBI).exists())
+		{
+			return new TabixVcfRepository(file, entityName);
+		}
+		return super.createRepository(file, entityName);
+	}
+}
@@ -0,0 +1,252 @@
+package org.molgenis.data.annotation;
+
+import static java.util.stream.Collectors.toList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Repository;
+import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.annotation.entity.AnnotatorInfo;
+import org.molgenis.data.meta.MetaDataService;
+import org.molgenis.data.support.DefaultAttributeMetaData;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.MapEntity;
+import org.molgenis.fieldtypes.XrefField;
+import org.molgenis.security.permission.PermissionSystemService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CrudRepositoryAnnotatorTest
+{
+	private CrudRepositoryAnnotator crudRepositoryAnnotator;
+	private Repository repository;
+	private List<Entity> entities;
+	private List<List<Entity>> updatedBatches;
+	private DefaultEntityMetaData refEntityMeta;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID);
+		refEntityMeta.addAttribute("value");
+
+		DefaultEntityMetaData entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("ref").setDataType(new XrefField()).setRefEntity(refEntityMeta);
+
+		DataService dataService = mock(DataService.class);
+		MetaDataService metaDataService = mock(MetaDataService.class);
+		when(dataService.getMeta()).thenReturn(metaDataService);
+		when(metaDataService.getEntityMetaData("entity")).thenReturn(entityMeta);
+		crudRepositoryAnnotator = new CrudRepositoryAnnotator(dataService, mock(PermissionSystemService.class), 3);
+
+		entities = new ArrayList<>();
+		for (int i = 0; i < 2500; ++i)
+		{
+			MapEntity entity = new MapEntity(entityMeta);
+			entity.set("id", i);
+			entities.add(entity);
+		}
+
+		repository = mock(Repository.class);
+		when(repository.getName()).thenReturn("entity");
+		when(repository.getCapabilities()).thenReturn(Collections.singleton(RepositoryCapability.WRITABLE));
+		when(repository.iterator()).thenAnswer(new Answer<Iterator<Entity>>()
+		{
+			@Override
+			public Iterator<Entity> answer(InvocationOnMock invocation) throws Throwable
+			{
+				return entities.iterator();
+			}
+		});
+
+		updatedBatches = new ArrayList<>();
+		doAnswer(new Answer<Void>()
+		{
+			@SuppressWarnings("unchecked")
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable
+			{
+				updatedBatches.add(((Stream<Entity>) invocation.getArguments()[0]).collect(toList()));
+				return null;
+			}
+		}).when(repository).update(Matchers.<Stream<Entity>> any());
+	}
+
+	@AfterMethod
+	public void tearDownAfterMethod()
+	{
+		crudRepositoryAnnotator.close();
+	}
+
+	@Test
+	public void annotateUpdatesBatchesInOrder() throws Exception
+	{
+		crudRepositoryAnnotator.annotate(new TestAnnotator(-1), repository);
+
+		assertEquals(updatedBatches.size(), 3);
+		assertEquals(updatedBatches.get(0).size(), 1000);
+		assertEquals(updatedBatches.get(1).size(), 1000);
+		assertEquals(updatedBatches.get(2).size(), 500);
+
+		List<Entity> updatedEntities = updatedBatches.stream().flatMap(List::stream).collect(toList());
+		assertEquals(updatedEntities, entities);
+		updatedEntities.forEach(entity -> assertTrue(entity.getString("annotatedBy").startsWith("annotator-")));
+	}
+
+	@Test
+	public void annotateFailure() throws Exception
+	{
+		try
+		{
+			crudRepositoryAnnotator.annotate(new TestAnnotator(1500), repository);
+			fail("Annotator failure should throw exception");
+		}
+		catch (RuntimeException e)
+		{
+			assertEquals(e.getCause().getMessage(), "annotation failed");
+		}
+		assertEquals(updatedBatches.size(), 1);
+	}
+
+	@Test
+	public void annotateResolvesRequiredReferencesOnCallingThread() throws Exception
+	{
+		List<LoadRecordingEntity> refEntities = new ArrayList<>();
+		for (Entity entity : entities)
+		{
+			LoadRecordingEntity refEntity = new LoadRecordingEntity(refEntityMeta);
+			refEntity.set("value", "value" + entity.getIdValue());
+			refEntities.add(refEntity);
+			entity.set("ref", refEntity);
+		}
+		AttributeMetaData requiredRefAttribute = new DefaultAttributeMetaData("ref", FieldTypeEnum.XREF)
+				.setRefEntity(refEntityMeta);
+
+		crudRepositoryAnnotator.annotate(new TestAnnotator(-1, requiredRefAttribute), repository);
+
+		String callingThread = Thread.currentThread().getName();
+		refEntities.forEach(refEntity -> assertEquals(refEntity.getLoadedBy(), callingThread));
+		List<Entity> updatedEntities = updatedBatches.stream().flatMap(List::stream).collect(toList());
+		updatedEntities.forEach(entity -> assertEquals(entity.getString("annotatedValue"),
+				"value" + entity.getIdValue()));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void crudRepositoryAnnotatorNoThreads()
+	{
+		new CrudRepositoryAnnotator(mock(DataService.class), mock(PermissionSystemService.class), 0);
+	}
+
+	/**
+	 * Entity that records the name of the thread that first reads a value
+	 */
+	private static class LoadRecordingEntity extends MapEntity
+	{
+		private static final long serialVersionUID = 1L;
+
+		private volatile String loadedBy;
+
+		LoadRecordingEntity(DefaultEntityMetaData entityMeta)
+		{
+			super(entityMeta);
+		}
+
+		@Override
+		public Object get(String attributeName)
+		{
+			if (loadedBy == null) loadedBy = Thread.currentThread().getName();
+			return super.get(attributeName);
+		}
+
+		String getLoadedBy()
+		{
+			return loadedBy;
+		}
+	}
+
+	/**
+	 * Annotator that records the name of the annotating thread and fails on the entity with the given id
+	 */
+	private static class TestAnnotator extends AbstractRepositoryEntityAnnotator
+	{
+		private final int failId;
+		private final List<AttributeMetaData> requiredAttributes;
+
+		TestAnnotator(int failId, AttributeMetaData... requiredAttributes)
+		{
+			this.failId = failId;
+			this.requiredAttributes = Arrays.asList(requiredAttributes);
+		}
+
+		@Override
+		public List<Entity> annotateEntity(Entity entity, boolean updateMode)
+		{
+			if (entity.getInt("id") == failId)
+			{
+				throw new RuntimeException("annotation failed");
+			}
+			entity.set("annotatedBy", Thread.currentThread().getName());
+			Entity refEntity = entity.getEntity("ref");
+			if (refEntity != null) entity.set("annotatedValue", refEntity.getString("value"));
+			return Collections.singletonList(entity);
+		}
+
+		@Override
+		public AnnotatorInfo getInfo()
+		{
+			return null;
+		}
+
+		@Override
+		public boolean annotationDataExists()
+		{
+			return true;
+		}
+
+		@Override
+		public List<AttributeMetaData> getOutputMetaData()
+		{
+			return Collections.singletonList(new DefaultAttributeMetaData("annotatedBy"));
+		}
+
+		@Override
+		public List<AttributeMetaData> getRequiredAttributes()
+		{
+			return requiredAttributes;
+		}
+
+		@Override
+		public String getSimpleName()
+		{
+			return "test";
+		}
+
+		@Override
+		public CmdLineAnnotatorSettingsConfigurer getCmdLineAnnotatorSettingsConfigurer()
+		{
+			return null;
+		}
+	}
+}
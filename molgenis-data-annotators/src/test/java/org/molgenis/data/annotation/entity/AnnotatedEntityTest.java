@@ -0,0 +1,64 @@
+package org.molgenis.data.annotation.entity;
+
+import static org.mockito.Mockito.mock;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.support.DefaultEntity;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AnnotatedEntityTest
+{
+	private Entity entity;
+	private AnnotatedEntity annotatedEntity;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		DefaultEntityMetaData entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("value");
+
+		DefaultEntityMetaData annotatedEntityMeta = new DefaultEntityMetaData("entity", entityMeta);
+		annotatedEntityMeta.addAttribute("annotation");
+
+		entity = new DefaultEntity(entityMeta, mock(DataService.class));
+		entity.set("id", "id0");
+		entity.set("value", "value0");
+		annotatedEntity = new AnnotatedEntity(entity, annotatedEntityMeta);
+	}
+
+	@Test
+	public void get()
+	{
+		assertEquals(annotatedEntity.getIdValue(), "id0");
+		assertEquals(annotatedEntity.get("value"), "value0");
+	}
+
+	@Test
+	public void getAnnotationSet()
+	{
+		annotatedEntity.set("annotation", "annotation0");
+		assertEquals(annotatedEntity.get("annotation"), "annotation0");
+	}
+
+	@Test
+	public void getAnnotationNotSet()
+	{
+		assertNull(annotatedEntity.get("annotation"));
+		assertNull(annotatedEntity.getString("annotation"));
+	}
+
+	@Test
+	public void setDoesNotChangeAnnotatedEntity()
+	{
+		annotatedEntity.set("value", "value1");
+		assertEquals(annotatedEntity.get("value"), "value1");
+		assertEquals(entity.get("value"), "value0");
+	}
+}
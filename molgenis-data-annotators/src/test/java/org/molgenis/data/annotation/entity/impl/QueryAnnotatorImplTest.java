@@ -0,0 +1,185 @@
+package org.molgenis.data.annotation.entity.impl;
+
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.Query;
+import org.molgenis.data.annotation.entity.AnnotatorInfo;
+import org.molgenis.data.annotation.entity.AnnotatorInfo.Status;
+import org.molgenis.data.annotation.entity.AnnotatorInfo.Type;
+import org.molgenis.data.annotation.entity.QueryCreator;
+import org.molgenis.data.annotation.query.LocusQueryCreator;
+import org.molgenis.data.annotation.resources.Resources;
+import org.molgenis.data.support.DefaultAttributeMetaData;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.MapEntity;
+import org.molgenis.data.vcf.VcfRepository;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class QueryAnnotatorImplTest
+{
+	private DefaultEntityMetaData entityMeta;
+	private DefaultEntityMetaData variantMeta;
+	private AnnotatorInfo info;
+	private QueryAnnotatorImpl queryAnnotator;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("str");
+
+		variantMeta = new DefaultEntityMetaData("variant");
+		variantMeta.addAttribute("id", ROLE_ID);
+		variantMeta.addAttributeMetaData(VcfRepository.CHROM_META);
+		variantMeta.addAttributeMetaData(VcfRepository.POS_META);
+
+		info = AnnotatorInfo.create(Status.READY, Type.UNUSED, "test", "test",
+				Collections.<AttributeMetaData> singletonList(new DefaultAttributeMetaData("annotation",
+						FieldTypeEnum.STRING)));
+		QueryCreator queryCreator = mock(QueryCreator.class);
+		Resources resources = mock(Resources.class);
+		when(resources.hasRepository("source")).thenReturn(true);
+		when(resources.findAll(eq("source"), any(Query.class))).thenReturn(Collections.<Entity> emptyList());
+		queryAnnotator = new QueryAnnotatorImpl("source", info, queryCreator, mock(DataService.class), resources,
+				null)
+		{
+			@Override
+			protected void processQueryResults(Entity inputEntity, Iterable<Entity> annotationSourceEntities,
+					Entity resultEntity, boolean updateMode)
+			{
+				resultEntity.set("annotation", inputEntity.getString("str") + "-annotation");
+			}
+		};
+	}
+
+	@Test
+	public void annotateEntity()
+	{
+		MapEntity entity = new MapEntity(entityMeta);
+		entity.set("id", "id0");
+		entity.set("str", "str0");
+
+		List<Entity> resultEntities = queryAnnotator.annotateEntity(entity, false);
+		assertEquals(resultEntities.size(), 1);
+		Entity resultEntity = resultEntities.get(0);
+		assertEquals(resultEntity.getIdValue(), "id0");
+		assertEquals(resultEntity.get("str"), "str0");
+		assertEquals(resultEntity.get("annotation"), "str0-annotation");
+		assertEquals(Lists.newArrayList(resultEntity.getAttributeNames()), Lists.newArrayList("id", "str",
+				"annotation"));
+
+		// annotating does not change the input entity
+		assertEquals(entity.get("annotation"), null);
+	}
+
+	@Test
+	public void annotateEntityReusesMetaData()
+	{
+		MapEntity entity0 = new MapEntity(entityMeta);
+		entity0.set("id", "id0");
+		MapEntity entity1 = new MapEntity(entityMeta);
+		entity1.set("id", "id1");
+
+		Entity resultEntity0 = queryAnnotator.annotateEntity(entity0, false).get(0);
+		Entity resultEntity1 = queryAnnotator.annotateEntity(entity1, false).get(0);
+		assertSame(resultEntity0.getEntityMetaData(), resultEntity1.getEntityMetaData());
+		assertEquals(resultEntity1.getIdValue(), "id1");
+	}
+
+	@Test
+	public void annotateEntitiesLocus()
+	{
+		Resources resources = mock(Resources.class);
+		when(resources.hasRepository("source")).thenReturn(true);
+		when(resources.findAll(eq("source"), eq("1"), aryEq(new long[]
+		{ 10, 20 }))).thenReturn(
+				Arrays.<Iterable<Entity>> asList(Collections.singletonList(createSourceEntity("a")),
+						Collections.<Entity> emptyList()));
+		when(resources.findAll(eq("source"), eq("2"), aryEq(new long[]
+		{ 10 }))).thenReturn(
+				Collections.<Iterable<Entity>> singletonList(Collections.singletonList(createSourceEntity("b"))));
+		when(resources.findAll(eq("source"), any(Query.class))).thenReturn(
+				Collections.singletonList(createSourceEntity("c")));
+		QueryAnnotatorImpl locusAnnotator = new QueryAnnotatorImpl("source", info, new LocusQueryCreator(),
+				mock(DataService.class), resources, null)
+		{
+			@Override
+			protected void processQueryResults(Entity inputEntity, Iterable<Entity> annotationSourceEntities,
+					Entity resultEntity, boolean updateMode)
+			{
+				StringBuilder annotation = new StringBuilder();
+				annotationSourceEntities.forEach(sourceEntity -> annotation.append(sourceEntity.getString("value")));
+				resultEntity.set("annotation", annotation.toString());
+			}
+		};
+
+		// unsorted input with a repeated position and a variant without position
+		List<Entity> entities = Arrays.asList(createVariant("1", 20l), createVariant("2", 10l),
+				createVariant("1", 10l), createVariant("1", 20l), createVariant("1", null));
+		List<Iterable<Entity>> results = locusAnnotator.annotateEntities(entities, false);
+
+		assertEquals(results.size(), 5);
+		assertEquals(Lists.transform(results, result -> result.iterator().next().getString("annotation")),
+				Arrays.asList("", "b", "a", "", "c"));
+		verify(resources, times(1)).findAll(eq("source"), eq("1"), any(long[].class));
+		verify(resources, times(1)).findAll(eq("source"), any(Query.class));
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class)
+	public void annotateEntitiesLocusResultsDoNotMatchPositions()
+	{
+		Resources resources = mock(Resources.class);
+		when(resources.hasRepository("source")).thenReturn(true);
+		when(resources.findAll(eq("source"), eq("1"), aryEq(new long[]
+		{ 10, 20 }))).thenReturn(
+				Collections.<Iterable<Entity>> singletonList(Collections.singletonList(createSourceEntity("a"))));
+		QueryAnnotatorImpl locusAnnotator = new QueryAnnotatorImpl("source", info, new LocusQueryCreator(),
+				mock(DataService.class), resources, null)
+		{
+			@Override
+			protected void processQueryResults(Entity inputEntity, Iterable<Entity> annotationSourceEntities,
+					Entity resultEntity, boolean updateMode)
+			{
+			}
+		};
+
+		locusAnnotator.annotateEntities(Arrays.asList(createVariant("1", 20l), createVariant("1", 10l)), false);
+	}
+
+	private Entity createVariant(String chrom, Long pos)
+	{
+		MapEntity variant = new MapEntity(variantMeta);
+		variant.set(VcfRepository.CHROM, chrom);
+		variant.set(VcfRepository.POS, pos);
+		return variant;
+	}
+
+	private Entity createSourceEntity(String value)
+	{
+		MapEntity sourceEntity = new MapEntity();
+		sourceEntity.set("value", value);
+		return sourceEntity;
+	}
+}
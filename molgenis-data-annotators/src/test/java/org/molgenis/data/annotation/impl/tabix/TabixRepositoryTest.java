@@ -17,7 +17,13 @@ import static org.testng.Assert.assertEquals;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
@@ -30,6 +36,8 @@ import org.molgenis.util.ResourceUtils;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+
 public class TabixRepositoryTest
 {
 	private TabixRepository tabixRepository;
@@ -78,6 +86,61 @@ public class TabixRepositoryTest
 		assertEquals(tabixRepository.findAll(query).collect(toList()), emptyList());
 	}
 
+	@Test
+	public void testQueryPositions()
+	{
+		List<ImmutableList<Entity>> result = tabixRepository.query("3", new long[]
+		{ 1, 299, 300, 300, 301 });
+		List<Entity> pos300 = Arrays.asList(newEntity("3", 300, "G", "A", 0.2, 23.1),
+				newEntity("3", 300, "G", "T", -2.4, 0.123), newEntity("3", 300, "G", "X", -0.002, 2.3),
+				newEntity("3", 300, "G", "C", 0.5, 14.5), newEntity("3", 300, "GC", "A", 1.2, 24.1),
+				newEntity("3", 300, "GC", "T", -3.4, 1.123), newEntity("3", 300, "C", "GX", -1.002, 3.3),
+				newEntity("3", 300, "C", "GC", 1.5, 15.5));
+		assertEquals(result, Arrays.asList(emptyList(), emptyList(), pos300, pos300, emptyList()));
+	}
+
+	@Test
+	public void testQueryPositionsUnknownChromosome()
+	{
+		assertEquals(tabixRepository.query("MT", new long[]
+		{ 100, 200 }), Arrays.asList(emptyList(), emptyList()));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testQueryPositionsUnsorted()
+	{
+		tabixRepository.query("1", new long[]
+		{ 200, 100 });
+	}
+
+	@Test
+	public void testQueryConcurrent() throws InterruptedException, ExecutionException
+	{
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<List<Entity>>> futures = new ArrayList<>();
+			for (int i = 0; i < 100; ++i)
+			{
+				String chrom = String.valueOf(i % 3 + 1);
+				String pos = String.valueOf((i % 3 + 1) * 100);
+				futures.add(executorService.submit(() -> tabixRepository
+						.findAll(tabixRepository.query().eq(VcfRepository.CHROM, chrom).and()
+								.eq(VcfRepository.POS, pos))
+						.collect(toList())));
+			}
+			for (int i = 0; i < futures.size(); ++i)
+			{
+				assertEquals(futures.get(i).get().size(), new int[]
+				{ 3, 2, 8 }[i % 3]);
+			}
+		}
+		finally
+		{
+			executorService.shutdownNow();
+		}
+	}
+
 	@Test
 	public void testIterator()
 	{
@@ -18,6 +18,8 @@ import static org.testng.Assert.assertTrue;
 import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
@@ -81,6 +83,27 @@ public class TabixVcfRepositoryTest
 		assertFalse(iterator.hasNext());
 	}
 
+	@Test
+	public void testQueryRangeConcurrentIterators()
+	{
+		Query query = tabixVcfRepository.query().eq(VcfRepository.CHROM, "1").and().rng(VcfRepository.POS, 10000,
+				20000);
+		List<Entity> entities = tabixVcfRepository.findAll(query).collect(Collectors.toList());
+		assertFalse(entities.isEmpty());
+		entities.forEach(entity -> assertTrue(entity.getLong(POS) >= 10000 && entity.getLong(POS) <= 20000));
+
+		// iterators over the same region do not share a file position
+		Iterator<Entity> iterator0 = tabixVcfRepository.findAll(query).iterator();
+		Iterator<Entity> iterator1 = tabixVcfRepository.findAll(query).iterator();
+		for (Entity entity : entities)
+		{
+			assertEquals(iterator0.next().getIdValue(), entity.getIdValue());
+			assertEquals(iterator1.next().getIdValue(), entity.getIdValue());
+		}
+		assertFalse(iterator0.hasNext());
+		assertFalse(iterator1.hasNext());
+	}
+
 	@Test
 	public void testIterator()
 	{
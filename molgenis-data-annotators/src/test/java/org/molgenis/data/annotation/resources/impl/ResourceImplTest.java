@@ -1,11 +1,17 @@
 package org.molgenis.data.annotation.resources.impl;
 
+import static java.util.stream.Collectors.toList;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.StreamSupport;
 
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
 import org.molgenis.data.annotation.resources.ResourceConfig;
 import org.molgenis.data.support.QueryImpl;
@@ -72,4 +78,25 @@ public class ResourceImplTest
 
 		System.out.println(resource.findAll(query));
 	}
+
+	@Test
+	public void testFindAllPositions()
+	{
+		File file = ResourceUtils.getFile(getClass(), "/gonl/gonl.chr1.snps_indels.r5.vcf.gz");
+		when(config.getFile()).thenReturn(file);
+
+		List<Iterable<Entity>> result = resource.findAll("1", new long[]
+		{ 13980, 126108, 78383467, 78383468 });
+		Assert.assertEquals(result.stream().map(this::getIds).collect(toList()), Arrays.asList(
+				Collections.singletonList("rs151276478"), Collections.emptyList(),
+				Collections.singletonList("rs1749913"), Collections.singletonList("rs1749914")));
+		Assert.assertEquals(getIds(result.get(2)),
+				getIds(resource.findAll(QueryImpl.EQ("#CHROM", "1").and().eq("POS", 78383467))));
+	}
+
+	private List<String> getIds(Iterable<Entity> entities)
+	{
+		return StreamSupport.stream(entities.spliterator(), false).map(entity -> entity.getString("ID"))
+				.collect(toList());
+	}
 }
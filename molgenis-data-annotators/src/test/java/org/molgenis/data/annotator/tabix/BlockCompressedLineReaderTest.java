@@ -0,0 +1,140 @@
+package org.molgenis.data.annotator.tabix;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.sf.samtools.util.BlockCompressedOutputStream;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class BlockCompressedLineReaderTest
+{
+	private File file;
+	private List<String> lines;
+	private List<Long> filePointers;
+	private BlockCompressedFile blockCompressedFile;
+
+	@BeforeClass
+	public void setUpBeforeClass() throws IOException
+	{
+		file = File.createTempFile("BlockCompressedLineReaderTest", ".gz");
+		lines = new ArrayList<>();
+		filePointers = new ArrayList<>();
+		BlockCompressedOutputStream outputStream = new BlockCompressedOutputStream(file);
+		try
+		{
+			// enough lines of varying length to span multiple blocks with lines that cross block boundaries
+			for (int i = 0; i < 20000; ++i)
+			{
+				StringBuilder line = new StringBuilder("1\t").append(i).append('\t');
+				for (int j = 0; j < i % 17; ++j)
+				{
+					line.append("ACGT");
+				}
+				filePointers.add(outputStream.getFilePointer());
+				lines.add(line.toString());
+				outputStream.write((line.toString() + '\n').getBytes(ISO_8859_1));
+			}
+		}
+		finally
+		{
+			outputStream.close();
+		}
+		assertTrue(filePointers.get(filePointers.size() - 1) >>> 16 > 0, "test file should have multiple blocks");
+		blockCompressedFile = new BlockCompressedFile(file, 2);
+	}
+
+	@AfterClass
+	public void tearDownAfterClass() throws IOException
+	{
+		blockCompressedFile.close();
+		file.delete();
+	}
+
+	@Test
+	public void readLine() throws IOException
+	{
+		BlockCompressedLineReader lineReader = new BlockCompressedLineReader(blockCompressedFile);
+		lineReader.seek(0);
+		for (String line : lines)
+		{
+			assertEquals(lineReader.readLine(), line);
+		}
+		assertNull(lineReader.readLine());
+	}
+
+	@Test
+	public void seek() throws IOException
+	{
+		BlockCompressedLineReader lineReader = new BlockCompressedLineReader(blockCompressedFile);
+		for (int i = lines.size() - 1; i >= 0; i -= 997)
+		{
+			lineReader.seek(filePointers.get(i));
+			assertEquals(lineReader.readLine(), lines.get(i));
+		}
+	}
+
+	@Test
+	public void getFilePointer() throws IOException
+	{
+		BlockCompressedLineReader lineReader = new BlockCompressedLineReader(blockCompressedFile);
+		lineReader.seek(0);
+		for (int i = 0; i < 5000; ++i)
+		{
+			long filePointer = lineReader.getFilePointer();
+			String line = lineReader.readLine();
+
+			BlockCompressedLineReader otherLineReader = new BlockCompressedLineReader(blockCompressedFile);
+			otherLineReader.seek(filePointer);
+			assertEquals(otherLineReader.readLine(), line);
+		}
+	}
+
+	@Test
+	public void readLineAfterInterruptedReader() throws IOException, InterruptedException
+	{
+		AtomicReference<Exception> interruptedReaderException = new AtomicReference<>();
+		Thread interruptedReader = new Thread(() -> {
+			BlockCompressedLineReader lineReader = new BlockCompressedLineReader(blockCompressedFile);
+			try
+			{
+				lineReader.seek(0);
+				for (int i = 0; i < 100; ++i)
+				{
+					lineReader.readLine();
+				}
+				// interrupt the reader mid-query, which closes the file channel on the next block read
+				Thread.currentThread().interrupt();
+				while (lineReader.readLine() != null)
+				{
+				}
+			}
+			catch (Exception e)
+			{
+				interruptedReaderException.set(e);
+			}
+		});
+		interruptedReader.start();
+		interruptedReader.join();
+		assertTrue(interruptedReaderException.get() instanceof ClosedByInterruptException);
+
+		BlockCompressedLineReader lineReader = new BlockCompressedLineReader(blockCompressedFile);
+		lineReader.seek(0);
+		for (String line : lines)
+		{
+			assertEquals(lineReader.readLine(), line);
+		}
+		assertNull(lineReader.readLine());
+	}
+}
@@ -2,6 +2,8 @@ package org.molgenis.data.annotator.tabix;
 
 import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Matchers.eq;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
 import static org.molgenis.data.vcf.VcfRepository.CHROM;
@@ -19,7 +21,6 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
-import org.molgenis.data.annotator.tabix.TabixReader.Iterator;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.MapEntity;
@@ -32,8 +33,6 @@ public class TabixRepositoryTest
 	private EntityMetaData entityMetaData;
 	@Mock
 	private TabixReader tabixReader;
-	@Mock
-	private Iterator iterator;
 
 	@BeforeTest
 	public void beforeTest()
@@ -49,9 +48,10 @@ public class TabixRepositoryTest
 	}
 
 	@Test
-	public void testReaderReturnsEmptyIteratorForNullValue()
+	public void testReaderReturnsEmptyIteratorForNullValue() throws IOException
 	{
-		Mockito.when(tabixReader.query("13:12-12")).thenReturn(null);
+		Mockito.when(tabixReader.queryPositions(eq("13"), aryEq(new int[]
+		{ 12 }))).thenReturn(Collections.singletonList(Collections.emptyList()));
 
 		Stream<Entity> actual = tabixRepository.findAll(tabixRepository.query().eq(CHROM, "13").and().eq(POS, 12));
 
@@ -61,9 +61,9 @@ public class TabixRepositoryTest
 	@Test
 	public void testReaderFiltersRows() throws IOException
 	{
-		Mockito.when(tabixReader.query("13:12-12")).thenReturn(iterator);
-		Mockito.when(iterator.next()).thenReturn("id1\t13\t11\tnope", "id2\t13\t12\tyup", "id3\t13\t12\tyup",
-				"id3\t13\t13\tnope", null);
+		Mockito.when(tabixReader.queryPositions(eq("13"), aryEq(new int[]
+		{ 12 }))).thenReturn(Collections.singletonList(
+				Arrays.asList("id1\t13\t11\tnope", "id2\t13\t12\tyup", "id3\t13\t12\tyup")));
 
 		Stream<Entity> actual = tabixRepository.findAll(tabixRepository.query().eq(CHROM, "13").and().eq(POS, 12));
 
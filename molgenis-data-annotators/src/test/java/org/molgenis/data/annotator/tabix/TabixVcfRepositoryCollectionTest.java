@@ -0,0 +1,83 @@
+package org.molgenis.data.annotator.tabix;
+
+import static org.molgenis.data.vcf.VcfRepository.CHROM;
+import static org.molgenis.data.vcf.VcfRepository.POS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Repository;
+import org.molgenis.data.RepositoryCapability;
+import org.springframework.util.FileCopyUtils;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TabixVcfRepositoryCollectionTest
+{
+	private static final String ENTITY_NAME = "ALL.chr1.phase3_shapeit2_mvncall_integrated_v5.20130502.genotypes";
+
+	private File indexedVcf;
+	private File unindexedVcf;
+
+	@BeforeClass
+	public void beforeClass() throws IOException
+	{
+		File indexedDir = new File(FileUtils.getTempDirectory(), "indexed");
+		File unindexedDir = new File(FileUtils.getTempDirectory(), "unindexed");
+		indexedVcf = copy(ENTITY_NAME + ".vcf.gz", indexedDir);
+		copy(ENTITY_NAME + ".vcf.gz.tbi", indexedDir);
+		unindexedVcf = copy(ENTITY_NAME + ".vcf.gz", unindexedDir);
+	}
+
+	private static File copy(String resourceName, File dir) throws IOException
+	{
+		FileUtils.forceMkdir(dir);
+		File file = new File(dir, resourceName);
+		InputStream in = TabixVcfRepositoryCollectionTest.class.getResourceAsStream('/' + resourceName);
+		FileCopyUtils.copy(in, new FileOutputStream(file));
+		return file;
+	}
+
+	@Test
+	public void getRepositoryIndexed() throws IOException
+	{
+		Repository repo = new TabixVcfRepositoryCollection(indexedVcf).getRepository(ENTITY_NAME);
+		try
+		{
+			assertTrue(repo instanceof TabixVcfRepository);
+			assertTrue(repo.getCapabilities().contains(RepositoryCapability.QUERYABLE));
+			try (Stream<Entity> entities = repo.findAll(repo.query().eq(CHROM, "1").and().eq(POS, 10352)))
+			{
+				assertEquals(entities.count(), 1);
+			}
+		}
+		finally
+		{
+			IOUtils.closeQuietly(repo);
+		}
+	}
+
+	@Test
+	public void getRepositoryUnindexed() throws IOException
+	{
+		Repository repo = new TabixVcfRepositoryCollection(unindexedVcf).getRepository(ENTITY_NAME);
+		try
+		{
+			assertFalse(repo instanceof TabixVcfRepository);
+			assertFalse(repo.getCapabilities().contains(RepositoryCapability.QUERYABLE));
+		}
+		finally
+		{
+			IOUtils.closeQuietly(repo);
+		}
+	}
+}
@@ -4,21 +4,28 @@ import static java.util.stream.Collectors.toList;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.molgenis.data.vcf.VcfRepository.CHROM;
 import static org.molgenis.data.vcf.VcfRepository.POS;
+import static org.molgenis.data.vcf.VcfRepository.REF;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisQueryException;
+import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.annotator.tabix.TabixReader.Iterator;
 import org.molgenis.data.support.MapEntity;
 import org.molgenis.data.vcf.VcfReaderFactory;
 import org.molgenis.vcf.VcfReader;
+import org.molgenis.vcf.VcfRecord;
 import org.molgenis.vcf.meta.VcfMeta;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
@@ -32,8 +39,6 @@ public class TabixVcfRepositoryTest
 	@Mock
 	private VcfReaderFactory vcfReaderFactory;
 	@Mock
-	private Iterator iterator;
-	@Mock
 	private VcfReader vcfReader;
 
 	@BeforeTest
@@ -48,9 +53,9 @@ public class TabixVcfRepositoryTest
 	}
 
 	@Test
-	public void testReaderReturnsEmptyIteratorForNullValue()
+	public void testReaderReturnsEmptyIteratorForNullValue() throws IOException
 	{
-		Mockito.when(tabixReader.query("13:12-12")).thenReturn(null);
+		Mockito.when(tabixReader.openQuery("13", 12, 12)).thenReturn(null);
 
 		Stream<Entity> actual = tabixVcfRepository
 				.findAll(tabixVcfRepository.query().eq(CHROM, "13").and().eq(POS, 12));
@@ -61,7 +66,8 @@ public class TabixVcfRepositoryTest
 	@Test
 	public void testReaderFiltersRows() throws IOException
 	{
-		Mockito.when(tabixReader.query("13:12-12")).thenReturn(iterator);
+		Iterator iterator = Mockito.mock(Iterator.class);
+		Mockito.when(tabixReader.openQuery("13", 12, 12)).thenReturn(iterator);
 		Mockito.when(iterator.next()).thenReturn("13\t11\tid1\tA\tC\t12\t.\t.\t.", "13\t12\tid2\tA\tC\t12\t.\t.\t.",
 				"13\t12\tid3\tA\tG\t12\t.\t.\t.", "13\t13\tid4\tA\tC\t12\t.\t.\t.", null);
 
@@ -88,5 +94,152 @@ public class TabixVcfRepositoryTest
 		e2.set("ID", "id3");
 		e2.set("INTERNAL_ID", "ld2wCadyeITy89CrL2TnWg");
 		assertEquals(actual.collect(toList()), Arrays.asList(e1, e2));
+		Mockito.verify(iterator).close();
+	}
+
+	@Test
+	public void testGetCapabilities()
+	{
+		assertEquals(tabixVcfRepository.getCapabilities(), EnumSet.of(RepositoryCapability.QUERYABLE));
+	}
+
+	@Test
+	public void testFindAllRange() throws IOException
+	{
+		Iterator iterator = Mockito.mock(Iterator.class);
+		Mockito.when(tabixReader.openQuery("13", 12, 13)).thenReturn(iterator);
+		Mockito.when(iterator.next()).thenReturn("13\t11\tid1\tA\tC\t12\t.\t.\t.", "13\t12\tid2\tA\tC\t12\t.\t.\t.",
+				"13\t13\tid3\tA\tG\t12\t.\t.\t.", "13\t14\tid4\tA\tC\t12\t.\t.\t.", null);
+
+		try (Stream<Entity> actual = tabixVcfRepository
+				.findAll(tabixVcfRepository.query().eq(CHROM, "13").and().rng(POS, 12, 13)))
+		{
+			assertEquals(actual.map(entity -> entity.getString("ID")).collect(toList()), Arrays.asList("id2", "id3"));
+		}
+		Mockito.verify(iterator).close();
+	}
+
+	@Test
+	public void testFindAllGreaterLess() throws IOException
+	{
+		Iterator iterator = Mockito.mock(Iterator.class);
+		Mockito.when(tabixReader.openQuery("13", 12, 13)).thenReturn(iterator);
+		Mockito.when(iterator.next()).thenReturn("13\t12\tid2\tA\tC\t12\t.\t.\t.", "13\t13\tid3\tA\tG\t12\t.\t.\t.",
+				null);
+
+		List<Entity> actual = tabixVcfRepository
+				.findAll(tabixVcfRepository.query().eq(CHROM, "13").and().gt(POS, 11).and().lt(POS, 14))
+				.collect(toList());
+		assertEquals(actual.stream().map(entity -> entity.getString("ID")).collect(toList()),
+				Arrays.asList("id2", "id3"));
+	}
+
+	@Test
+	public void testFindAllCloseStream() throws IOException
+	{
+		Iterator iterator = Mockito.mock(Iterator.class);
+		Mockito.when(tabixReader.openQuery("14", 1, 100)).thenReturn(iterator);
+		Mockito.when(iterator.next()).thenReturn("14\t1\tid1\tA\tC\t12\t.\t.\t.", "14\t2\tid2\tA\tG\t12\t.\t.\t.",
+				null);
+
+		try (Stream<Entity> actual = tabixVcfRepository
+				.findAll(tabixVcfRepository.query().eq(CHROM, "14").and().rng(POS, 1, 100)))
+		{
+			assertEquals(actual.findFirst().get().getString("ID"), "id1");
+		}
+		Mockito.verify(iterator).close();
+	}
+
+	@Test
+	public void testFindOne() throws IOException
+	{
+		Iterator iterator = Mockito.mock(Iterator.class);
+		Mockito.when(tabixReader.openQuery("15", 12, 12)).thenReturn(iterator);
+		Mockito.when(iterator.next()).thenReturn("15\t12\tid2\tA\tC\t12\t.\t.\t.", null);
+
+		Entity entity = tabixVcfRepository.findOne(tabixVcfRepository.query().eq(CHROM, "15").and().eq(POS, 12));
+		assertEquals(entity.getString("ID"), "id2");
+	}
+
+	@Test
+	public void testQueryPositions() throws IOException
+	{
+		Mockito.when(tabixReader.queryPositions("16", new int[]
+		{ 12, 14, 20 })).thenReturn(
+				Arrays.asList(Arrays.asList("16\t12\tid1\tA\tC\t12\t.\t.\t.", "16\t12\tid2\tA\tG\t12\t.\t.\t."),
+						Collections.emptyList(), Collections.singletonList("16\t20\tid3\tA\tC\t12\t.\t.\t.")));
+
+		List<List<Entity>> actual = tabixVcfRepository.query("16", new long[]
+		{ 12, 14, 20 });
+		assertEquals(actual.stream()
+				.map(entities -> entities.stream().map(entity -> entity.getString("ID")).collect(toList()))
+				.collect(toList()), Arrays.asList(Arrays.asList("id1", "id2"), Collections.emptyList(),
+				Collections.singletonList("id3")));
+	}
+
+	@Test(expectedExceptions = MolgenisQueryException.class)
+	public void testFindAllWithoutChrom()
+	{
+		tabixVcfRepository.findAll(tabixVcfRepository.query().eq(POS, 12));
+	}
+
+	@Test(expectedExceptions = MolgenisQueryException.class)
+	public void testFindAllUnsupportedAttribute()
+	{
+		tabixVcfRepository.findAll(tabixVcfRepository.query().eq(CHROM, "13").and().eq(REF, "A"));
+	}
+
+	@Test
+	public void testIterator() throws IOException
+	{
+		VcfReader vcfReader0 = createVcfReader("id0");
+		VcfReader vcfReader1 = createVcfReader("id1");
+		TabixVcfRepository repository = createRepository(vcfReader0, vcfReader1);
+
+		// each iterator reads from its own reader
+		java.util.Iterator<Entity> iterator0 = repository.iterator();
+		java.util.Iterator<Entity> iterator1 = repository.iterator();
+		assertEquals(iterator0.next().getString("ID"), "id0");
+		assertEquals(iterator1.next().getString("ID"), "id1");
+		assertFalse(iterator0.hasNext());
+		Mockito.verify(vcfReader0).close();
+		Mockito.verify(vcfReader1, Mockito.never()).close();
+	}
+
+	@Test
+	public void testFindAllWithoutRules() throws IOException
+	{
+		VcfReader vcfReader0 = createVcfReader("id0");
+		VcfReader vcfReader1 = createVcfReader("id1");
+		TabixVcfRepository repository = createRepository(vcfReader0, vcfReader1);
+
+		try (Stream<Entity> entities0 = repository.findAll(repository.query());
+				Stream<Entity> entities1 = repository.findAll(repository.query()))
+		{
+			assertEquals(entities0.findFirst().get().getString("ID"), "id0");
+			assertEquals(entities1.findFirst().get().getString("ID"), "id1");
+		}
+		Mockito.verify(vcfReader0).close();
+		Mockito.verify(vcfReader1).close();
+	}
+
+	private TabixVcfRepository createRepository(VcfReader... vcfReaders) throws IOException
+	{
+		VcfReader metaVcfReader = Mockito.mock(VcfReader.class);
+		Mockito.when(metaVcfReader.getVcfMeta()).thenReturn(new VcfMeta());
+		VcfReaderFactory vcfReaderFactory = Mockito.mock(VcfReaderFactory.class);
+		Mockito.when(vcfReaderFactory.get()).thenReturn(metaVcfReader, vcfReaders);
+		TabixVcfRepository repository = new TabixVcfRepository(vcfReaderFactory, tabixReader, "MyEntity");
+		repository.getEntityMetaData();
+		return repository;
+	}
+
+	private static VcfReader createVcfReader(String id)
+	{
+		VcfRecord vcfRecord = new VcfRecord(new VcfMeta(), new String[]
+		{ "1", "1", id, "A", "C", "12", ".", "." });
+		VcfReader vcfReader = Mockito.mock(VcfReader.class);
+		Mockito.when(vcfReader.iterator()).thenReturn(Arrays.asList(vcfRecord).iterator());
+		return vcfReader;
 	}
 }
@@ -0,0 +1,187 @@
+package org.molgenis.data.csv;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import au.com.bytecode.opencsv.CSVParser;
+
+/**
+ * Splits an uncompressed csv file in chunks that end at a record boundary. A record boundary is a line end that is not
+ * part of a quoted value, quote and escape characters are interpreted the same way as {@link CSVParser} does.
+ *
+ * The file is scanned byte by byte. This is possible because separator, quote, escape and line end characters are
+ * single byte characters in UTF-8 and these bytes are never part of a multi-byte character.
+ */
+class CsvChunker implements Closeable
+{
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final InputStream in;
+	private final long chunkSize;
+	private final int separator;
+	private final int quoteChar;
+	private final int escapeChar;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int bufferPos;
+	private int bufferLength;
+	private long pos;
+	private boolean inQuotes;
+	private boolean inField;
+
+	/**
+	 * @param file
+	 *            uncompressed csv file
+	 * @param chunkSize
+	 *            minimum chunk size in bytes, a chunk ends at the first record boundary after this size
+	 * @param separator
+	 *            value separator
+	 * @param quoteChar
+	 *            quote character
+	 * @param escapeChar
+	 *            escape character
+	 */
+	public CsvChunker(File file, long chunkSize, char separator, char quoteChar, char escapeChar) throws IOException
+	{
+		if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be >= 1");
+		if (separator > 127 || quoteChar > 127 || escapeChar > 127)
+		{
+			throw new IllegalArgumentException("separator, quote and escape character must be ASCII characters");
+		}
+		this.in = new FileInputStream(file);
+		this.chunkSize = chunkSize;
+		this.separator = separator;
+		this.quoteChar = quoteChar;
+		this.escapeChar = escapeChar;
+	}
+
+	/**
+	 * Returns the next chunk
+	 *
+	 * @return chunk or null if the end of the file is reached
+	 */
+	public Chunk nextChunk() throws IOException
+	{
+		if (peek() == -1) return null;
+
+		long start = pos;
+		long end;
+		do
+		{
+			end = skipRecord();
+		}
+		while (end - start < chunkSize && peek() != -1);
+		return new Chunk(start, end);
+	}
+
+	/**
+	 * Skips the next record
+	 *
+	 * @return file position after the record
+	 */
+	public long skipRecord() throws IOException
+	{
+		for (int c; (c = read()) != -1;)
+		{
+			if (c == escapeChar)
+			{
+				if (inQuotes || inField)
+				{
+					int next = peek();
+					if (next == quoteChar || next == escapeChar) read();
+				}
+			}
+			else if (c == quoteChar)
+			{
+				if ((inQuotes || inField) && peek() == quoteChar) read();
+				else inQuotes = !inQuotes;
+				inField = !inField;
+			}
+			else if (c == '\n' || c == '\r')
+			{
+				if (c == '\r' && peek() == '\n') read();
+				if (!inQuotes) break;
+			}
+			else if (c == separator && !inQuotes)
+			{
+				inField = false;
+			}
+			else
+			{
+				inField = true;
+			}
+		}
+		return pos;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+
+	private int read() throws IOException
+	{
+		int c = peek();
+		if (c != -1)
+		{
+			++bufferPos;
+			++pos;
+		}
+		return c;
+	}
+
+	private int peek() throws IOException
+	{
+		if (bufferPos == bufferLength)
+		{
+			bufferLength = in.read(buffer);
+			bufferPos = 0;
+			if (bufferLength <= 0)
+			{
+				bufferLength = 0;
+				return -1;
+			}
+		}
+		return buffer[bufferPos] & 0xff;
+	}
+
+	/**
+	 * Byte range of a file
+	 */
+	static class Chunk
+	{
+		private final long start;
+		private final long end;
+
+		public Chunk(long start, long end)
+		{
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * @return file position of the first byte of this chunk
+		 */
+		public long getStart()
+		{
+			return start;
+		}
+
+		/**
+		 * @return file position after the last byte of this chunk
+		 */
+		public long getEnd()
+		{
+			return end;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Chunk [start=" + start + ", end=" + end + "]";
+		}
+	}
+}
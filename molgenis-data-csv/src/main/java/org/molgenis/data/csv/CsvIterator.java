@@ -1,5 +1,6 @@
 package org.molgenis.data.csv;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -7,41 +8,64 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.apache.commons.io.IOUtils;
+import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
 import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.UnknownEntityException;
 import org.molgenis.data.processor.AbstractCellProcessor;
 import org.molgenis.data.processor.CellProcessor;
+import org.molgenis.data.support.ArrayEntity;
+import org.molgenis.data.support.DefaultAttributeMetaData;
+import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.GenericImporterExtensions;
-import org.molgenis.data.support.MapEntity;
 import org.molgenis.util.CloseableIterator;
 import org.springframework.util.StringUtils;
 
+import au.com.bytecode.opencsv.CSVParser;
 import au.com.bytecode.opencsv.CSVReader;
 
 public class CsvIterator implements CloseableIterator<Entity>
 {
 	private static final Charset CHARSET = Charset.forName("UTF-8");
+	private static final int BUFFER_SIZE = 64 * 1024;
 	private final String repositoryName;
 	private ZipFile zipFile;
 	private CSVReader csvReader;
 	private final List<CellProcessor> cellProcessors;
 	private final Map<String, Integer> colNamesMap; // column names index
-	private MapEntity next;
+	private final DefaultEntityMetaData entityMetaData;
+	private final int[] attrIdxs; // indices of the attributes to read
+	private final int[] colIdxs; // attribute to read index --> column index
+	private Entity next;
 	private boolean getNext = true;
 	private Character separator = null;
 
 	public CsvIterator(File file, String repositoryName, List<CellProcessor> cellProcessors, Character separator)
+	{
+		this(file, repositoryName, cellProcessors, separator, null);
+	}
+
+	/**
+	 * @param fetch
+	 *            the columns to read, values of other columns are not processed and are null in the created entities.
+	 *            If fetch is null all columns are read.
+	 */
+	public CsvIterator(File file, String repositoryName, List<CellProcessor> cellProcessors, Character separator,
+			Fetch fetch)
 	{
 		this.repositoryName = repositoryName;
 		this.cellProcessors = cellProcessors;
@@ -75,6 +99,9 @@ public class CsvIterator implements CloseableIterator<Entity>
 			}
 
 			colNamesMap = toColNamesMap(csvReader.readNext());
+			entityMetaData = toEntityMetaData(repositoryName, colNamesMap);
+			attrIdxs = toAttributeIndices(colNamesMap, fetch);
+			colIdxs = toColumnIndices(colNamesMap, attrIdxs);
 		}
 		catch (IOException e)
 		{
@@ -88,6 +115,16 @@ public class CsvIterator implements CloseableIterator<Entity>
 		return colNamesMap;
 	}
 
+	/**
+	 * Returns the meta data of the entities created by this iterator, each column is a string attribute
+	 * 
+	 * @return entity meta data
+	 */
+	public EntityMetaData getEntityMetaData()
+	{
+		return entityMetaData;
+	}
+
 	@Override
 	public boolean hasNext()
 	{
@@ -101,44 +138,21 @@ public class CsvIterator implements CloseableIterator<Entity>
 	}
 
 	@Override
-	public MapEntity next()
+	public Entity next()
 	{
-		MapEntity entity = get();
+		Entity entity = get();
 		getNext = true;
 		return entity;
 	}
 
-	private MapEntity get()
+	private Entity get()
 	{
 		if (getNext)
 		{
 			try
 			{
 				String[] values = csvReader.readNext();
-
-				if ((values != null) && (values.length >= colNamesMap.size()))
-				{
-					List<String> valueList = Arrays.asList(values);
-					for (int i = 0; i < values.length; ++i)
-					{
-						// subsequent separators indicate
-						// null
-						// values instead of empty strings
-						String value = values[i].isEmpty() ? null : values[i];
-						values[i] = processCell(value, false);
-					}
-
-					next = new MapEntity();
-
-					for (String name : colNamesMap.keySet())
-					{
-						next.set(name, valueList.get(colNamesMap.get(name)));
-					}
-				}
-				else
-				{
-					next = null;
-				}
+				next = values != null ? toEntity(values) : null;
 
 				getNext = false;
 			}
@@ -151,6 +165,36 @@ public class CsvIterator implements CloseableIterator<Entity>
 		return next;
 	}
 
+	/**
+	 * Creates an entity from the values of a row, the values are processed by the cell processors of this iterator.
+	 * This method does not change the state of this iterator.
+	 * 
+	 * @param values
+	 *            row values
+	 * @return entity or null if the row contains less values than there are columns
+	 */
+	Entity toEntity(String[] values)
+	{
+		if (values.length < colNamesMap.size()) return null;
+
+		ArrayEntity entity = new ArrayEntity(entityMetaData);
+		for (int i = 0; i < attrIdxs.length; ++i)
+		{
+			// subsequent separators indicate null values instead of empty strings
+			String value = values[colIdxs[i]];
+			entity.set(attrIdxs[i], processCell(value.isEmpty() ? null : value, false));
+		}
+		return entity;
+	}
+
+	/**
+	 * Returns the separator of the values in a row
+	 */
+	char getSeparator()
+	{
+		return separator;
+	}
+
 	@Override
 	public void remove()
 	{
@@ -170,25 +214,30 @@ public class CsvIterator implements CloseableIterator<Entity>
 
 	private CSVReader createCSVReader(String fileName, InputStream in)
 	{
-		Reader reader = new InputStreamReader(in, CHARSET);
+		Reader reader = new InputStreamReader(new BufferedInputStream(in, BUFFER_SIZE), CHARSET);
 
 		if (null == separator)
 		{
-			if (fileName.toLowerCase().endsWith("." + GenericImporterExtensions.CSV.toString())
-					|| fileName.toLowerCase().endsWith("." + GenericImporterExtensions.TXT.toString()))
-			{
-				return new CSVReader(reader);
-			}
+			separator = getSeparator(fileName);
+		}
 
-			if (fileName.toLowerCase().endsWith("." + GenericImporterExtensions.TSV.toString()))
-			{
-				return new CSVReader(reader, '\t');
-			}
+		return new CSVReader(reader, this.separator);
+	}
 
-			throw new MolgenisDataException("Unknown file type: [" + fileName + "] for csv repository");
+	private static char getSeparator(String fileName)
+	{
+		if (fileName.toLowerCase().endsWith("." + GenericImporterExtensions.CSV.toString())
+				|| fileName.toLowerCase().endsWith("." + GenericImporterExtensions.TXT.toString()))
+		{
+			return CSVParser.DEFAULT_SEPARATOR;
 		}
 
-		return new CSVReader(reader, this.separator);
+		if (fileName.toLowerCase().endsWith("." + GenericImporterExtensions.TSV.toString()))
+		{
+			return '\t';
+		}
+
+		throw new MolgenisDataException("Unknown file type: [" + fileName + "] for csv repository");
 	}
 
 	private Map<String, Integer> toColNamesMap(String[] headers)
@@ -206,6 +255,33 @@ public class CsvIterator implements CloseableIterator<Entity>
 		return columnIdx;
 	}
 
+	private static int[] toAttributeIndices(Map<String, Integer> colNamesMap, Fetch fetch)
+	{
+		IntStream attrIdxs = IntStream.range(0, colNamesMap.size());
+		if (fetch != null)
+		{
+			List<String> colNames = new ArrayList<>(colNamesMap.keySet());
+			attrIdxs = attrIdxs.filter(attrIdx -> fetch.hasField(colNames.get(attrIdx)));
+		}
+		return attrIdxs.toArray();
+	}
+
+	private static int[] toColumnIndices(Map<String, Integer> colNamesMap, int[] attrIdxs)
+	{
+		int[] colIdxs = colNamesMap.values().stream().mapToInt(Integer::intValue).toArray();
+		return Arrays.stream(attrIdxs).map(attrIdx -> colIdxs[attrIdx]).toArray();
+	}
+
+	private static DefaultEntityMetaData toEntityMetaData(String repositoryName, Map<String, Integer> colNamesMap)
+	{
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData(repositoryName, ArrayEntity.class);
+		for (String colName : colNamesMap.keySet())
+		{
+			entityMetaData.addAttributeMetaData(new DefaultAttributeMetaData(colName, FieldTypeEnum.STRING));
+		}
+		return entityMetaData;
+	}
+
 	private String processCell(String value, boolean isHeader)
 	{
 		return AbstractCellProcessor.processCell(value, isHeader, cellProcessors);
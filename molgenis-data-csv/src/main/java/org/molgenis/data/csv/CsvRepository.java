@@ -1,11 +1,18 @@
 package org.molgenis.data.csv;
 
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.annotation.Nullable;
 
@@ -13,15 +20,18 @@ import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.processor.CellProcessor;
 import org.molgenis.data.support.AbstractRepository;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.GenericImporterExtensions;
 import org.molgenis.data.support.MapEntity;
+import org.molgenis.util.CloseableIterator;
 import org.springframework.util.StringUtils;
 
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 
 /**
  * Repository implementation for csv files.
@@ -30,6 +40,12 @@ import com.google.common.collect.Iterables;
  */
 public class CsvRepository extends AbstractRepository
 {
+	/**
+	 * Minimum size in bytes of uncompressed files that are parsed in parallel
+	 */
+	static final long PARALLEL_PARSING_MIN_FILE_SIZE = 32L * 1024 * 1024;
+	static final long PARALLEL_PARSING_CHUNK_SIZE = 4L * 1024 * 1024;
+
 	private final String sheetName;
 	private final File file;
 	private List<CellProcessor> cellProcessors;
@@ -62,7 +78,57 @@ public class CsvRepository extends AbstractRepository
 	@Override
 	public Iterator<Entity> iterator()
 	{
-		return new CsvIterator(file, sheetName, cellProcessors, separator);
+		return iterator(null, true);
+	}
+
+	/**
+	 * Returns a stream of entities in which only the fetched columns are read, the values of the other columns are
+	 * null.
+	 */
+	@Override
+	public Stream<Entity> stream(Fetch fetch)
+	{
+		return stream(fetch, true);
+	}
+
+	/**
+	 * Returns a stream of entities in which only the fetched columns are read, the values of the other columns are
+	 * null. Large uncompressed files are parsed in chunks on the common fork-join pool.
+	 * 
+	 * @param fetch
+	 *            the columns to read, if null all columns are read
+	 * @param ordered
+	 *            whether entities are returned in the order of the file. Unordered streams return the entities of a
+	 *            chunk as soon as it is parsed and skip rows with less values than there are columns instead of
+	 *            ending at such a row.
+	 * @return entity stream
+	 */
+	public Stream<Entity> stream(Fetch fetch, boolean ordered)
+	{
+		CloseableIterator<Entity> it = iterator(fetch, ordered);
+		int characteristics = ordered ? ORDERED | NONNULL : NONNULL;
+		return StreamSupport.stream(spliteratorUnknownSize(it, characteristics), false).onClose(it::close);
+	}
+
+	private CloseableIterator<Entity> iterator(Fetch fetch, boolean ordered)
+	{
+		if (isParallelParseable())
+		{
+			return new ParallelCsvIterator(file, sheetName, cellProcessors, separator, fetch,
+					ForkJoinPool.commonPool(), PARALLEL_PARSING_CHUNK_SIZE, ordered);
+		}
+		return new CsvIterator(file, sheetName, cellProcessors, separator, fetch);
+	}
+
+	/**
+	 * Zipped files are read sequentially, uncompressed files are split in chunks that are parsed in parallel if they
+	 * are large enough
+	 */
+	private boolean isParallelParseable()
+	{
+		return !GenericImporterExtensions.ZIP.toString().equalsIgnoreCase(
+				StringUtils.getFilenameExtension(file.getName()))
+				&& file.length() >= PARALLEL_PARSING_MIN_FILE_SIZE && (separator == null || separator < 128);
 	}
 
 	@Override
@@ -72,10 +138,19 @@ public class CsvRepository extends AbstractRepository
 		{
 			entityMetaData = new DefaultEntityMetaData(sheetName, MapEntity.class);
 
-			for (String attrName : new CsvIterator(file, sheetName, null, separator).getColNamesMap().keySet())
+			CsvIterator it = new CsvIterator(file, sheetName, null, separator);
+			try
+			{
+				for (String attrName : it.getColNamesMap().keySet())
+				{
+					AttributeMetaData attr = new DefaultAttributeMetaData(attrName,
+							MolgenisFieldTypes.FieldTypeEnum.STRING);
+					entityMetaData.addAttributeMetaData(attr);
+				}
+			}
+			finally
 			{
-				AttributeMetaData attr = new DefaultAttributeMetaData(attrName, MolgenisFieldTypes.FieldTypeEnum.STRING);
-				entityMetaData.addAttributeMetaData(attr);
+				it.close();
 			}
 		}
 
@@ -94,10 +169,13 @@ public class CsvRepository extends AbstractRepository
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Counts the rows without reading the values of their columns
+	 */
 	@Override
 	public long count()
 	{
-		return Iterables.size(this);
+		return Iterators.size(iterator(new Fetch(), true));
 	}
 
 }
@@ -0,0 +1,288 @@
+package org.molgenis.data.csv;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.IOUtils;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.csv.CsvChunker.Chunk;
+import org.molgenis.data.processor.CellProcessor;
+import org.molgenis.util.CloseableIterator;
+
+import au.com.bytecode.opencsv.CSVParser;
+import au.com.bytecode.opencsv.CSVReader;
+
+/**
+ * Iterator over the rows of an uncompressed csv file that parses chunks of the file in parallel on a fork-join pool.
+ * The file is split in chunks at record boundaries by a {@link CsvChunker} on the iterating thread.
+ *
+ * Entities are returned in the order of the file or in the order in which chunks are parsed. In file order iteration
+ * ends at the first row that contains less values than there are columns, like {@link CsvIterator} does. Out of order
+ * such rows are skipped.
+ */
+class ParallelCsvIterator implements CloseableIterator<Entity>
+{
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+
+	private final String repositoryName;
+	private final CsvIterator csvIterator;
+	private final char separator;
+	private final boolean ordered;
+	private final int maxChunksInProgress;
+	private final FileChannel fileChannel;
+	private final CsvChunker csvChunker;
+	private final CompletionService<ChunkEntities> completionService;
+	private final Deque<Future<ChunkEntities>> chunksInProgress = new ArrayDeque<>();
+	private Iterator<Entity> chunkIterator = Collections.emptyIterator();
+	private boolean endOfChunks;
+	private boolean closed;
+
+	/**
+	 * @param file
+	 *            uncompressed csv file
+	 * @param repositoryName
+	 *            repository name
+	 * @param cellProcessors
+	 *            cell processors, can be null
+	 * @param separator
+	 *            value separator, if null the separator is determined by the file extension
+	 * @param fetch
+	 *            the columns to read, if null all columns are read
+	 * @param forkJoinPool
+	 *            pool that parses the chunks
+	 * @param chunkSize
+	 *            minimum number of bytes per chunk
+	 * @param ordered
+	 *            whether to return entities in the order of the file
+	 */
+	public ParallelCsvIterator(File file, String repositoryName, List<CellProcessor> cellProcessors,
+			Character separator, Fetch fetch, ForkJoinPool forkJoinPool, long chunkSize, boolean ordered)
+	{
+		this.repositoryName = requireNonNull(repositoryName);
+		this.ordered = ordered;
+		this.maxChunksInProgress = forkJoinPool.getParallelism() + 1;
+		this.completionService = new ExecutorCompletionService<>(forkJoinPool);
+
+		// parses the header and converts rows to entities, the rows are read from the chunks
+		this.csvIterator = new CsvIterator(file, repositoryName, cellProcessors, separator, fetch);
+		this.csvIterator.close();
+		this.separator = csvIterator.getSeparator();
+
+		FileChannel fileChannel = null;
+		CsvChunker csvChunker = null;
+		try
+		{
+			fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			csvChunker = new CsvChunker(file, chunkSize, this.separator, CSVParser.DEFAULT_QUOTE_CHARACTER,
+					CSVParser.DEFAULT_ESCAPE_CHARACTER);
+			csvChunker.skipRecord(); // header
+		}
+		catch (IOException e)
+		{
+			IOUtils.closeQuietly(csvChunker);
+			IOUtils.closeQuietly(fileChannel);
+			throw new MolgenisDataException("Exception reading [" + file.getAbsolutePath() + "]", e);
+		}
+		this.fileChannel = fileChannel;
+		this.csvChunker = csvChunker;
+	}
+
+	/**
+	 * Returns the meta data of the entities created by this iterator, each column is a string attribute
+	 *
+	 * @return entity meta data
+	 */
+	public EntityMetaData getEntityMetaData()
+	{
+		return csvIterator.getEntityMetaData();
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		while (!chunkIterator.hasNext())
+		{
+			if (closed) return false;
+
+			submitChunks();
+			if (chunksInProgress.isEmpty())
+			{
+				close();
+				return false;
+			}
+
+			ChunkEntities chunkEntities = takeChunkEntities();
+			if (ordered && chunkEntities.isTruncated())
+			{
+				// rows after a row with missing values are not part of the repository
+				endOfChunks = true;
+				cancelChunks();
+			}
+			chunkIterator = chunkEntities.getEntities().iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public Entity next()
+	{
+		if (!hasNext()) throw new NoSuchElementException();
+		return chunkIterator.next();
+	}
+
+	@Override
+	public void close()
+	{
+		if (!closed)
+		{
+			closed = true;
+			endOfChunks = true;
+			chunkIterator = Collections.emptyIterator();
+			cancelChunks();
+			IOUtils.closeQuietly(csvChunker);
+			IOUtils.closeQuietly(fileChannel);
+		}
+	}
+
+	private void submitChunks()
+	{
+		while (!endOfChunks && chunksInProgress.size() < maxChunksInProgress)
+		{
+			Chunk chunk;
+			try
+			{
+				chunk = csvChunker.nextChunk();
+			}
+			catch (IOException e)
+			{
+				close();
+				throw new MolgenisDataException("Exception reading csv file [" + repositoryName + "]", e);
+			}
+
+			if (chunk != null)
+			{
+				chunksInProgress.add(completionService.submit(() -> parse(chunk)));
+			}
+			else
+			{
+				endOfChunks = true;
+			}
+		}
+	}
+
+	private ChunkEntities takeChunkEntities()
+	{
+		try
+		{
+			Future<ChunkEntities> future;
+			if (ordered)
+			{
+				future = chunksInProgress.remove();
+			}
+			else
+			{
+				future = completionService.take();
+				chunksInProgress.remove(future);
+			}
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			close();
+			Thread.currentThread().interrupt();
+			throw new MolgenisDataException(e);
+		}
+		catch (ExecutionException e)
+		{
+			close();
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new MolgenisDataException("Exception reading csv file [" + repositoryName + "]", cause);
+		}
+	}
+
+	private void cancelChunks()
+	{
+		chunksInProgress.forEach(future -> future.cancel(false));
+		chunksInProgress.clear();
+	}
+
+	private ChunkEntities parse(Chunk chunk) throws IOException
+	{
+		ByteBuffer bytes = ByteBuffer.allocate((int) (chunk.getEnd() - chunk.getStart()));
+		while (bytes.hasRemaining())
+		{
+			if (fileChannel.read(bytes, chunk.getStart() + bytes.position()) == -1) break;
+		}
+
+		List<Entity> entities = new ArrayList<>();
+		boolean truncated = false;
+		try (CSVReader csvReader = new CSVReader(new InputStreamReader(
+				new ByteArrayInputStream(bytes.array(), 0, bytes.position()), CHARSET), separator))
+		{
+			for (String[] values; (values = csvReader.readNext()) != null;)
+			{
+				Entity entity = csvIterator.toEntity(values);
+				if (entity != null)
+				{
+					entities.add(entity);
+				}
+				else
+				{
+					truncated = true;
+					if (ordered) break;
+				}
+			}
+		}
+		return new ChunkEntities(entities, truncated);
+	}
+
+	private static class ChunkEntities
+	{
+		private final List<Entity> entities;
+		private final boolean truncated;
+
+		public ChunkEntities(List<Entity> entities, boolean truncated)
+		{
+			this.entities = entities;
+			this.truncated = truncated;
+		}
+
+		public List<Entity> getEntities()
+		{
+			return entities;
+		}
+
+		/**
+		 * @return whether the chunk contains a row with less values than there are columns
+		 */
+		public boolean isTruncated()
+		{
+			return truncated;
+		}
+	}
+}
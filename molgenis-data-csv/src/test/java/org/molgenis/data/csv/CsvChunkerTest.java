@@ -0,0 +1,85 @@
+package org.molgenis.data.csv;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.apache.commons.io.FileUtils;
+import org.molgenis.data.csv.CsvChunker.Chunk;
+import org.testng.annotations.Test;
+
+public class CsvChunkerTest
+{
+	@Test
+	public void nextChunk() throws IOException
+	{
+		File file = createFile("col1,col2\na,b\nc,d\n");
+		try (CsvChunker csvChunker = new CsvChunker(file, 1, ',', '"', '\\'))
+		{
+			assertEquals(csvChunker.skipRecord(), 10);
+			assertChunkEquals(csvChunker.nextChunk(), 10, 14);
+			assertChunkEquals(csvChunker.nextChunk(), 14, 18);
+			assertNull(csvChunker.nextChunk());
+		}
+	}
+
+	@Test
+	public void nextChunkMultipleRecords() throws IOException
+	{
+		File file = createFile("a,b\r\nc,d\r\ne,f");
+		try (CsvChunker csvChunker = new CsvChunker(file, 6, ',', '"', '\\'))
+		{
+			assertChunkEquals(csvChunker.nextChunk(), 0, 10);
+			assertChunkEquals(csvChunker.nextChunk(), 10, 13);
+			assertNull(csvChunker.nextChunk());
+		}
+	}
+
+	@Test
+	public void nextChunkQuotedLineEnd() throws IOException
+	{
+		File file = createFile("\"a\nb\",c\n\"d\"\"\n\",e\nf,g\n");
+		try (CsvChunker csvChunker = new CsvChunker(file, 1, ',', '"', '\\'))
+		{
+			assertChunkEquals(csvChunker.nextChunk(), 0, 8);
+			assertChunkEquals(csvChunker.nextChunk(), 8, 17);
+			assertChunkEquals(csvChunker.nextChunk(), 17, 21);
+			assertNull(csvChunker.nextChunk());
+		}
+	}
+
+	@Test
+	public void nextChunkEscapedQuote() throws IOException
+	{
+		File file = createFile("\"a\\\"\nb\",c\nd,e\n");
+		try (CsvChunker csvChunker = new CsvChunker(file, 1, ',', '"', '\\'))
+		{
+			assertChunkEquals(csvChunker.nextChunk(), 0, 10);
+			assertChunkEquals(csvChunker.nextChunk(), 10, 14);
+			assertNull(csvChunker.nextChunk());
+		}
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void CsvChunkerInvalidChunkSize() throws IOException
+	{
+		new CsvChunker(createFile(""), 0, ',', '"', '\\');
+	}
+
+	private static void assertChunkEquals(Chunk chunk, long start, long end)
+	{
+		assertEquals(chunk.getStart(), start);
+		assertEquals(chunk.getEnd(), end);
+	}
+
+	private static File createFile(String content) throws IOException
+	{
+		File file = File.createTempFile("CsvChunkerTest", ".csv");
+		file.deleteOnExit();
+		FileUtils.write(file, content, Charset.forName("UTF-8"));
+		return file;
+	}
+}
@@ -14,11 +14,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.processor.CellProcessor;
 import org.springframework.util.FileCopyUtils;
 import org.testng.annotations.BeforeClass;
@@ -181,6 +184,29 @@ public class CsvRepositoryTest
 		}
 	}
 
+	@Test
+	public void streamFetch() throws IOException
+	{
+		try (CsvRepository csvRepository = new CsvRepository(testdata, null))
+		{
+			List<Entity> entities = csvRepository.stream(new Fetch().field("col2")).collect(Collectors.toList());
+			assertEquals(entities.size(), 5);
+			assertNull(entities.get(0).get("col1"));
+			assertEquals(entities.get(0).get("col2"), "val2");
+			assertNull(entities.get(1).get("col1"));
+			assertEquals(entities.get(1).get("col2"), "b");
+		}
+	}
+
+	@Test
+	public void count() throws IOException
+	{
+		try (CsvRepository csvRepository = new CsvRepository(testdata, null))
+		{
+			assertEquals(csvRepository.count(), 5);
+		}
+	}
+
 	@Test
 	public void iterator_noValues() throws IOException
 	{
@@ -0,0 +1,145 @@
+package org.molgenis.data.csv;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class ParallelCsvIteratorTest
+{
+	private ForkJoinPool forkJoinPool;
+	private File file;
+
+	@BeforeClass
+	public void setUpBeforeClass() throws IOException
+	{
+		forkJoinPool = new ForkJoinPool(3);
+
+		StringBuilder strBuilder = new StringBuilder("id,value\n");
+		for (int i = 0; i < 1000; ++i)
+		{
+			switch (i % 4)
+			{
+				case 0:
+					strBuilder.append(i).append(",value").append(i).append('\n');
+					break;
+				case 1:
+					strBuilder.append(i).append(",\"multi\nline ").append(i).append("\"\n");
+					break;
+				case 2:
+					strBuilder.append(i).append(",\"quote \"\" and \\\" ").append(i).append("\"\r\n");
+					break;
+				default:
+					strBuilder.append(i).append(",\n");
+					break;
+			}
+		}
+		file = createFile("ParallelCsvIteratorTest", strBuilder.toString());
+	}
+
+	@AfterClass
+	public void tearDownAfterClass()
+	{
+		forkJoinPool.shutdownNow();
+	}
+
+	@Test
+	public void iteratorOrdered()
+	{
+		List<Entity> entities = Lists.newArrayList(new ParallelCsvIterator(file, file.getName(), null, null, null,
+				forkJoinPool, 100, true));
+		assertEquals(toStrings(entities), toStrings(readSequential(null)));
+	}
+
+	@Test
+	public void iteratorUnordered()
+	{
+		List<Entity> entities = Lists.newArrayList(new ParallelCsvIterator(file, file.getName(), null, null, null,
+				forkJoinPool, 100, false));
+		List<String> expected = toStrings(readSequential(null));
+		expected.sort(Comparator.naturalOrder());
+		List<String> actual = toStrings(entities);
+		actual.sort(Comparator.naturalOrder());
+		assertEquals(actual, expected);
+	}
+
+	@Test
+	public void iteratorFetch()
+	{
+		List<Entity> entities = Lists.newArrayList(new ParallelCsvIterator(file, file.getName(), null, null,
+				new Fetch().field("value"), forkJoinPool, 100, true));
+		assertEquals(entities.size(), 1000);
+		entities.forEach(entity -> assertNull(entity.get("id")));
+		assertEquals(toStrings(entities), toStrings(readSequential(new Fetch().field("value"))));
+	}
+
+	@Test
+	public void iteratorTruncatedOrdered() throws IOException
+	{
+		File truncatedFile = createFile("ParallelCsvIteratorTruncatedTest",
+				"col1,col2\na,b\nc,d\n\ne,f\ng,h\n\ni,j\n");
+		List<Entity> entities = Lists.newArrayList(new ParallelCsvIterator(truncatedFile, truncatedFile.getName(),
+				null, null, null, forkJoinPool, 1, true));
+		assertEquals(entities.stream().map(entity -> entity.getString("col1")).collect(Collectors.toList()),
+				Lists.newArrayList("a", "c"));
+	}
+
+	@Test
+	public void iteratorTruncatedUnordered() throws IOException
+	{
+		File truncatedFile = createFile("ParallelCsvIteratorTruncatedTest",
+				"col1,col2\na,b\nc,d\n\ne,f\ng,h\n\ni,j\n");
+		List<String> values = Lists.newArrayList(new ParallelCsvIterator(truncatedFile, truncatedFile.getName(), null,
+				null, null, forkJoinPool, 1, false)).stream().map(entity -> entity.getString("col1"))
+				.collect(Collectors.toList());
+		values.sort(Comparator.naturalOrder());
+		assertEquals(values, Lists.newArrayList("a", "c", "e", "g", "i"));
+	}
+
+	@Test
+	public void close()
+	{
+		ParallelCsvIterator it = new ParallelCsvIterator(file, file.getName(), null, null, null, forkJoinPool, 100,
+				true);
+		it.next();
+		it.close();
+		assertFalse(it.hasNext());
+	}
+
+	private List<Entity> readSequential(Fetch fetch)
+	{
+		return Lists.newArrayList(new CsvIterator(file, file.getName(), null, null, fetch));
+	}
+
+	private static List<String> toStrings(List<Entity> entities)
+	{
+		List<String> strings = new ArrayList<>(entities.size());
+		entities.forEach(entity -> strings.add(entity.get("id") + "=" + entity.get("value")));
+		return strings;
+	}
+
+	private static File createFile(String prefix, String content) throws IOException
+	{
+		File file = File.createTempFile(prefix, ".csv");
+		file.deleteOnExit();
+		FileUtils.write(file, content, Charset.forName("UTF-8"));
+		return file;
+	}
+}
@@ -113,8 +113,9 @@ public abstract class AbstractElasticsearchRepository implements Repository
 	@Override
 	public Stream<Entity> stream(Fetch fetch)
 	{
+		// streaming all entities is a bulk read, use a scroll instead of paged searches
 		Query q = new QueryImpl().fetch(fetch);
-		return elasticSearchService.searchAsStream(q, getEntityMetaData());
+		return elasticSearchService.scroll(q, getEntityMetaData());
 	}
 
 	@Override
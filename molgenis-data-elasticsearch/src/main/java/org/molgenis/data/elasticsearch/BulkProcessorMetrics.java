@@ -0,0 +1,132 @@
+package org.molgenis.data.elasticsearch;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk processor listener that keeps track of the number of indexed documents and the latency of bulk requests.
+ */
+class BulkProcessorMetrics implements BulkProcessor.Listener
+{
+	private static final Logger LOG = LoggerFactory.getLogger(BulkProcessorMetrics.class);
+
+	private final long startTime = System.nanoTime();
+	private final Map<Long, Long> bulkStartTimes = new ConcurrentHashMap<>();
+	private final AtomicLong nrDocuments = new AtomicLong();
+	private final AtomicLong nrBulks = new AtomicLong();
+	private final AtomicLong nrFailedBulks = new AtomicLong();
+	private final AtomicLong totalBulkLatency = new AtomicLong();
+	private final AtomicLong maxBulkLatency = new AtomicLong();
+
+	@Override
+	public void beforeBulk(long executionId, BulkRequest request)
+	{
+		if (LOG.isTraceEnabled())
+		{
+			LOG.trace("Going to execute new bulk composed of " + request.numberOfActions() + " actions");
+		}
+		bulkStartTimes.put(executionId, System.nanoTime());
+	}
+
+	@Override
+	public void afterBulk(long executionId, BulkRequest request, BulkResponse response)
+	{
+		if (LOG.isTraceEnabled())
+		{
+			LOG.trace("Executed bulk composed of " + request.numberOfActions() + " actions");
+		}
+		if (response.hasFailures())
+		{
+			LOG.warn("Error executing bulk: " + response.buildFailureMessage());
+		}
+		afterBulk(executionId, request.numberOfActions());
+	}
+
+	@Override
+	public void afterBulk(long executionId, BulkRequest request, Throwable failure)
+	{
+		LOG.warn("Error executing bulk", failure);
+		nrFailedBulks.incrementAndGet();
+		afterBulk(executionId, 0);
+	}
+
+	private void afterBulk(long executionId, int nrActions)
+	{
+		Long bulkStartTime = bulkStartTimes.remove(executionId);
+		if (bulkStartTime != null)
+		{
+			long bulkLatency = System.nanoTime() - bulkStartTime;
+			totalBulkLatency.addAndGet(bulkLatency);
+			maxBulkLatency.accumulateAndGet(bulkLatency, Math::max);
+		}
+		nrDocuments.addAndGet(nrActions);
+		nrBulks.incrementAndGet();
+	}
+
+	/**
+	 * @return number of documents in executed bulk requests
+	 */
+	public long getNrDocuments()
+	{
+		return nrDocuments.get();
+	}
+
+	/**
+	 * @return number of executed bulk requests
+	 */
+	public long getNrBulks()
+	{
+		return nrBulks.get();
+	}
+
+	/**
+	 * @return number of bulk requests that failed
+	 */
+	public long getNrFailedBulks()
+	{
+		return nrFailedBulks.get();
+	}
+
+	/**
+	 * @return average bulk request latency in milliseconds
+	 */
+	public long getAverageBulkLatencyInMillis()
+	{
+		long nrBulks = this.nrBulks.get();
+		return nrBulks > 0 ? TimeUnit.NANOSECONDS.toMillis(totalBulkLatency.get() / nrBulks) : 0;
+	}
+
+	/**
+	 * @return maximum bulk request latency in milliseconds
+	 */
+	public long getMaxBulkLatencyInMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(maxBulkLatency.get());
+	}
+
+	/**
+	 * @return number of indexed documents per second since this listener was created
+	 */
+	public long getDocumentsPerSecond()
+	{
+		long elapsedTime = System.nanoTime() - startTime;
+		return elapsedTime > 0 ? nrDocuments.get() * TimeUnit.SECONDS.toNanos(1) / elapsedTime : 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "indexed [" + getNrDocuments() + "] documents in [" + getNrBulks() + "] bulks ([" + getNrFailedBulks()
+				+ "] failed) at [" + getDocumentsPerSecond() + "] docs/s, average bulk latency ["
+				+ getAverageBulkLatencyInMillis() + "] ms, maximum bulk latency [" + getMaxBulkLatencyInMillis()
+				+ "] ms";
+	}
+}
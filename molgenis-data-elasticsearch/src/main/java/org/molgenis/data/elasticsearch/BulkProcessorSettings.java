@@ -0,0 +1,79 @@
+package org.molgenis.data.elasticsearch;
+
+/**
+ * Settings for bulk indexing documents.
+ *
+ * @see ElasticsearchService#setBulkProcessorSettings(BulkProcessorSettings)
+ * @see ElasticsearchService#setBulkProcessorSettings(String, BulkProcessorSettings)
+ */
+public class BulkProcessorSettings
+{
+	public static final BulkProcessorSettings DEFAULT = new BulkProcessorSettings(1000, 5 * 1024 * 1024, 1, 0,
+			Runtime.getRuntime().availableProcessors());
+
+	private final int bulkActions;
+	private final long bulkSizeInBytes;
+	private final int concurrentRequests;
+	private final long flushIntervalInMillis;
+	private final int conversionThreads;
+
+	/**
+	 * @param bulkActions
+	 *            number of documents after which a bulk request is executed, -1 to disable
+	 * @param bulkSizeInBytes
+	 *            size of a bulk request after which it is executed, -1 to disable
+	 * @param concurrentRequests
+	 *            number of bulk requests that can be executed while documents are being added, 0 to execute bulk
+	 *            requests synchronously
+	 * @param flushIntervalInMillis
+	 *            interval after which a bulk request is executed regardless of its size, 0 to disable
+	 * @param conversionThreads
+	 *            maximum number of threads that convert entities to documents in parallel, 1 to convert entities
+	 *            on the indexing thread
+	 */
+	public BulkProcessorSettings(int bulkActions, long bulkSizeInBytes, int concurrentRequests,
+			long flushIntervalInMillis, int conversionThreads)
+	{
+		if (concurrentRequests < 0) throw new IllegalArgumentException("concurrentRequests must be >= 0");
+		if (flushIntervalInMillis < 0) throw new IllegalArgumentException("flushIntervalInMillis must be >= 0");
+		if (conversionThreads < 1) throw new IllegalArgumentException("conversionThreads must be >= 1");
+		this.bulkActions = bulkActions;
+		this.bulkSizeInBytes = bulkSizeInBytes;
+		this.concurrentRequests = concurrentRequests;
+		this.flushIntervalInMillis = flushIntervalInMillis;
+		this.conversionThreads = conversionThreads;
+	}
+
+	public int getBulkActions()
+	{
+		return bulkActions;
+	}
+
+	public long getBulkSizeInBytes()
+	{
+		return bulkSizeInBytes;
+	}
+
+	public int getConcurrentRequests()
+	{
+		return concurrentRequests;
+	}
+
+	public long getFlushIntervalInMillis()
+	{
+		return flushIntervalInMillis;
+	}
+
+	public int getConversionThreads()
+	{
+		return conversionThreads;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "BulkProcessorSettings [bulkActions=" + bulkActions + ", bulkSizeInBytes=" + bulkSizeInBytes
+				+ ", concurrentRequests=" + concurrentRequests + ", flushIntervalInMillis=" + flushIntervalInMillis
+				+ ", conversionThreads=" + conversionThreads + "]";
+	}
+}
@@ -11,7 +11,11 @@ import static org.molgenis.data.elasticsearch.util.MapperTypeSanitizer.sanitizeM
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.elasticsearch.ElasticsearchException;
@@ -20,6 +24,7 @@ import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.action.search.ShardSearchFailure;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
@@ -37,21 +42,28 @@ import org.slf4j.LoggerFactory;
 import com.google.common.collect.Lists;
 
 /**
- * Retrieve search results in batches. Note: We do not use Elasticsearch scan & scroll, because scrolling is not
- * intended for real time user request: http://www.elasticsearch.org/guide/en/elasticsearch/reference/current
+ * Retrieve search results in batches. Note: We do not use Elasticsearch scan & scroll when iterating, because scrolling
+ * is not intended for real time user request: http://www.elasticsearch.org/guide/en/elasticsearch/reference/current
  * /search-request-scroll.html
+ * 
+ * Consumers that process all search results, e.g. exports and index rebuilds, can use {@link #scroll()} instead.
  */
 class ElasticsearchEntityIterable extends BatchingQueryResult implements EntityCollection
 {
 	private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchEntityIterable.class);
 
 	private static final int BATCH_SIZE = 1000;
+	/**
+	 * time to keep the scroll context alive between two scroll requests, only has to cover processing one batch
+	 */
+	private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
 
 	private final EntityMetaData entityMeta;
 	private final Client client;
 	private final ElasticsearchEntityFactory elasticsearchEntityFactory;
 	private final SearchRequestGenerator searchRequestGenerator;
 	private final String[] indexNames;
+	private final Query query;
 
 	private final String type;
 
@@ -65,12 +77,39 @@ class ElasticsearchEntityIterable extends BatchingQueryResult implements EntityC
 		this.elasticsearchEntityFactory = requireNonNull(elasticsearchEntityFactory);
 		this.searchRequestGenerator = requireNonNull(searchRequestGenerator);
 		this.indexNames = requireNonNull(indexNames);
+		this.query = requireNonNull(q);
 
 		this.type = sanitizeMapperType(entityMetaData.getName());
 	}
 
 	@Override
 	protected List<Entity> getBatch(Query q)
+	{
+		SearchRequestBuilder searchRequestBuilder = createSearchRequest(q, SearchType.QUERY_AND_FETCH);
+		SearchResponse searchResponse = searchRequestBuilder.execute().actionGet();
+		validateSearchResponse(searchResponse);
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Searched Elasticsearch '" + type + "' docs using query [" + q + "] in "
+					+ searchResponse.getTookInMillis() + "ms");
+		}
+		return toEntities(searchResponse.getHits(), q);
+	}
+
+	/**
+	 * Streams all search results using a scroll. The scroll is cleared when all results are consumed, when retrieving
+	 * results fails or when the stream is closed. The query offset and page size are ignored.
+	 * 
+	 * @return entity stream
+	 */
+	public Stream<Entity> scroll()
+	{
+		ScrollIterator it = new ScrollIterator();
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false)
+				.onClose(it::clearScroll);
+	}
+
+	private SearchRequestBuilder createSearchRequest(Query q, SearchType searchType)
 	{
 		if (LOG.isTraceEnabled())
 		{
@@ -78,8 +117,8 @@ class ElasticsearchEntityIterable extends BatchingQueryResult implements EntityC
 		}
 
 		SearchRequestBuilder searchRequestBuilder = client.prepareSearch(indexNames);
-		searchRequestGenerator.buildSearchRequest(searchRequestBuilder, type, SearchType.QUERY_AND_FETCH, q, null, null,
-				null, entityMeta);
+		searchRequestGenerator.buildSearchRequest(searchRequestBuilder, type, searchType, q, null, null, null,
+				entityMeta);
 
 		// We are in a transaction, the first index is the status before the transaction started, the second
 		// index the status within the transaction. We don't want to return the deleted records and of the
@@ -103,8 +142,11 @@ class ElasticsearchEntityIterable extends BatchingQueryResult implements EntityC
 		{
 			LOG.trace("SearchRequest: " + searchRequestBuilder);
 		}
-		SearchResponse searchResponse = searchRequestBuilder.execute().actionGet();
+		return searchRequestBuilder;
+	}
 
+	private void validateSearchResponse(SearchResponse searchResponse)
+	{
 		if (searchResponse.getFailedShards() > 0)
 		{
 			StringBuilder sb = new StringBuilder("Search failed.");
@@ -114,13 +156,10 @@ class ElasticsearchEntityIterable extends BatchingQueryResult implements EntityC
 			}
 			throw new ElasticsearchException(sb.toString());
 		}
-		if (LOG.isDebugEnabled())
-		{
-			LOG.debug("Searched Elasticsearch '" + type + "' docs using query [" + q + "] in "
-					+ searchResponse.getTookInMillis() + "ms");
-		}
-		SearchHits searchHits = searchResponse.getHits();
+	}
 
+	private List<Entity> toEntities(SearchHits searchHits, Query q)
+	{
 		List<Entity> entities;
 		if (searchHits.hits().length > 0)
 		{
@@ -171,4 +210,103 @@ class ElasticsearchEntityIterable extends BatchingQueryResult implements EntityC
 			}
 		});
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Iterates over search results one scroll page at a time
+	 */
+	private class ScrollIterator implements Iterator<Entity>
+	{
+		private String scrollId;
+		private boolean done;
+		private Iterator<Entity> it = Collections.emptyIterator();
+
+		@Override
+		public boolean hasNext()
+		{
+			while (!it.hasNext() && !done)
+			{
+				try
+				{
+					it = nextPage().iterator();
+				}
+				catch (RuntimeException e)
+				{
+					// iteration ends here, don't keep the scroll context alive until it expires
+					clearScrollQuietly();
+					throw e;
+				}
+			}
+			return it.hasNext();
+		}
+
+		@Override
+		public Entity next()
+		{
+			if (!hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+			return it.next();
+		}
+
+		private List<Entity> nextPage()
+		{
+			SearchResponse searchResponse;
+			boolean scan = false;
+			if (scrollId == null)
+			{
+				// scan is cheaper but does not sort and returns the first page on the first scroll request
+				scan = query.getSort() == null || !query.getSort().iterator().hasNext();
+				SearchRequestBuilder searchRequestBuilder = createSearchRequest(query,
+						scan ? SearchType.SCAN : SearchType.QUERY_THEN_FETCH);
+				searchRequestBuilder.setFrom(0);
+				searchRequestBuilder.setSize(BATCH_SIZE);
+				searchRequestBuilder.setScroll(SCROLL_KEEP_ALIVE);
+				searchResponse = searchRequestBuilder.execute().actionGet();
+			}
+			else
+			{
+				searchResponse = client.prepareSearchScroll(scrollId).setScroll(SCROLL_KEEP_ALIVE).execute()
+						.actionGet();
+			}
+			validateSearchResponse(searchResponse);
+			scrollId = searchResponse.getScrollId();
+
+			SearchHits searchHits = searchResponse.getHits();
+			if (LOG.isDebugEnabled())
+			{
+				LOG.debug("Scrolled [{}] of [{}] Elasticsearch '{}' docs using query [{}] in {}ms",
+						searchHits.hits().length, searchHits.getTotalHits(), type, query, searchResponse.getTookInMillis());
+			}
+			if (searchHits.hits().length == 0 && !scan)
+			{
+				clearScroll();
+			}
+			return toEntities(searchHits, query);
+		}
+
+		private void clearScrollQuietly()
+		{
+			try
+			{
+				clearScroll();
+			}
+			catch (RuntimeException e)
+			{
+				LOG.warn("Failed to clear Elasticsearch scroll [{}]", scrollId, e);
+			}
+		}
+
+		private void clearScroll()
+		{
+			if (!done)
+			{
+				done = true;
+				if (scrollId != null)
+				{
+					client.prepareClearScroll().addScrollId(scrollId).execute().actionGet();
+				}
+			}
+		}
+	}
+}
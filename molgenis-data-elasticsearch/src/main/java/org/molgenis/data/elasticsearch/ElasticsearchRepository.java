@@ -2,6 +2,8 @@ package org.molgenis.data.elasticsearch;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.stream.Stream;
+
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.support.QueryImpl;
@@ -25,7 +27,10 @@ public class ElasticsearchRepository extends AbstractElasticsearchRepository
 	@Override
 	public void rebuildIndex()
 	{
-		Iterable<Entity> entities = elasticSearchService.search(new QueryImpl(this), getEntityMetaData());
-		elasticSearchService.rebuildIndex(entities, entityMetaData);
+		// the entities are read once while rebuilding, scroll through them instead of paging
+		try (Stream<Entity> entities = elasticSearchService.scroll(new QueryImpl(this), getEntityMetaData()))
+		{
+			elasticSearchService.rebuildIndex(entities::iterator, entityMetaData);
+		}
 	}
 }
\ No newline at end of file
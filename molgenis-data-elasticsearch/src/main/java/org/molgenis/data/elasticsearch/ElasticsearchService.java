@@ -1,6 +1,7 @@
 package org.molgenis.data.elasticsearch;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.StreamSupport.stream;
 import static org.molgenis.data.elasticsearch.request.SourceFilteringGenerator.toFetchFields;
 import static org.molgenis.data.elasticsearch.util.ElasticsearchEntityUtils.toElasticsearchId;
@@ -10,14 +11,24 @@ import static org.molgenis.data.transaction.MolgenisTransactionManager.TRANSACTI
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import javax.annotation.PreDestroy;
+
 import org.apache.commons.lang3.ArrayUtils;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.admin.indices.exists.types.TypesExistsResponse;
@@ -26,8 +37,6 @@ import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsResponse;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingResponse;
 import org.elasticsearch.action.admin.indices.optimize.OptimizeResponse;
 import org.elasticsearch.action.bulk.BulkProcessor;
-import org.elasticsearch.action.bulk.BulkRequest;
-import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.deletebyquery.DeleteByQueryResponse;
 import org.elasticsearch.action.deletebyquery.IndexDeleteByQueryResponse;
 import org.elasticsearch.action.get.GetRequestBuilder;
@@ -44,6 +53,7 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.collect.Iterators;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -80,6 +90,7 @@ import org.molgenis.data.transaction.MolgenisTransactionLogEntryMetaData;
 import org.molgenis.data.transaction.MolgenisTransactionLogMetaData;
 import org.molgenis.util.DependencyResolver;
 import org.molgenis.util.EntityUtils;
+import org.molgenis.util.OrderedBatchExecutor;
 import org.molgenis.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -99,6 +110,10 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 	private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchService.class);
 
 	private static final int BATCH_SIZE = 1000;
+	/**
+	 * Number of entities that a worker thread converts to documents in one task
+	 */
+	private static final int CONVERSION_BATCH_SIZE = 250;
 
 	public static final String CRUD_TYPE_FIELD_NAME = "MolgenisCrudType";
 	private static BulkProcessorFactory BULK_PROCESSOR_FACTORY = new BulkProcessorFactory();
@@ -122,6 +137,9 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 	private final ResponseParser responseParser = new ResponseParser();
 	private final SearchRequestGenerator generator = new SearchRequestGenerator();
 	private final ElasticsearchUtils elasticsearchUtils;
+	private final Map<String, BulkProcessorSettings> bulkProcessorSettingsMap = new ConcurrentHashMap<>();
+	private volatile BulkProcessorSettings defaultBulkProcessorSettings = BulkProcessorSettings.DEFAULT;
+	private final Map<Integer, OrderedBatchExecutor> conversionExecutors = new ConcurrentHashMap<>();
 
 	public ElasticsearchService(Client client, String indexName, DataService dataService,
 			ElasticsearchEntityFactory elasticsearchEntityFactory)
@@ -153,6 +171,50 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 		}
 	}
 
+	/**
+	 * Sets the bulk processor settings used for entities without entity specific settings
+	 * 
+	 * @param bulkProcessorSettings
+	 *            bulk processor settings
+	 */
+	public void setBulkProcessorSettings(BulkProcessorSettings bulkProcessorSettings)
+	{
+		this.defaultBulkProcessorSettings = requireNonNull(bulkProcessorSettings);
+	}
+
+	/**
+	 * Sets the bulk processor settings for one entity, e.g. to index large entities with larger bulks
+	 * 
+	 * @param entityName
+	 *            entity name
+	 * @param bulkProcessorSettings
+	 *            bulk processor settings or null to use the default settings
+	 */
+	public void setBulkProcessorSettings(String entityName, BulkProcessorSettings bulkProcessorSettings)
+	{
+		if (bulkProcessorSettings != null)
+		{
+			bulkProcessorSettingsMap.put(entityName, bulkProcessorSettings);
+		}
+		else
+		{
+			bulkProcessorSettingsMap.remove(entityName);
+		}
+	}
+
+	/**
+	 * Returns the bulk processor settings for the given entity
+	 * 
+	 * @param entityName
+	 *            entity name
+	 * @return entity specific bulk processor settings or default settings
+	 */
+	public BulkProcessorSettings getBulkProcessorSettings(String entityName)
+	{
+		BulkProcessorSettings bulkProcessorSettings = bulkProcessorSettingsMap.get(entityName);
+		return bulkProcessorSettings != null ? bulkProcessorSettings : defaultBulkProcessorSettings;
+	}
+
 	@Override
 	public Iterable<String> getTypes()
 	{
@@ -418,19 +480,27 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 	@Override
 	public long index(Iterable<? extends Entity> entities, EntityMetaData entityMetaData, IndexingMode indexingMode)
 	{
-		String transactionId = null;
-		if (!NON_TRANSACTIONAL_ENTITIES.contains(entityMetaData.getName()))
-		{
-			transactionId = getCurrentTransactionId();
-		}
-		String index = transactionId != null ? transactionId : indexName;
-
-		CrudType crudType = indexingMode == IndexingMode.ADD ? CrudType.ADD : CrudType.UPDATE;
-		return index(index, entities.iterator(), entityMetaData, crudType, true);
+		return index(stream(entities.spliterator(), false), entityMetaData, indexingMode);
 	}
 
 	@Override
 	public long index(Stream<? extends Entity> entities, EntityMetaData entityMetaData, IndexingMode indexingMode)
+	{
+		return index(entities, entityMetaData, indexingMode, getBulkProcessorSettings(entityMetaData.getName()));
+	}
+
+	/**
+	 * Same as {@link #index(Stream, EntityMetaData, IndexingMode)} with bulk processor settings for this call
+	 * 
+	 * @param entities
+	 * @param entityMetaData
+	 * @param indexingMode
+	 * @param bulkProcessorSettings
+	 *            bulk processor settings
+	 * @return number of indexed entities
+	 */
+	public long index(Stream<? extends Entity> entities, EntityMetaData entityMetaData, IndexingMode indexingMode,
+			BulkProcessorSettings bulkProcessorSettings)
 	{
 		String transactionId = null;
 		if (!NON_TRANSACTIONAL_ENTITIES.contains(entityMetaData.getName()))
@@ -440,7 +510,7 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 		String index = transactionId != null ? transactionId : indexName;
 
 		CrudType crudType = indexingMode == IndexingMode.ADD ? CrudType.ADD : CrudType.UPDATE;
-		return index(index, entities.iterator(), entityMetaData, crudType, true);
+		return index(index, entities.iterator(), entityMetaData, crudType, true, bulkProcessorSettings);
 	}
 
 	private String getCurrentTransactionId()
@@ -450,6 +520,13 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 
 	long index(String index, Iterator<? extends Entity> it, EntityMetaData entityMetaData, CrudType crudType,
 			boolean updateIndex)
+	{
+		return index(index, it, entityMetaData, crudType, updateIndex,
+				getBulkProcessorSettings(entityMetaData.getName()));
+	}
+
+	private long index(String index, Iterator<? extends Entity> it, EntityMetaData entityMetaData, CrudType crudType,
+			boolean updateIndex, BulkProcessorSettings bulkProcessorSettings)
 	{
 		String entityName = entityMetaData.getName();
 		String type = sanitizeMapperType(entityName);
@@ -460,8 +537,15 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 			transactionId = getCurrentTransactionId();
 		}
 
+		// If not in transaction, update references after indexing, if in transaction the references are updated in
+		// the commitTransaction method
+		Set<Object> updatedEntityIds = updateIndex && crudType == CrudType.UPDATE && transactionId == null
+				? new LinkedHashSet<>() : null;
+
 		long nrIndexedEntities = 0;
-		BulkProcessor bulkProcessor = BULK_PROCESSOR_FACTORY.create(client);
+		BulkProcessorMetrics bulkProcessorMetrics = new BulkProcessorMetrics();
+		BulkProcessor bulkProcessor = BULK_PROCESSOR_FACTORY.create(client, bulkProcessorSettings,
+				bulkProcessorMetrics);
 
 		try
 		{
@@ -480,44 +564,48 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 				}
 			}
 
-			while (it.hasNext())
+			if (transactionId == null && bulkProcessorSettings.getConversionThreads() > 1)
 			{
-				Entity entity = it.next();
-				String id = toElasticsearchId(entity, entityMetaData);
-				Map<String, Object> source = elasticsearchEntityFactory.create(entityMetaData, entity);
-				if (transactionId != null)
+				// documents in the transaction index depend on documents indexed earlier, only convert entities in
+				// parallel outside transactions
+				nrIndexedEntities = indexParallel(index, it, entityMetaData, updatedEntityIds,
+						bulkProcessorSettings.getConversionThreads(), bulkProcessor);
+			}
+
+			Iterator<? extends List<? extends Entity>> batchIt = Iterators.partition(it, BATCH_SIZE);
+			while (batchIt.hasNext())
+			{
+				List<? extends Entity> entities = batchIt.next();
+				List<String> ids = entities.stream().map(entity -> toElasticsearchId(entity, entityMetaData))
+						.collect(toList());
+
+				// updating a document in the transactional index is the same as adding the new updated document
+				Set<String> transactionDocumentIds = transactionId != null && crudType == CrudType.UPDATE
+						? getExistingDocumentIds(transactionId, type, ids) : Collections.emptySet();
+
+				for (int i = 0; i < entities.size(); ++i)
 				{
-					if (crudType == CrudType.UPDATE)
+					Entity entity = entities.get(i);
+					String id = ids.get(i);
+					Map<String, Object> source = elasticsearchEntityFactory.create(entityMetaData, entity);
+					CrudType documentCrudType = transactionDocumentIds.contains(id) ? CrudType.ADD : crudType;
+					if (transactionId != null)
 					{
-						// updating a document in the transactional index is the same as adding the new updated
-						// document.
-						GetResponse response = client.prepareGet(transactionId, type, id).get();
-						if (LOG.isDebugEnabled())
-						{
-							LOG.debug("Retrieved document type [{}] with id [{}] in index [{}]", type, id,
-									transactionId);
-						}
-						if (response.isExists())
-						{
-							crudType = CrudType.ADD;
-						}
+						source.put(CRUD_TYPE_FIELD_NAME, documentCrudType.name());
+					}
+					if (LOG.isDebugEnabled())
+					{
+						LOG.debug("Indexing [{}] with id [{}] in index [{}] mode [{}] ...", type, id, index,
+								documentCrudType);
 					}
-					source.put(CRUD_TYPE_FIELD_NAME, crudType.name());
-				}
-				if (LOG.isDebugEnabled())
-				{
-					LOG.debug("Indexing [{}] with id [{}] in index [{}] mode [{}] ...", type, id, index, crudType);
-				}
 
-				bulkProcessor.add(new IndexRequest().index(index).type(type).id(id).source(source));
-				++nrIndexedEntities;
+					bulkProcessor.add(new IndexRequest().index(index).type(type).id(id).source(source));
+					++nrIndexedEntities;
 
-				// If not in transaction, update references now, if in transaction the
-				// references are updated in
-				// the commitTransaction method
-				if (updateIndex && (crudType == CrudType.UPDATE) && (transactionId == null))
-				{
-					updateReferences(entity, entityMetaData);
+					if (updatedEntityIds != null)
+					{
+						updatedEntityIds.add(entity.getIdValue());
+					}
 				}
 			}
 		}
@@ -526,9 +614,123 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 			elasticsearchUtils.waitForCompletion(bulkProcessor);
 		}
 
+		if (updatedEntityIds != null && !updatedEntityIds.isEmpty())
+		{
+			updateReferences(updatedEntityIds, entityMetaData);
+		}
+
+		if (nrIndexedEntities >= bulkProcessorSettings.getBulkActions())
+		{
+			LOG.info("Indexed [{}] in index [{}]: {}", type, index, bulkProcessorMetrics);
+		}
+		else if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Indexed [{}] in index [{}]: {}", type, index, bulkProcessorMetrics);
+		}
 		return nrIndexedEntities;
 	}
 
+	/**
+	 * Returns the ids of the documents that exist in the given index using one multi get request
+	 * 
+	 * @param index
+	 *            index name
+	 * @param type
+	 *            document type
+	 * @param ids
+	 *            document ids
+	 * @return ids of existing documents
+	 */
+	private Set<String> getExistingDocumentIds(String index, String type, List<String> ids)
+	{
+		if (ids.isEmpty())
+		{
+			return Collections.emptySet();
+		}
+
+		MultiGetRequestBuilder request = client.prepareMultiGet();
+		ids.forEach(id -> request.add(new Item(index, type, id).fetchSourceContext(new FetchSourceContext(false))));
+		MultiGetResponse response = request.get();
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Retrieved [{}] document ids of type [{}] in index [{}]", ids.size(), type, index);
+		}
+
+		Set<String> existingIds = new HashSet<>();
+		for (MultiGetItemResponse itemResponse : response.getResponses())
+		{
+			if (itemResponse.isFailed())
+			{
+				throw new ElasticsearchException("Search failed. Returned headers:" + itemResponse.getFailure());
+			}
+			GetResponse getResponse = itemResponse.getResponse();
+			if (getResponse.isExists())
+			{
+				existingIds.add(getResponse.getId());
+			}
+		}
+		return existingIds;
+	}
+
+	/**
+	 * Converts entities to documents on worker threads while previously converted documents are added to the bulk
+	 * processor. Documents are added in entity order.
+	 */
+	private long indexParallel(String index, Iterator<? extends Entity> it, EntityMetaData entityMetaData,
+			Set<Object> updatedEntityIds, int conversionThreads, BulkProcessor bulkProcessor)
+	{
+		String type = sanitizeMapperType(entityMetaData.getName());
+		Iterator<List<? extends Entity>> batches = Iterators.transform(Iterators.partition(it, CONVERSION_BATCH_SIZE),
+				entities -> {
+					if (updatedEntityIds != null)
+					{
+						entities.forEach(entity -> updatedEntityIds.add(entity.getIdValue()));
+					}
+					return entities;
+				});
+
+		AtomicLong nrIndexedEntities = new AtomicLong();
+		getConversionExecutor(conversionThreads).process(batches, entities -> entities.stream().map(entity -> {
+			String id = toElasticsearchId(entity, entityMetaData);
+			Map<String, Object> source = elasticsearchEntityFactory.create(entityMetaData, entity);
+			return new IndexRequest().index(index).type(type).id(id).source(source);
+		}).collect(toList()), indexRequests -> {
+			addIndexRequests(indexRequests, bulkProcessor);
+			nrIndexedEntities.addAndGet(indexRequests.size());
+		});
+		return nrIndexedEntities.get();
+	}
+
+	private void addIndexRequests(List<IndexRequest> indexRequests, BulkProcessor bulkProcessor)
+	{
+		indexRequests.forEach(indexRequest -> {
+			if (LOG.isDebugEnabled())
+			{
+				LOG.debug("Indexing [{}] with id [{}] in index [{}] ...", indexRequest.type(), indexRequest.id(),
+						indexRequest.index());
+			}
+			bulkProcessor.add(indexRequest);
+		});
+	}
+
+	/**
+	 * Returns the executor that converts entities to documents with the given number of worker threads
+	 */
+	private OrderedBatchExecutor getConversionExecutor(int conversionThreads)
+	{
+		return conversionExecutors.computeIfAbsent(conversionThreads,
+				nrThreads -> new OrderedBatchExecutor("elasticsearch-indexer-%d", nrThreads));
+	}
+
+	/**
+	 * Stops the worker threads that convert entities to documents
+	 */
+	@PreDestroy
+	public void close()
+	{
+		conversionExecutors.values().forEach(OrderedBatchExecutor::close);
+	}
+
 	@Override
 	public void delete(Entity entity, EntityMetaData entityMetaData)
 	{
@@ -875,6 +1077,13 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 		return new EntityStream(searchInternal.stream(), true);
 	}
 
+	@Override
+	public Stream<Entity> scroll(Query q, EntityMetaData entityMetaData)
+	{
+		ElasticsearchEntityIterable searchInternal = searchInternal(q, entityMetaData);
+		return new EntityStream(searchInternal.scroll(), true);
+	}
+
 	private ElasticsearchEntityIterable searchInternal(Query q, EntityMetaData entityMetaData)
 	{
 		String[] indexNames = new String[]
@@ -1038,37 +1247,47 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 		LOG.debug("Optimized Elasticsearch index [{}]", indexName);
 	}
 
-	private void updateReferences(Entity refEntity, EntityMetaData refEntityMetaData)
+	/**
+	 * Reindexes the documents that reference the given entities. Referencing documents are retrieved with one query per
+	 * referencing entity and batch of entity ids, each referencing document is reindexed once.
+	 * 
+	 * @param refEntityIds
+	 *            ids of updated entities
+	 * @param refEntityMetaData
+	 *            meta data of updated entities
+	 */
+	private void updateReferences(Collection<Object> refEntityIds, EntityMetaData refEntityMetaData)
 	{
 		for (Pair<EntityMetaData, List<AttributeMetaData>> pair : EntityUtils
 				.getReferencingEntityMetaData(refEntityMetaData, dataService))
 		{
 			EntityMetaData entityMetaData = pair.getA();
 
-			QueryImpl q = null;
-			for (AttributeMetaData attributeMetaData : pair.getB())
-			{
-				if (q == null) q = new QueryImpl();
-				else q.or();
-				q.eq(attributeMetaData.getName(), refEntity);
-			}
-
-			Iterable<Entity> entities = new ElasticsearchEntityIterable(q, entityMetaData, client,
-					elasticsearchEntityFactory, generator, new String[]
-					{ indexName });
-
-			// TODO discuss whether this is still required
-			// Don't use cached ref entities but make new ones
-			entities = Iterables.transform(entities, new Function<Entity, Entity>()
+			Set<Object> indexedEntityIds = new HashSet<>();
+			for (List<Object> refEntityIdsBatch : Iterables.partition(refEntityIds, BATCH_SIZE))
 			{
-				@Override
-				public Entity apply(Entity entity)
+				QueryImpl q = null;
+				for (AttributeMetaData attributeMetaData : pair.getB())
 				{
-					return new DefaultEntity(entityMetaData, dataService, entity);
+					if (q == null) q = new QueryImpl();
+					else q.or();
+					q.in(attributeMetaData.getName(), refEntityIdsBatch);
 				}
-			});
 
-			index(indexName, entities.iterator(), entityMetaData, CrudType.UPDATE, false);
+				try (Stream<Entity> entities = new ElasticsearchEntityIterable(q, entityMetaData, client,
+						elasticsearchEntityFactory, generator, new String[]
+						{ indexName }).scroll())
+				{
+					Stream<Entity> updatedEntities = entities
+							// documents that reference entities in multiple batches are reindexed once
+							.filter(entity -> indexedEntityIds.add(entity.getIdValue()))
+							// TODO discuss whether this is still required
+							// Don't use cached ref entities but make new ones
+							.map(entity -> new DefaultEntity(entityMetaData, dataService, entity));
+
+					index(indexName, updatedEntities.iterator(), entityMetaData, CrudType.UPDATE, false);
+				}
+			}
 		}
 	}
 
@@ -1084,34 +1303,18 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 
 	static class BulkProcessorFactory
 	{
-		public BulkProcessor create(Client client)
+		public BulkProcessor create(Client client, BulkProcessorSettings bulkProcessorSettings,
+				BulkProcessor.Listener listener)
 		{
-			return BulkProcessor.builder(client, new BulkProcessor.Listener()
+			BulkProcessor.Builder builder = BulkProcessor.builder(client, listener)
+					.setBulkActions(bulkProcessorSettings.getBulkActions())
+					.setBulkSize(new ByteSizeValue(bulkProcessorSettings.getBulkSizeInBytes()))
+					.setConcurrentRequests(bulkProcessorSettings.getConcurrentRequests());
+			if (bulkProcessorSettings.getFlushIntervalInMillis() > 0)
 			{
-				@Override
-				public void beforeBulk(long executionId, BulkRequest request)
-				{
-					if (LOG.isTraceEnabled())
-					{
-						LOG.trace("Going to execute new bulk composed of " + request.numberOfActions() + " actions");
-					}
-				}
-
-				@Override
-				public void afterBulk(long executionId, BulkRequest request, BulkResponse response)
-				{
-					if (LOG.isTraceEnabled())
-					{
-						LOG.trace("Executed bulk composed of " + request.numberOfActions() + " actions");
-					}
-				}
-
-				@Override
-				public void afterBulk(long executionId, BulkRequest request, Throwable failure)
-				{
-					LOG.warn("Error executing bulk", failure);
-				}
-			}).setConcurrentRequests(0).setBulkActions(50).build();
+				builder.setFlushInterval(TimeValue.timeValueMillis(bulkProcessorSettings.getFlushIntervalInMillis()));
+			}
+			return builder.build();
 		}
 	}
 
@@ -1166,7 +1369,12 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 
 			if (searchResponse.getHits().getTotalHits() > 0)
 			{
-				BulkProcessor bulkProcessor = BULK_PROCESSOR_FACTORY.create(client);
+				// ids of updated entities per entity, references are updated after all documents are merged
+				Map<String, Set<Object>> updatedEntityIdsMap = new LinkedHashMap<>();
+
+				BulkProcessorMetrics bulkProcessorMetrics = new BulkProcessorMetrics();
+				BulkProcessor bulkProcessor = BULK_PROCESSOR_FACTORY.create(client, defaultBulkProcessorSettings,
+						bulkProcessorMetrics);
 				try
 				{
 					searchResponse = client.prepareSearchScroll(searchResponse.getScrollId())
@@ -1192,8 +1400,10 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 
 								if (crudType == CrudType.UPDATE)
 								{
-									updateReferences(elasticsearchEntityFactory.create(entityMeta, values, null),
-											entityMeta);
+									Object entityId = elasticsearchEntityFactory.create(entityMeta, values, null)
+											.getIdValue();
+									updatedEntityIdsMap.computeIfAbsent(entityName, key -> new LinkedHashSet<>())
+											.add(entityId);
 								}
 							}
 							else if (crudType == CrudType.DELETE)
@@ -1210,6 +1420,14 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 				{
 					elasticsearchUtils.waitForCompletion(bulkProcessor);
 				}
+				if (LOG.isDebugEnabled())
+				{
+					LOG.debug("Merged transaction index [{}] into index [{}]: {}", transactionId, indexName,
+							bulkProcessorMetrics);
+				}
+
+				updatedEntityIdsMap.forEach((entityName, updatedEntityIds) -> updateReferences(updatedEntityIds,
+						dataService.getEntityMetaData(entityName)));
 				refresh(indexName);
 			}
 		}
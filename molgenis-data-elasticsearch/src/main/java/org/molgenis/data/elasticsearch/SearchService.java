@@ -159,6 +159,19 @@ public interface SearchService
 	 */
 	Stream<Entity> searchAsStream(Query q, EntityMetaData entityMetaData);
 
+	/**
+	 * Streams all search results using an Elasticsearch scroll. Intended for consumers that read all results, e.g.
+	 * exports, index rebuilds and mappings. The query offset and page size are ignored. The scroll is released when
+	 * all results are consumed, so callers that might stop early must close the stream.
+	 * 
+	 * @param q
+	 *            query
+	 * @param entityMetaData
+	 *            entity meta data
+	 * @return entity stream
+	 */
+	Stream<Entity> scroll(Query q, EntityMetaData entityMetaData);
+
 	AggregateResult aggregate(AggregateQuery aggregateQuery, EntityMetaData entityMetaData);
 
 	/**
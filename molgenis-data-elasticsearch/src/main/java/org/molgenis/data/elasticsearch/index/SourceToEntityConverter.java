@@ -8,6 +8,7 @@ import java.util.stream.StreamSupport;
 
 import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
 import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.DataConverter;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
@@ -15,7 +16,7 @@ import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.UnknownAttributeException;
 import org.molgenis.data.elasticsearch.ElasticsearchService;
-import org.molgenis.data.support.DefaultEntity;
+import org.molgenis.data.support.ArrayEntity;
 import org.molgenis.util.MolgenisDateFormat;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -35,7 +36,7 @@ public class SourceToEntityConverter
 
 	public Entity convert(Map<String, Object> source, EntityMetaData entityMeta)
 	{
-		DefaultEntity entity = new DefaultEntity(entityMeta, dataService);
+		ArrayEntity entity = new ArrayEntity(entityMeta, dataService);
 		source.entrySet().forEach(entry -> {
 			String attrName = entry.getKey();
 			if (attrName.equals(ElasticsearchService.CRUD_TYPE_FIELD_NAME))
@@ -58,18 +59,25 @@ public class SourceToEntityConverter
 				switch (attr.getDataType().getEnumType())
 				{
 					case BOOL:
-					case DECIMAL:
 					case EMAIL:
 					case ENUM:
 					case HTML:
 					case HYPERLINK:
-					case INT:
-					case LONG:
 					case SCRIPT:
 					case STRING:
 					case TEXT:
 						entityValue = sourceValue;
 						break;
+					case DECIMAL:
+						entityValue = DataConverter.toDouble(sourceValue);
+						break;
+					case INT:
+						entityValue = DataConverter.toInt(sourceValue);
+						break;
+					case LONG:
+						// small long values are deserialized as integers
+						entityValue = DataConverter.toLong(sourceValue);
+						break;
 					case CATEGORICAL:
 					case FILE:
 					case XREF:
@@ -120,7 +128,8 @@ public class SourceToEntityConverter
 					case DATE:
 						try
 						{
-							entityValue = MolgenisDateFormat.getDateFormat().parse((String) sourceValue);
+							entityValue = new java.sql.Date(
+									MolgenisDateFormat.getDateFormat().parse((String) sourceValue).getTime());
 						}
 						catch (Exception e)
 						{
@@ -173,7 +173,7 @@ public class AbstractElasticsearchRepositoryTest
 		Fetch fetch = new Fetch();
 		Entity entity0 = mock(Entity.class);
 		Entity entity1 = mock(Entity.class);
-		when(searchService.searchAsStream(new QueryImpl().fetch(fetch), entityMeta))
+		when(searchService.scroll(new QueryImpl().fetch(fetch), entityMeta))
 				.thenReturn(Stream.of(entity0, entity1));
 		Stream<Entity> expectedEntities = repository.stream(fetch);
 		assertEquals(expectedEntities.collect(Collectors.toList()), Arrays.asList(entity0, entity1));
@@ -1,5 +1,6 @@
 package org.molgenis.data.elasticsearch;
 
+import static java.util.stream.Collectors.toList;
 import static org.elasticsearch.node.NodeBuilder.nodeBuilder;
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_LABEL;
@@ -8,7 +9,9 @@ import static org.testng.Assert.assertEquals;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.apache.commons.io.FileUtils;
@@ -21,6 +24,9 @@ import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
 import org.molgenis.data.EntityManagerImpl;
+import org.molgenis.data.Query;
+import org.molgenis.data.Sort;
+import org.molgenis.data.Sort.Direction;
 import org.molgenis.data.elasticsearch.ElasticsearchService.IndexingMode;
 import org.molgenis.data.elasticsearch.index.ElasticsearchIndexCreator;
 import org.molgenis.data.elasticsearch.index.EntityToSourceConverter;
@@ -162,6 +168,33 @@ public class ElasticsearchServiceIntegrationTest
 		assertEquals(Lists.newArrayList(updatedEntity), Arrays.asList(entity1));
 	}
 
+	@Test
+	public void scroll()
+	{
+		int nrEntities = 2345;
+		List<Entity> entities = new ArrayList<>(nrEntities);
+		for (int i = 0; i < nrEntities; ++i)
+		{
+			Entity entity = new DefaultEntity(entityMeta, dataService);
+			entity.set(idAttrName, String.format("%04d", i));
+			entity.set(labelAttrName, "label" + i);
+			entities.add(entity);
+		}
+		elasticsearchService.index(entities.stream(), entityMeta, IndexingMode.ADD);
+		elasticsearchService.refresh(entityMeta);
+
+		try (Stream<Entity> entityStream = elasticsearchService.scroll(new QueryImpl(), entityMeta))
+		{
+			assertEquals(entityStream.map(Entity::getIdValue).distinct().count(), nrEntities);
+		}
+
+		Query sortQ = new QueryImpl().sort(new Sort(idAttrName, Direction.DESC));
+		try (Stream<Entity> entityStream = elasticsearchService.scroll(sortQ, entityMeta))
+		{
+			assertEquals(entityStream.collect(toList()), Lists.reverse(entities));
+		}
+	}
+
 	@Test
 	public void transactionalCountAddAndTransactionAdd()
 	{
@@ -1,33 +1,55 @@
 package org.molgenis.data.elasticsearch;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.molgenis.data.transaction.MolgenisTransactionManager.TRANSACTION_ID_RESOURCE_NAME;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
+import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.ListenableActionFuture;
 import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest.Item;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.ClearScrollRequestBuilder;
+import org.elasticsearch.action.search.ClearScrollResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequestBuilder;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.molgenis.MolgenisFieldTypes;
@@ -37,16 +59,20 @@ import org.molgenis.data.EntityManagerImpl;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
+import org.molgenis.data.elasticsearch.ElasticsearchService.CrudType;
+import org.molgenis.data.elasticsearch.ElasticsearchService.IndexingMode;
 import org.molgenis.data.elasticsearch.ElasticsearchService.BulkProcessorFactory;
 import org.molgenis.data.elasticsearch.index.EntityToSourceConverter;
 import org.molgenis.data.elasticsearch.index.SourceToEntityConverter;
 import org.molgenis.data.support.DataServiceImpl;
 import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.MapEntity;
 import org.molgenis.data.support.NonDecoratingRepositoryDecoratorFactory;
 import org.molgenis.data.support.QueryImpl;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.testng.annotations.Test;
 
 public class ElasticsearchServiceTest
@@ -57,6 +83,9 @@ public class ElasticsearchServiceTest
 	private DataServiceImpl dataService;
 	private EntityManager entityManager;
 	private ElasticsearchEntityFactory elasticsearchEntityFactory;
+	private EntityToSourceConverter entityToSourceManager;
+	private BulkProcessorFactory bulkProcessorFactory;
+	private BulkProcessor bulkProcessor;
 
 	@BeforeMethod
 	public void beforeMethod() throws InterruptedException
@@ -67,15 +96,16 @@ public class ElasticsearchServiceTest
 		dataService = spy(new DataServiceImpl(new NonDecoratingRepositoryDecoratorFactory()));
 		entityManager = new EntityManagerImpl(dataService);
 		SourceToEntityConverter sourceToEntityManager = new SourceToEntityConverter(dataService, entityManager);
-		EntityToSourceConverter entityToSourceManager = mock(EntityToSourceConverter.class);
+		entityToSourceManager = mock(EntityToSourceConverter.class);
 		elasticsearchEntityFactory = new ElasticsearchEntityFactory(entityManager, sourceToEntityManager,
 				entityToSourceManager);
 		searchService = spy(
 				new ElasticsearchService(client, indexName, dataService, elasticsearchEntityFactory, false));
-		BulkProcessorFactory bulkProcessorFactory = mock(BulkProcessorFactory.class);
-		BulkProcessor bulkProcessor = mock(BulkProcessor.class);
+		bulkProcessorFactory = mock(BulkProcessorFactory.class);
+		bulkProcessor = mock(BulkProcessor.class);
 		when(bulkProcessor.awaitClose(any(Long.class), any(TimeUnit.class))).thenReturn(true);
-		when(bulkProcessorFactory.create(client)).thenReturn(bulkProcessor);
+		when(bulkProcessorFactory.create(eq(client), any(BulkProcessorSettings.class),
+				any(BulkProcessor.Listener.class))).thenReturn(bulkProcessor);
 		ElasticsearchService.setBulkProcessorFactory(bulkProcessorFactory);
 		doNothing().when(searchService).refresh(any(EntityMetaData.class));
 	}
@@ -180,6 +210,315 @@ public class ElasticsearchServiceTest
 		assertFalse(it.hasNext());
 	}
 
+	@Test
+	public void indexParallel()
+	{
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.addAttribute("id", ROLE_ID).setDataType(MolgenisFieldTypes.INT);
+		Set<String> conversionThreadNames = Collections.synchronizedSet(new HashSet<>());
+		when(entityToSourceManager.convert(any(Entity.class), eq(entityMetaData))).thenAnswer(invocation -> {
+			conversionThreadNames.add(Thread.currentThread().getName());
+			return Collections.singletonMap("id", ((Entity) invocation.getArguments()[0]).getIdValue());
+		});
+
+		int nrEntities = 1001;
+		List<Entity> entities = new ArrayList<>(nrEntities);
+		for (int i = 0; i < nrEntities; ++i)
+		{
+			entities.add(new MapEntity("id", i));
+		}
+
+		BulkProcessorSettings bulkProcessorSettings = new BulkProcessorSettings(100, -1, 2, 0, 4);
+		assertEquals(searchService.index(entities.stream(), entityMetaData, IndexingMode.ADD, bulkProcessorSettings),
+				nrEntities);
+		verify(bulkProcessorFactory).create(eq(client), eq(bulkProcessorSettings), any(BulkProcessor.Listener.class));
+
+		// documents are added in entity order
+		ArgumentCaptor<IndexRequest> captor = ArgumentCaptor.forClass(IndexRequest.class);
+		verify(bulkProcessor, times(nrEntities)).add(captor.capture());
+		List<IndexRequest> indexRequests = captor.getAllValues();
+		for (int i = 0; i < nrEntities; ++i)
+		{
+			assertEquals(indexRequests.get(i).id(), String.valueOf(i));
+			assertEquals(indexRequests.get(i).index(), indexName);
+		}
+
+		// the number of conversion threads is limited by the bulk processor settings
+		assertTrue(conversionThreadNames.size() <= 4);
+		conversionThreadNames.forEach(threadName -> assertTrue(threadName.startsWith("elasticsearch-indexer-")));
+		searchService.close();
+	}
+
+	@Test
+	public void indexIterableBulkProcessorSettings()
+	{
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.addAttribute("id", ROLE_ID).setDataType(MolgenisFieldTypes.INT);
+		when(entityToSourceManager.convert(any(Entity.class), eq(entityMetaData)))
+				.thenAnswer(invocation -> Collections.singletonMap("id",
+						((Entity) invocation.getArguments()[0]).getIdValue()));
+
+		BulkProcessorSettings bulkProcessorSettings = new BulkProcessorSettings(100, -1, 2, 0, 2);
+		searchService.setBulkProcessorSettings("entity", bulkProcessorSettings);
+		List<Entity> entities = Arrays.asList(new MapEntity("id", 0), new MapEntity("id", 1));
+		assertEquals(searchService.index(entities, entityMetaData, IndexingMode.ADD), 2);
+		verify(bulkProcessorFactory).create(eq(client), eq(bulkProcessorSettings), any(BulkProcessor.Listener.class));
+		verify(bulkProcessor, times(2)).add(any(IndexRequest.class));
+		searchService.close();
+	}
+
+	@Test
+	public void scroll()
+	{
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.setBackend(ElasticsearchRepositoryCollection.NAME);
+		entityMetaData.addAttribute("id", ROLE_ID).setDataType(MolgenisFieldTypes.INT);
+
+		SearchHit[] hits = new SearchHit[2];
+		for (int i = 0; i < hits.length; ++i)
+		{
+			SearchHit searchHit = mock(SearchHit.class);
+			when(searchHit.getSource()).thenReturn(Collections.<String, Object> singletonMap("id", i));
+			when(searchHit.getId()).thenReturn(String.valueOf(i));
+			hits[i] = searchHit;
+		}
+		ClearScrollRequestBuilder clearScrollRequestBuilder = mockScroll(hits);
+
+		try (Stream<Entity> entities = searchService.scroll(new QueryImpl(), entityMetaData))
+		{
+			Iterator<Entity> it = entities.iterator();
+			assertEquals(it.next().getIdValue(), 0);
+			verify(client, times(0)).prepareClearScroll();
+		}
+
+		// closing the stream before all results are consumed clears the scroll
+		verify(clearScrollRequestBuilder).addScrollId("scroll1");
+	}
+
+	@Test
+	public void scrollFailure()
+	{
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.setBackend(ElasticsearchRepositoryCollection.NAME);
+		entityMetaData.addAttribute("id", ROLE_ID).setDataType(MolgenisFieldTypes.INT);
+		ClearScrollRequestBuilder clearScrollRequestBuilder = mockScroll();
+		when(client.prepareSearchScroll("scroll0")).thenThrow(new ElasticsearchException("scroll failed"));
+
+		Iterator<Entity> it = searchService.scroll(new QueryImpl(), entityMetaData).iterator();
+		try
+		{
+			it.hasNext();
+			fail("expected ElasticsearchException");
+		}
+		catch (ElasticsearchException e)
+		{
+			// a failed scroll request clears the scroll without waiting for the stream to be closed
+			verify(clearScrollRequestBuilder).addScrollId("scroll0");
+		}
+	}
+
+	@Test
+	public void searchAsStream()
+	{
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.setBackend(ElasticsearchRepositoryCollection.NAME);
+		entityMetaData.addAttribute("id", ROLE_ID).setDataType(MolgenisFieldTypes.INT);
+		mockScroll();
+
+		SearchResponse searchResponse = mock(SearchResponse.class);
+		SearchHits searchHits = createSearchHits(new SearchHit[0], 0);
+		when(searchResponse.getHits()).thenReturn(searchHits);
+		ListenableActionFuture<SearchResponse> future = createFuture(searchResponse);
+		SearchRequestBuilder searchRequestBuilder = mock(SearchRequestBuilder.class);
+		when(searchRequestBuilder.execute()).thenReturn(future);
+		when(client.prepareSearch(indexName)).thenReturn(searchRequestBuilder);
+
+		// unpaged searches are not scrolled, only scroll(...) scrolls
+		assertEquals(searchService.searchAsStream(new QueryImpl(), entityMetaData).count(), 0L);
+		verify(client, times(0)).prepareSearchScroll(any(String.class));
+	}
+
+	@Test
+	public void searchAsStreamPaged()
+	{
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.setBackend(ElasticsearchRepositoryCollection.NAME);
+		entityMetaData.addAttribute("id", ROLE_ID).setDataType(MolgenisFieldTypes.INT);
+		mockScroll();
+
+		SearchResponse searchResponse = mock(SearchResponse.class);
+		SearchHits searchHits = createSearchHits(new SearchHit[0], 0);
+		when(searchResponse.getHits()).thenReturn(searchHits);
+		ListenableActionFuture<SearchResponse> future = createFuture(searchResponse);
+		SearchRequestBuilder searchRequestBuilder = mock(SearchRequestBuilder.class);
+		when(searchRequestBuilder.execute()).thenReturn(future);
+		when(client.prepareSearch(indexName)).thenReturn(searchRequestBuilder);
+
+		assertEquals(searchService.searchAsStream(new QueryImpl().pageSize(10), entityMetaData).count(), 0L);
+		verify(client, times(0)).prepareSearchScroll(any(String.class));
+	}
+
+	/**
+	 * Mocks a scan and scroll search that returns the given hits on the first scroll request
+	 */
+	private ClearScrollRequestBuilder mockScroll(SearchHit... hits)
+	{
+		ListenableActionFuture<SearchResponse> future0 = createFuture(
+				createSearchResponse(new SearchHit[0], hits.length, "scroll0"));
+		ListenableActionFuture<SearchResponse> future1 = createFuture(
+				createSearchResponse(hits, hits.length, "scroll1"));
+		ListenableActionFuture<SearchResponse> future2 = createFuture(
+				createSearchResponse(new SearchHit[0], hits.length, "scroll2"));
+		ListenableActionFuture<ClearScrollResponse> clearScrollFuture = createFuture(
+				mock(ClearScrollResponse.class));
+
+		SearchRequestBuilder searchRequestBuilder = mock(SearchRequestBuilder.class);
+		when(searchRequestBuilder.execute()).thenReturn(future0);
+		when(client.prepareSearch(indexName)).thenReturn(searchRequestBuilder);
+
+		SearchScrollRequestBuilder searchScrollRequestBuilder0 = mock(SearchScrollRequestBuilder.class);
+		when(searchScrollRequestBuilder0.setScroll(any(TimeValue.class))).thenReturn(searchScrollRequestBuilder0);
+		when(searchScrollRequestBuilder0.execute()).thenReturn(future1);
+		when(client.prepareSearchScroll("scroll0")).thenReturn(searchScrollRequestBuilder0);
+
+		SearchScrollRequestBuilder searchScrollRequestBuilder1 = mock(SearchScrollRequestBuilder.class);
+		when(searchScrollRequestBuilder1.setScroll(any(TimeValue.class))).thenReturn(searchScrollRequestBuilder1);
+		when(searchScrollRequestBuilder1.execute()).thenReturn(future2);
+		when(client.prepareSearchScroll("scroll1")).thenReturn(searchScrollRequestBuilder1);
+
+		ClearScrollRequestBuilder clearScrollRequestBuilder = mock(ClearScrollRequestBuilder.class);
+		when(clearScrollRequestBuilder.addScrollId(any(String.class))).thenReturn(clearScrollRequestBuilder);
+		when(clearScrollRequestBuilder.execute()).thenReturn(clearScrollFuture);
+		when(client.prepareClearScroll()).thenReturn(clearScrollRequestBuilder);
+		return clearScrollRequestBuilder;
+	}
+
+	private SearchResponse createSearchResponse(SearchHit[] hits, int totalHits, String scrollId)
+	{
+		SearchResponse searchResponse = mock(SearchResponse.class);
+		SearchHits searchHits = createSearchHits(hits, totalHits);
+		when(searchResponse.getHits()).thenReturn(searchHits);
+		when(searchResponse.getScrollId()).thenReturn(scrollId);
+		return searchResponse;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> ListenableActionFuture<T> createFuture(T response)
+	{
+		ListenableActionFuture<T> future = mock(ListenableActionFuture.class);
+		when(future.actionGet()).thenReturn(response);
+		return future;
+	}
+
+	@Test
+	public void indexUpdateReferences()
+	{
+		DefaultEntityMetaData refEntityMetaData = new DefaultEntityMetaData("refEntity");
+		refEntityMetaData.addAttribute("id", ROLE_ID);
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.setBackend(ElasticsearchRepositoryCollection.NAME);
+		entityMetaData.addAttribute("id", ROLE_ID).setDataType(MolgenisFieldTypes.INT);
+		entityMetaData.addAttribute("ref").setDataType(MolgenisFieldTypes.XREF).setRefEntity(refEntityMetaData);
+		entityMetaData.addAttribute("otherRef").setDataType(MolgenisFieldTypes.XREF)
+				.setRefEntity(refEntityMetaData);
+
+		Repository refRepo = mock(Repository.class);
+		when(refRepo.getName()).thenReturn("refEntity");
+		when(refRepo.getEntityMetaData()).thenReturn(refEntityMetaData);
+		dataService.addRepository(refRepo);
+		Repository repo = mock(Repository.class);
+		when(repo.getName()).thenReturn("entity");
+		when(repo.getEntityMetaData()).thenReturn(entityMetaData);
+		dataService.addRepository(repo);
+		doReturn(Stream.of("refEntity", "entity")).when(dataService).getEntityNames();
+
+		when(entityToSourceManager.convert(any(Entity.class), any(EntityMetaData.class)))
+				.thenAnswer(invocation -> Collections.singletonMap("id",
+						((Entity) invocation.getArguments()[0]).getIdValue()));
+
+		// documents 0 and 1 reference multiple updated entities
+		SearchHit[] hits = new SearchHit[2];
+		for (int i = 0; i < hits.length; ++i)
+		{
+			SearchHit searchHit = mock(SearchHit.class);
+			when(searchHit.getSource()).thenReturn(Collections.<String, Object> singletonMap("id", i));
+			when(searchHit.getId()).thenReturn(String.valueOf(i));
+			hits[i] = searchHit;
+		}
+		ClearScrollRequestBuilder clearScrollRequestBuilder = mockScroll(hits);
+
+		List<Entity> refEntities = Arrays.asList(new MapEntity("id", "ref0"), new MapEntity("id", "ref1"),
+				new MapEntity("id", "ref2"));
+		searchService.index(refEntities.stream(), refEntityMetaData, IndexingMode.UPDATE,
+				new BulkProcessorSettings(100, -1, 0, 0, 1));
+
+		// one search for all updated entities, each referencing document is reindexed once
+		verify(client, times(1)).prepareSearch(indexName);
+		verify(clearScrollRequestBuilder).addScrollId("scroll2");
+		ArgumentCaptor<IndexRequest> captor = ArgumentCaptor.forClass(IndexRequest.class);
+		verify(bulkProcessor, times(5)).add(captor.capture());
+		List<String> ids = new ArrayList<>();
+		captor.getAllValues().forEach(indexRequest -> ids.add(indexRequest.type() + '.' + indexRequest.id()));
+		assertEquals(ids, Arrays.asList("refEntity.ref0", "refEntity.ref1", "refEntity.ref2", "entity.0", "entity.1"));
+	}
+
+	@Test
+	public void indexUpdateInTransaction()
+	{
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.addAttribute("id", ROLE_ID);
+		String transactionId = "transaction0";
+		doReturn(true).when(searchService).hasMapping(transactionId, entityMetaData);
+		when(entityToSourceManager.convert(any(Entity.class), eq(entityMetaData)))
+				.thenAnswer(invocation -> new HashMap<String, Object>());
+
+		// document 1 was added to the transaction index before
+		GetResponse getResponse0 = when(mock(GetResponse.class).isExists()).thenReturn(false).getMock();
+		GetResponse getResponse1 = when(mock(GetResponse.class).isExists()).thenReturn(true).getMock();
+		when(getResponse1.getId()).thenReturn("1");
+		MultiGetResponse multiGetResponse = mock(MultiGetResponse.class);
+		when(multiGetResponse.getResponses()).thenReturn(new MultiGetItemResponse[]
+		{ new MultiGetItemResponse(getResponse0, null), new MultiGetItemResponse(getResponse1, null) });
+		MultiGetRequestBuilder multiGetRequestBuilder = mock(MultiGetRequestBuilder.class);
+		when(multiGetRequestBuilder.get()).thenReturn(multiGetResponse);
+		when(client.prepareMultiGet()).thenReturn(multiGetRequestBuilder);
+
+		TransactionSynchronizationManager.bindResource(TRANSACTION_ID_RESOURCE_NAME, transactionId);
+		try
+		{
+			searchService.index(Stream.of(new MapEntity("id", "0"), new MapEntity("id", "1")), entityMetaData,
+					IndexingMode.UPDATE);
+		}
+		finally
+		{
+			TransactionSynchronizationManager.unbindResource(TRANSACTION_ID_RESOURCE_NAME);
+		}
+
+		// existence of documents in the transaction index is checked with one request
+		verify(client, times(1)).prepareMultiGet();
+		verify(multiGetRequestBuilder, times(2)).add(any(Item.class));
+		ArgumentCaptor<IndexRequest> captor = ArgumentCaptor.forClass(IndexRequest.class);
+		verify(bulkProcessor, times(2)).add(captor.capture());
+		List<IndexRequest> indexRequests = captor.getAllValues();
+		assertEquals(indexRequests.get(0).index(), transactionId);
+		assertEquals(indexRequests.get(0).sourceAsMap().get(ElasticsearchService.CRUD_TYPE_FIELD_NAME),
+				CrudType.UPDATE.name());
+		assertEquals(indexRequests.get(1).sourceAsMap().get(ElasticsearchService.CRUD_TYPE_FIELD_NAME),
+				CrudType.ADD.name());
+	}
+
+	@Test
+	public void getBulkProcessorSettings()
+	{
+		assertEquals(searchService.getBulkProcessorSettings("entity"), BulkProcessorSettings.DEFAULT);
+		BulkProcessorSettings bulkProcessorSettings = new BulkProcessorSettings(100, -1, 2, 0, 1);
+		searchService.setBulkProcessorSettings("entity", bulkProcessorSettings);
+		assertEquals(searchService.getBulkProcessorSettings("entity"), bulkProcessorSettings);
+		assertEquals(searchService.getBulkProcessorSettings("otherEntity"), BulkProcessorSettings.DEFAULT);
+		searchService.setBulkProcessorSettings("entity", null);
+		assertEquals(searchService.getBulkProcessorSettings("entity"), BulkProcessorSettings.DEFAULT);
+	}
+
 	private SearchHits createSearchHits(final SearchHit[] searchHits, final int totalHits)
 	{
 		return new SearchHits()
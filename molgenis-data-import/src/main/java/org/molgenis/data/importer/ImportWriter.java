@@ -13,12 +13,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
+
 import org.apache.commons.io.IOUtils;
 import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
 import org.molgenis.data.AttributeMetaData;
@@ -27,15 +31,16 @@ import org.molgenis.data.DataService;
 import org.molgenis.data.DatabaseAction;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataAccessException;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Package;
-import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.RepositoryCollection;
 import org.molgenis.data.UnknownAttributeException;
 import org.molgenis.data.UnknownEntityException;
+import org.molgenis.data.csv.CsvRepositoryCollection;
 import org.molgenis.data.i18n.I18nStringMetaData;
 import org.molgenis.data.i18n.LanguageMetaData;
 import org.molgenis.data.meta.TagMetaData;
@@ -46,7 +51,7 @@ import org.molgenis.data.support.ConvertingIterable;
 import org.molgenis.data.support.DefaultEntity;
 import org.molgenis.data.support.EntityMetaDataUtils;
 import org.molgenis.data.support.LazyEntity;
-import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.support.MapEntity;
 import org.molgenis.data.validation.MolgenisValidationException;
 import org.molgenis.fieldtypes.FieldType;
 import org.molgenis.fieldtypes.IntField;
@@ -60,8 +65,9 @@ import org.molgenis.security.core.runas.RunAsSystem;
 import org.molgenis.security.core.utils.SecurityUtils;
 import org.molgenis.security.permission.PermissionSystemService;
 import org.molgenis.util.DependencyResolver;
-import org.molgenis.util.HugeSet;
+import org.molgenis.util.HugeMap;
 import org.molgenis.util.MolgenisDateFormat;
+import org.molgenis.util.OrderedBatchExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -69,7 +75,6 @@ import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.google.common.base.Function;
-import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
@@ -83,10 +88,20 @@ public class ImportWriter
 {
 	private static final Logger LOG = LoggerFactory.getLogger(ImportWriter.class);
 
+	private static final int BATCH_SIZE = 1000;
+	private static final int MAX_READ_AHEAD_BATCHES = 4;
+	/**
+	 * readers mostly wait for the import thread to consume their buffered batches, so the number of threads does not
+	 * depend on the number of processors
+	 */
+	private static final int READ_AHEAD_THREADS = 4;
+
 	private final DataService dataService;
 	private final PermissionSystemService permissionSystemService;
 	private final TagService<LabeledResource, LabeledResource> tagService;
 	private final MolgenisPermissionService molgenisPermissionService;
+	private final OrderedBatchExecutor readAheadExecutor = new OrderedBatchExecutor("emx-import-reader-%d",
+			READ_AHEAD_THREADS);
 
 	/**
 	 * Creates the ImportWriter
@@ -182,11 +197,16 @@ public class ImportWriter
 	}
 
 	/**
-	 * Imports entity data for all entities in {@link #resolved} from {@link #source}
+	 * Imports entity data for all entities in {@link #resolved} from {@link #source}. Entities are written one after
+	 * another in the transaction of the import while worker threads read ahead in the source repositories. The files
+	 * of a CSV or zip source have independent readers and are read concurrently in import order. Other sources are
+	 * read one at a time just before they are imported, e.g. the sheets of an Excel file share a workbook that cannot
+	 * be read by multiple threads.
 	 */
 	private void importData(EntityImportReport report, Iterable<EntityMetaData> resolved, RepositoryCollection source,
 			DatabaseAction dbAction, String defaultPackage)
 	{
+		Map<EntityMetaData, Repository> fileEntityRepositories = new LinkedHashMap<>();
 		for (final EntityMetaData entityMetaData : resolved)
 		{
 			String name = entityMetaData.getName();
@@ -195,7 +215,6 @@ public class ImportWriter
 			if (!name.equalsIgnoreCase(LanguageMetaData.ENTITY_NAME)
 					&& !name.equalsIgnoreCase(I18nStringMetaData.ENTITY_NAME) && dataService.hasRepository(name))
 			{
-				Repository repository = dataService.getRepository(name);
 				Repository fileEntityRepository = source.getRepository(entityMetaData.getName());
 
 				// Try without default package
@@ -209,69 +228,174 @@ public class ImportWriter
 				// check to prevent nullpointer when importing metadata only
 				if (fileEntityRepository != null)
 				{
-					boolean selfReferencing = DependencyResolver.hasSelfReferences(entityMetaData);
-
-					// transforms entities so that they match the entity meta data of the output repository
-					Iterable<Entity> entities = Iterables.transform(fileEntityRepository, new Function<Entity, Entity>()
-					{
-						@Override
-						public Entity apply(Entity entity)
-						{
-							return new DefaultEntityImporter(entityMetaData, dataService, entity, selfReferencing);
-						}
-					});
+					fileEntityRepositories.put(entityMetaData, fileEntityRepository);
+				}
+			}
+		}
 
-					if (selfReferencing)
-					{
-						entities = new DependencyResolver().resolveSelfReferences(entities, entityMetaData);
-					}
-					int count = update(repository, entities, dbAction);
-					if (selfReferencing && dbAction != DatabaseAction.UPDATE)
+		boolean concurrentReads = source instanceof CsvRepositoryCollection;
+		try (RepositoryReadAhead readAhead = new RepositoryReadAhead(readAheadExecutor.getExecutorService(),
+				BATCH_SIZE, MAX_READ_AHEAD_BATCHES))
+		{
+			// required self references are resolved by a dependency resolver that reads the source twice on the
+			// calling thread. sources are read ahead in import order, so the source that is imported next is always
+			// being read.
+			Map<EntityMetaData, Iterable<Entity>> readAheadEntities = new HashMap<>();
+			if (concurrentReads)
+			{
+				fileEntityRepositories.forEach((entityMetaData, fileEntityRepository) -> {
+					if (!hasRequiredSelfReferences(entityMetaData))
 					{
-						// Fix self referenced entities were not imported
-						update(repository, this.keepSelfReferencedEntities(entities), DatabaseAction.UPDATE);
+						readAheadEntities.put(entityMetaData, readAhead.readAhead(fileEntityRepository));
 					}
-					report.addEntityCount(name, count);
-				}
+				});
 			}
+
+			fileEntityRepositories.forEach((entityMetaData, fileEntityRepository) -> {
+				Iterable<Entity> entities;
+				if (hasRequiredSelfReferences(entityMetaData))
+				{
+					entities = fileEntityRepository;
+				}
+				else if (concurrentReads)
+				{
+					entities = readAheadEntities.get(entityMetaData);
+				}
+				else
+				{
+					// start reading a source when the previous source has been read completely
+					entities = readAhead.readAhead(fileEntityRepository);
+				}
+
+				String name = entityMetaData.getName();
+				int count = importEntities(dataService.getRepository(name), entityMetaData, entities, dbAction);
+				report.addEntityCount(name, count);
+				LOG.info("Imported [{}] [{}] entities", count, name);
+			});
 		}
 	}
 
 	/**
-	 * Keeps the entities that have: 1. A reference to themselves. 2. Minimal one value.
+	 * Stops the worker threads that read source repositories
+	 */
+	@PreDestroy
+	public void close()
+	{
+		readAheadExecutor.close();
+	}
+
+	private static boolean hasRequiredSelfReferences(EntityMetaData entityMetaData)
+	{
+		return getSelfReferencingAttributes(entityMetaData).stream()
+				.anyMatch(selfRefAttr -> !selfRefAttr.isNillable());
+	}
+
+	/**
+	 * Imports the entities from a source repository
 	 * 
-	 * @param entities
-	 * @return Iterable<Entity> - filtered entities;
+	 * @return number of imported entities
 	 */
-	private Iterable<Entity> keepSelfReferencedEntities(Iterable<Entity> entities)
+	private int importEntities(Repository repository, EntityMetaData entityMetaData, Iterable<Entity> fileEntities,
+			DatabaseAction dbAction)
 	{
-		return Iterables.filter(entities, new Predicate<Entity>()
+		List<AttributeMetaData> selfRefAttrs = getSelfReferencingAttributes(entityMetaData);
+
+		// required self references cannot be updated afterwards, these entities are imported in dependency order and
+		// reference each other lazily. other self references to entities that are not imported yet (forward
+		// references) are updated after the import.
+		boolean requiredSelfReferences = hasRequiredSelfReferences(entityMetaData);
+		boolean selfReferencing = !selfRefAttrs.isEmpty() && !requiredSelfReferences;
+		HugeMap<Object, HashMap<String, Object>> selfReferences = new HugeMap<>();
+		try
 		{
-			@Override
-			public boolean apply(Entity entity)
+			// transforms entities so that they match the entity meta data of the output repository
+			Iterable<Entity> entities = Iterables.transform(fileEntities, new Function<Entity, Entity>()
 			{
-				Iterator<AttributeMetaData> attributes = entity.getEntityMetaData().getAttributes().iterator();
-				while (attributes.hasNext())
+				@Override
+				public Entity apply(Entity entity)
 				{
-					AttributeMetaData attribute = attributes.next();
-					if (attribute.getRefEntity() != null
-							&& attribute.getRefEntity().getName().equals(entity.getEntityMetaData().getName()))
+					// self references that cannot be resolved when the entity is written are collected
+					return new DefaultEntityImporter(entityMetaData, dataService, entity, selfReferencing,
+							dbAction != DatabaseAction.UPDATE ? selfReferences : null);
+				}
+			});
+
+			if (requiredSelfReferences)
+			{
+				entities = new DependencyResolver(dataService).resolveSelfReferences(entities, entityMetaData);
+			}
+			int count = update(repository, entities, dbAction);
+			if (!selfReferences.isEmpty())
+			{
+				updateSelfReferences(repository, entityMetaData, selfRefAttrs, selfReferences);
+			}
+			return count;
+		}
+		finally
+		{
+			IOUtils.closeQuietly(selfReferences);
+		}
+	}
+
+	private static List<AttributeMetaData> getSelfReferencingAttributes(EntityMetaData entityMetaData)
+	{
+		return stream(entityMetaData.getAtomicAttributes().spliterator(), false)
+				.filter(attr -> attr.getRefEntity() != null && attr.getRefEntity().equals(entityMetaData))
+				.collect(toList());
+	}
+
+	/**
+	 * Updates the self references of imported entities.
+	 * 
+	 * @param repo
+	 *            repository containing the imported entities
+	 * @param entityMetaData
+	 *            meta data of the imported entities
+	 * @param selfRefAttrs
+	 *            attributes that reference the imported entities
+	 * @param selfReferences
+	 *            self reference values in the source by imported entity id
+	 */
+	private void updateSelfReferences(Repository repo, EntityMetaData entityMetaData,
+			List<AttributeMetaData> selfRefAttrs, Map<Object, HashMap<String, Object>> selfReferences)
+	{
+		for (List<Object> ids : Iterables.partition(selfReferences.keySet(), BATCH_SIZE))
+		{
+			List<Entity> entities = repo.findAll(ids.stream()).map(entity -> {
+				Map<String, Object> selfRefValues = selfReferences.get(entity.getIdValue());
+				Entity selfRefEntity = new DefaultEntityImporter(entityMetaData, dataService,
+						new MapEntity(selfRefValues), true);
+				for (AttributeMetaData selfRefAttr : selfRefAttrs)
+				{
+					String attrName = selfRefAttr.getName();
+					if (!selfRefValues.containsKey(attrName)) continue;
+
+					if (selfRefAttr.getDataType() instanceof XrefField)
 					{
-						List<String> ids = entity.getList(attribute.getName());
-						Iterable<Entity> refEntities = entity.getEntities(attribute.getName());
-						if (ids != null && ids.size() != Iterators.size(refEntities.iterator()))
+						Entity refEntity = selfRefEntity.getEntity(attrName);
+						if (refEntity == null)
 						{
-							throw new UnknownEntityException(
-									"One or more values [" + ids + "] from " + attribute.getDataType() + " field "
-											+ attribute.getName() + " could not be resolved");
+							throw new UnknownEntityException("Value [" + selfRefEntity.getString(attrName) + "] from "
+									+ selfRefAttr.getDataType() + " field " + attrName + " could not be resolved");
 						}
-						return true;
+						entity.set(attrName, refEntity);
+					}
+					else
+					{
+						List<String> refIds = selfRefEntity.getList(attrName);
+						List<Entity> refEntities = Lists.newArrayList(selfRefEntity.getEntities(attrName));
+						if (refIds != null && refIds.size() != refEntities.size())
+						{
+							throw new UnknownEntityException("One or more values [" + refIds + "] from "
+									+ selfRefAttr.getDataType() + " field " + attrName + " could not be resolved");
+						}
+						entity.set(attrName, refEntities);
 					}
 				}
-
-				return false;
-			}
-		});
+				return entity;
+			}).collect(toList());
+			repo.update(entities.stream());
+		}
 	}
 
 	/**
@@ -441,7 +565,8 @@ public class ImportWriter
 	}
 
 	/**
-	 * Updates a repository with entities.
+	 * Updates a repository with entities. The entities are iterated once, the existence of entities in the repository
+	 * is determined per batch of entities.
 	 * 
 	 * @param repo
 	 *            the {@link Repository} to update
@@ -461,204 +586,119 @@ public class ImportWriter
 					+ "'. Is this entity already imported by another user who did not grant you WRITE permission?");
 		}
 
-		String idAttributeName = repo.getEntityMetaData().getIdAttribute().getName();
-		FieldType idDataType = repo.getEntityMetaData().getIdAttribute().getDataType();
+		// entities can only exist if the repository contains entities before the import
+		boolean checkExistingIds = repo.count() > 0;
 
-		HugeSet<Object> existingIds = new HugeSet<Object>();
-		HugeSet<Object> ids = new HugeSet<Object>();
-		try
+		int count = 0;
+		List<Entity> existingEntities = new ArrayList<Entity>(BATCH_SIZE);
+		List<Integer> existingEntitiesRowIndex = new ArrayList<Integer>(BATCH_SIZE);
+		List<Entity> newEntities = new ArrayList<Entity>(BATCH_SIZE);
+		List<Integer> newEntitiesRowIndex = new ArrayList<Integer>(BATCH_SIZE);
+
+		for (Iterator<? extends List<? extends Entity>> it = Iterators.partition(entities.iterator(),
+				BATCH_SIZE); it.hasNext();)
 		{
-			for (Entity entity : entities)
+			List<? extends Entity> batch = it.next();
+			Set<Object> existingIds = checkExistingIds ? getExistingIds(repo, batch) : Collections.emptySet();
+
+			// route entities to insert or update batches
+			for (Entity entity : batch)
 			{
-				Object id = entity.get(idAttributeName);
-				if (id != null)
+				count++;
+				if (existingIds.contains(getIdValue(repo, entity)))
 				{
-					ids.add(id);
+					existingEntitiesRowIndex.add(count);
+					existingEntities.add(entity);
 				}
-			}
-
-			if (!ids.isEmpty())
-			{
-				// Check if the ids already exist
-				if (repo.count() > 0)
+				else
 				{
-					int batchSize = 100;
-					Query q = new QueryImpl();
-					Iterator<Object> it = ids.iterator();
-					int batchCount = 0;
-					while (it.hasNext())
-					{
-						Object id = it.next();
-						q.eq(idAttributeName, id);
-						batchCount++;
-						if (batchCount == batchSize || !it.hasNext())
-						{
-							repo.findAll(q).forEach(existing -> {
-								existingIds.add(existing.getIdValue());
-							});
-							q = new QueryImpl();
-							batchCount = 0;
-						}
-						else
-						{
-							q.or();
-						}
-					}
+					newEntitiesRowIndex.add(count);
+					newEntities.add(entity);
 				}
 			}
 
-			int count = 0;
 			switch (dbAction)
 			{
 				case ADD:
-					if (!existingIds.isEmpty())
+					if (!existingEntities.isEmpty())
 					{
-						StringBuilder msg = new StringBuilder();
-						msg.append("Trying to add existing ").append(repo.getName())
-								.append(" entities as new insert: ");
-
-						int i = 0;
-						Iterator<?> it = existingIds.iterator();
-						while (it.hasNext() && i < 5)
-						{
-							if (i > 0)
-							{
-								msg.append(",");
-							}
-							msg.append(it.next());
-							i++;
-						}
-
-						if (it.hasNext())
-						{
-							msg.append(" and more.");
-						}
-						throw new MolgenisDataException(msg.toString());
+						throw new MolgenisDataException(createErrorMessage(
+								"Trying to add existing " + repo.getName() + " entities as new insert: ", ",",
+								existingEntities));
 					}
-
-					count = repo.add(stream(entities.spliterator(), false));
+					insertIntoRepo(repo, newEntities, newEntitiesRowIndex);
 					break;
 				case ADD_IGNORE_EXISTING:
-					int batchSize = 1000;
-					List<Entity> existingEntities = Lists.newArrayList();
-					List<Entity> newEntities = Lists.newArrayList();
-
-					Iterator<? extends Entity> it = entities.iterator();
-					while (it.hasNext())
-					{
-						Entity entity = it.next();
-						count++;
-						Object id = idDataType.convert(entity.get(idAttributeName));
-						if (!existingIds.contains(id))
-						{
-							newEntities.add(entity);
-							if (newEntities.size() == batchSize)
-							{
-								repo.add(newEntities.stream());
-								newEntities.clear();
-							}
-						}
-					}
-
-					if (!newEntities.isEmpty())
-					{
-						repo.add(newEntities.stream());
-					}
-
+					existingEntities.clear();
+					existingEntitiesRowIndex.clear();
+					insertIntoRepo(repo, newEntities, newEntitiesRowIndex);
 					break;
 				case ADD_UPDATE_EXISTING:
-					batchSize = 1000;
-					existingEntities = new ArrayList<Entity>(batchSize);
-					List<Integer> existingEntitiesRowIndex = new ArrayList<Integer>(batchSize);
-					newEntities = new ArrayList<Entity>(batchSize);
-					List<Integer> newEntitiesRowIndex = new ArrayList<Integer>(batchSize);
-
-					it = entities.iterator();
-					while (it.hasNext())
-					{
-						Entity entity = it.next();
-						count++;
-						Object id = idDataType.convert(entity.get(idAttributeName));
-						if (existingIds.contains(id))
-						{
-							existingEntitiesRowIndex.add(count);
-							existingEntities.add(entity);
-							if (existingEntities.size() == batchSize)
-							{
-								updateInRepo(repo, existingEntities, existingEntitiesRowIndex);
-							}
-						}
-						else
-						{
-							newEntitiesRowIndex.add(count);
-							newEntities.add(entity);
-							if (newEntities.size() == batchSize)
-							{
-								insertIntoRepo(repo, newEntities, newEntitiesRowIndex);
-							}
-						}
-					}
-
-					if (!existingEntities.isEmpty())
-					{
-						updateInRepo(repo, existingEntities, existingEntitiesRowIndex);
-					}
-					if (!newEntities.isEmpty())
-					{
-						insertIntoRepo(repo, newEntities, newEntitiesRowIndex);
-					}
+					updateInRepo(repo, existingEntities, existingEntitiesRowIndex);
+					insertIntoRepo(repo, newEntities, newEntitiesRowIndex);
 					break;
 				case UPDATE:
-					int errorCount = 0;
-					StringBuilder msg = new StringBuilder();
-					msg.append("Trying to update non-existing ").append(repo.getName()).append(" entities:");
-
-					for (Entity entity : entities)
-					{
-						count++;
-						Object id = idDataType.convert(entity.get(idAttributeName));
-						if (!existingIds.contains(id))
-						{
-							if (++errorCount == 6)
-							{
-								break;
-							}
-
-							if (errorCount > 0)
-							{
-								msg.append(", ");
-							}
-							msg.append(id);
-						}
-					}
-
-					if (errorCount > 0)
+					if (!newEntities.isEmpty())
 					{
-						if (errorCount == 6)
-						{
-							msg.append(" and more.");
-						}
-						throw new MolgenisDataException(msg.toString());
+						throw new MolgenisDataException(createErrorMessage(
+								"Trying to update non-existing " + repo.getName() + " entities:", ", ", newEntities));
 					}
-					repo.update(stream(entities.spliterator(), false));
+					updateInRepo(repo, existingEntities, existingEntitiesRowIndex);
 					break;
-
 				default:
 					break;
-
 			}
+		}
 
-			return count;
+		return count;
+	}
+
+	/**
+	 * Returns the ids of the given entities that exist in the repository using one lookup
+	 */
+	private Set<Object> getExistingIds(Repository repo, List<? extends Entity> entities)
+	{
+		String idAttributeName = repo.getEntityMetaData().getIdAttribute().getName();
+		List<Object> ids = entities.stream().map(entity -> getIdValue(repo, entity)).filter(id -> id != null)
+				.collect(toList());
+		if (ids.isEmpty())
+		{
+			return Collections.emptySet();
 		}
-		finally
+		return repo.findAll(ids.stream(), new Fetch().field(idAttributeName)).map(Entity::getIdValue)
+				.collect(Collectors.toSet());
+	}
+
+	private static Object getIdValue(Repository repo, Entity entity)
+	{
+		AttributeMetaData idAttribute = repo.getEntityMetaData().getIdAttribute();
+		return idAttribute.getDataType().convert(entity.get(idAttribute.getName()));
+	}
+
+	/**
+	 * Creates an error message listing the ids of at most five entities
+	 */
+	private static String createErrorMessage(String prefix, String separator, List<Entity> entities)
+	{
+		StringBuilder msg = new StringBuilder(prefix);
+		for (int i = 0; i < entities.size() && i < 5; ++i)
 		{
-			IOUtils.closeQuietly(existingIds);
-			IOUtils.closeQuietly(ids);
+			if (i > 0)
+			{
+				msg.append(separator);
+			}
+			msg.append(entities.get(i).getIdValue());
 		}
+		if (entities.size() > 5)
+		{
+			msg.append(" and more.");
+		}
+		return msg.toString();
 	}
 
 	private void updateInRepo(Repository repo, List<Entity> existingEntities, List<Integer> existingEntitiesRowIndex)
 	{
+		if (existingEntities.isEmpty()) return;
 		try
 		{
 			repo.update(existingEntities.stream());
@@ -674,6 +714,7 @@ public class ImportWriter
 
 	private void insertIntoRepo(Repository repo, List<Entity> newEntities, List<Integer> newEntitiesRowIndex)
 	{
+		if (newEntities.isEmpty()) return;
 		try
 		{
 			repo.add(newEntities.stream());
@@ -701,14 +742,35 @@ public class ImportWriter
 		private final DataService dataService;
 		private final Entity entity;
 		private final boolean selfReferencing;
+		/**
+		 * self references by attribute name, resolved once so that all readers of this entity see the same value
+		 */
+		private final Map<String, Object> resolvedSelfReferences;
+		/**
+		 * source values of self references that could not be resolved by entity id, can be null
+		 */
+		private final Map<Object, HashMap<String, Object>> unresolvedSelfReferences;
 
 		public DefaultEntityImporter(EntityMetaData entityMetaData, DataService dataService, Entity entity,
 				boolean selfReferencing)
+		{
+			this(entityMetaData, dataService, entity, selfReferencing, null);
+		}
+
+		/**
+		 * @param unresolvedSelfReferences
+		 *            map to which the source values of self references that cannot be resolved are added so that these
+		 *            can be updated after the import, can be null
+		 */
+		public DefaultEntityImporter(EntityMetaData entityMetaData, DataService dataService, Entity entity,
+				boolean selfReferencing, Map<Object, HashMap<String, Object>> unresolvedSelfReferences)
 		{
 			this.entityMetaData = requireNonNull(entityMetaData);
 			this.dataService = requireNonNull(dataService);
 			this.entity = requireNonNull(entity);
 			this.selfReferencing = selfReferencing;
+			this.resolvedSelfReferences = selfReferencing ? new HashMap<>() : null;
+			this.unresolvedSelfReferences = selfReferencing ? unresolvedSelfReferences : null;
 		}
 
 		@Override
@@ -876,6 +938,24 @@ public class ImportWriter
 
 		@Override
 		public Entity getEntity(String attributeName)
+		{
+			if (selfReferencing && isSelfReference(attributeName))
+			{
+				if (!resolvedSelfReferences.containsKey(attributeName))
+				{
+					Entity refEntity = getEntityInternal(attributeName);
+					if (refEntity == null)
+					{
+						addUnresolvedSelfReference(attributeName);
+					}
+					resolvedSelfReferences.put(attributeName, refEntity);
+				}
+				return (Entity) resolvedSelfReferences.get(attributeName);
+			}
+			return getEntityInternal(attributeName);
+		}
+
+		private Entity getEntityInternal(String attributeName)
 		{
 			try
 			{
@@ -884,8 +964,7 @@ public class ImportWriter
 			catch (UnknownEntityException uee)
 			{
 				// self reference? ignore UnknownEntityExceptions those are solved in a later step
-				if (entityMetaData.getName()
-						.equals(entityMetaData.getAttribute(attributeName).getRefEntity().getName()))
+				if (isSelfReference(attributeName))
 				{
 					return null;
 				}
@@ -893,6 +972,33 @@ public class ImportWriter
 			}
 		}
 
+		/**
+		 * Adds the source value of a self reference that cannot be resolved (yet) to the unresolved self references
+		 */
+		private void addUnresolvedSelfReference(String attributeName)
+		{
+			Object value = entity.get(attributeName);
+			if (unresolvedSelfReferences != null && value != null
+					&& !(value instanceof String && ((String) value).isEmpty()))
+			{
+				Object id = getIdValue();
+				HashMap<String, Object> selfRefValues = unresolvedSelfReferences.get(id);
+				if (selfRefValues == null)
+				{
+					selfRefValues = new HashMap<>();
+				}
+				selfRefValues.put(attributeName, value);
+				unresolvedSelfReferences.put(id, selfRefValues);
+			}
+		}
+
+		private boolean isSelfReference(String attributeName)
+		{
+			AttributeMetaData attribute = entityMetaData.getAttribute(attributeName);
+			return attribute != null && attribute.getRefEntity() != null
+					&& entityMetaData.getName().equals(attribute.getRefEntity().getName());
+		}
+
 		/**
 		 * Similar to {@link org.molgenis.data.support.DefaultEntity#getEntity(String)} but returns lazy references if
 		 * the decorated entity doesn't have self-references improving import performance.
@@ -961,6 +1067,22 @@ public class ImportWriter
 		{
 			if (entityMetaData.getName().equals(entityMetaData.getAttribute(attributeName).getRefEntity().getName()))
 			{
+				if (selfReferencing && entityMetaData.getAttribute(attributeName).getDataType() instanceof MrefField)
+				{
+					@SuppressWarnings("unchecked")
+					List<Entity> refEntities = (List<Entity>) resolvedSelfReferences.get(attributeName);
+					if (refEntities == null)
+					{
+						refEntities = from(getEntitiesLikeDefaultEntity(attributeName)).filter(notNull()).toList();
+						List<String> refIds = getList(attributeName);
+						if (refIds != null && refIds.size() != refEntities.size())
+						{
+							addUnresolvedSelfReference(attributeName);
+						}
+						resolvedSelfReferences.put(attributeName, refEntities);
+					}
+					return refEntities;
+				}
 				return from(getEntitiesLikeDefaultEntity(attributeName)).filter(notNull());
 			}
 			else
@@ -1056,6 +1178,10 @@ public class ImportWriter
 		public void set(String attributeName, Object value)
 		{
 			entity.set(attributeName, value);
+			if (resolvedSelfReferences != null)
+			{
+				resolvedSelfReferences.remove(attributeName);
+			}
 		}
 
 		@Override
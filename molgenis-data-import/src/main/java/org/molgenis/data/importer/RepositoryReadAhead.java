@@ -0,0 +1,191 @@
+package org.molgenis.data.importer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * Reads entities from source repositories on worker threads ahead of their consumption. Each source buffers a
+ * bounded number of entity batches, a worker waits for the consumer when the buffer is full.
+ *
+ * Sources are read in the order in which they are submitted, consume them in the same order to prevent that all
+ * workers wait for sources that are consumed later.
+ */
+class RepositoryReadAhead implements AutoCloseable
+{
+	private static final List<Entity> END_OF_ENTITIES = new ArrayList<>(0);
+
+	private final ExecutorService executorService;
+	private final int batchSize;
+	private final int maxBufferedBatches;
+	private final List<Future<?>> futures = new ArrayList<>();
+
+	/**
+	 * @param executorService
+	 *            executor service that reads the sources
+	 * @param batchSize
+	 *            number of entities per batch
+	 * @param maxBufferedBatches
+	 *            maximum number of batches that are buffered per source
+	 */
+	public RepositoryReadAhead(ExecutorService executorService, int batchSize, int maxBufferedBatches)
+	{
+		this.executorService = requireNonNull(executorService);
+		if (batchSize < 1) throw new IllegalArgumentException("batchSize must be >= 1");
+		if (maxBufferedBatches < 1) throw new IllegalArgumentException("maxBufferedBatches must be >= 1");
+		this.batchSize = batchSize;
+		this.maxBufferedBatches = maxBufferedBatches;
+	}
+
+	/**
+	 * Starts reading entities from the given source.
+	 *
+	 * @param entities
+	 *            source entities
+	 * @return entities that can be iterated once
+	 */
+	public Iterable<Entity> readAhead(Iterable<Entity> entities)
+	{
+		ReadAheadTask task = new ReadAheadTask(entities, batchSize, maxBufferedBatches);
+		futures.add(executorService.submit(task));
+
+		AtomicBoolean iterated = new AtomicBoolean();
+		return () -> {
+			if (iterated.getAndSet(true))
+			{
+				throw new IllegalStateException("Entities read ahead can only be iterated once");
+			}
+			return new ReadAheadIterator(task);
+		};
+	}
+
+	/**
+	 * Stops reading the sources
+	 */
+	@Override
+	public void close()
+	{
+		futures.forEach(future -> future.cancel(true));
+		futures.clear();
+	}
+
+	private static class ReadAheadTask implements Runnable
+	{
+		private final Iterable<Entity> entities;
+		private final int batchSize;
+		private final BlockingQueue<List<Entity>> batches;
+		private volatile Throwable failure;
+
+		public ReadAheadTask(Iterable<Entity> entities, int batchSize, int maxBufferedBatches)
+		{
+			this.entities = requireNonNull(entities);
+			this.batchSize = batchSize;
+			this.batches = new ArrayBlockingQueue<>(maxBufferedBatches);
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				for (Iterator<List<Entity>> it = Iterators.partition(entities.iterator(), batchSize); it.hasNext();)
+				{
+					batches.put(it.next());
+				}
+			}
+			catch (InterruptedException e)
+			{
+				// reading was cancelled, nobody is waiting for the remaining entities
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (Throwable t)
+			{
+				failure = t;
+			}
+
+			try
+			{
+				batches.put(END_OF_ENTITIES);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		public List<Entity> takeBatch()
+		{
+			try
+			{
+				return batches.take();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new MolgenisDataException(e);
+			}
+		}
+
+		public Throwable getFailure()
+		{
+			return failure;
+		}
+	}
+
+	private static class ReadAheadIterator implements Iterator<Entity>
+	{
+		private final ReadAheadTask task;
+		private Iterator<Entity> batchIterator = Collections.emptyIterator();
+		private boolean endOfEntities;
+
+		public ReadAheadIterator(ReadAheadTask task)
+		{
+			this.task = requireNonNull(task);
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			while (!batchIterator.hasNext() && !endOfEntities)
+			{
+				List<Entity> batch = task.takeBatch();
+				if (batch == END_OF_ENTITIES)
+				{
+					endOfEntities = true;
+
+					Throwable failure = task.getFailure();
+					if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+					if (failure instanceof Error) throw (Error) failure;
+					if (failure != null) throw new MolgenisDataException(failure);
+				}
+				else
+				{
+					batchIterator = batch.iterator();
+				}
+			}
+			return batchIterator.hasNext();
+		}
+
+		@Override
+		public Entity next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			return batchIterator.next();
+		}
+	}
+}
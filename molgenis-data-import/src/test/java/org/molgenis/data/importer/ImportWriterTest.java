@@ -0,0 +1,329 @@
+package org.molgenis.data.importer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.MolgenisFieldTypes.XREF;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.mockito.Matchers;
+import org.molgenis.data.DataService;
+import org.molgenis.data.DatabaseAction;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.Repository;
+import org.molgenis.data.RepositoryCollection;
+import org.molgenis.data.csv.CsvRepositoryCollection;
+import org.molgenis.data.meta.MetaDataService;
+import org.molgenis.data.semanticsearch.service.TagService;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.MapEntity;
+import org.molgenis.framework.db.EntityImportReport;
+import org.molgenis.security.core.MolgenisPermissionService;
+import org.molgenis.security.core.Permission;
+import org.molgenis.security.permission.PermissionSystemService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+
+public class ImportWriterTest
+{
+	private static final String ENTITY_NAME = "person";
+	private static final String ATTR_ID = "id";
+	private static final String ATTR_FATHER = "father";
+
+	private DataService dataService;
+	private MolgenisPermissionService molgenisPermissionService;
+	private Repository repo;
+	private RepositoryCollection source;
+	private Map<Object, Entity> storedEntities;
+	private List<Entity> addedEntities;
+	private List<Entity> updatedEntities;
+	private ImportWriter importWriter;
+
+	@SuppressWarnings("unchecked")
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		storedEntities = new LinkedHashMap<>();
+		addedEntities = new ArrayList<>();
+		updatedEntities = new ArrayList<>();
+
+		// in-memory repository that stores a copy of the entity values at the moment an entity is written
+		repo = mock(Repository.class);
+		when(repo.getName()).thenReturn(ENTITY_NAME);
+		when(repo.count()).thenAnswer(invocation -> (long) storedEntities.size());
+		when(repo.add(Matchers.<Stream<Entity>> any())).thenAnswer(invocation -> {
+			List<Entity> entities = ((Stream<Entity>) invocation.getArguments()[0]).map(this::store)
+					.collect(Collectors.toList());
+			addedEntities.addAll(entities);
+			return entities.size();
+		});
+		when(repo.findAll(Matchers.<Stream<Object>> any())).thenAnswer(
+				invocation -> ((Stream<Object>) invocation.getArguments()[0]).map(storedEntities::get)
+						.map(entity -> createSourceEntity(entity.getString(ATTR_ID), entity.getString(ATTR_FATHER))));
+		when(repo.findAll(Matchers.<Stream<Object>> any(), any(Fetch.class))).thenAnswer(
+				invocation -> ((Stream<Object>) invocation.getArguments()[0]).map(storedEntities::get)
+						.filter(entity -> entity != null));
+		doAnswer(invocation -> {
+			((Stream<Entity>) invocation.getArguments()[0]).map(this::store).forEach(updatedEntities::add);
+			return null;
+		}).when(repo).update(Matchers.<Stream<Entity>> any());
+
+		dataService = mock(DataService.class);
+		MetaDataService metaDataService = mock(MetaDataService.class);
+		when(dataService.getMeta()).thenReturn(metaDataService);
+		when(dataService.hasRepository(ENTITY_NAME)).thenReturn(true);
+		when(dataService.getRepository(ENTITY_NAME)).thenReturn(repo);
+		when(dataService.findOne(eq(ENTITY_NAME), any(Object.class))).thenAnswer(
+				invocation -> storedEntities.get(invocation.getArguments()[1]));
+		when(metaDataService.getEntityMetaData(ENTITY_NAME)).thenReturn(mock(EntityMetaData.class));
+
+		molgenisPermissionService = mock(MolgenisPermissionService.class);
+		when(molgenisPermissionService.hasPermissionOnEntity(ENTITY_NAME, Permission.WRITE)).thenReturn(true);
+
+		source = mock(RepositoryCollection.class);
+		importWriter = new ImportWriter(dataService, mock(PermissionSystemService.class),
+				mock(TagService.class), molgenisPermissionService);
+	}
+
+	@AfterMethod
+	public void tearDownAfterMethod()
+	{
+		importWriter.close();
+	}
+
+	@Test
+	public void doImportAddNillableSelfReferences()
+	{
+		EntityMetaData entityMeta = createEntityMeta(true);
+		setSourceEntities(entityMeta, createSourceEntity("p0", null), createSourceEntity("p1", "p0"));
+
+		EntityImportReport report = importWriter.doImport(createJob(entityMeta, DatabaseAction.ADD));
+
+		assertEquals(report.getNrImportedEntitiesMap(), ImmutableMap.of(ENTITY_NAME, 2));
+		assertEquals(getValues(addedEntities), Arrays.asList(Arrays.asList("p0", null), Arrays.asList("p1", "p0")));
+		// the reference to an entity that was imported before is resolved when adding, no update required
+		assertEquals(updatedEntities, Collections.emptyList());
+	}
+
+	@Test
+	public void doImportAddForwardSelfReferences()
+	{
+		EntityMetaData entityMeta = createEntityMeta(true);
+		setSourceEntities(entityMeta, createSourceEntity("p0", "p1"), createSourceEntity("p1", "p2"),
+				createSourceEntity("p2", null));
+
+		importWriter.doImport(createJob(entityMeta, DatabaseAction.ADD));
+
+		// references to entities that are not imported yet are set after all entities are imported
+		assertEquals(getValues(addedEntities),
+				Arrays.asList(Arrays.asList("p0", null), Arrays.asList("p1", null), Arrays.asList("p2", null)));
+		assertEquals(getValues(updatedEntities), Arrays.asList(Arrays.asList("p0", "p1"), Arrays.asList("p1", "p2")));
+	}
+
+	@Test
+	public void doImportAddBackwardAndForwardSelfReferences()
+	{
+		EntityMetaData entityMeta = createEntityMeta(true);
+		setSourceEntities(entityMeta, createSourceEntity("p0", "p2"), createSourceEntity("p1", "p0"),
+				createSourceEntity("p2", "p1"));
+
+		importWriter.doImport(createJob(entityMeta, DatabaseAction.ADD));
+
+		// only the forward reference is updated after the import
+		assertEquals(getValues(addedEntities),
+				Arrays.asList(Arrays.asList("p0", null), Arrays.asList("p1", "p0"), Arrays.asList("p2", "p1")));
+		assertEquals(getValues(updatedEntities), Arrays.asList(Arrays.asList("p0", "p2")));
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class)
+	public void doImportAddForwardSelfReferenceUnknown()
+	{
+		EntityMetaData entityMeta = createEntityMeta(true);
+		setSourceEntities(entityMeta, createSourceEntity("p0", "unknown"));
+
+		importWriter.doImport(createJob(entityMeta, DatabaseAction.ADD));
+	}
+
+	@Test
+	public void doImportAddRequiredSelfReferences()
+	{
+		EntityMetaData entityMeta = createEntityMeta(false);
+		setSourceEntities(entityMeta, createSourceEntity("p0", "p1"), createSourceEntity("p1", "p2"),
+				createSourceEntity("p2", "p2"));
+
+		importWriter.doImport(createJob(entityMeta, DatabaseAction.ADD));
+
+		// referenced entities are imported first, so required references are set when an entity is added
+		assertEquals(getValues(addedEntities),
+				Arrays.asList(Arrays.asList("p2", "p2"), Arrays.asList("p1", "p2"), Arrays.asList("p0", "p1")));
+		assertEquals(updatedEntities, Collections.emptyList());
+	}
+
+	@Test
+	public void doImportAddRequiredSelfReferencesToExistingEntity()
+	{
+		EntityMetaData entityMeta = createEntityMeta(false);
+		Entity existingEntity = createSourceEntity("p0", "p0");
+		storedEntities.put("p0", existingEntity);
+		when(repo.findOne("p0")).thenReturn(existingEntity);
+		setSourceEntities(entityMeta, createSourceEntity("p1", "p0"));
+
+		importWriter.doImport(createJob(entityMeta, DatabaseAction.ADD));
+
+		assertEquals(getValues(addedEntities), Arrays.asList(Arrays.asList("p1", "p0")));
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class)
+	public void doImportAddRequiredSelfReferenceUnknown()
+	{
+		EntityMetaData entityMeta = createEntityMeta(false);
+		setSourceEntities(entityMeta, createSourceEntity("p0", "unknown"));
+
+		importWriter.doImport(createJob(entityMeta, DatabaseAction.ADD));
+	}
+
+	@Test
+	public void doImportUpdate()
+	{
+		EntityMetaData entityMeta = createEntityMeta(true);
+		when(repo.getEntityMetaData()).thenReturn(entityMeta);
+		storedEntities.put("p0", createSourceEntity("p0", null));
+		storedEntities.put("p1", createSourceEntity("p1", null));
+		setSourceEntities(entityMeta, createSourceEntity("p0", "p1"), createSourceEntity("p1", "p0"));
+
+		EntityImportReport report = importWriter.doImport(createJob(entityMeta, DatabaseAction.UPDATE));
+
+		assertEquals(report.getNrImportedEntitiesMap(), ImmutableMap.of(ENTITY_NAME, 2));
+		verify(repo, never()).add(Matchers.<Stream<Entity>> any());
+		assertEquals(getValues(updatedEntities), Arrays.asList(Arrays.asList("p0", "p1"), Arrays.asList("p1", "p0")));
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class, expectedExceptionsMessageRegExp = "Trying to update non-existing person entities:p1")
+	public void doImportUpdateNonExisting()
+	{
+		EntityMetaData entityMeta = createEntityMeta(true);
+		storedEntities.put("p0", createSourceEntity("p0", null));
+		setSourceEntities(entityMeta, createSourceEntity("p0", null), createSourceEntity("p1", null));
+
+		importWriter.doImport(createJob(entityMeta, DatabaseAction.UPDATE));
+	}
+
+	@Test
+	public void doImportAddCsvSourcesReadConcurrently()
+	{
+		EntityMetaData entityMeta = createEntityMeta(true);
+		DefaultEntityMetaData otherEntityMeta = new DefaultEntityMetaData("other");
+		otherEntityMeta.addAttribute(ATTR_ID, ROLE_ID);
+
+		Repository otherRepo = mock(Repository.class);
+		when(otherRepo.getName()).thenReturn("other");
+		when(otherRepo.getEntityMetaData()).thenReturn(otherEntityMeta);
+		when(otherRepo.add(Matchers.<Stream<Entity>> any()))
+				.thenAnswer(invocation -> (int) ((Stream<?>) invocation.getArguments()[0]).count());
+		when(dataService.hasRepository("other")).thenReturn(true);
+		when(dataService.getRepository("other")).thenReturn(otherRepo);
+		when(molgenisPermissionService.hasPermissionOnEntity("other", Permission.WRITE)).thenReturn(true);
+
+		// the files of a csv source are read concurrently: the first source is only read after reading the second
+		// source started
+		source = mock(CsvRepositoryCollection.class);
+		CountDownLatch otherReadStarted = new CountDownLatch(1);
+		setSourceEntities(entityMeta, createSourceEntity("p0", null));
+		Repository sourceRepo = source.getRepository(ENTITY_NAME);
+		when(sourceRepo.iterator()).thenAnswer(invocation -> {
+			if (!otherReadStarted.await(10, TimeUnit.SECONDS))
+			{
+				throw new MolgenisDataException("source [other] is not read concurrently");
+			}
+			return Arrays.asList(createSourceEntity("p0", null)).iterator();
+		});
+		Repository otherSourceRepo = mock(Repository.class);
+		when(otherSourceRepo.iterator()).thenAnswer(invocation -> {
+			otherReadStarted.countDown();
+			return Arrays.asList(new MapEntity(ATTR_ID, "o0")).iterator();
+		});
+		when(source.getRepository("other")).thenReturn(otherSourceRepo);
+
+		ParsedMetaData parsedMetaData = new ParsedMetaData(Arrays.asList(entityMeta, otherEntityMeta),
+				Collections.emptyMap(), HashMultimap.create(), Collections.emptyList(), Collections.emptyMap(),
+				ImmutableMap.of());
+		EntityImportReport report = importWriter
+				.doImport(new EmxImportJob(DatabaseAction.ADD, source, parsedMetaData, null));
+
+		assertEquals(report.getNrImportedEntitiesMap(), ImmutableMap.of(ENTITY_NAME, 1, "other", 1));
+	}
+
+	private static EntityMetaData createEntityMeta(boolean nillableFather)
+	{
+		DefaultEntityMetaData entityMeta = new DefaultEntityMetaData(ENTITY_NAME);
+		entityMeta.addAttribute(ATTR_ID, ROLE_ID);
+		entityMeta.addAttribute(ATTR_FATHER).setDataType(XREF).setRefEntity(entityMeta)
+				.setNillable(nillableFather);
+		return entityMeta;
+	}
+
+	private static Entity createSourceEntity(String id, String fatherId)
+	{
+		MapEntity entity = new MapEntity(ATTR_ID);
+		entity.set(ATTR_ID, id);
+		entity.set(ATTR_FATHER, fatherId);
+		return entity;
+	}
+
+	private void setSourceEntities(EntityMetaData entityMeta, Entity... entities)
+	{
+		when(repo.getEntityMetaData()).thenReturn(entityMeta);
+		Repository sourceRepo = mock(Repository.class);
+		when(sourceRepo.iterator()).thenAnswer(invocation -> Arrays.asList(entities).iterator());
+		when(source.getRepository(ENTITY_NAME)).thenReturn(sourceRepo);
+	}
+
+	private EmxImportJob createJob(EntityMetaData entityMeta, DatabaseAction dbAction)
+	{
+		ParsedMetaData parsedMetaData = new ParsedMetaData(Arrays.asList(entityMeta), Collections.emptyMap(),
+				HashMultimap.create(), Collections.emptyList(), Collections.emptyMap(),
+				ImmutableMap.of());
+		return new EmxImportJob(dbAction, source, parsedMetaData, null);
+	}
+
+	/**
+	 * Stores a copy of the id and father id of a written entity
+	 */
+	private Entity store(Entity entity)
+	{
+		Object father = entity.get(ATTR_FATHER);
+		Entity storedEntity = createSourceEntity(entity.getString(ATTR_ID),
+				father != null ? ((Entity) father).getIdValue().toString() : null);
+		storedEntities.put(storedEntity.getIdValue(), storedEntity);
+		return storedEntity;
+	}
+
+	private static List<List<Object>> getValues(List<Entity> entities)
+	{
+		return entities.stream().map(entity -> Arrays.<Object> asList(entity.get(ATTR_ID), entity.get(ATTR_FATHER)))
+				.collect(Collectors.toList());
+	}
+}
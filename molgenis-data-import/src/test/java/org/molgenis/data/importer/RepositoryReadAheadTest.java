@@ -0,0 +1,134 @@
+package org.molgenis.data.importer;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class RepositoryReadAheadTest
+{
+	private ExecutorService executorService;
+
+	@BeforeClass
+	public void setUpBeforeClass()
+	{
+		executorService = Executors.newFixedThreadPool(2);
+	}
+
+	@AfterClass
+	public void tearDownAfterClass()
+	{
+		executorService.shutdownNow();
+	}
+
+	@Test
+	public void readAhead()
+	{
+		List<Entity> entities0 = createEntities(10);
+		List<Entity> entities1 = createEntities(3);
+		List<Entity> entities2 = createEntities(7);
+		try (RepositoryReadAhead readAhead = new RepositoryReadAhead(executorService, 2, 1))
+		{
+			Iterable<Entity> readEntities0 = readAhead.readAhead(entities0);
+			Iterable<Entity> readEntities1 = readAhead.readAhead(entities1);
+			Iterable<Entity> readEntities2 = readAhead.readAhead(entities2);
+			assertEquals(Lists.newArrayList(readEntities0), entities0);
+			assertEquals(Lists.newArrayList(readEntities1), entities1);
+			assertEquals(Lists.newArrayList(readEntities2), entities2);
+		}
+	}
+
+	@Test
+	public void readAheadNoEntities()
+	{
+		try (RepositoryReadAhead readAhead = new RepositoryReadAhead(executorService, 2, 1))
+		{
+			assertFalse(readAhead.readAhead(new ArrayList<>()).iterator().hasNext());
+		}
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void readAheadIterateTwice()
+	{
+		try (RepositoryReadAhead readAhead = new RepositoryReadAhead(executorService, 2, 1))
+		{
+			Iterable<Entity> readEntities = readAhead.readAhead(createEntities(3));
+			Lists.newArrayList(readEntities);
+			readEntities.iterator();
+		}
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class, expectedExceptionsMessageRegExp = "read error")
+	public void readAheadSourceException()
+	{
+		List<Entity> entities = createEntities(3);
+		Iterable<Entity> failingEntities = () -> new Iterator<Entity>()
+		{
+			private final Iterator<Entity> it = entities.iterator();
+
+			@Override
+			public boolean hasNext()
+			{
+				if (!it.hasNext()) throw new MolgenisDataException("read error");
+				return true;
+			}
+
+			@Override
+			public Entity next()
+			{
+				return it.next();
+			}
+		};
+
+		try (RepositoryReadAhead readAhead = new RepositoryReadAhead(executorService, 2, 1))
+		{
+			Lists.newArrayList(readAhead.readAhead(failingEntities));
+		}
+	}
+
+	@Test
+	public void close() throws InterruptedException
+	{
+		// workers waiting for a consumer must not block the executor service after closing
+		try (RepositoryReadAhead readAhead = new RepositoryReadAhead(executorService, 1, 1))
+		{
+			readAhead.readAhead(createEntities(10));
+			readAhead.readAhead(createEntities(10));
+		}
+		try (RepositoryReadAhead readAhead = new RepositoryReadAhead(executorService, 1, 1))
+		{
+			List<Entity> entities = createEntities(5);
+			assertEquals(Lists.newArrayList(readAhead.readAhead(entities)), entities);
+		}
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void RepositoryReadAheadInvalidBatchSize()
+	{
+		new RepositoryReadAhead(executorService, 0, 1);
+	}
+
+	private static List<Entity> createEntities(int nrEntities)
+	{
+		Entity[] entities = new Entity[nrEntities];
+		for (int i = 0; i < nrEntities; ++i)
+		{
+			entities[i] = mock(Entity.class);
+		}
+		return Arrays.asList(entities);
+	}
+}
@@ -34,6 +34,45 @@ public interface AlgorithmService
 	 */
 	Object apply(AttributeMapping attributeMapping, Entity sourceEntity, EntityMetaData sourceEntityMetaData);
 
+	/**
+	 * Applies an {@link AttributeMapping} to a chunk of source {@link Entity}s. The algorithm is evaluated for the
+	 * whole chunk at once and referenced entities are retrieved with a single query per chunk.
+	 * 
+	 * @param attributeMapping
+	 *            {@link AttributeMapping} to apply
+	 * @param sourceEntities
+	 *            {@link Entity}s to apply the mapping to
+	 * @return List containing the mapped value for each source entity, in source entity order
+	 */
+	List<Object> apply(AttributeMapping attributeMapping, List<Entity> sourceEntities,
+			EntityMetaData sourceEntityMetaData);
+
+	/**
+	 * Evaluates the algorithm of an {@link AttributeMapping} for a chunk of source {@link Entity}s without converting
+	 * the results to values of the target attribute. Does not retrieve data, so it can be called outside the
+	 * transaction of the caller for source entities that contain no unresolved references.
+	 * 
+	 * @param attributeMapping
+	 *            {@link AttributeMapping} to evaluate
+	 * @param sourceEntities
+	 *            {@link Entity}s to evaluate the algorithm for
+	 * @return List containing the algorithm result for each source entity, in source entity order
+	 */
+	List<Object> evaluate(AttributeMapping attributeMapping, List<Entity> sourceEntities,
+			EntityMetaData sourceEntityMetaData);
+
+	/**
+	 * Converts algorithm results to values of the target attribute. Referenced entities are retrieved with a single
+	 * query.
+	 * 
+	 * @param values
+	 *            algorithm results as returned by {@link #evaluate(AttributeMapping, List, EntityMetaData)}
+	 * @param targetAttribute
+	 *            attribute to convert the values to
+	 * @return List containing the converted value for each algorithm result
+	 */
+	List<Object> convert(List<Object> values, AttributeMetaData targetAttribute);
+
 	/**
 	 * Retrieves the names of the source attributes in an algorithm
 	 * 
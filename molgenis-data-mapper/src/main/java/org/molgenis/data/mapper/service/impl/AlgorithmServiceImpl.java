@@ -1,14 +1,19 @@
 package org.molgenis.data.mapper.service.impl;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -156,6 +161,155 @@ public class AlgorithmServiceImpl implements AlgorithmService
 		return convert(value, attributeMapping.getTargetAttributeMetaData());
 	}
 
+	@Override
+	public List<Object> apply(AttributeMapping attributeMapping, List<Entity> sourceEntities,
+			EntityMetaData sourceEntityMetaData)
+	{
+		List<Object> values = evaluate(attributeMapping, sourceEntities, sourceEntityMetaData);
+		return convert(values, attributeMapping.getTargetAttributeMetaData());
+	}
+
+	@Override
+	public List<Object> evaluate(AttributeMapping attributeMapping, List<Entity> sourceEntities,
+			EntityMetaData sourceEntityMetaData)
+	{
+		String algorithm = attributeMapping.getAlgorithm();
+		if (StringUtils.isEmpty(algorithm))
+		{
+			return Collections.nCopies(sourceEntities.size(), null);
+		}
+		if (sourceEntities.isEmpty())
+		{
+			return Collections.emptyList();
+		}
+
+		Collection<String> attributeNames = getSourceAttributeNames(algorithm);
+		List<Entity> entities = new ArrayList<>(sourceEntities.size());
+		for (Entity sourceEntity : sourceEntities)
+		{
+			entities.add(createMapEntity(attributeNames, sourceEntity));
+		}
+
+		List<Object> values = ScriptEvaluator.eval(algorithm, entities, sourceEntityMetaData);
+		for (Object value : values)
+		{
+			if (value instanceof RuntimeException)
+			{
+				throw (RuntimeException) value;
+			}
+		}
+		return values;
+	}
+
+	@Override
+	public List<Object> convert(List<Object> values, AttributeMetaData attributeMetaData)
+	{
+		switch (attributeMetaData.getDataType().getEnumType())
+		{
+			case XREF:
+			case CATEGORICAL:
+				return convertXrefs(values, attributeMetaData);
+			case MREF:
+			case CATEGORICAL_MREF:
+				return convertMrefs(values, attributeMetaData);
+			default:
+				List<Object> convertedValues = new ArrayList<>(values.size());
+				for (Object value : values)
+				{
+					convertedValues.add(convert(value, attributeMetaData));
+				}
+				return convertedValues;
+		}
+	}
+
+	private List<Object> convertXrefs(List<Object> values, AttributeMetaData attributeMetaData)
+	{
+		List<String> ids = new ArrayList<>(values.size());
+		for (Object value : values)
+		{
+			ids.add(value != null ? Context.toString(value) : null);
+		}
+
+		Set<String> distinctIds = ids.stream().filter(Objects::nonNull).collect(toCollection(LinkedHashSet::new));
+		Map<String, Entity> refEntities = findRefEntities(attributeMetaData.getRefEntity(), distinctIds);
+
+		List<Object> convertedValues = new ArrayList<>(values.size());
+		for (String id : ids)
+		{
+			convertedValues.add(id != null ? refEntities.get(id) : null);
+		}
+		return convertedValues;
+	}
+
+	private List<Object> convertMrefs(List<Object> values, AttributeMetaData attributeMetaData)
+	{
+		List<NativeArray> mrefIdsList = new ArrayList<>(values.size());
+		Set<Object> ids = new LinkedHashSet<>();
+		for (Object value : values)
+		{
+			NativeArray mrefIds;
+			try
+			{
+				mrefIds = (NativeArray) value;
+			}
+			catch (RuntimeException e)
+			{
+				throw new RuntimeException("Error converting value [" + value.toString() + "] to "
+						+ attributeMetaData.getDataType().getEnumType().toString(), e);
+			}
+			if (mrefIds != null && !mrefIds.isEmpty())
+			{
+				for (Object mrefId : mrefIds)
+				{
+					ids.add(mrefId);
+				}
+			}
+			mrefIdsList.add(mrefIds);
+		}
+
+		Map<String, Entity> refEntities = findRefEntities(attributeMetaData.getRefEntity(), ids);
+
+		List<Object> convertedValues = new ArrayList<>(values.size());
+		for (NativeArray mrefIds : mrefIdsList)
+		{
+			if (mrefIds != null && !mrefIds.isEmpty())
+			{
+				List<Entity> mrefEntities = new ArrayList<>(mrefIds.size());
+				for (Object mrefId : mrefIds)
+				{
+					Entity refEntity = refEntities.get(Context.toString(mrefId));
+					if (refEntity != null)
+					{
+						mrefEntities.add(refEntity);
+					}
+				}
+				convertedValues.add(mrefEntities);
+			}
+			else
+			{
+				convertedValues.add(null);
+			}
+		}
+		return convertedValues;
+	}
+
+	/**
+	 * Retrieves the referenced entities with the given ids in one query
+	 * 
+	 * @return map of referenced entities by the string representation of their id
+	 */
+	private Map<String, Entity> findRefEntities(EntityMetaData refEntityMeta, Set<?> ids)
+	{
+		if (ids.isEmpty())
+		{
+			return Collections.emptyMap();
+		}
+		Map<String, Entity> refEntities = new HashMap<>();
+		dataService.findAll(refEntityMeta.getName(), ids.stream().map(id -> (Object) id))
+				.forEach(refEntity -> refEntities.put(refEntity.getIdValue().toString(), refEntity));
+		return refEntities;
+	}
+
 	@SuppressWarnings("unchecked")
 	private Object convert(Object value, AttributeMetaData attributeMetaData)
 	{
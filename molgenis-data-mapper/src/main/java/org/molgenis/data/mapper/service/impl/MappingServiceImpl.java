@@ -3,14 +3,21 @@ package org.molgenis.data.mapper.service.impl;
 import static java.util.Objects.requireNonNull;
 import static org.molgenis.data.mapper.meta.MappingProjectMetaData.NAME;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
 
-import org.elasticsearch.common.collect.Lists;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.auth.MolgenisUser;
 import org.molgenis.data.AttributeMetaData;
@@ -35,6 +42,7 @@ import org.molgenis.data.support.QueryImpl;
 import org.molgenis.fieldtypes.FieldType;
 import org.molgenis.security.core.runas.RunAsSystem;
 import org.molgenis.security.permission.PermissionSystemService;
+import org.molgenis.util.OrderedBatchExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,6 +50,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
 
 public class MappingServiceImpl implements MappingService
@@ -60,6 +69,9 @@ public class MappingServiceImpl implements MappingService
 
 	private final PermissionSystemService permissionSystemService;
 
+	private final OrderedBatchExecutor mappingExecutor = new OrderedBatchExecutor("mapping-service-%d",
+			Runtime.getRuntime().availableProcessors());
+
 	@Autowired
 	public MappingServiceImpl(DataService dataService, AlgorithmService algorithmService, IdGenerator idGenerator,
 			MappingProjectRepository mappingProjectRepository, PermissionSystemService permissionSystemService)
@@ -259,32 +271,124 @@ public class MappingServiceImpl implements MappingService
 				.filter(Objects::nonNull).collect(Collectors.toList());
 		targetRepo.delete(deleteEntities.stream());
 
-		Iterator<Entity> sourceEntities = sourceRepo.iterator();
-		List<MapEntity> mappedEntities = Lists.newArrayList();
-		while (sourceEntities.hasNext())
+		// evaluate the algorithms for batches of source entities on worker threads, convert the results and add the
+		// mapped batches in source order on the calling thread: worker threads do not run in the transaction of the
+		// caller, so entities are only retrieved on the calling thread
+		EntityMetaData sourceEntityMetaData = sourceMapping.getSourceEntityMetaData();
+		Set<String> sourceAttributeNames = new HashSet<>();
+		for (AttributeMapping attributeMapping : sourceMapping.getAttributeMappings())
+		{
+			String algorithm = attributeMapping.getAlgorithm();
+			if (!StringUtils.isEmpty(algorithm))
+			{
+				sourceAttributeNames.addAll(algorithmService.getSourceAttributeNames(algorithm));
+			}
+		}
+		// all source entities are read once, stream them so that repositories can use their bulk read path
+		try (Stream<Entity> sourceEntityStream = sourceRepo.stream(null))
+		{
+			Iterator<List<Entity>> sourceBatches = Iterators.transform(
+					Iterators.partition(sourceEntityStream.iterator(), BATCH_SIZE),
+					sourceEntities -> copySourceValues(sourceEntities, sourceAttributeNames));
+			mappingExecutor.process(sourceBatches,
+					sourceEntities -> evaluateMappings(sourceMapping, sourceEntities, targetMetaData,
+							sourceEntityMetaData),
+					targets -> targetRepo.add(convertMappedValues(sourceMapping, targets).stream()));
+		}
+	}
+
+	/**
+	 * Copies the values of the given attributes of source entities to entities that contain references as ids, so
+	 * that algorithms can be evaluated without retrieving referenced entities.
+	 */
+	private static List<Entity> copySourceValues(List<Entity> sourceEntities, Set<String> attributeNames)
+	{
+		List<Entity> copies = new ArrayList<>(sourceEntities.size());
+		for (Entity sourceEntity : sourceEntities)
+		{
+			MapEntity copy = new MapEntity();
+			for (String attributeName : attributeNames)
+			{
+				copy.set(attributeName, toIdValues(sourceEntity.get(attributeName)));
+			}
+			copies.add(copy);
+		}
+		return copies;
+	}
+
+	private static Object toIdValues(Object value)
+	{
+		if (value instanceof Entity)
+		{
+			return ((Entity) value).getIdValue();
+		}
+		if (value instanceof Iterable<?>)
+		{
+			List<Object> idValues = new ArrayList<>();
+			for (Object element : (Iterable<?>) value)
+			{
+				idValues.add(toIdValues(element));
+			}
+			return idValues;
+		}
+		return value;
+	}
+
+	/**
+	 * Evaluates the attribute mappings for source entities and returns target entities that contain the unconverted
+	 * algorithm results
+	 */
+	private List<Entity> evaluateMappings(EntityMapping sourceMapping, List<Entity> sourceEntities,
+			EntityMetaData targetMetaData, EntityMetaData sourceEntityMetaData)
+	{
+		List<Entity> targets = new ArrayList<>(sourceEntities.size());
+		for (int i = 0; i < sourceEntities.size(); ++i)
 		{
-			Entity sourceEntity = sourceEntities.next();
-			MapEntity mappedEntity = applyMappingToEntity(sourceMapping, sourceEntity, targetMetaData,
-					sourceMapping.getSourceEntityMetaData(), targetRepo);
-			mappedEntities.add(mappedEntity);
+			MapEntity target = new MapEntity(targetMetaData);
+			target.set("source", sourceMapping.getName());
+			targets.add(target);
+		}
 
-			if (mappedEntities.size() == BATCH_SIZE || !sourceEntities.hasNext())
+		for (AttributeMapping attributeMapping : sourceMapping.getAttributeMappings())
+		{
+			String targetAttributeName = attributeMapping.getTargetAttributeMetaData().getName();
+			List<Object> values = algorithmService.evaluate(attributeMapping, sourceEntities, sourceEntityMetaData);
+			for (int i = 0; i < targets.size(); ++i)
 			{
-				targetRepo.add(mappedEntities.stream());
-				mappedEntities = Lists.newArrayList();
+				targets.get(i).set(targetAttributeName, values.get(i));
 			}
 		}
+		return targets;
 	}
 
-	private MapEntity applyMappingToEntity(EntityMapping sourceMapping, Entity sourceEntity,
-			EntityMetaData targetMetaData, EntityMetaData sourceEntityMetaData, Repository targetRepository)
+	/**
+	 * Converts the algorithm results of target entities to values of the target attributes
+	 */
+	private List<Entity> convertMappedValues(EntityMapping sourceMapping, List<Entity> targets)
 	{
-		MapEntity target = new MapEntity(targetMetaData);
-		target.set("source", sourceMapping.getName());
+		for (AttributeMapping attributeMapping : sourceMapping.getAttributeMappings())
+		{
+			AttributeMetaData targetAttribute = attributeMapping.getTargetAttributeMetaData();
+			String targetAttributeName = targetAttribute.getName();
+			List<Object> values = new ArrayList<>(targets.size());
+			targets.forEach(target -> values.add(target.get(targetAttributeName)));
+
+			List<Object> convertedValues = algorithmService.convert(values, targetAttribute);
+			for (int i = 0; i < targets.size(); ++i)
+			{
+				targets.get(i).set(targetAttributeName, convertedValues.get(i));
+			}
+		}
+		return targets;
+	}
 
-		sourceMapping.getAttributeMappings().forEach(attributeMapping -> applyMappingToAttribute(attributeMapping,
-				sourceEntity, target, sourceEntityMetaData));
-		return target;
+	/**
+	 * Stops the mapping worker threads
+	 */
+	@PreDestroy
+	public void close()
+	{
+		mappingExecutor.close();
 	}
 
 	@Override
@@ -302,11 +406,4 @@ public class MappingServiceImpl implements MappingService
 		}
 		return id.toString();
 	}
-
-	private void applyMappingToAttribute(AttributeMapping attributeMapping, Entity sourceEntity, MapEntity target,
-			EntityMetaData entityMetaData)
-	{
-		target.set(attributeMapping.getTargetAttributeMetaData().getName(),
-				algorithmService.apply(attributeMapping, sourceEntity, entityMetaData));
-	}
 }
@@ -5,6 +5,8 @@ import static java.util.stream.Collectors.toList;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.molgenis.MolgenisFieldTypes.DATE;
 import static org.molgenis.MolgenisFieldTypes.INT;
@@ -20,6 +22,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -175,6 +178,102 @@ public class AlgorithmServiceImplTest extends AbstractTestNGSpringContextTests
 		assertEquals(result.get("field1"), xref2a.get("field2"));
 	}
 
+	@Test
+	public void testApplyBatchXref()
+	{
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("batchXrefEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID);
+		Entity refEntity0 = new MapEntity(refEntityMeta);
+		refEntity0.set("id", "0");
+		Entity refEntity1 = new MapEntity(refEntityMeta);
+		refEntity1.set("id", "1");
+
+		DefaultEntityMetaData entityMetaDataSource = new DefaultEntityMetaData("batchXrefSource");
+		entityMetaDataSource.addAttribute("id", ROLE_ID);
+		entityMetaDataSource.addAttribute("ref");
+		List<Entity> sources = Arrays.asList(createSource(entityMetaDataSource, "1"),
+				createSource(entityMetaDataSource, "0"), createSource(entityMetaDataSource, null),
+				createSource(entityMetaDataSource, "1"));
+
+		DefaultAttributeMetaData targetAttributeMetaData = new DefaultAttributeMetaData("xref");
+		targetAttributeMetaData.setDataType(XREF).setRefEntity(refEntityMeta);
+		AttributeMapping attributeMapping = new AttributeMapping(targetAttributeMetaData);
+		attributeMapping.setAlgorithm("$('ref').value()");
+
+		when(dataService.findAll(eq("batchXrefEntity"), argThat(new ArgumentMatcher<Stream<Object>>()
+		{
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean matches(Object argument)
+			{
+				return ((Stream<Object>) argument).collect(toList()).equals(Arrays.asList("1", "0"));
+			}
+		}))).thenReturn(Stream.of(refEntity1, refEntity0));
+
+		List<Object> result = algorithmService.apply(attributeMapping, sources, entityMetaDataSource);
+		assertEquals(result, Arrays.asList(refEntity1, refEntity0, null, refEntity1));
+		verify(dataService, times(1)).findAll(eq("batchXrefEntity"), Matchers.<Stream<Object>> any());
+	}
+
+	@Test
+	public void testApplyBatchMref()
+	{
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("batchMrefEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID);
+		Entity refEntity0 = new MapEntity(refEntityMeta);
+		refEntity0.set("id", "0");
+		Entity refEntity1 = new MapEntity(refEntityMeta);
+		refEntity1.set("id", "1");
+
+		DefaultEntityMetaData entityMetaDataSource = new DefaultEntityMetaData("batchMrefSource");
+		entityMetaDataSource.addAttribute("id", ROLE_ID);
+		entityMetaDataSource.addAttribute("ref").setDataType(MREF).setRefEntity(refEntityMeta);
+		List<Entity> sources = Arrays.asList(
+				createSource(entityMetaDataSource, Arrays.asList(refEntity1, refEntity0)),
+				createSource(entityMetaDataSource, Collections.emptyList()),
+				createSource(entityMetaDataSource, Arrays.asList(refEntity0)));
+
+		DefaultAttributeMetaData targetAttributeMetaData = new DefaultAttributeMetaData("mref");
+		targetAttributeMetaData.setDataType(MREF).setRefEntity(refEntityMeta);
+		AttributeMapping attributeMapping = new AttributeMapping(targetAttributeMetaData);
+		attributeMapping.setAlgorithm("$('ref').value()");
+
+		when(dataService.findAll(eq("batchMrefEntity"), argThat(new ArgumentMatcher<Stream<Object>>()
+		{
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean matches(Object argument)
+			{
+				return ((Stream<Object>) argument).collect(toList()).equals(Arrays.asList("1", "0"));
+			}
+		}))).thenReturn(Stream.of(refEntity0, refEntity1));
+
+		List<Object> result = algorithmService.apply(attributeMapping, sources, entityMetaDataSource);
+		assertEquals(result, Arrays.asList(Arrays.asList(refEntity1, refEntity0), null, Arrays.asList(refEntity0)));
+		verify(dataService, times(1)).findAll(eq("batchMrefEntity"), Matchers.<Stream<Object>> any());
+	}
+
+	@Test
+	public void testApplyBatchNoAlgorithm()
+	{
+		DefaultEntityMetaData entityMetaDataSource = new DefaultEntityMetaData("batchSource");
+		entityMetaDataSource.addAttribute("id", ROLE_ID);
+		entityMetaDataSource.addAttribute("ref");
+		List<Entity> sources = Arrays.asList(createSource(entityMetaDataSource, "0"),
+				createSource(entityMetaDataSource, "1"));
+
+		AttributeMapping attributeMapping = new AttributeMapping(new DefaultAttributeMetaData("target"));
+		assertEquals(algorithmService.apply(attributeMapping, sources, entityMetaDataSource),
+				Arrays.asList(null, null));
+	}
+
+	private static Entity createSource(DefaultEntityMetaData entityMetaDataSource, Object refValue)
+	{
+		Entity source = new MapEntity(entityMetaDataSource);
+		source.set("ref", refValue);
+		return source;
+	}
+
 	@Test
 	public void testApplyMref() throws ParseException
 	{
@@ -1,5 +1,7 @@
 package org.molgenis.data.mapper.service.impl;
 
+import static java.util.stream.Collectors.toList;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
@@ -7,24 +9,37 @@ import static org.mockito.Mockito.when;
 import static org.molgenis.MolgenisFieldTypes.DECIMAL;
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
 
 import org.elasticsearch.common.collect.Lists;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.auth.MolgenisUser;
 import org.molgenis.auth.MolgenisUserMetaData;
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.IdGenerator;
 import org.molgenis.data.ManageableRepositoryCollection;
 import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
 import org.molgenis.data.i18n.LanguageService;
 import org.molgenis.data.mapper.config.MappingConfig;
@@ -37,6 +52,7 @@ import org.molgenis.data.mapper.repository.impl.AttributeMappingRepositoryImpl;
 import org.molgenis.data.mapper.repository.impl.EntityMappingRepositoryImpl;
 import org.molgenis.data.mapper.repository.impl.MappingProjectRepositoryImpl;
 import org.molgenis.data.mapper.repository.impl.MappingTargetRepositoryImpl;
+import org.molgenis.data.mapper.service.AlgorithmService;
 import org.molgenis.data.mapper.service.MappingService;
 import org.molgenis.data.mem.InMemoryRepositoryCollection;
 import org.molgenis.data.meta.MetaDataService;
@@ -374,6 +390,35 @@ public class MappingServiceImplTest extends AbstractTestNGSpringContextTests
 		assertEquals(created, ImmutableSet.<Entity> of(expected1, expected2, expected3, expected4));
 	}
 
+	/**
+	 * Source entities that span multiple batches should all be mapped.
+	 */
+	@Test
+	public void testApplyMappingsMultipleBatches()
+	{
+		String entityName = "multipleBatchesEntity";
+		when(idGenerator.generateId()).thenReturn(uuidGenerator.generateId());
+
+		for (int i = 4; i <= 2500; i++)
+		{
+			MapEntity geneEntity = new MapEntity(geneMetaData);
+			geneEntity.set("id", Integer.valueOf(i).toString());
+			geneEntity.set("length", i * 2);
+			dataService.add(geneMetaData.getName(), geneEntity);
+		}
+
+		createMappingProjectWithMappings(entityName);
+
+		Repository actual = dataService.getRepository(entityName);
+		assertEquals(actual.count(), 2500);
+		for (int i = 1; i <= 2500; i++)
+		{
+			Entity mappedEntity = actual.findOne(Integer.valueOf(i).toString());
+			assertEquals(mappedEntity.getDouble("height"), new Double(i * 2));
+			assertEquals(mappedEntity.getString("source"), "Gene");
+		}
+	}
+
 	/**
 	 * Applying a mapping multiple times to the same target should update the existing entities.
 	 */
@@ -502,6 +547,102 @@ public class MappingServiceImplTest extends AbstractTestNGSpringContextTests
 		return mappingProject;
 	}
 
+	/**
+	 * Algorithms are evaluated on worker threads, referenced entities are retrieved on the calling thread because
+	 * worker threads do not run in its transaction.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testApplyMappingsConvertsOnCallingThread()
+	{
+		DataService dataService = mock(DataService.class);
+		MetaDataService metaDataService = mock(MetaDataService.class);
+		when(dataService.getMeta()).thenReturn(metaDataService);
+
+		DefaultEntityMetaData targetMetaData = new DefaultEntityMetaData("threadEntity", hopMetaData);
+		targetMetaData.addAttribute("source");
+		Repository targetRepo = mock(Repository.class);
+		when(targetRepo.getName()).thenReturn("threadEntity");
+		when(targetRepo.getEntityMetaData()).thenReturn(targetMetaData);
+		when(targetRepo.findAll(any(Query.class))).thenReturn(Stream.empty());
+		when(metaDataService.addEntityMeta(any(EntityMetaData.class))).thenReturn(targetRepo);
+		List<Entity> addedEntities = new ArrayList<>();
+		when(targetRepo.add(Matchers.<Stream<Entity>> any())).thenAnswer(new Answer<Integer>()
+		{
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws Throwable
+			{
+				addedEntities.addAll(((Stream<Entity>) invocation.getArguments()[0]).collect(toList()));
+				return 0;
+			}
+		});
+
+		List<Entity> geneEntities = new ArrayList<>();
+		for (int i = 1; i <= 2500; i++)
+		{
+			MapEntity geneEntity = new MapEntity(geneMetaData);
+			geneEntity.set("id", Integer.valueOf(i).toString());
+			geneEntity.set("length", new Double(i * 2));
+			geneEntities.add(geneEntity);
+		}
+		Repository sourceRepo = mock(Repository.class);
+		when(sourceRepo.getName()).thenReturn("Gene");
+		when(sourceRepo.stream(null)).thenReturn(geneEntities.stream());
+		when(dataService.getRepository("Gene")).thenReturn(sourceRepo);
+
+		Set<String> evaluateThreadNames = Collections.synchronizedSet(new HashSet<>());
+		Set<String> convertThreadNames = Collections.synchronizedSet(new HashSet<>());
+		AlgorithmService algorithmService = mock(AlgorithmService.class);
+		when(algorithmService.getSourceAttributeNames("$('length').value()")).thenReturn(
+				Collections.singletonList("length"));
+		when(algorithmService.evaluate(any(AttributeMapping.class), Matchers.<List<Entity>> any(),
+				any(EntityMetaData.class))).thenAnswer(new Answer<List<Object>>()
+		{
+			@Override
+			public List<Object> answer(InvocationOnMock invocation) throws Throwable
+			{
+				evaluateThreadNames.add(Thread.currentThread().getName());
+				return ((List<Entity>) invocation.getArguments()[1]).stream().map(entity -> entity.get("length"))
+						.collect(toList());
+			}
+		});
+		when(algorithmService.convert(Matchers.<List<Object>> any(), any(AttributeMetaData.class))).thenAnswer(
+				new Answer<List<Object>>()
+				{
+					@Override
+					public List<Object> answer(InvocationOnMock invocation) throws Throwable
+					{
+						convertThreadNames.add(Thread.currentThread().getName());
+						return (List<Object>) invocation.getArguments()[0];
+					}
+				});
+
+		MappingTarget target = new MappingTarget(hopMetaData);
+		EntityMapping mapping = target.addSource(geneMetaData);
+		mapping.addAttributeMapping("height").setAlgorithm("$('length').value()");
+
+		MappingServiceImpl mappingServiceImpl = new MappingServiceImpl(dataService, algorithmService, idGenerator,
+				mappingProjectRepository, permissionSystemService);
+		try
+		{
+			mappingServiceImpl.applyMappings(target, "threadEntity");
+		}
+		finally
+		{
+			mappingServiceImpl.close();
+		}
+
+		assertEquals(convertThreadNames, Collections.singleton(Thread.currentThread().getName()));
+		assertFalse(evaluateThreadNames.isEmpty());
+		evaluateThreadNames.forEach(threadName -> assertTrue(threadName.startsWith("mapping-service-")));
+		assertEquals(addedEntities.size(), 2500);
+		for (int i = 0; i < 2500; i++)
+		{
+			assertEquals(addedEntities.get(i).getDouble("height"), new Double((i + 1) * 2));
+			assertEquals(addedEntities.get(i).getString("source"), "Gene");
+		}
+	}
+
 	@Test
 	public void testNumericId()
 	{
@@ -1,36 +1,50 @@
 package org.molgenis.data.mysql;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.molgenis.data.AttributeMetaData;
-import org.molgenis.data.DataConverter;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
-import org.molgenis.data.support.DefaultEntity;
-import org.molgenis.fieldtypes.IntField;
+import org.molgenis.data.support.ArrayEntity;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.fieldtypes.FieldType;
 import org.molgenis.fieldtypes.MrefField;
 import org.molgenis.fieldtypes.XrefField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+
 @Component
 public class MySqlEntityFactory
 {
 	private static final Logger LOG = LoggerFactory.getLogger(MySqlEntityFactory.class);
 
+	private static final int MAX_ENTITY_MAPPINGS = 1000;
+
 	private final EntityManager entityManager;
 	private final DataService dataService;
+	private final Cache<EntityMappingKey, EntityMapping> entityMappingCache = CacheBuilder.newBuilder()
+			.maximumSize(MAX_ENTITY_MAPPINGS).build();
 
 	@Autowired
 	public MySqlEntityFactory(EntityManager entityManager, DataService dataService)
@@ -39,117 +53,306 @@ public class MySqlEntityFactory
 		this.dataService = requireNonNull(dataService);
 	}
 
-	public RowMapper<Entity> createRowMapper(EntityMetaData entityMeta, Fetch fetch, JdbcTemplate jdbcTemplate,
+	/**
+	 * Creates a row mapper for one result set. For {@link DefaultEntityMetaData} the mapping from columns to attributes
+	 * is created once per entity meta data instance, modification count and fetched fields and is reused by subsequent
+	 * row mappers.
+	 * 
+	 * @param entityMeta
+	 *            entity meta data
+	 * @param fetch
+	 *            fetch, can be null
+	 * @return row mapper that creates entities, entities are wrapped in a partial entity if the fetch does not contain
+	 *         all attributes
+	 */
+	public RowMapper<Entity> createRowMapper(EntityMetaData entityMeta, Fetch fetch)
+	{
+		EntityMapping entityMapping;
+		if (entityMeta instanceof DefaultEntityMetaData)
+		{
+			DefaultEntityMetaData defaultEntityMeta = (DefaultEntityMetaData) entityMeta;
+			int modificationCount = defaultEntityMeta.getModificationCount();
+			Set<String> fetchFields = fetch != null ? fetch.getFields() : null;
+			entityMapping = entityMappingCache
+					.getIfPresent(new EntityMappingKey(defaultEntityMeta, modificationCount, fetchFields));
+			if (entityMapping == null)
+			{
+				entityMapping = new EntityMapping(entityMeta, fetch);
+				// copy the fetch fields, the fetch might be modified after this call
+				entityMappingCache.put(new EntityMappingKey(defaultEntityMeta, modificationCount,
+						fetchFields != null ? ImmutableSet.copyOf(fetchFields) : null), entityMapping);
+			}
+		}
+		else
+		{
+			// modifications of other entity meta data implementations can't be detected
+			entityMapping = new EntityMapping(entityMeta, fetch);
+		}
+		return new EntityMapper(entityMapping, entityMeta, fetch);
+	}
+
+	/**
+	 * Sets the mref values of a batch of entities created by a row mapper. The values of each mref attribute are
+	 * retrieved for all entities in the batch with one query on the mref table.
+	 * 
+	 * @param entities
+	 *            entities created by a row mapper of this factory
+	 * @param entityMeta
+	 *            entity meta data
+	 * @param fetch
+	 *            fetch that was used to create the row mapper, can be null
+	 * @param jdbcTemplate
+	 *            the jdbcTemplate to query the mref tables with
+	 * @param tableName
+	 *            name of the entity table
+	 */
+	public void loadMrefs(List<Entity> entities, EntityMetaData entityMeta, Fetch fetch, JdbcTemplate jdbcTemplate,
 			String tableName)
 	{
-		return new EntityMapper(entityMeta, fetch, jdbcTemplate, tableName);
+		if (entities.isEmpty())
+		{
+			return;
+		}
+
+		AttributeMetaData idAttr = entityMeta.getIdAttribute();
+		List<Object> ids = null;
+		for (AttributeMetaData attr : entityMeta.getAtomicAttributes())
+		{
+			if (!(attr.getDataType() instanceof MrefField) || attr.getExpression() != null)
+			{
+				continue;
+			}
+			if (fetch != null && !fetch.hasField(attr.getName()))
+			{
+				continue;
+			}
+
+			// lazy creation
+			if (ids == null)
+			{
+				ids = entities.stream().map(Entity::getIdValue).collect(toList());
+			}
+
+			String mrefSelectSql = getMrefSelectSql(idAttr, attr, tableName, ids.size());
+			if (LOG.isDebugEnabled())
+			{
+				LOG.debug("Fetching MySQL [{}] data for SQL [{}]", attr.getRefEntity().getName(), mrefSelectSql);
+			}
+
+			// entity id --> referenced entity ids ordered by mref order
+			Map<Object, List<Object>> mrefIdsMap = new HashMap<>();
+			AttributeMetaData refIdAttr = attr.getRefEntity().getIdAttribute();
+			jdbcTemplate.query(mrefSelectSql, ids.toArray(), (RowCallbackHandler) resultSet -> {
+				Object id = idAttr.getDataType().convert(resultSet.getObject(1));
+				Object mrefId = refIdAttr.getDataType().convert(resultSet.getObject(2));
+				mrefIdsMap.computeIfAbsent(id, key -> new ArrayList<>()).add(mrefId);
+			});
+
+			for (Entity entity : entities)
+			{
+				List<Object> mrefIds = mrefIdsMap.get(entity.getIdValue());
+				if (mrefIds != null)
+				{
+					// convert ids to (lazy) entities
+					entity.set(attr.getName(), entityManager.getReferences(attr.getRefEntity(), mrefIds));
+				}
+			}
+		}
+	}
+
+	private String getMrefSelectSql(AttributeMetaData idAttr, AttributeMetaData mrefAttr, String tableName,
+			int nrIds)
+	{
+		StringBuilder sql = new StringBuilder("SELECT `").append(idAttr.getName()).append("`, `")
+				.append(mrefAttr.getName()).append("` FROM `").append(tableName).append('_')
+				.append(mrefAttr.getName()).append("` WHERE `").append(idAttr.getName()).append("` IN (");
+		for (int i = 0; i < nrIds; ++i)
+		{
+			if (i > 0) sql.append(',');
+			sql.append('?');
+		}
+		return sql.append(") ORDER BY `order`").toString();
 	}
 
+	/**
+	 * Column plan that describes how to map the rows of a result set to entities for a (entity meta data, fetch) pair.
+	 * The plan does not refer to entity meta data or fetch instances, these are provided by the row mapper.
+	 */
+	private static class EntityMapping
+	{
+		/**
+		 * names of the columns to read
+		 */
+		private final String[] columnNames;
+		/**
+		 * column --> index of the attribute in the atomic attributes of the entity
+		 */
+		private final int[] attrIdxs;
+		/**
+		 * column --> data type used to convert the column value
+		 */
+		private final FieldType[] dataTypes;
+		/**
+		 * column --> whether the column contains a reference
+		 */
+		private final boolean[] references;
+		/**
+		 * whether entities only contain data for a subset of the attributes
+		 */
+		private final boolean partial;
+
+		private EntityMapping(EntityMetaData entityMeta, Fetch fetch)
+		{
+			List<String> columnNameList = new ArrayList<>();
+			List<Integer> attrIdxList = new ArrayList<>();
+			List<FieldType> dataTypeList = new ArrayList<>();
+			List<Boolean> referenceList = new ArrayList<>();
+			boolean partial = false;
+
+			AttributeMetaData idAttr = entityMeta.getIdAttribute();
+			int attrIdx = 0;
+			for (AttributeMetaData attr : entityMeta.getAtomicAttributes())
+			{
+				// the id is always selected, it is required to retrieve mref values
+				if (fetch == null || fetch.hasField(attr.getName()) || attr.equals(idAttr))
+				{
+					// mref values are set per batch, see loadMrefs
+					if (attr.getExpression() == null && !(attr.getDataType() instanceof MrefField))
+					{
+						columnNameList.add(attr.getName());
+						attrIdxList.add(attrIdx);
+						if (attr.getDataType() instanceof XrefField)
+						{
+							dataTypeList.add(attr.getRefEntity().getIdAttribute().getDataType());
+							referenceList.add(true);
+						}
+						else
+						{
+							dataTypeList.add(attr.getDataType());
+							referenceList.add(false);
+						}
+					}
+				}
+				else
+				{
+					partial = true;
+				}
+				++attrIdx;
+			}
+
+			this.columnNames = columnNameList.toArray(new String[columnNameList.size()]);
+			this.attrIdxs = attrIdxList.stream().mapToInt(Integer::intValue).toArray();
+			this.dataTypes = dataTypeList.toArray(new FieldType[dataTypeList.size()]);
+			this.references = new boolean[referenceList.size()];
+			for (int i = 0; i < references.length; ++i)
+			{
+				references[i] = referenceList.get(i);
+			}
+			this.partial = partial;
+		}
+	}
+
+	/**
+	 * Cache key for entity mappings. Entity meta data is compared by identity and modification count, the fetch by its
+	 * top-level fields.
+	 */
+	private static class EntityMappingKey
+	{
+		private final DefaultEntityMetaData entityMeta;
+		private final int modificationCount;
+		private final Set<String> fetchFields;
+
+		private EntityMappingKey(DefaultEntityMetaData entityMeta, int modificationCount, Set<String> fetchFields)
+		{
+			this.entityMeta = requireNonNull(entityMeta);
+			this.modificationCount = modificationCount;
+			this.fetchFields = fetchFields; // can be null
+		}
+
+		@Override
+		public int hashCode()
+		{
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + System.identityHashCode(entityMeta);
+			result = prime * result + modificationCount;
+			result = prime * result + ((fetchFields == null) ? 0 : fetchFields.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj) return true;
+			if (obj == null) return false;
+			if (getClass() != obj.getClass()) return false;
+			EntityMappingKey other = (EntityMappingKey) obj;
+			if (entityMeta != other.entityMeta) return false;
+			if (modificationCount != other.modificationCount) return false;
+			if (fetchFields == null)
+			{
+				if (other.fetchFields != null) return false;
+			}
+			else if (!fetchFields.equals(other.fetchFields)) return false;
+			return true;
+		}
+	}
+
+	/**
+	 * Maps rows of one result set using a cached entity mapping. Column indices are resolved on the first row.
+	 */
 	private class EntityMapper implements RowMapper<Entity>
 	{
-		private static final int GROUP_CONCAT_MAX_LEN = 1024;
-		private final EntityMetaData entityMetaData;
+		private final EntityMapping entityMapping;
+		private final EntityMetaData entityMeta;
 		private final Fetch fetch;
-		private final JdbcTemplate jdbcTemplate;
-		private final String tableName;
+		/**
+		 * column --> referenced entity meta data if the column contains a reference, null otherwise
+		 */
+		private final EntityMetaData[] refEntityMetas;
+		private int[] columnIdxs;
 
-		private EntityMapper(EntityMetaData entityMetaData, Fetch fetch, JdbcTemplate jdbcTemplate, String tableName)
+		private EntityMapper(EntityMapping entityMapping, EntityMetaData entityMeta, Fetch fetch)
 		{
-			this.entityMetaData = requireNonNull(entityMetaData);
+			this.entityMapping = requireNonNull(entityMapping);
+			this.entityMeta = requireNonNull(entityMeta);
 			this.fetch = fetch; // can be null
-			this.jdbcTemplate = requireNonNull(jdbcTemplate);
-			this.tableName = requireNonNull(tableName);
+
+			this.refEntityMetas = new EntityMetaData[entityMapping.columnNames.length];
+			for (int j = 0; j < refEntityMetas.length; ++j)
+			{
+				if (entityMapping.references[j])
+				{
+					refEntityMetas[j] = entityMeta.getAttribute(entityMapping.columnNames[j]).getRefEntity();
+				}
+			}
 		}
 
 		@Override
 		public Entity mapRow(ResultSet resultSet, int i) throws SQLException
 		{
-			Entity e = new DefaultEntity(entityMetaData, dataService);
-
-			// TODO performance, iterate over fetch if available
-			for (AttributeMetaData att : entityMetaData.getAtomicAttributes())
+			if (columnIdxs == null)
 			{
-				if (fetch == null || fetch.hasField(att.getName()))
+				columnIdxs = new int[entityMapping.columnNames.length];
+				for (int j = 0; j < columnIdxs.length; ++j)
 				{
-					if (att.getExpression() != null)
-					{
-						continue;
-					}
-
-					if (att.getDataType() instanceof MrefField)
-					{
-						EntityMetaData refEntityMeta = att.getRefEntity();
-						String mrefIds = resultSet.getString(att.getName());
-						if (mrefIds != null)
-						{
-							Iterable<Entity> mrefEntities;
-							if (refEntityMeta.getIdAttribute().getDataType() instanceof IntField)
-							{
-								List<Integer> mrefIntegerIds;
-								if (mrefIds.length() >= GROUP_CONCAT_MAX_LEN)
-								{
-									// this list is just as long as it's allowed to be so it probably got truncated.
-									// Retrieve the IDs explicitly in a separate query.
-									String mrefSelectSql = getMrefSelectSql(e, att);
-									if (LOG.isDebugEnabled())
-									{
-										LOG.debug("Fetching MySQL [{}] data for SQL [{}]", refEntityMeta.getName(),
-												mrefSelectSql);
-									}
-									mrefIntegerIds = jdbcTemplate.queryForList(mrefSelectSql, Integer.class);
-								}
-								else
-								{
-									mrefIntegerIds = DataConverter.toIntList(mrefIds);
-								}
-
-								// convert ids to (lazy) entities
-								mrefEntities = entityManager.getReferences(refEntityMeta, mrefIntegerIds);
-
-							}
-							else
-							{
-								List<Object> mrefObjectIds;
-								if (mrefIds.length() >= GROUP_CONCAT_MAX_LEN)
-								{
-									// this list is just as long as it's allowed to be so it probably got truncated.
-									// Retrieve the IDs explicitly in a separate query.
-									String mrefSelectSql = getMrefSelectSql(e, att);
-									if (LOG.isDebugEnabled())
-									{
-										LOG.debug("Fetching MySQL [{}] data for SQL [{}]", refEntityMeta.getName(),
-												mrefSelectSql);
-									}
-									mrefObjectIds = jdbcTemplate.queryForList(mrefSelectSql, Object.class);
-								}
-								else
-								{
-									mrefObjectIds = DataConverter.toObjectList(mrefIds);
-								}
-
-								// convert ids to (lazy) entities
-								mrefEntities = entityManager.getReferences(refEntityMeta, mrefObjectIds);
-							}
-							e.set(att.getName(), mrefEntities);
-						}
-					}
-					else if (att.getDataType() instanceof XrefField)
-					{
-						EntityMetaData refEntityMeta = att.getRefEntity();
-						Object xrefId = refEntityMeta.getIdAttribute().getDataType()
-								.convert(resultSet.getObject(att.getName()));
+					columnIdxs[j] = resultSet.findColumn(entityMapping.columnNames[j]);
+				}
+			}
 
-						Entity xrefEntity = xrefId != null ? entityManager.getReference(refEntityMeta, xrefId) : null;
-						e.set(att.getName(), xrefEntity);
-					}
-					else
-					{
-						e.set(att.getName(), att.getDataType().convert(resultSet.getObject(att.getName())));
-					}
+			ArrayEntity e = new ArrayEntity(entityMeta, dataService);
+			for (int j = 0; j < columnIdxs.length; ++j)
+			{
+				Object value = entityMapping.dataTypes[j].convert(resultSet.getObject(columnIdxs[j]));
+				EntityMetaData refEntityMeta = refEntityMetas[j];
+				if (refEntityMeta != null && value != null)
+				{
+					value = entityManager.getReference(refEntityMeta, value);
 				}
+				e.set(entityMapping.attrIdxs[j], value);
 			}
 
-			if (fetch != null)
+			if (entityMapping.partial)
 			{
 				return entityManager.createEntityForPartialEntity(e, fetch);
 			}
@@ -158,12 +361,5 @@ public class MySqlEntityFactory
 				return e;
 			}
 		}
-
-		private String getMrefSelectSql(Entity e, AttributeMetaData att)
-		{
-			return String.format("SELECT `%s` FROM `%s_%1$s` WHERE `%s` = '%s' ORDER BY `order`", att.getName(),
-					tableName, entityMetaData.getIdAttribute().getName().toLowerCase(),
-					e.get(entityMetaData.getIdAttribute().getName()));
-		}
 	}
 }
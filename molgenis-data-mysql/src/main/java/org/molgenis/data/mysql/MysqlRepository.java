@@ -14,6 +14,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -61,6 +63,7 @@ import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -69,6 +72,14 @@ public class MysqlRepository extends AbstractRepository
 {
 	private static final Logger LOG = LoggerFactory.getLogger(MysqlRepository.class);
 	public static final int BATCH_SIZE = 1000;
+	/**
+	 * Column alias prefix of the sort key columns that are selected when keyset paging
+	 */
+	private static final String KEY_COLUMN_PREFIX = "__key";
+	/**
+	 * Column alias prefix of the sort columns that are selected when selecting distinct rows
+	 */
+	private static final String SORT_COLUMN_PREFIX = "__sort";
 	private EntityMetaData metaData;
 	private final JdbcTemplate jdbcTemplate;
 	private final AsyncJdbcTemplate asyncJdbcTemplate;
@@ -521,8 +532,7 @@ public class MysqlRepository extends AbstractRepository
 				}
 			}
 			// not null
-			if (!att.isNillable() && !EntityUtils.doesExtend(metaData, "Questionnaire")
-					&& (att.getVisibleExpression() == null))
+			if (isNotNullColumn(att))
 			{
 				sql.append(" NOT NULL");
 			}
@@ -534,6 +544,12 @@ public class MysqlRepository extends AbstractRepository
 		}
 	}
 
+	private boolean isNotNullColumn(AttributeMetaData att)
+	{
+		return !att.isNillable() && !EntityUtils.doesExtend(metaData, "Questionnaire")
+				&& (att.getVisibleExpression() == null);
+	}
+
 	public String getAlterSql(AttributeMetaData attributeMetaData) throws MolgenisModelException
 	{
 		StringBuilder sql = new StringBuilder();
@@ -568,7 +584,7 @@ public class MysqlRepository extends AbstractRepository
 	public Iterator<Entity> iterator()
 	{
 		Query q = new QueryImpl();
-		return findAllBatching(q).iterator();
+		return findAllInternal(q).iterator();
 	}
 
 	@Override
@@ -579,7 +595,7 @@ public class MysqlRepository extends AbstractRepository
 		{
 			q.fetch(fetch);
 		}
-		return StreamSupport.stream(findAllBatching(q).spliterator(), false);
+		return StreamSupport.stream(findAllInternal(q).spliterator(), false);
 	}
 
 	protected String getInsertSql()
@@ -697,48 +713,88 @@ public class MysqlRepository extends AbstractRepository
 	}
 
 	protected String getSelectSql(Query q, List<Object> parameters)
+	{
+		return getSelectSql(q, parameters, null, null);
+	}
+
+	/**
+	 * Returns the select SQL for the given query
+	 * 
+	 * @param q
+	 *            the query
+	 * @param parameters
+	 *            list to which the SQL parameters are added
+	 * @param keyAttrs
+	 *            keyset sort attributes to select as additional key columns, or null if the query is not keyset paged
+	 * @param keyValues
+	 *            key column values of the last row of the previous batch, or null for the first batch
+	 * @return the select SQL
+	 */
+	private String getSelectSql(Query q, List<Object> parameters, List<AttributeMetaData> keyAttrs,
+			Object[] keyValues)
 	{
 		StringBuilder select = new StringBuilder("SELECT ");
-		StringBuilder group = new StringBuilder();
+
+		// mref filter joins return a row for each matching mref value
+		List<String> mrefQueryFields = Lists.newArrayList();
+		getMrefQueryFields(q.getRules(), mrefQueryFields);
+		boolean distinct = !mrefQueryFields.isEmpty();
+		if (distinct) select.append("DISTINCT ");
+
 		int count = 0;
 		AttributeMetaData idAttribute = getEntityMetaData().getIdAttribute();
 		for (AttributeMetaData att : getEntityMetaData().getAtomicAttributes())
 		{
-			if (q.getFetch() == null || q.getFetch().hasField(att.getName()))
+			// mref values are retrieved per batch from the mref tables, the id is required to do so
+			if (q.getFetch() == null || q.getFetch().hasField(att.getName()) || att.equals(idAttribute))
 			{
-				if (att.getExpression() == null)
+				if (att.getExpression() == null && !(att.getDataType() instanceof MrefField))
 				{
 					if (count > 0) select.append(", ");
-
-					// TODO needed when autoids are used to join
-					if (att.getDataType() instanceof MrefField)
-					{
-						select.append(MessageFormat
-								.format("(SELECT GROUP_CONCAT(DISTINCT(`{0}`.`{0}`) ORDER BY `{0}`.`order`) "
-												+ "FROM `{1}_{0}` AS `{0}` "
-												+ "WHERE (this.`{2}` = `{0}`.`{2}`) ) AS `{0}`", att.getName(),
-										getTableName(), idAttribute.getName()));
-					}
-					else
-					{
-						select.append("this.").append('`').append(att.getName()).append('`');
-						if (group.length() > 0) group.append(", this.").append('`').append(att.getName()).append('`');
-						else group.append("this.").append('`').append(att.getName()).append('`');
-					}
+					select.append("this.").append('`').append(att.getName()).append('`');
 					count++;
 				}
 			}
 		}
 
+		// key columns
+		if (keyAttrs != null)
+		{
+			for (int i = 0; i < keyAttrs.size(); ++i)
+			{
+				if (count > 0) select.append(", ");
+				select.append("this.").append('`').append(keyAttrs.get(i).getName()).append('`').append(" AS ")
+						.append('`').append(KEY_COLUMN_PREFIX).append(i).append('`');
+				count++;
+			}
+		}
+
+		// sort columns, distinct rows can only be ordered by selected columns
+		if (distinct && q.getSort() != null)
+		{
+			int i = 0;
+			for (Sort.Order o : q.getSort())
+			{
+				if (count > 0) select.append(", ");
+				select.append(getSortColumnSql(getEntityMetaData().getAttribute(o.getAttr()))).append(" AS ")
+						.append('`').append(SORT_COLUMN_PREFIX).append(i++).append('`');
+				count++;
+			}
+		}
+
 		// from
 		StringBuilder result = new StringBuilder().append(select).append(getFromSql(q));
 		// where
 		String where = getWhereSql(q, parameters, 0);
+		if (keyValues != null)
+		{
+			String keysetWhere = getKeysetWhereSql(q.getSort(), keyAttrs, keyValues, parameters);
+			where = where.length() > 0 ? new StringBuilder("(").append(where).append(") AND ").append(keysetWhere)
+					.toString() : keysetWhere;
+		}
 		if (where.length() > 0) result.append(" WHERE ").append(where);
-		// group by
-		if (select.indexOf("GROUP_CONCAT") != -1 && group.length() > 0) result.append(" GROUP BY ").append(group);
 		// order by
-		result.append(' ').append(getSortSql(q));
+		result.append(' ').append(getSortSql(q, distinct));
 		// limit
 		if (q.getPageSize() > 0) result.append(" LIMIT ").append(q.getPageSize());
 		if (q.getOffset() > 0) result.append(" OFFSET ").append(q.getOffset());
@@ -746,10 +802,168 @@ public class MysqlRepository extends AbstractRepository
 		return result.toString().trim();
 	}
 
+	/**
+	 * Returns the where SQL that selects the rows that come after the last row of the previous batch in keyset sort
+	 * order: (k0 > ?) OR (k0 = ? AND k1 > ?) OR ... for ascending orders, with '<' for descending orders.
+	 */
+	private String getKeysetWhereSql(Sort keysetSort, List<AttributeMetaData> keyAttrs, Object[] keyValues,
+			List<Object> parameters)
+	{
+		StringBuilder sql = new StringBuilder("(");
+		int i = 0;
+		for (Sort.Order o : keysetSort)
+		{
+			if (i > 0) sql.append(" OR ");
+			sql.append('(');
+			for (int j = 0; j < i; ++j)
+			{
+				sql.append("this.").append('`').append(keyAttrs.get(j).getName()).append('`').append(" = ? AND ");
+				parameters.add(keyValues[j]);
+			}
+			sql.append("this.").append('`').append(keyAttrs.get(i).getName()).append('`');
+			sql.append(o.getDirection() == Sort.Direction.DESC ? " < ?" : " > ?");
+			parameters.add(keyValues[i]);
+			sql.append(')');
+			++i;
+		}
+		return sql.append(')').toString();
+	}
+
 	@Override
 	public Stream<Entity> findAll(Query q)
 	{
-		return StreamSupport.stream(findAllBatching(q).spliterator(), false);
+		return StreamSupport.stream(findAllInternal(q).spliterator(), false);
+	}
+
+	private Iterable<Entity> findAllInternal(Query q)
+	{
+		Sort keysetSort = getKeysetSort(q);
+		return keysetSort != null ? findAllKeyset(q, keysetSort) : findAllBatching(q);
+	}
+
+	/**
+	 * Returns the sort to use for keyset paging of the given query: the query sort followed by the id attribute.
+	 * 
+	 * @param q
+	 *            the query
+	 * @return keyset sort or null if the query can only be paged using offsets
+	 */
+	private Sort getKeysetSort(Query q)
+	{
+		// an explicit offset is requested for interactive paging, keep using offsets
+		if (q.getOffset() > 0)
+		{
+			return null;
+		}
+
+		// mref filter joins can return the same row multiple times
+		List<String> mrefQueryFields = Lists.newArrayList();
+		getMrefQueryFields(q.getRules(), mrefQueryFields);
+		if (!mrefQueryFields.isEmpty())
+		{
+			return null;
+		}
+
+		String idAttrName = getEntityMetaData().getIdAttribute().getName();
+		Sort keysetSort = new Sort();
+		if (q.getSort() != null)
+		{
+			for (Sort.Order o : q.getSort())
+			{
+				// NULL values cannot be compared in the keyset where clause
+				AttributeMetaData attr = getEntityMetaData().getAttribute(o.getAttr());
+				if (attr == null || attr.getExpression() != null || attr.getDataType() instanceof MrefField
+						|| !isNotNullColumn(attr))
+				{
+					return null;
+				}
+
+				keysetSort.on(attr.getName(), o.getDirection());
+				if (attr.getName().equals(idAttrName))
+				{
+					// id is unique, remaining orders have no effect
+					return keysetSort;
+				}
+			}
+		}
+		return keysetSort.on(idAttrName);
+	}
+
+	/**
+	 * Keyset (seek) paging: each batch continues after the sort key of the last row of the previous batch instead of
+	 * skipping the previous rows with an OFFSET, so that iterating over a whole table takes linear time.
+	 */
+	private Iterable<Entity> findAllKeyset(Query q, Sort keysetSort)
+	{
+		List<AttributeMetaData> keyAttrs = new ArrayList<>();
+		keysetSort.forEach(o -> keyAttrs.add(getEntityMetaData().getAttribute(o.getAttr())));
+		final int limit = q.getPageSize();
+
+		return () -> new AbstractIterator<Entity>()
+		{
+			private Iterator<Entity> batchIt = Collections.emptyIterator();
+			private Object[] keyValues;
+			private int count;
+			private boolean lastBatch;
+
+			@Override
+			protected Entity computeNext()
+			{
+				if (!batchIt.hasNext())
+				{
+					if (lastBatch)
+					{
+						return endOfData();
+					}
+
+					int batchSize = limit > 0 ? Math.min(BATCH_SIZE, limit - count) : BATCH_SIZE;
+					Object[] lastKeyValues = new Object[keyAttrs.size()];
+					List<Entity> batch = getKeysetBatch(q, keysetSort, keyAttrs, keyValues, batchSize, lastKeyValues);
+					count += batch.size();
+					lastBatch = batch.size() < batchSize || (limit > 0 && count == limit);
+					if (batch.isEmpty())
+					{
+						return endOfData();
+					}
+					keyValues = lastKeyValues;
+					batchIt = batch.iterator();
+				}
+				return batchIt.next();
+			}
+		};
+	}
+
+	private List<Entity> getKeysetBatch(Query q, Sort keysetSort, List<AttributeMetaData> keyAttrs,
+			Object[] keyValues, int batchSize, Object[] lastKeyValues)
+	{
+		Query batchQuery = new QueryImpl(q).setPageSize(batchSize).sort(keysetSort);
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Fetching MySQL [{}] data for query [{}] after key {}", getName(), batchQuery,
+					keyValues != null ? Arrays.toString(keyValues) : "[]");
+		}
+
+		List<Object> parameters = Lists.newArrayList();
+		String sql = getSelectSql(batchQuery, parameters, keyAttrs, keyValues);
+		if (LOG.isTraceEnabled())
+		{
+			LOG.trace("sql: {}, parameters: {}", sql, parameters);
+		}
+
+		RowMapper<Entity> entityMapper = mySqlEntityFactory.createRowMapper(getEntityMetaData(),
+				batchQuery.getFetch());
+		RowMapper<Entity> keysetEntityMapper = (resultSet, rowNum) -> {
+			// remember key column values, after the last row these are the values to continue from
+			for (int i = 0; i < lastKeyValues.length; ++i)
+			{
+				lastKeyValues[i] = resultSet.getObject(KEY_COLUMN_PREFIX + i);
+			}
+			return entityMapper.mapRow(resultSet, rowNum);
+		};
+		List<Entity> entities = jdbcTemplate.query(sql, parameters.toArray(new Object[0]), keysetEntityMapper);
+		mySqlEntityFactory.loadMrefs(entities, getEntityMetaData(), batchQuery.getFetch(), jdbcTemplate,
+				getTableName());
+		return entities;
 	}
 
 	private BatchingQueryResult findAllBatching(Query q)
@@ -772,8 +986,11 @@ public class MysqlRepository extends AbstractRepository
 				}
 
 				RowMapper<Entity> entityMapper = mySqlEntityFactory.createRowMapper(getEntityMetaData(),
-						batchQuery.getFetch(), jdbcTemplate, getTableName());
-				return jdbcTemplate.query(sql, parameters.toArray(new Object[0]), entityMapper);
+						batchQuery.getFetch());
+				List<Entity> entities = jdbcTemplate.query(sql, parameters.toArray(new Object[0]), entityMapper);
+				mySqlEntityFactory.loadMrefs(entities, getEntityMetaData(), batchQuery.getFetch(), jdbcTemplate,
+						getTableName());
+				return entities;
 			}
 		};
 		return batchingQueryResult;
@@ -957,15 +1174,40 @@ public class MysqlRepository extends AbstractRepository
 	}
 
 	protected String getSortSql(Query q)
+	{
+		return getSortSql(q, false);
+	}
+
+	/**
+	 * Returns the order by SQL for the given query
+	 * 
+	 * @param q
+	 *            the query
+	 * @param sortColumnsSelected
+	 *            whether to order by the sort columns that are selected with the sort column alias
+	 * @return the order by SQL
+	 */
+	private String getSortSql(Query q, boolean sortColumnsSelected)
 	{
 		StringBuilder sortSql = new StringBuilder();
 		if (q.getSort() != null)
 		{
+			int i = 0;
 			for (Sort.Order o : q.getSort())
 			{
-				AttributeMetaData att = getEntityMetaData().getAttribute(o.getAttr());
-				if (att.getDataType() instanceof MrefField) sortSql.append(", ").append(att.getName());
-				else sortSql.append(", ").append('`').append(att.getName()).append('`');
+				if (sortColumnsSelected)
+				{
+					sortSql.append(", ").append('`').append(SORT_COLUMN_PREFIX).append(i++).append('`');
+				}
+				else
+				{
+					AttributeMetaData att = getEntityMetaData().getAttribute(o.getAttr());
+					if (att.getDataType() instanceof MrefField)
+					{
+						sortSql.append(", ").append(getSortColumnSql(att));
+					}
+					else sortSql.append(", ").append('`').append(att.getName()).append('`');
+				}
 				if (o.getDirection().equals(Sort.Direction.DESC))
 				{
 					sortSql.append(" DESC");
@@ -981,6 +1223,22 @@ public class MysqlRepository extends AbstractRepository
 		return sortSql.toString();
 	}
 
+	/**
+	 * Returns the SQL expression of the values to sort on for the given attribute
+	 */
+	private String getSortColumnSql(AttributeMetaData att)
+	{
+		if (att.getDataType() instanceof MrefField)
+		{
+			// mref values are not selected, sort on the ordered list of mref values
+			return MessageFormat.format(
+					"(SELECT GROUP_CONCAT(`{0}`.`{0}` ORDER BY `{0}`.`order`) FROM `{1}_{0}` AS `{0}` "
+							+ "WHERE this.`{2}` = `{0}`.`{2}`)",
+					att.getName(), getTableName(), getEntityMetaData().getIdAttribute().getName());
+		}
+		return new StringBuilder("this.").append('`').append(att.getName()).append('`').toString();
+	}
+
 	protected String getUpdateSql()
 	{
 		// use (readonly) identifier
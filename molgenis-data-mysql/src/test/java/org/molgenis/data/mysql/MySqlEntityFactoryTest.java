@@ -0,0 +1,154 @@
+package org.molgenis.data.mysql;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.MolgenisFieldTypes.INT;
+import static org.molgenis.MolgenisFieldTypes.XREF;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityManager;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.support.ArrayEntity;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.springframework.jdbc.core.RowMapper;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class MySqlEntityFactoryTest
+{
+	private EntityManager entityManager;
+	private MySqlEntityFactory mySqlEntityFactory;
+	private DefaultEntityMetaData entityMeta;
+	private DefaultEntityMetaData refEntityMeta;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		entityManager = mock(EntityManager.class);
+		mySqlEntityFactory = new MySqlEntityFactory(entityManager, mock(DataService.class));
+
+		refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("refId", ROLE_ID).setDataType(INT);
+
+		entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("int").setDataType(INT);
+		entityMeta.addAttribute("xref").setDataType(XREF).setRefEntity(refEntityMeta);
+	}
+
+	@Test
+	public void createRowMapper() throws SQLException
+	{
+		Entity refEntity = mock(Entity.class);
+		when(entityManager.getReference(refEntityMeta, 3)).thenReturn(refEntity);
+
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.findColumn("id")).thenReturn(3);
+		when(resultSet.findColumn("int")).thenReturn(1);
+		when(resultSet.findColumn("xref")).thenReturn(2);
+		when(resultSet.getObject(3)).thenReturn("id0", "id1");
+		when(resultSet.getObject(1)).thenReturn(1, 2);
+		when(resultSet.getObject(2)).thenReturn(3, null);
+
+		RowMapper<Entity> rowMapper = mySqlEntityFactory.createRowMapper(entityMeta, null);
+		Entity entity0 = rowMapper.mapRow(resultSet, 0);
+		Entity entity1 = rowMapper.mapRow(resultSet, 1);
+
+		assertTrue(entity0 instanceof ArrayEntity);
+		assertEquals(entity0.getIdValue(), "id0");
+		assertEquals(entity0.get("int"), 1);
+		assertEquals(entity0.get("xref"), refEntity);
+		assertEquals(entity1.getIdValue(), "id1");
+		assertEquals(entity1.get("int"), 2);
+		assertEquals(entity1.get("xref"), null);
+
+		// column indices are resolved once per result set
+		verify(resultSet, times(1)).findColumn("id");
+	}
+
+	@Test
+	public void createRowMapperPartialFetch() throws SQLException
+	{
+		Fetch fetch = new Fetch().field("int");
+		Entity partialEntity = mock(Entity.class);
+		when(entityManager.createEntityForPartialEntity(any(Entity.class), eq(fetch))).thenReturn(partialEntity);
+
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.findColumn("id")).thenReturn(1);
+		when(resultSet.findColumn("int")).thenReturn(2);
+		when(resultSet.getObject(1)).thenReturn("id0");
+		when(resultSet.getObject(2)).thenReturn(1);
+
+		Entity entity = mySqlEntityFactory.createRowMapper(entityMeta, fetch).mapRow(resultSet, 0);
+		assertEquals(entity, partialEntity);
+		verify(resultSet, times(0)).findColumn("xref");
+	}
+
+	@Test
+	public void createRowMapperFullFetch() throws SQLException
+	{
+		Fetch fetch = new Fetch().field("id").field("int").field("xref");
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.findColumn("id")).thenReturn(1);
+		when(resultSet.findColumn("int")).thenReturn(2);
+		when(resultSet.findColumn("xref")).thenReturn(3);
+		when(resultSet.getObject(1)).thenReturn("id0");
+
+		Entity entity = mySqlEntityFactory.createRowMapper(entityMeta, fetch).mapRow(resultSet, 0);
+		assertTrue(entity instanceof ArrayEntity);
+		assertEquals(entity.getIdValue(), "id0");
+	}
+
+	@Test
+	public void createRowMapperEntityMetaDataChanged() throws SQLException
+	{
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.findColumn("id")).thenReturn(1);
+		when(resultSet.findColumn("int")).thenReturn(2);
+		when(resultSet.findColumn("xref")).thenReturn(3);
+		when(resultSet.findColumn("str")).thenReturn(4);
+		when(resultSet.getObject(1)).thenReturn("id0");
+		when(resultSet.getObject(4)).thenReturn("str0");
+
+		mySqlEntityFactory.createRowMapper(entityMeta, null).mapRow(resultSet, 0);
+		verify(resultSet, times(0)).findColumn("str");
+
+		// attribute added to the same entity meta data instance
+		entityMeta.addAttribute("str");
+		Entity entity = mySqlEntityFactory.createRowMapper(entityMeta, null).mapRow(resultSet, 0);
+		assertEquals(entity.get("str"), "str0");
+	}
+
+	@Test
+	public void createRowMapperFetchChanged() throws SQLException
+	{
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.findColumn("id")).thenReturn(1);
+		when(resultSet.findColumn("int")).thenReturn(2);
+		when(resultSet.findColumn("xref")).thenReturn(3);
+		when(resultSet.getObject(1)).thenReturn("id0");
+		when(resultSet.getObject(2)).thenReturn(1);
+
+		Fetch fetch = new Fetch().field("id");
+		Entity partialEntity = mock(Entity.class);
+		when(entityManager.createEntityForPartialEntity(any(Entity.class), eq(fetch))).thenReturn(partialEntity);
+		mySqlEntityFactory.createRowMapper(entityMeta, fetch).mapRow(resultSet, 0);
+		verify(resultSet, times(0)).findColumn("int");
+
+		// field added to the same fetch instance
+		fetch.field("int");
+		mySqlEntityFactory.createRowMapper(entityMeta, fetch).mapRow(resultSet, 0);
+		verify(resultSet, times(1)).findColumn("int");
+	}
+}
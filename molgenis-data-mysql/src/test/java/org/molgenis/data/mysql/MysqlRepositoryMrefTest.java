@@ -14,7 +14,10 @@ import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.data.EditableEntityMetaData;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
+import org.molgenis.data.Sort;
 import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.MapEntity;
 import org.molgenis.data.support.QueryImpl;
@@ -128,15 +131,7 @@ public class MysqlRepositoryMrefTest extends MysqlRepositoryAbstractDatatypeTest
 		Assert.assertEquals(mrefRepo.count(), 2);
 
 		Assert.assertEquals(mrefRepo.getSelectSql(new QueryImpl(), Lists.newArrayList()),
-				"SELECT this.`identifier`, "
-						+ "(SELECT GROUP_CONCAT(DISTINCT(`stringRef`.`stringRef`) ORDER BY `stringRef`.`order`) "
-						+ "FROM `MrefTest_stringRef` AS `stringRef` "
-						+ "WHERE (this.`identifier` = `stringRef`.`identifier`) ) AS `stringRef`, "
-						+ "(SELECT GROUP_CONCAT(DISTINCT(`intRef`.`intRef`) ORDER BY `intRef`.`order`) "
-						+ "FROM `MrefTest_intRef` AS `intRef` "
-						+ "WHERE (this.`identifier` = `intRef`.`identifier`) ) AS `intRef` "
-						+ "FROM `MrefTest` AS this "
-						+ "GROUP BY this.`identifier`");
+				"SELECT this.`identifier` FROM `MrefTest` AS this");
 
 		assertEquals(mrefRepo.query().eq("identifier", "one").count(), Long.valueOf(1));
 		for (Entity e : mrefRepo.findAll(new QueryImpl().eq("identifier", "one")).collect(toList()))
@@ -187,6 +182,14 @@ public class MysqlRepositoryMrefTest extends MysqlRepositoryAbstractDatatypeTest
 		assertEquals(mrefRepo.query().in("stringRef", Arrays.asList("ref1", "ref2")).count(), Long.valueOf(1));
 		assertEquals(mrefRepo.query().in("intRef", Arrays.asList(1, 2)).count(), Long.valueOf(1));
 
+		// distinct rows of an mref filter sorted on an mref attribute that is not fetched
+		Query distinctQuery = new QueryImpl().in("stringRef", Arrays.asList("ref1", "ref2", "ref3"))
+				.sort(new Sort("intRef", Sort.Direction.DESC)).fetch(new Fetch().field("identifier"));
+		assertEquals(mrefRepo.findAll(distinctQuery).map(Entity::getIdValue).collect(toList()),
+				Arrays.asList("one", "two"));
+		assertEquals(mrefRepo.findAll(new QueryImpl(distinctQuery).sort(new Sort("intRef", Sort.Direction.ASC)))
+				.map(Entity::getIdValue).collect(toList()), Arrays.asList("two", "one"));
+
 		// update
 		ref2 = new MapEntity("identifier");
 		ref2.set("identifier", "ref2");
@@ -93,6 +93,48 @@ public class MysqlRepositoryTest extends AbstractTestNGSpringContextTests
 		repo.deleteAll(); // cleanup
 	}
 
+	@Test
+	public void findAllSortedKeysetPaging()
+	{
+		DefaultEntityMetaData metaData = new DefaultEntityMetaData("findAllSortedKeysetPaging");
+		metaData.addAttribute("intAttr", ROLE_ID).setDataType(MolgenisFieldTypes.INT);
+		metaData.addAttribute("groupAttr").setDataType(MolgenisFieldTypes.INT).setNillable(false);
+
+		Repository repo = metaDataRepositories.addEntityMeta(metaData);
+
+		int count = 2099;
+		List<Entity> entities = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+		{
+			Entity e = new MapEntity("intAttr");
+			e.set("intAttr", i);
+			e.set("groupAttr", i % 3);
+			entities.add(e);
+		}
+		repo.add(entities.stream());
+
+		// sort on non-unique attribute spanning multiple batches
+		List<Entity> sortedEntities = repo
+				.findAll(new QueryImpl().sort(new Sort("groupAttr", Sort.Direction.DESC))).collect(toList());
+		assertEquals(sortedEntities.size(), count);
+		assertEquals(sortedEntities.stream().map(e -> e.getInt("intAttr")).distinct().count(), count);
+		for (int i = 1; i < count; i++)
+		{
+			Entity prev = sortedEntities.get(i - 1);
+			Entity e = sortedEntities.get(i);
+			boolean sorted = prev.getInt("groupAttr") > e.getInt("groupAttr")
+					|| (prev.getInt("groupAttr").equals(e.getInt("groupAttr"))
+							&& prev.getInt("intAttr") < e.getInt("intAttr"));
+			assertEquals(sorted, true);
+		}
+
+		// page size spanning multiple batches
+		assertEquals(repo.findAll(new QueryImpl().ge("intAttr", 10).pageSize(1500)).collect(toList()).size(),
+				1500);
+
+		repo.deleteAll(); // cleanup
+	}
+
 	@Test
 	public void addStreamUpdateStreamFindAll()
 	{
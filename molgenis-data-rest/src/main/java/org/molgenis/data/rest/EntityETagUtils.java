@@ -0,0 +1,86 @@
+package org.molgenis.data.rest;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.molgenis.auth.GroupAuthority;
+import org.molgenis.auth.MolgenisGroupMember;
+import org.molgenis.auth.UserAuthority;
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.i18n.LanguageMetaData;
+import org.molgenis.data.transaction.EntityVersionService;
+
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Creates ETags for responses that are derived from entities of an entity type. An ETag changes when the request
+ * changes, when the entity type or one of the entity types it references changes or when permissions or languages
+ * change.
+ */
+public class EntityETagUtils
+{
+	/**
+	 * Entity types that every response depends on: permissions and the available languages that determine the labels
+	 */
+	private static final List<String> SHARED_ENTITY_NAMES = Arrays.asList(UserAuthority.ENTITY_NAME,
+			GroupAuthority.ENTITY_NAME, MolgenisGroupMember.ENTITY_NAME, LanguageMetaData.ENTITY_NAME);
+
+	private EntityETagUtils()
+	{
+	}
+
+	/**
+	 * Creates a strong ETag
+	 *
+	 * @param entityVersionService
+	 *            entity change versions
+	 * @param entityMeta
+	 *            meta data of the entity type the response is derived from
+	 * @param requestParts
+	 *            request properties that determine the response, e.g. url, user and language
+	 * @return quoted ETag
+	 */
+	public static String createETag(EntityVersionService entityVersionService, EntityMetaData entityMeta,
+			String... requestParts)
+	{
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		hasher.putLong(entityVersionService.getEpoch());
+		for (String entityName : Iterables.concat(getEntityNames(entityMeta), SHARED_ENTITY_NAMES))
+		{
+			hasher.putString(entityName, UTF_8).putLong(entityVersionService.getVersion(entityName));
+		}
+		for (String requestPart : requestParts)
+		{
+			hasher.putString(requestPart != null ? requestPart : "", UTF_8).putChar('\0');
+		}
+		return '"' + hasher.hash().toString() + '"';
+	}
+
+	/**
+	 * Returns the names of the given entity type and all entity types that it references directly or indirectly
+	 */
+	private static Set<String> getEntityNames(EntityMetaData entityMeta)
+	{
+		Set<String> entityNames = new LinkedHashSet<>();
+		addEntityNames(entityMeta, entityNames);
+		return entityNames;
+	}
+
+	private static void addEntityNames(EntityMetaData entityMeta, Set<String> entityNames)
+	{
+		if (entityMeta == null || !entityNames.add(entityMeta.getName())) return;
+
+		addEntityNames(entityMeta.getExtends(), entityNames);
+		for (AttributeMetaData attr : entityMeta.getAtomicAttributes())
+		{
+			addEntityNames(attr.getRefEntity(), entityNames);
+		}
+	}
+}
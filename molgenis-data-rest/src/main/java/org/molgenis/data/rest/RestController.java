@@ -65,12 +65,14 @@ import org.molgenis.data.rest.service.RestService;
 import org.molgenis.data.rsql.MolgenisRSQL;
 import org.molgenis.data.support.DefaultEntityCollection;
 import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.EntityVersionService;
 import org.molgenis.data.validation.ConstraintViolation;
 import org.molgenis.data.validation.MolgenisValidationException;
 import org.molgenis.security.core.MolgenisPermissionService;
 import org.molgenis.security.core.runas.RunAsSystem;
 import org.molgenis.security.core.token.TokenService;
 import org.molgenis.security.core.token.UnknownTokenException;
+import org.molgenis.security.core.utils.SecurityUtils;
 import org.molgenis.security.token.TokenExtractor;
 import org.molgenis.util.ErrorMessageResponse;
 import org.molgenis.util.ErrorMessageResponse.ErrorMessage;
@@ -99,6 +101,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
 
@@ -136,12 +139,13 @@ public class RestController
 	private final MolgenisRSQL molgenisRSQL;
 	private final RestService restService;
 	private final LanguageService languageService;
+	private final EntityVersionService entityVersionService;
 
 	@Autowired
 	public RestController(DataService dataService, TokenService tokenService,
 			AuthenticationManager authenticationManager, MolgenisPermissionService molgenisPermissionService,
 			ResourceFingerprintRegistry resourceFingerprintRegistry, MolgenisRSQL molgenisRSQL,
-			RestService restService, LanguageService languageService)
+			RestService restService, LanguageService languageService, EntityVersionService entityVersionService)
 	{
 		this.dataService = requireNonNull(dataService);
 		this.tokenService = requireNonNull(tokenService);
@@ -150,6 +154,7 @@ public class RestController
 		this.molgenisRSQL = requireNonNull(molgenisRSQL);
 		this.restService = requireNonNull(restService);
 		this.languageService = requireNonNull(languageService);
+		this.entityVersionService = requireNonNull(entityVersionService);
 	}
 
 	/**
@@ -175,6 +180,9 @@ public class RestController
 	 * 
 	 * Example url: /api/v1/person/meta
 	 * 
+	 * Responses carry an ETag that is based on the change versions of the entity types in the response, requests with
+	 * a matching If-None-Match header are answered with 304 Not Modified.
+	 * 
 	 * @param entityName
 	 * @return EntityMetaData
 	 */
@@ -182,12 +190,20 @@ public class RestController
 	@ResponseBody
 	public EntityMetaDataResponse retrieveEntityMeta(@PathVariable("entityName") String entityName,
 			@RequestParam(value = "attributes", required = false) String[] attributes,
-			@RequestParam(value = "expand", required = false) String[] attributeExpands)
+			@RequestParam(value = "expand", required = false) String[] attributeExpands,
+			HttpServletRequest httpRequest, WebRequest webRequest)
 	{
 		Set<String> attributeSet = toAttributeSet(attributes);
 		Map<String, Set<String>> attributeExpandSet = toExpandMap(attributeExpands);
 
 		EntityMetaData meta = dataService.getEntityMetaData(entityName);
+		if (meta != null)
+		{
+			String eTag = EntityETagUtils.createETag(entityVersionService, meta, httpRequest.getRequestURI(),
+					httpRequest.getQueryString(), SecurityUtils.getCurrentUsername(),
+					languageService.getCurrentUserLanguageCode());
+			if (webRequest.checkNotModified(eTag)) return null;
+		}
 		return new EntityMetaDataResponse(meta, attributeSet, attributeExpandSet, molgenisPermissionService,
 				dataService, languageService);
 	}
@@ -0,0 +1,81 @@
+package org.molgenis.data.rest.v2;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.molgenis.data.Entity;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * Collection of entity responses that are created while the collection is iterated. A response with many entities
+ * is written without holding the responses of all entities in memory, the first entities are written while the
+ * remaining entities are still being retrieved.
+ * <p>
+ * The responses of the first entities are created when the collection is constructed, so that retrieval errors are
+ * thrown before the response is committed and are reported with an error status. An error while retrieving the
+ * remaining entities can only abort the response, which results in an incomplete response body.
+ */
+class EntityResponseCollection extends AbstractCollection<Map<String, Object>>
+{
+	static final int FIRST_BATCH_SIZE = 100;
+
+	private final List<Map<String, Object>> firstEntityResponses;
+	private final Iterator<Entity> remainingEntities;
+	private final Function<Entity, Map<String, Object>> entityResponseCreator;
+	private final int size;
+	private boolean iterated;
+
+	/**
+	 * @param entities
+	 *            entities for which responses are created
+	 * @param entityResponseCreator
+	 *            creates the response of an entity
+	 * @param size
+	 *            number of entities
+	 */
+	public EntityResponseCollection(Iterable<Entity> entities,
+			Function<Entity, Map<String, Object>> entityResponseCreator, int size)
+	{
+		this.entityResponseCreator = requireNonNull(entityResponseCreator);
+		this.size = size;
+
+		Iterator<Entity> it = entities.iterator();
+		firstEntityResponses = new ArrayList<>(Math.min(size, FIRST_BATCH_SIZE));
+		while (firstEntityResponses.size() < FIRST_BATCH_SIZE && it.hasNext())
+		{
+			firstEntityResponses.add(entityResponseCreator.apply(it.next()));
+		}
+		remainingEntities = it;
+	}
+
+	/**
+	 * Returns the entity responses, the collection can only be iterated once.
+	 *
+	 * @throws IllegalStateException
+	 *             if the collection was iterated before
+	 */
+	@Override
+	public Iterator<Map<String, Object>> iterator()
+	{
+		if (iterated)
+		{
+			throw new IllegalStateException("Entity responses can only be iterated once");
+		}
+		iterated = true;
+		return Iterators.concat(firstEntityResponses.iterator(),
+				Iterators.transform(remainingEntities, entityResponseCreator::apply));
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+}
@@ -19,6 +19,7 @@ import static org.springframework.web.bind.annotation.RequestMethod.PUT;
 import java.sql.Date;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -53,14 +54,17 @@ import org.molgenis.data.UnknownAttributeException;
 import org.molgenis.data.UnknownEntityException;
 import org.molgenis.data.i18n.LanguageService;
 import org.molgenis.data.meta.MetaValidationUtils;
+import org.molgenis.data.rest.EntityETagUtils;
 import org.molgenis.data.rest.EntityPager;
 import org.molgenis.data.rest.Href;
 import org.molgenis.data.rest.service.RestService;
 import org.molgenis.data.support.EntityMetaDataUtils;
 import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.EntityVersionService;
 import org.molgenis.security.core.MolgenisPermissionService;
 import org.molgenis.security.core.Permission;
 import org.molgenis.security.core.runas.RunAsSystemProxy;
+import org.molgenis.security.core.utils.SecurityUtils;
 import org.molgenis.security.permission.PermissionSystemService;
 import org.molgenis.util.ErrorMessageResponse;
 import org.molgenis.util.ErrorMessageResponse.ErrorMessage;
@@ -79,6 +83,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @Controller
@@ -96,6 +101,7 @@ class RestControllerV2
 	private final MolgenisPermissionService permissionService;
 	private final PermissionSystemService permissionSystemService;
 	private final LanguageService languageService;
+	private final EntityVersionService entityVersionService;
 
 	static UnknownEntityException createUnknownEntityException(String entityName)
 	{
@@ -147,13 +153,15 @@ class RestControllerV2
 
 	@Autowired
 	public RestControllerV2(DataService dataService, MolgenisPermissionService permissionService,
-			RestService restService, LanguageService languageService, PermissionSystemService permissionSystemService)
+			RestService restService, LanguageService languageService, PermissionSystemService permissionSystemService,
+			EntityVersionService entityVersionService)
 	{
 		this.dataService = requireNonNull(dataService);
 		this.permissionService = requireNonNull(permissionService);
 		this.restService = requireNonNull(restService);
 		this.languageService = requireNonNull(languageService);
 		this.permissionSystemService = requireNonNull(permissionSystemService);
+		this.entityVersionService = requireNonNull(entityVersionService);
 	}
 
 	@Autowired
@@ -230,16 +238,25 @@ class RestControllerV2
 	/**
 	 * Retrieve an entity collection, optionally specify which attributes to include in the response.
 	 * 
+	 * Responses carry an ETag that is based on the change versions of the entity types in the response, requests with
+	 * a matching If-None-Match header are answered with 304 Not Modified without querying the repository.
+	 * 
 	 * @param entityName
 	 * @param request
 	 * @param httpRequest
+	 * @param webRequest
 	 * @return
 	 */
 	@RequestMapping(value = "/{entityName}", method = GET)
 	@ResponseBody
 	public EntityCollectionResponseV2 retrieveEntityCollection(@PathVariable("entityName") String entityName,
-			@Valid EntityCollectionRequestV2 request, HttpServletRequest httpRequest)
+			@Valid EntityCollectionRequestV2 request, HttpServletRequest httpRequest, WebRequest webRequest)
 	{
+		// aggregate responses depend on anonymization settings and are not cached by clients
+		if (request.getAggs() == null && webRequest.checkNotModified(createETag(entityName, httpRequest)))
+		{
+			return null;
+		}
 		return createEntityCollectionResponse(entityName, request, httpRequest);
 	}
 
@@ -649,13 +666,14 @@ class RestControllerV2
 			}
 			EntityPager pager = new EntityPager(request.getStart(), request.getNum(), count, it);
 
-			List<Map<String, Object>> entities = new ArrayList<>();
-			for (Entity entity : it)
-			{
+			// the first entity responses are created here so that retrieval errors result in an error response, the
+			// remaining entity responses are created while the response is written
+			int size = (int) Math.max(0, Math.min(count - request.getStart(), request.getNum()));
+			Collection<Map<String, Object>> entities = new EntityResponseCollection(it, entity -> {
 				Map<String, Object> responseData = new LinkedHashMap<String, Object>();
 				createEntityValuesResponse(entity, fetch, responseData);
-				entities.add(responseData);
-			}
+				return responseData;
+			}, size);
 
 			UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(getFullURL(httpRequest));
 
@@ -678,6 +696,20 @@ class RestControllerV2
 		}
 	}
 
+	/**
+	 * Returns the ETag of an entity collection response or null if the client is not allowed to read the entities
+	 */
+	private String createETag(String entityName, HttpServletRequest httpRequest)
+	{
+		if (!permissionService.hasPermissionOnEntity(entityName, Permission.READ)) return null;
+
+		EntityMetaData meta = dataService.getEntityMetaData(entityName);
+		if (meta == null) return null;
+
+		return EntityETagUtils.createETag(entityVersionService, meta, getFullURL(httpRequest),
+				SecurityUtils.getCurrentUsername(), languageService.getCurrentUserLanguageCode());
+	}
+
 	private String getFullURL(HttpServletRequest request)
 	{
 		StringBuffer requestURL = request.getRequestURL();
@@ -0,0 +1,94 @@
+package org.molgenis.data.rest;
+
+import static org.molgenis.MolgenisFieldTypes.XREF;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.molgenis.auth.UserAuthority;
+import org.molgenis.data.i18n.LanguageMetaData;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.transaction.EntityVersionService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class EntityETagUtilsTest
+{
+	private EntityVersionService entityVersionService;
+	private DefaultEntityMetaData entityMeta;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		entityVersionService = new EntityVersionService();
+
+		DefaultEntityMetaData refRefEntityMeta = new DefaultEntityMetaData("refRefEntity");
+		refRefEntityMeta.addAttribute("id", ROLE_ID);
+
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID);
+		refEntityMeta.addAttribute("refRef").setDataType(XREF).setRefEntity(refRefEntityMeta);
+		refEntityMeta.addAttribute("self").setDataType(XREF).setRefEntity(refEntityMeta);
+
+		entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("ref").setDataType(XREF).setRefEntity(refEntityMeta);
+	}
+
+	@Test
+	public void createETag()
+	{
+		String eTag = EntityETagUtils.createETag(entityVersionService, entityMeta, "/api/v2/entity", "user");
+		assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+		assertEquals(EntityETagUtils.createETag(entityVersionService, entityMeta, "/api/v2/entity", "user"), eTag);
+	}
+
+	@Test
+	public void createETagEntityChanged()
+	{
+		assertETagChangesOnIncrement("entity");
+	}
+
+	@Test
+	public void createETagReferencedEntityChanged()
+	{
+		assertETagChangesOnIncrement("refRefEntity");
+	}
+
+	@Test
+	public void createETagPermissionsChanged()
+	{
+		assertETagChangesOnIncrement(UserAuthority.ENTITY_NAME);
+	}
+
+	@Test
+	public void createETagLanguagesChanged()
+	{
+		assertETagChangesOnIncrement(LanguageMetaData.ENTITY_NAME);
+	}
+
+	@Test
+	public void createETagOtherEntityChanged()
+	{
+		String eTag = EntityETagUtils.createETag(entityVersionService, entityMeta, "/api/v2/entity");
+		entityVersionService.increment("otherEntity");
+		assertEquals(EntityETagUtils.createETag(entityVersionService, entityMeta, "/api/v2/entity"), eTag);
+	}
+
+	@Test
+	public void createETagRequestChanged()
+	{
+		assertNotEquals(EntityETagUtils.createETag(entityVersionService, entityMeta, "/api/v2/entity", "user0"),
+				EntityETagUtils.createETag(entityVersionService, entityMeta, "/api/v2/entity", "user1"));
+		assertNotEquals(EntityETagUtils.createETag(entityVersionService, entityMeta, "a", "bc"),
+				EntityETagUtils.createETag(entityVersionService, entityMeta, "ab", "c"));
+	}
+
+	private void assertETagChangesOnIncrement(String entityName)
+	{
+		String eTag = EntityETagUtils.createETag(entityVersionService, entityMeta, "/api/v2/entity");
+		entityVersionService.increment(entityName);
+		assertNotEquals(EntityETagUtils.createETag(entityVersionService, entityMeta, "/api/v2/entity"), eTag);
+	}
+}
@@ -1,5 +1,7 @@
 package org.molgenis.data.rest;
 
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doThrow;
@@ -47,6 +49,7 @@ import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.MapEntity;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.support.QueryResolver;
+import org.molgenis.data.transaction.EntityVersionService;
 import org.molgenis.file.FileStore;
 import org.molgenis.messageconverter.CsvHttpMessageConverter;
 import org.molgenis.security.core.MolgenisPermissionService;
@@ -94,6 +97,9 @@ public class RestControllerTest extends AbstractTestNGSpringContextTests
 	@Autowired
 	private GsonHttpMessageConverter gsonHttpMessageConverter;
 
+	@Autowired
+	private EntityVersionService entityVersionService;
+
 	private MockMvc mockMvc;
 
 	@BeforeMethod
@@ -234,6 +240,32 @@ public class RestControllerTest extends AbstractTestNGSpringContextTests
 						+ "/name\"},\"id\":{\"href\":\"/api/v1/Person/meta/id\"},\"enum\":{\"href\":\"/api/v1/Person/meta/enum\"}},\"idAttribute\":\"id\",\"isAbstract\":false,\"writable\":false}"));
 	}
 
+	@Test
+	public void retrieveEntityMetaNotModified() throws Exception
+	{
+		String eTag = mockMvc.perform(get(HREF_ENTITY_META)).andExpect(status().isOk())
+				.andExpect(header().string("ETag", notNullValue())).andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(get(HREF_ENTITY_META).header("If-None-Match", eTag)).andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+	}
+
+	@Test
+	public void retrieveEntityMetaModified() throws Exception
+	{
+		String eTag = mockMvc.perform(get(HREF_ENTITY_META)).andReturn().getResponse().getHeader("ETag");
+		entityVersionService.increment(ENTITY_NAME);
+		mockMvc.perform(get(HREF_ENTITY_META).header("If-None-Match", eTag)).andExpect(status().isOk())
+				.andExpect(header().string("ETag", not(eTag)));
+	}
+
+	@Test
+	public void retrieveEntityMetaOtherRequestModified() throws Exception
+	{
+		String eTag = mockMvc.perform(get(HREF_ENTITY_META)).andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(get(HREF_ENTITY_META + "?attributes=name").header("If-None-Match", eTag))
+				.andExpect(status().isOk());
+	}
+
 	@Test
 	public void retrieveEntityMetaWritable() throws Exception
 	{
@@ -600,12 +632,19 @@ public class RestControllerTest extends AbstractTestNGSpringContextTests
 			return mock(LanguageService.class);
 		}
 
+		@Bean
+		public EntityVersionService entityVersionService()
+		{
+			return new EntityVersionService();
+		}
+
 		@Bean
 		public RestController restController()
 		{
 			return new RestController(dataService(), tokenService(), authenticationManager(),
 					molgenisPermissionService(), new ResourceFingerprintRegistry(), new MolgenisRSQL(),
-					new RestService(dataService(), idGenerator(), fileStore()), languageService());
+					new RestService(dataService(), idGenerator(), fileStore()), languageService(),
+					entityVersionService());
 		}
 	}
 
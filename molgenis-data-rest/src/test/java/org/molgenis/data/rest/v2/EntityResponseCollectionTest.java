@@ -0,0 +1,121 @@
+package org.molgenis.data.rest.v2;
+
+import static org.mockito.Mockito.mock;
+import static org.molgenis.data.rest.v2.EntityResponseCollection.FIRST_BATCH_SIZE;
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Iterators;
+
+public class EntityResponseCollectionTest
+{
+	@Test
+	public void iterator()
+	{
+		Entity entity0 = mock(Entity.class);
+		Entity entity1 = mock(Entity.class);
+		Map<String, Object> entityResponse0 = Collections.singletonMap("id", "0");
+		Map<String, Object> entityResponse1 = Collections.singletonMap("id", "1");
+		List<Entity> entities = Arrays.asList(entity0, entity1);
+
+		EntityResponseCollection entityResponses = new EntityResponseCollection(entities,
+				entity -> entity == entity0 ? entityResponse0 : entityResponse1, 2);
+
+		Iterator<Map<String, Object>> it = entityResponses.iterator();
+		assertEquals(it.next(), entityResponse0);
+		assertEquals(it.next(), entityResponse1);
+		assertEquals(it.hasNext(), false);
+	}
+
+	@Test
+	public void iteratorCreatesFirstBatchEagerly()
+	{
+		List<Entity> entities = new ArrayList<>();
+		for (int i = 0; i < FIRST_BATCH_SIZE + 2; ++i)
+		{
+			entities.add(mock(Entity.class));
+		}
+
+		AtomicInteger nrCreatedResponses = new AtomicInteger();
+		EntityResponseCollection entityResponses = new EntityResponseCollection(entities, entity -> {
+			nrCreatedResponses.incrementAndGet();
+			return Collections.singletonMap("id", entities.indexOf(entity));
+		}, entities.size());
+		assertEquals(nrCreatedResponses.get(), FIRST_BATCH_SIZE);
+
+		Iterator<Map<String, Object>> it = entityResponses.iterator();
+		for (int i = 0; i < FIRST_BATCH_SIZE; ++i)
+		{
+			assertEquals(it.next(), Collections.singletonMap("id", i));
+		}
+		assertEquals(nrCreatedResponses.get(), FIRST_BATCH_SIZE);
+		assertEquals(it.next(), Collections.singletonMap("id", FIRST_BATCH_SIZE));
+		assertEquals(nrCreatedResponses.get(), FIRST_BATCH_SIZE + 1);
+		assertEquals(it.next(), Collections.singletonMap("id", FIRST_BATCH_SIZE + 1));
+		assertEquals(it.hasNext(), false);
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class, expectedExceptionsMessageRegExp = "retrieval failed")
+	public void iteratorExceptionInFirstBatch()
+	{
+		Iterable<Entity> entities = () -> Iterators.concat(Iterators.singletonIterator(mock(Entity.class)),
+				new FailingIterator());
+		new EntityResponseCollection(entities, entity -> Collections.singletonMap("id", "0"), 2);
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class, expectedExceptionsMessageRegExp = "retrieval failed")
+	public void iteratorExceptionAfterFirstBatch()
+	{
+		List<Entity> firstEntities = new ArrayList<>();
+		for (int i = 0; i < FIRST_BATCH_SIZE; ++i)
+		{
+			firstEntities.add(mock(Entity.class));
+		}
+		Iterable<Entity> entities = () -> Iterators.concat(firstEntities.iterator(), new FailingIterator());
+
+		EntityResponseCollection entityResponses = new EntityResponseCollection(entities,
+				entity -> Collections.singletonMap("id", "0"), FIRST_BATCH_SIZE + 1);
+		Iterators.size(entityResponses.iterator());
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void iteratorTwice()
+	{
+		EntityResponseCollection entityResponses = new EntityResponseCollection(Collections.emptyList(),
+				entity -> null, 0);
+		entityResponses.iterator();
+		entityResponses.iterator();
+	}
+
+	@Test
+	public void size()
+	{
+		assertEquals(new EntityResponseCollection(Collections.emptyList(), entity -> null, 3).size(), 3);
+	}
+
+	private static class FailingIterator implements Iterator<Entity>
+	{
+		@Override
+		public boolean hasNext()
+		{
+			return true;
+		}
+
+		@Override
+		public Entity next()
+		{
+			throw new MolgenisDataException("retrieval failed");
+		}
+	}
+}
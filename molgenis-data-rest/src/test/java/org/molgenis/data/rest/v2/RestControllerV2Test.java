@@ -1,5 +1,7 @@
 package org.molgenis.data.rest.v2;
 
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
@@ -64,6 +66,7 @@ import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntity;
 import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.EntityVersionService;
 import org.molgenis.data.validation.ConstraintViolation;
 import org.molgenis.data.validation.MolgenisValidationException;
 import org.molgenis.fieldtypes.EnumField;
@@ -138,6 +141,9 @@ public class RestControllerV2Test extends AbstractTestNGSpringContextTests
 	@Autowired
 	private DataService dataService;
 
+	@Autowired
+	private EntityVersionService entityVersionService;
+
 	private MockMvc mockMvc;
 	private String attrBool;
 	private String attrString;
@@ -464,6 +470,51 @@ public class RestControllerV2Test extends AbstractTestNGSpringContextTests
 				.andExpect(content().string(resourceCollectionResponse));
 	}
 
+	@Test
+	public void retrieveResourceCollectionRetrievalFails() throws Exception
+	{
+		Query q = new QueryImpl().offset(0).pageSize(100);
+		when(dataService.findAll(ENTITY_NAME, q)).thenReturn(Stream.<Entity> generate(() -> {
+			throw new MolgenisDataException("Retrieval failed");
+		}));
+		ResultActions resultActions = mockMvc.perform(get(HREF_ENTITY_COLLECTION))
+				.andExpect(status().isBadRequest()).andExpect(content().contentType(APPLICATION_JSON));
+		this.assertEqualsErrorMessage(resultActions, "Retrieval failed");
+	}
+
+	@Test
+	public void retrieveResourceCollectionNotModified() throws Exception
+	{
+		when(molgenisPermissionService.hasPermissionOnEntity(ENTITY_NAME, Permission.READ)).thenReturn(true);
+		String eTag = mockMvc.perform(get(HREF_ENTITY_COLLECTION)).andExpect(status().isOk())
+				.andExpect(content().string(resourceCollectionResponse))
+				.andExpect(header().string("ETag", notNullValue())).andReturn().getResponse().getHeader("ETag");
+
+		mockMvc.perform(get(HREF_ENTITY_COLLECTION).header("If-None-Match", eTag))
+				.andExpect(status().isNotModified()).andExpect(content().string(""));
+		verify(dataService, times(1)).count(eq(ENTITY_NAME), any(Query.class));
+		verify(dataService, times(1)).findAll(eq(ENTITY_NAME), any(Query.class));
+	}
+
+	@Test
+	public void retrieveResourceCollectionModified() throws Exception
+	{
+		when(molgenisPermissionService.hasPermissionOnEntity(ENTITY_NAME, Permission.READ)).thenReturn(true);
+		String eTag = mockMvc.perform(get(HREF_ENTITY_COLLECTION)).andReturn().getResponse().getHeader("ETag");
+		entityVersionService.increment(REF_REF_ENTITY_NAME);
+		when(dataService.count(eq(ENTITY_NAME), any(Query.class))).thenReturn(0l);
+		mockMvc.perform(get(HREF_ENTITY_COLLECTION).header("If-None-Match", eTag)).andExpect(status().isOk())
+				.andExpect(header().string("ETag", not(eTag)));
+	}
+
+	@Test
+	public void retrieveResourceCollectionNoReadPermissionNoETag() throws Exception
+	{
+		when(molgenisPermissionService.hasPermissionOnEntity(ENTITY_NAME, Permission.READ)).thenReturn(false);
+		mockMvc.perform(get(HREF_ENTITY_COLLECTION)).andExpect(status().isOk())
+				.andExpect(header().doesNotExist("ETag"));
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test
 	public void testCreateEntities() throws Exception
@@ -984,11 +1035,17 @@ public class RestControllerV2Test extends AbstractTestNGSpringContextTests
 			return mock(LanguageService.class);
 		}
 
+		@Bean
+		public EntityVersionService entityVersionService()
+		{
+			return new EntityVersionService();
+		}
+
 		@Bean
 		public RestControllerV2 restController()
 		{
 			return new RestControllerV2(dataService(), molgenisPermissionService(), new RestService(dataService(),
-					idGenerator(), fileStore()), languageService(), permissionSystemService());
+					idGenerator(), fileStore()), languageService(), permissionSystemService(), entityVersionService());
 		}
 
 	}
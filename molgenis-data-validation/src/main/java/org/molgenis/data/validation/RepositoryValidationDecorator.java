@@ -11,6 +11,7 @@ import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -19,6 +20,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -33,9 +36,11 @@ import org.molgenis.data.Entity;
 import org.molgenis.data.EntityListener;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
+import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.UnknownEntityException;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.transaction.MolgenisTransactionLogEntryMetaData;
 import org.molgenis.data.transaction.MolgenisTransactionLogMetaData;
@@ -44,12 +49,19 @@ import org.molgenis.fieldtypes.XrefField;
 import org.molgenis.util.EntityUtils;
 import org.molgenis.util.HugeMap;
 import org.molgenis.util.HugeSet;
+import org.springframework.core.convert.ConversionException;
 
 public class RepositoryValidationDecorator implements Repository
 {
 	private static List<String> ENTITIES_THAT_DO_NOT_NEED_VALIDATION = Arrays
 			.asList(MolgenisTransactionLogMetaData.ENTITY_NAME, MolgenisTransactionLogEntryMetaData.ENTITY_NAME);
 
+	/**
+	 * Maximum number of entities for which only the referenced entities and unique values of the entities themselves
+	 * are retrieved from the backend. Larger streams retrieve all referenced entity ids and unique values at once.
+	 */
+	static final int MAX_INCREMENTAL_VALIDATION_SIZE = 1000;
+
 	private enum ValidationMode
 	{
 		ADD, UPDATE
@@ -286,11 +298,35 @@ public class RepositoryValidationDecorator implements Repository
 			return entities;
 		}
 
-		// prepare validation
-		initValidation(validationResource, validationMode);
+		// small streams only require the references and unique values of their own entities to be validated, larger
+		// streams retrieve all referenced entity ids and unique values from the backend
+		Iterator<? extends Entity> it = entities.iterator();
+		List<Entity> entityBatch = new ArrayList<>();
+		while (entityBatch.size() < MAX_INCREMENTAL_VALIDATION_SIZE && it.hasNext())
+		{
+			entityBatch.add(it.next());
+		}
+
+		Stream<? extends Entity> validationEntities;
+		if (it.hasNext())
+		{
+			// prepare validation
+			initValidation(validationResource, validationMode, null);
+
+			Stream<? extends Entity> remainingEntities = StreamSupport
+					.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false);
+			validationEntities = Stream.concat(entityBatch.stream(), remainingEntities).onClose(entities::close);
+		}
+		else
+		{
+			// prepare validation
+			initValidation(validationResource, validationMode, entityBatch);
+
+			validationEntities = entityBatch.stream().onClose(entities::close);
+		}
 
 		// add validation operation to stream
-		return entities.filter(entity -> {
+		return validationEntities.filter(entity -> {
 			validationResource.incrementRow();
 
 			validateEntityValueTypes(entity, validationResource);
@@ -321,11 +357,20 @@ public class RepositoryValidationDecorator implements Repository
 		});
 	}
 
-	private void initValidation(ValidationResource validationResource, ValidationMode validationMode)
+	/**
+	 * @param validationResource
+	 *            validation resource to initialize
+	 * @param validationMode
+	 *            add or update
+	 * @param entities
+	 *            entities to validate or <code>null</code> to prepare validation of an unknown number of entities
+	 */
+	private void initValidation(ValidationResource validationResource, ValidationMode validationMode,
+			List<Entity> entities)
 	{
 		initRequiredValueValidation(validationResource);
-		initReferenceValidation(validationResource);
-		initUniqueValidation(validationResource);
+		initReferenceValidation(validationResource, entities);
+		initUniqueValidation(validationResource, entities);
 		if (validationMode == ValidationMode.UPDATE)
 		{
 			initReadonlyValidation(validationResource);
@@ -341,7 +386,7 @@ public class RepositoryValidationDecorator implements Repository
 		validationResource.setRequiredValueAttrs(requiredValueAttrs);
 	}
 
-	private void initReferenceValidation(ValidationResource validationResource)
+	private void initReferenceValidation(ValidationResource validationResource, List<Entity> entities)
 	{
 		// get reference attrs
 		List<AttributeMetaData> refAttrs = StreamSupport
@@ -363,14 +408,53 @@ public class RepositoryValidationDecorator implements Repository
 					refEntityIds = new HugeSet<>();
 					refEntitiesIds.put(refEntityName, refEntityIds);
 
-					Query q = new QueryImpl().fetch(new Fetch().field(refEntityMeta.getIdAttribute().getName()));
-					for (Iterator<Entity> it = dataService.findAll(refEntityName, q).iterator(); it.hasNext();)
+					if (entities == null)
 					{
-						refEntityIds.add(it.next().getIdValue());
+						Query q = new QueryImpl().fetch(new Fetch().field(refEntityMeta.getIdAttribute().getName()));
+						for (Iterator<Entity> it = dataService.findAll(refEntityName, q).iterator(); it.hasNext();)
+						{
+							refEntityIds.add(it.next().getIdValue());
+						}
 					}
 				}
 			});
 
+			// only retrieve the referenced entities that are referenced by the entities to validate
+			if (entities != null)
+			{
+				Map<String, EntityMetaData> refEntitiesMeta = new HashMap<>();
+				Map<String, Set<Object>> refEntitiesIdsToValidate = new HashMap<>();
+				refAttrs.forEach(refAttr -> {
+					EntityMetaData refEntityMeta = refAttr.getRefEntity();
+					String refEntityName = refEntityMeta.getName();
+					Set<Object> refEntityIdsToValidate = refEntitiesIdsToValidate.get(refEntityName);
+					if (refEntityIdsToValidate == null)
+					{
+						refEntityIdsToValidate = new LinkedHashSet<>();
+						refEntitiesIdsToValidate.put(refEntityName, refEntityIdsToValidate);
+						refEntitiesMeta.put(refEntityName, refEntityMeta);
+					}
+					for (Entity entity : entities)
+					{
+						for (Entity refEntity : getRefEntitiesToValidate(entity, refAttr))
+						{
+							refEntityIdsToValidate.add(refEntity.getIdValue());
+						}
+					}
+				});
+
+				refEntitiesIdsToValidate.forEach((refEntityName, refEntityIdsToValidate) -> {
+					if (!refEntityIdsToValidate.isEmpty())
+					{
+						String refIdAttrName = refEntitiesMeta.get(refEntityName).getIdAttribute().getName();
+						HugeSet<Object> refEntityIds = refEntitiesIds.get(refEntityName);
+						dataService.findAll(refEntityName, refEntityIdsToValidate.stream(),
+								new Fetch().field(refIdAttrName))
+								.forEach(refEntity -> refEntityIds.add(refEntity.getIdValue()));
+					}
+				});
+			}
+
 			validationResource.setRefEntitiesIds(refEntitiesIds);
 		}
 
@@ -379,7 +463,7 @@ public class RepositoryValidationDecorator implements Repository
 		validationResource.setRefAttrs(refAttrs);
 	}
 
-	private void initUniqueValidation(ValidationResource validationResource)
+	private void initUniqueValidation(ValidationResource validationResource, List<Entity> entities)
 	{
 		// get unique attributes
 		List<AttributeMetaData> uniqueAttrs = StreamSupport
@@ -397,21 +481,40 @@ public class RepositoryValidationDecorator implements Repository
 				fetch.field(uniqueAttr.getName());
 			});
 
-			Query q = new QueryImpl().fetch(fetch);
-			decoratedRepository.findAll(q).forEach(entity -> {
+			if (entities == null)
+			{
+				Query q = new QueryImpl().fetch(fetch);
+				decoratedRepository.findAll(q).forEach(entity -> {
+					uniqueAttrs.forEach(uniqueAttr -> {
+						putUniqueAttrValue(entity, uniqueAttr, uniqueAttrsValues.get(uniqueAttr.getName()));
+					});
+				});
+			}
+			else
+			{
+				// only retrieve the existing entities with unique values that occur in the entities to validate
+				String idAttrName = getEntityMetaData().getIdAttribute().getName();
 				uniqueAttrs.forEach(uniqueAttr -> {
-					HugeMap<Object, Object> uniqueAttrValues = uniqueAttrsValues.get(uniqueAttr.getName());
-					Object attrValue = entity.get(uniqueAttr.getName());
-					if (attrValue != null)
+					Set<Object> attrValuesToValidate = new LinkedHashSet<>();
+					for (Entity entity : entities)
 					{
-						if (uniqueAttr.getDataType() instanceof XrefField)
+						Object attrValue = getUniqueAttrValueToValidate(entity, uniqueAttr);
+						if (attrValue != null)
 						{
-							attrValue = ((Entity) attrValue).getIdValue();
+							attrValuesToValidate.add(attrValue);
 						}
-						uniqueAttrValues.put(attrValue, entity.getIdValue());
+					}
+
+					if (!attrValuesToValidate.isEmpty())
+					{
+						HugeMap<Object, Object> uniqueAttrValues = uniqueAttrsValues.get(uniqueAttr.getName());
+						Query q = new QueryImpl().in(uniqueAttr.getName(), attrValuesToValidate)
+								.fetch(new Fetch().field(idAttrName).field(uniqueAttr.getName()));
+						decoratedRepository.findAll(q)
+								.forEach(entity -> putUniqueAttrValue(entity, uniqueAttr, uniqueAttrValues));
 					}
 				});
-			});
+			}
 
 			validationResource.setUniqueAttrsValues(uniqueAttrsValues);
 		}
@@ -420,6 +523,76 @@ public class RepositoryValidationDecorator implements Repository
 
 	}
 
+	private static void putUniqueAttrValue(Entity entity, AttributeMetaData uniqueAttr,
+			HugeMap<Object, Object> uniqueAttrValues)
+	{
+		Object attrValue = entity.get(uniqueAttr.getName());
+		if (attrValue != null)
+		{
+			if (uniqueAttr.getDataType() instanceof XrefField)
+			{
+				attrValue = ((Entity) attrValue).getIdValue();
+			}
+			uniqueAttrValues.put(attrValue, entity.getIdValue());
+		}
+	}
+
+	/**
+	 * Returns the unique attribute value of an entity that is not yet validated or <code>null</code> if the value
+	 * cannot be converted to the attribute type, in which case the value type validation reports the invalid value.
+	 */
+	private static Object getUniqueAttrValueToValidate(Entity entity, AttributeMetaData uniqueAttr)
+	{
+		try
+		{
+			Object attrValue = entity.get(uniqueAttr.getName());
+			if (attrValue != null && uniqueAttr.getDataType() instanceof XrefField)
+			{
+				attrValue = ((Entity) attrValue).getIdValue();
+			}
+			return attrValue;
+		}
+		catch (ConversionException | IllegalArgumentException | ClassCastException | UnknownEntityException e)
+		{
+			return null;
+		}
+		catch (MolgenisDataException e)
+		{
+			if (!(e.getCause() instanceof ParseException)) throw e;
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the entities referenced by an entity that is not yet validated or no entities if the value cannot be
+	 * converted to referenced entities, in which case the value type validation reports the invalid value.
+	 */
+	private static Iterable<Entity> getRefEntitiesToValidate(Entity entity, AttributeMetaData refAttr)
+	{
+		try
+		{
+			return getRefEntities(entity, refAttr);
+		}
+		catch (ConversionException | IllegalArgumentException | ClassCastException | UnknownEntityException e)
+		{
+			return emptyList();
+		}
+	}
+
+	private static Iterable<Entity> getRefEntities(Entity entity, AttributeMetaData refAttr)
+	{
+		if (refAttr.getDataType() instanceof XrefField)
+		{
+			Entity refEntity = entity.getEntity(refAttr.getName());
+			return refEntity != null ? singleton(refEntity) : emptyList();
+		}
+		else
+		{
+			Iterable<Entity> refEntities = entity.getEntities(refAttr.getName());
+			return refEntities != null ? refEntities : emptyList();
+		}
+	}
+
 	private void initReadonlyValidation(ValidationResource validationResource)
 	{
 		List<AttributeMetaData> readonlyAttrs = StreamSupport
@@ -516,25 +689,7 @@ public class RepositoryValidationDecorator implements Repository
 		validationResource.getRefAttrs().forEach(refAttr -> {
 			HugeSet<Object> refEntityIds = validationResource.getRefEntitiesIds().get(refAttr.getRefEntity().getName());
 
-			Iterable<Entity> refEntities;
-			if (refAttr.getDataType() instanceof XrefField)
-			{
-				Entity refEntity = entity.getEntity(refAttr.getName());
-				if (refEntity != null)
-				{
-					refEntities = singleton(refEntity);
-				}
-				else
-				{
-					refEntities = emptyList();
-				}
-			}
-			else
-			{
-				refEntities = entity.getEntities(refAttr.getName());
-			}
-
-			for (Entity refEntity : refEntities)
+			for (Entity refEntity : getRefEntities(entity, refAttr))
 			{
 				if (!refEntityIds.contains(refEntity.getIdValue()))
 				{
@@ -2,7 +2,10 @@ package org.molgenis.data.validation;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -11,6 +14,7 @@ import static org.molgenis.MolgenisFieldTypes.STRING;
 import static org.molgenis.MolgenisFieldTypes.XREF;
 import static org.testng.Assert.assertEquals;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
@@ -18,18 +22,23 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
+import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.transaction.MolgenisTransactionLogMetaData;
+import org.springframework.core.convert.ConversionFailedException;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Iterables;
+
 public class RepositoryValidationDecoratorTest
 {
 	private String refEntityName;
@@ -62,6 +71,37 @@ public class RepositoryValidationDecoratorTest
 	private Entity refEntity1;
 	private Entity refEntity1Clone;
 
+	/**
+	 * Answers queries with the given entities that match the 'in' rules of the query
+	 */
+	private static Answer<Stream<Entity>> findAllAnswer(Entity... entities)
+	{
+		return invocation -> {
+			Query q = (Query) invocation.getArguments()[0];
+			return Arrays.stream(entities).filter(entity -> q.getRules().stream().allMatch(rule -> {
+				Object value = entity.get(rule.getField());
+				if (value instanceof Entity)
+				{
+					value = ((Entity) value).getIdValue();
+				}
+				return Iterables.contains((Iterable<?>) rule.getValue(), value);
+			}));
+		};
+	}
+
+	/**
+	 * Answers find by id requests with the given entities that have one of the requested ids
+	 */
+	private static Answer<Stream<Entity>> findAllByIdAnswer(Entity... entities)
+	{
+		return invocation -> {
+			@SuppressWarnings("unchecked")
+			Set<Object> ids = ((Stream<Object>) invocation.getArguments()[1]).collect(Collectors.toSet());
+			return Arrays.stream(entities).filter(entity -> ids.contains(entity.getIdValue()));
+		};
+	}
+
+	@SuppressWarnings("unchecked")
 	@BeforeMethod
 	public void beforeMethod()
 	{
@@ -167,6 +207,7 @@ public class RepositoryValidationDecoratorTest
 		decoratedRepo = mock(Repository.class);
 		when(decoratedRepo.getEntityMetaData()).thenReturn(entityMeta);
 		when(decoratedRepo.getName()).thenReturn(entityName);
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer());
 		when(decoratedRepo
 				.findAll(new QueryImpl().fetch(new Fetch().field(attrUniqueStringName).field(attrUniqueXrefName))))
 						.thenReturn(Stream.empty());
@@ -178,6 +219,10 @@ public class RepositoryValidationDecoratorTest
 		when(dataService.getRepository(refEntityName)).thenReturn(refRepo);
 		when(dataService.findAll(refEntityName, new QueryImpl().fetch(new Fetch().field(refAttrIdName))))
 				.thenReturn(Stream.of(refEntity0, refEntity1));
+		when(dataService.findAll(eq(refEntityName), any(Stream.class), any(Fetch.class)))
+				.thenAnswer(findAllByIdAnswer(refEntity0, refEntity1));
+		when(dataService.findAll(eq(entityName), any(Stream.class), any(Fetch.class)))
+				.thenAnswer(findAllByIdAnswer());
 
 		expressionValidator = mock(ExpressionValidator.class);
 		entityAttributesValidator = mock(EntityAttributesValidator.class);
@@ -595,8 +640,8 @@ public class RepositoryValidationDecoratorTest
 		when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
 		// actual tests
-		when(dataService.findAll(entityName, new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entity0));
+		when(dataService.findAll(eq(entityName), any(Stream.class), any(Fetch.class)))
+				.thenAnswer(findAllByIdAnswer(entity0));
 		repositoryValidationDecorator.add(entity0);
 
 		verify(decoratedRepo, times(1)).add(entity0);
@@ -751,8 +796,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -812,8 +856,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -863,8 +906,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -937,6 +979,168 @@ public class RepositoryValidationDecoratorTest
 		verify(entityAttributesValidator, times(1)).validate(entity0, entityMeta);
 	}
 
+	@SuppressWarnings(
+	{ "rawtypes", "unchecked" })
+	@Test
+	public void addStreamRetrievesOnlyReferencedEntitiesAndUniqueValues()
+	{
+		// entities
+		Entity entity0 = mock(Entity.class);
+		when(entity0.getEntityMetaData()).thenReturn(entityMeta);
+
+		when(entity0.getIdValue()).thenReturn("id0");
+		when(entity0.getEntity(attrXrefName)).thenReturn(refEntity0);
+		when(entity0.getEntity(attrNillableXrefName)).thenReturn(null);
+		when(entity0.getEntities(attrMrefName)).thenReturn(Arrays.asList(refEntity0));
+		when(entity0.getEntities(attrNillableMrefName)).thenReturn(emptyList());
+		when(entity0.getString(attrUniqueStringName)).thenReturn("unique0");
+		when(entity0.getEntity(attrUniqueXrefName)).thenReturn(refEntity0);
+
+		when(entity0.get(attrIdName)).thenReturn("id0");
+		when(entity0.get(attrXrefName)).thenReturn(refEntity0);
+		when(entity0.get(attrNillableXrefName)).thenReturn(null);
+		when(entity0.get(attrMrefName)).thenReturn(Arrays.asList(refEntity0));
+		when(entity0.get(attrNillableMrefName)).thenReturn(emptyList());
+		when(entity0.get(attrUniqueStringName)).thenReturn("unique0");
+		when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
+
+		List<Object> refEntityIds = new ArrayList<>();
+		when(dataService.findAll(eq(refEntityName), any(Stream.class), eq(new Fetch().field(refAttrIdName))))
+				.thenAnswer(invocation -> {
+					((Stream<Object>) invocation.getArguments()[1]).forEach(refEntityIds::add);
+					return Stream.of(refEntity0);
+				});
+
+		// actual tests
+		List<Entity> entities = Arrays.asList(entity0);
+		repositoryValidationDecorator.add(entities.stream());
+
+		ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass((Class) Stream.class);
+		verify(decoratedRepo, times(1)).add(captor.capture());
+		Stream<Entity> stream = captor.getValue();
+		stream.collect(Collectors.toList()); // process stream to enable validation
+
+		verify(dataService, times(1)).findAll(eq(refEntityName), any(Stream.class), any(Fetch.class));
+		assertEquals(refEntityIds, Arrays.asList("idref0"));
+		verify(dataService, never()).findAll(refEntityName, new QueryImpl().fetch(new Fetch().field(refAttrIdName)));
+		verify(decoratedRepo, times(1)).findAll(new QueryImpl().in(attrUniqueStringName, singleton("unique0")));
+		verify(decoratedRepo, times(1)).findAll(new QueryImpl().in(attrUniqueXrefName, singleton("idref0")));
+		verify(decoratedRepo, never()).findAll(new QueryImpl());
+	}
+
+	@SuppressWarnings(
+	{ "rawtypes", "unchecked" })
+	@Test
+	public void addStreamInvalidValuesAreNotRetrieved()
+	{
+		// entities
+		Entity entity0 = mock(Entity.class);
+		when(entity0.getEntityMetaData()).thenReturn(entityMeta);
+
+		when(entity0.getIdValue()).thenReturn("id0");
+		when(entity0.getEntity(attrXrefName)).thenThrow(new ConversionFailedException(null, null, "invalid", null));
+		when(entity0.getEntities(attrMrefName)).thenReturn(Arrays.asList(refEntity0));
+		when(entity0.getEntities(attrNillableMrefName)).thenReturn(emptyList());
+
+		when(entity0.get(attrIdName)).thenReturn("id0");
+		when(entity0.get(attrUniqueStringName)).thenReturn("unique0");
+		when(entity0.get(attrUniqueXrefName)).thenReturn("invalid");
+
+		List<Object> refEntityIds = new ArrayList<>();
+		when(dataService.findAll(eq(refEntityName), any(Stream.class), eq(new Fetch().field(refAttrIdName))))
+				.thenAnswer(invocation -> {
+					((Stream<Object>) invocation.getArguments()[1]).forEach(refEntityIds::add);
+					return Stream.of(refEntity0);
+				});
+
+		// invalid values are reported by the value type validation
+		Set<ConstraintViolation> violations = singleton(new ConstraintViolation("violation", 1l));
+		when(entityAttributesValidator.validate(entity0, entityMeta)).thenReturn(violations);
+
+		// actual tests
+		List<Entity> entities = Arrays.asList(entity0);
+		repositoryValidationDecorator.add(entities.stream());
+
+		ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass((Class) Stream.class);
+		verify(decoratedRepo, times(1)).add(captor.capture());
+		Stream<Entity> stream = captor.getValue();
+		try
+		{
+			stream.collect(Collectors.toList()); // process stream to enable validation
+			throw new RuntimeException("Expected MolgenisValidationException instead of no exception");
+		}
+		catch (MolgenisValidationException e)
+		{
+			assertEquals(e.getViolations(), violations);
+		}
+
+		assertEquals(refEntityIds, Arrays.asList("idref0"));
+		verify(decoratedRepo, times(1)).findAll(new QueryImpl().in(attrUniqueStringName, singleton("unique0")));
+		verify(decoratedRepo, never()).findAll(new QueryImpl().in(attrUniqueXrefName, singleton("invalid")));
+	}
+
+	@SuppressWarnings(
+	{ "rawtypes", "unchecked" })
+	@Test(expectedExceptions = MolgenisDataException.class, expectedExceptionsMessageRegExp = "backend failure")
+	public void addStreamValueRetrievalFails()
+	{
+		// entities
+		Entity entity0 = mock(Entity.class);
+		when(entity0.getEntityMetaData()).thenReturn(entityMeta);
+
+		when(entity0.getIdValue()).thenReturn("id0");
+		when(entity0.getEntity(attrXrefName)).thenThrow(new MolgenisDataException("backend failure"));
+
+		// actual tests
+		List<Entity> entities = Arrays.asList(entity0);
+		repositoryValidationDecorator.add(entities.stream());
+
+		ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass((Class) Stream.class);
+		verify(decoratedRepo, times(1)).add(captor.capture());
+		Stream<Entity> stream = captor.getValue();
+		stream.collect(Collectors.toList()); // process stream to enable validation
+	}
+
+	@SuppressWarnings(
+	{ "rawtypes", "unchecked" })
+	@Test
+	public void addStreamLargeRetrievesAllReferencedEntitiesAndUniqueValues()
+	{
+		when(uniqueStringAttr.isNillable()).thenReturn(true);
+		when(uniqueXrefAttr.isNillable()).thenReturn(true);
+
+		// entities
+		List<Entity> entities = new ArrayList<>();
+		for (int i = 0; i <= RepositoryValidationDecorator.MAX_INCREMENTAL_VALIDATION_SIZE; ++i)
+		{
+			Entity entity = mock(Entity.class);
+			when(entity.getEntityMetaData()).thenReturn(entityMeta);
+
+			when(entity.getIdValue()).thenReturn("id" + i);
+			when(entity.getEntity(attrXrefName)).thenReturn(refEntity0);
+			when(entity.getEntities(attrMrefName)).thenReturn(Arrays.asList(refEntity1));
+			when(entity.getEntities(attrNillableMrefName)).thenReturn(emptyList());
+
+			when(entity.get(attrIdName)).thenReturn("id" + i);
+			when(entity.get(attrXrefName)).thenReturn(refEntity0);
+			when(entity.get(attrMrefName)).thenReturn(Arrays.asList(refEntity1));
+			when(entity.get(attrNillableMrefName)).thenReturn(emptyList());
+			entities.add(entity);
+		}
+
+		// actual tests
+		repositoryValidationDecorator.add(entities.stream());
+
+		ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass((Class) Stream.class);
+		verify(decoratedRepo, times(1)).add(captor.capture());
+		Stream<Entity> stream = captor.getValue();
+		assertEquals(stream.collect(Collectors.toList()), entities); // process stream to enable validation
+
+		verify(dataService, times(1)).findAll(refEntityName, new QueryImpl().fetch(new Fetch().field(refAttrIdName)));
+		verify(dataService, never()).findAll(eq(refEntityName), any(Stream.class), any(Fetch.class));
+		verify(decoratedRepo, times(1)).findAll(new QueryImpl());
+	}
+
 	@SuppressWarnings(
 	{ "rawtypes", "unchecked" })
 	@Test
@@ -1424,8 +1628,8 @@ public class RepositoryValidationDecoratorTest
 
 		// actual tests
 		List<Entity> entities = Arrays.asList(entity0);
-		when(dataService.findAll(entityName, new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entity0));
+		when(dataService.findAll(eq(entityName), any(Stream.class), any(Fetch.class)))
+				.thenAnswer(findAllByIdAnswer(entity0));
 		repositoryValidationDecorator.add(entities.stream());
 
 		ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass((Class) Stream.class);
@@ -1484,8 +1688,8 @@ public class RepositoryValidationDecoratorTest
 
 		// actual tests
 		List<Entity> entities = Arrays.asList(entity0, entity1);
-		when(dataService.findAll(entityName, new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.empty());
+		when(dataService.findAll(eq(entityName), any(Stream.class), any(Fetch.class)))
+				.thenAnswer(findAllByIdAnswer());
 		repositoryValidationDecorator.add(entities.stream());
 
 		ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass((Class) Stream.class);
@@ -1733,8 +1937,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -1803,8 +2006,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -1928,8 +2130,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -2389,8 +2590,8 @@ public class RepositoryValidationDecoratorTest
 		when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
 		// actual tests
-		when(dataService.findAll(entityName, new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entity0));
+		when(dataService.findAll(eq(entityName), any(Stream.class), any(Fetch.class)))
+				.thenAnswer(findAllByIdAnswer(entity0));
 		repositoryValidationDecorator.update(entity0);
 		verify(decoratedRepo, times(1)).update(entity0);
 		verify(entityAttributesValidator, times(1)).validate(entity0, entityMeta);
@@ -2544,8 +2745,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -2605,8 +2805,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -2656,8 +2855,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -3564,8 +3762,8 @@ public class RepositoryValidationDecoratorTest
 
 		// actual tests
 		List<Entity> entities = Arrays.asList(entity0);
-		when(dataService.findAll(entityName, new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entity0));
+		when(dataService.findAll(eq(entityName), any(Stream.class), any(Fetch.class)))
+				.thenAnswer(findAllByIdAnswer(entity0));
 		repositoryValidationDecorator.update(entities.stream());
 
 		ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass((Class) Stream.class);
@@ -3624,8 +3822,8 @@ public class RepositoryValidationDecoratorTest
 
 		// actual tests
 		List<Entity> entities = Arrays.asList(entity0, entity1);
-		when(dataService.findAll(entityName, new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entity0, entity1));
+		when(dataService.findAll(eq(entityName), any(Stream.class), any(Fetch.class)))
+				.thenAnswer(findAllByIdAnswer(entity0, entity1));
 		repositoryValidationDecorator.update(entities.stream());
 
 		ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass((Class) Stream.class);
@@ -3873,8 +4071,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -3943,8 +4140,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -4068,8 +4264,7 @@ public class RepositoryValidationDecoratorTest
 		when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
 		when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-		when(decoratedRepo.findAll(new QueryImpl().fetch(new Fetch().field(attrIdName))))
-				.thenReturn(Stream.of(entityInBackend0));
+		when(decoratedRepo.findAll(any(Query.class))).thenAnswer(findAllAnswer(entityInBackend0));
 
 		// entities
 		Entity entity0 = mock(Entity.class);
@@ -1,7 +1,7 @@
 package org.molgenis.data.vcf;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableList;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.vcf.VcfReader;
 import org.slf4j.Logger;
@@ -12,9 +12,12 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -26,7 +29,8 @@ public class VcfReaderFactoryImpl implements VcfReaderFactory
 	private static final Logger LOG = LoggerFactory.getLogger(VcfReaderFactoryImpl.class);
 
 	private File file;
-	private List<VcfReader> vcfReaderRegistry = Lists.newArrayList();
+	// readers can be created and closed by concurrent iterators, closed readers remove themselves
+	private final Set<VcfReader> vcfReaderRegistry = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
 	public VcfReaderFactoryImpl(File file)
 	{
@@ -51,7 +55,7 @@ public class VcfReaderFactoryImpl implements VcfReaderFactory
 				   ZipEntry entry = (ZipEntry) e.nextElement(); // your only file
 				   inputStream = zipFile.getInputStream(entry);
 			}
-			VcfReader reader = new VcfReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+			VcfReader reader = new RegisteredVcfReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
 			// register reader so close() can close all readers
 			vcfReaderRegistry.add(reader);
 			return reader;
@@ -79,6 +83,35 @@ public class VcfReaderFactoryImpl implements VcfReaderFactory
 	@Override
 	public void close() throws IOException
 	{
-		vcfReaderRegistry.forEach(this::tryCloseVcfReader);
+		ImmutableList.copyOf(vcfReaderRegistry).forEach(this::tryCloseVcfReader);
+	}
+
+	int getNrOpenReaders()
+	{
+		return vcfReaderRegistry.size();
+	}
+
+	/**
+	 * VcfReader that removes itself from the registry when it is closed
+	 */
+	private class RegisteredVcfReader extends VcfReader
+	{
+		RegisteredVcfReader(Reader reader) throws IOException
+		{
+			super(reader);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			try
+			{
+				super.close();
+			}
+			finally
+			{
+				vcfReaderRegistry.remove(this);
+			}
+		}
 	}
 }
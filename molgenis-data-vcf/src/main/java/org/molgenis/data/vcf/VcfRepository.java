@@ -80,6 +80,7 @@ public class VcfRepository extends AbstractRepository
 	private final String entityName;
 	protected Supplier<VcfToEntity> vcfToEntitySupplier;
 	private VcfReaderFactory vcfReaderFactory;
+	private volatile Long count;
 
 	public VcfRepository(File file, String entityName) throws IOException
 	{
@@ -131,7 +132,32 @@ public class VcfRepository extends AbstractRepository
 	{
 		Iterator<VcfRecord> vcfRecordIterator = Iterators.unmodifiableIterator(vcfReaderFactory.get().iterator());
 		VcfToEntity vcfToEntity = vcfToEntitySupplier.get();
-		return Iterators.transform(vcfRecordIterator, vcfToEntity::toEntity);
+		Iterator<Entity> entityIterator = Iterators.transform(vcfRecordIterator, vcfToEntity::toEntity);
+
+		// keep track of the number of records so that count() does not need to parse the file again
+		return new Iterator<Entity>()
+		{
+			private long nrEntities;
+
+			@Override
+			public boolean hasNext()
+			{
+				boolean hasNext = entityIterator.hasNext();
+				if (!hasNext)
+				{
+					count = nrEntities;
+				}
+				return hasNext;
+			}
+
+			@Override
+			public Entity next()
+			{
+				Entity entity = entityIterator.next();
+				++nrEntities;
+				return entity;
+			}
+		};
 	}
 
 	@Override
@@ -152,10 +178,19 @@ public class VcfRepository extends AbstractRepository
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Returns the number of records in the vcf file. The file is only parsed if it was not iterated completely before.
+	 */
 	@Override
 	public long count()
 	{
-		return Iterables.size(this);
+		Long count = this.count;
+		if (count == null)
+		{
+			count = (long) Iterables.size(this);
+			this.count = count;
+		}
+		return count;
 	}
 
 }
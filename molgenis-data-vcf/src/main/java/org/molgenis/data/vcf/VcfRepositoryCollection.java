@@ -18,7 +18,7 @@ public class VcfRepositoryCollection extends FileRepositoryCollection
 	private static final String EXTENSION_VCF = "vcf";
 	private static final String EXTENSION_VCF_GZ = "vcf.gz";
 	private static final String EXTENSION_VCF_ZIP = "vcf.zip";
-	static final Set<String> EXTENSIONS = ImmutableSet.of(EXTENSION_VCF, EXTENSION_VCF_GZ, EXTENSION_VCF_ZIP);
+	public static final Set<String> EXTENSIONS = ImmutableSet.of(EXTENSION_VCF, EXTENSION_VCF_GZ, EXTENSION_VCF_ZIP);
 
 	private final File file;
 	private final String entityName;
@@ -60,7 +60,7 @@ public class VcfRepositoryCollection extends FileRepositoryCollection
 		if (!entityName.equals(name)) throw new MolgenisDataException("Unknown entity name [" + name + "]");
 		try
 		{
-			return new VcfRepository(file, name);
+			return createRepository(file, name);
 		}
 		catch (IOException e)
 		{
@@ -68,6 +68,21 @@ public class VcfRepositoryCollection extends FileRepositoryCollection
 		}
 	}
 
+	/**
+	 * Creates the repository for the VCF file, subclasses can return a specialized repository
+	 * 
+	 * @param file
+	 *            VCF file
+	 * @param entityName
+	 *            entity name
+	 * @return VCF repository
+	 * @throws IOException
+	 */
+	protected VcfRepository createRepository(File file, String entityName) throws IOException
+	{
+		return new VcfRepository(file, entityName);
+	}
+
 	@Override
 	public String getName()
 	{
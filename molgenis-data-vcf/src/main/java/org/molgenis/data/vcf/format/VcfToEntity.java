@@ -25,6 +25,8 @@ import org.molgenis.vcf.meta.VcfMetaInfo;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.elasticsearch.common.base.Preconditions.checkNotNull;
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
@@ -55,6 +57,14 @@ public class VcfToEntity
 	private final EntityMetaData entityMetaData;
 	private final EntityMetaData sampleEntityMetaData;
 	private final VcfMeta vcfMeta;
+	/**
+	 * INFO field mappings by INFO field name, compiled once for the INFO fields in the header
+	 */
+	private final Map<String, InfoFieldMapping> infoFieldMappings = new ConcurrentHashMap<>();
+	/**
+	 * Names of the attributes of INFO flag fields that are false unless the flag is present in a record
+	 */
+	private final List<String> flagAttributeNames = new ArrayList<>();
 
 	public VcfToEntity(String entityName, VcfMeta vcfMeta)
 	{
@@ -62,6 +72,16 @@ public class VcfToEntity
 		sampleEntityMetaData = createSampleEntityMetaData(checkNotNull(entityName),
 				checkNotNull(vcfMeta.getFormatMeta()));
 		entityMetaData = createEntityMetaData(entityName, vcfMeta);
+
+		for (VcfMetaInfo info : vcfMeta.getInfoMeta())
+		{
+			InfoFieldMapping infoFieldMapping = createInfoFieldMapping(info.getId());
+			infoFieldMappings.put(info.getId(), infoFieldMapping);
+			if (info.getType().equals(VcfMetaInfo.Type.FLAG))
+			{
+				flagAttributeNames.add(infoFieldMapping.getAttributeName());
+			}
+		}
 	}
 
 	private EntityMetaData createSampleEntityMetaData(String entityName, Iterable<VcfMetaFormat> formatMetaData)
@@ -307,35 +327,13 @@ public class VcfToEntity
 	protected void writeInfoFieldsToEntity(VcfRecord vcfRecord, Entity entity)
 	{
 		// set all flag fields default on false.
-		for (VcfMetaInfo info : vcfMeta.getInfoMeta())
+		for (String flagAttributeName : flagAttributeNames)
 		{
-			String postFix = "";
-			List<String> names = new ArrayList<>();
-			for (AttributeMetaData attributeMetaData : entityMetaData.getAttributes())
-			{
-				if (attributeMetaData.getName().equals(info.getId()))
-				{
-					names.add(attributeMetaData.getName());
-				}
-			}
-			if (names.contains(info.getId())) postFix = "_" + entity.getEntityMetaData().getName();
-			if (info.getType().equals(VcfMetaInfo.Type.FLAG))
-			{
-				entity.set(info.getId() + postFix, false);
-			}
+			entity.set(flagAttributeName, false);
 		}
 
 		for (VcfInfo vcfInfo : vcfRecord.getInformation())
 		{
-			String postFix = "";
-			List<String> names = new ArrayList<>();
-			for (AttributeMetaData attributeMetaData : entityMetaData.getAttributes())
-			{
-				if (attributeMetaData.getName().equals(vcfInfo.getKey()))
-				{
-					names.add(attributeMetaData.getName());
-				}
-			}
 			if (vcfInfo.getKey().equals("."))
 			{
 				continue;
@@ -350,27 +348,66 @@ public class VcfToEntity
 			{
 				val = null;
 			}
-			// if a flag field exists in the line, then this field is true, although the value is null
 
-			if (val == null)
+			InfoFieldMapping infoFieldMapping = infoFieldMappings.computeIfAbsent(vcfInfo.getKey(),
+					this::createInfoFieldMapping);
+			if (val != null)
 			{
-				if (names.contains(vcfInfo.getKey()))
-				{
-					postFix = "_" + entity.getEntityMetaData().getName();
-				}
-				if (!(vcfInfo.getKey() + postFix).equals(".")
-						&& entityMetaData.getAttribute(vcfInfo.getKey() + postFix) != null
-						&& entityMetaData.getAttribute(vcfInfo.getKey() + postFix).getDataType().getEnumType()
-								.equals(MolgenisFieldTypes.FieldTypeEnum.BOOL))
-				{
-					val = true;
-				}
+				entity.set(infoFieldMapping.getAttributeName(), val);
 			}
-			if (val != null)
+			else if (infoFieldMapping.isFlag())
+			{
+				// if a flag field exists in the line, then this field is true, although the value is null
+				entity.set(infoFieldMapping.getAttributeName(), true);
+			}
+		}
+	}
+
+	/**
+	 * Creates the mapping of an INFO field to the attribute that stores the field value. The attribute name is
+	 * postfixed with the entity name if the INFO field name equals the name of one of the entity attributes.
+	 */
+	private InfoFieldMapping createInfoFieldMapping(String infoKey)
+	{
+		String attributeName = infoKey;
+		for (AttributeMetaData attributeMetaData : entityMetaData.getAttributes())
+		{
+			if (attributeMetaData.getName().equals(infoKey))
 			{
-				entity.set(vcfInfo.getKey() + postFix, val);
+				attributeName = infoKey + "_" + entityMetaData.getName();
+				break;
 			}
 		}
+
+		AttributeMetaData attribute = !attributeName.equals(".") ? entityMetaData.getAttribute(attributeName) : null;
+		boolean flag = attribute != null
+				&& attribute.getDataType().getEnumType().equals(MolgenisFieldTypes.FieldTypeEnum.BOOL);
+		return new InfoFieldMapping(attributeName, flag);
+	}
+
+	/**
+	 * Mapping of an INFO field to an entity attribute
+	 */
+	private static class InfoFieldMapping
+	{
+		private final String attributeName;
+		private final boolean flag;
+
+		public InfoFieldMapping(String attributeName, boolean flag)
+		{
+			this.attributeName = attributeName;
+			this.flag = flag;
+		}
+
+		public String getAttributeName()
+		{
+			return attributeName;
+		}
+
+		public boolean isFlag()
+		{
+			return flag;
+		}
 	}
 
 	public EntityMetaData getEntityMetaData()
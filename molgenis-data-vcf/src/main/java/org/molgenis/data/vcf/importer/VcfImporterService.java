@@ -1,5 +1,6 @@
 package org.molgenis.data.vcf.importer;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
@@ -33,7 +34,6 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Objects.requireNonNull;
 
@@ -42,6 +42,11 @@ public class VcfImporterService implements ImportService
 {
 	private static final Logger LOG = LoggerFactory.getLogger(VcfImporterService.class);
 	private static final int BATCH_SIZE = 10000;
+	/**
+	 * Maximum number of vcf entities per batch, small batches allow validation to look up the samples of the batch
+	 * instead of all samples
+	 */
+	private static final int VCF_BATCH_SIZE = 1000;
 	private static final String BACKEND = ElasticsearchRepositoryCollection.NAME;
 
 	private final DataService dataService;
@@ -179,9 +184,8 @@ public class VcfImporterService implements ImportService
 			addedEntities.add(sampleAttribute.getRefEntity());
 		}
 
-		Iterator<Entity> inIterator = inRepository.iterator();
+		int vcfEntityCount = 0;
 		int sampleEntityCount = 0;
-		List<Entity> sampleEntities = new ArrayList<>();
 		try (Repository outRepository = dataService.getMeta().addEntityMeta(entityMetaData))
 		{
 			permissionSystemService.giveUserEntityPermissions(SecurityContextHolder.getContext(),
@@ -189,62 +193,87 @@ public class VcfImporterService implements ImportService
 
 			addedEntities.add(entityMetaData);
 
-			if (sampleRepository != null)
+			// parse the vcf once, write the samples of a batch of vcf entities before the vcf entities that refer to
+			// them
+			List<Entity> vcfEntities = new ArrayList<>(VCF_BATCH_SIZE);
+			List<Entity> sampleEntities = new ArrayList<>();
+			for (Iterator<Entity> inIterator = inRepository.iterator(); inIterator.hasNext();)
 			{
-				while (inIterator.hasNext())
-				{
-					Entity entity = inIterator.next();
+				Entity entity = inIterator.next();
+				vcfEntities.add(entity);
 
+				if (sampleRepository != null)
+				{
 					Iterable<Entity> samples = entity.getEntities(VcfRepository.SAMPLES);
 					if (samples != null)
 					{
-						Iterator<Entity> sampleIterator = samples.iterator();
-						while (sampleIterator.hasNext())
-						{
-							sampleEntities.add(sampleIterator.next());
-
-							if (sampleEntities.size() == BATCH_SIZE)
-							{
-								sampleRepository.add(sampleEntities.stream());
-								sampleEntityCount += sampleEntities.size();
-								sampleEntities.clear();
-							}
-						}
+						Iterables.addAll(sampleEntities, samples);
 					}
-
 				}
 
-				if (!sampleEntities.isEmpty())
-				{
-					sampleRepository.add(sampleEntities.stream());
-					sampleEntityCount += sampleEntities.size();
-				}
-
-				sampleRepository.flush();
-
-				report.addNewEntity(sampleRepository.getName());
-				if (sampleEntityCount > 0)
+				if (vcfEntities.size() == VCF_BATCH_SIZE || sampleEntities.size() >= BATCH_SIZE)
 				{
-					report.addEntityCount(sampleRepository.getName(), sampleEntityCount);
+					sampleEntityCount += addSampleEntities(sampleRepository, sampleEntities);
+					vcfEntityCount += addVcfEntities(outRepository, vcfEntities);
 				}
 			}
+			sampleEntityCount += addSampleEntities(sampleRepository, sampleEntities);
+			vcfEntityCount += addVcfEntities(outRepository, vcfEntities);
+		}
 
-			AtomicInteger vcfEntityCount = new AtomicInteger();
-			outRepository.add(inRepository.stream().filter(entity -> {
-				vcfEntityCount.incrementAndGet();
-				return true;
-			}));
-			if (vcfEntityCount.get() > 0)
+		// the validation of the vcf entities retrieves the samples by id, which does not require a flush
+		if (sampleEntityCount > 0)
+		{
+			sampleRepository.flush();
+		}
+
+		if (sampleRepository != null)
+		{
+			report.addNewEntity(sampleRepository.getName());
+			if (sampleEntityCount > 0)
 			{
-				report.addEntityCount(entityName, vcfEntityCount.get());
+				report.addEntityCount(sampleRepository.getName(), sampleEntityCount);
 			}
 		}
-
+		if (vcfEntityCount > 0)
+		{
+			report.addEntityCount(entityName, vcfEntityCount);
+		}
 		report.addNewEntity(entityName);
 
 		return report;
 	}
 
+	/**
+	 * Adds sample entities before the vcf entities that refer to them
+	 * 
+	 * @return number of added sample entities
+	 */
+	private static int addSampleEntities(Repository sampleRepository, List<Entity> sampleEntities)
+	{
+		int count = sampleEntities.size();
+		if (count > 0)
+		{
+			sampleRepository.add(sampleEntities.stream());
+			sampleEntities.clear();
+		}
+		return count;
+	}
+
+	/**
+	 * @return number of added vcf entities
+	 */
+	private static int addVcfEntities(Repository outRepository, List<Entity> vcfEntities)
+	{
+		int count = vcfEntities.size();
+		if (count > 0)
+		{
+			outRepository.add(vcfEntities.stream());
+			vcfEntities.clear();
+		}
+		return count;
+	}
+
 	@Override
 	public int getOrder()
 	{
@@ -0,0 +1,55 @@
+package org.molgenis.data.vcf;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.molgenis.vcf.VcfReader;
+import org.springframework.util.FileCopyUtils;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class VcfReaderFactoryImplTest
+{
+	private static File testdata;
+
+	@BeforeClass
+	public static void beforeClass() throws IOException
+	{
+		InputStream in_data = VcfReaderFactoryImplTest.class.getResourceAsStream("/testdata.vcf");
+		testdata = new File(FileUtils.getTempDirectory(), "testdata.vcf");
+		FileCopyUtils.copy(in_data, new FileOutputStream(testdata));
+	}
+
+	@Test
+	public void closedReadersAreRemoved() throws IOException
+	{
+		try (VcfReaderFactoryImpl vcfReaderFactory = new VcfReaderFactoryImpl(testdata))
+		{
+			VcfReader reader0 = vcfReaderFactory.get();
+			VcfReader reader1 = vcfReaderFactory.get();
+			assertEquals(vcfReaderFactory.getNrOpenReaders(), 2);
+
+			reader0.close();
+			assertEquals(vcfReaderFactory.getNrOpenReaders(), 1);
+
+			reader1.close();
+			assertEquals(vcfReaderFactory.getNrOpenReaders(), 0);
+		}
+	}
+
+	@Test
+	public void closeClosesOpenReaders() throws IOException
+	{
+		VcfReaderFactoryImpl vcfReaderFactory = new VcfReaderFactoryImpl(testdata);
+		vcfReaderFactory.get();
+		vcfReaderFactory.get();
+
+		vcfReaderFactory.close();
+		assertEquals(vcfReaderFactory.getNrOpenReaders(), 0);
+	}
+}
@@ -155,4 +155,38 @@ public class VcfRepositoryTest
 		}
 	}
 
+	@Test
+	public void count() throws IOException
+	{
+		RepositoryCollection collection = new VcfRepositoryCollection(testdata);
+		VcfRepository vcfRepository = (VcfRepository) collection.getRepository("testdata");
+		try
+		{
+			assertEquals(vcfRepository.count(), 7);
+			assertEquals(vcfRepository.count(), 7);
+		}
+		finally
+		{
+			vcfRepository.close();
+		}
+	}
+
+	@Test
+	public void countAfterIteration() throws IOException
+	{
+		RepositoryCollection collection = new VcfRepositoryCollection(testdata);
+		VcfRepository vcfRepository = (VcfRepository) collection.getRepository("testdata");
+		try
+		{
+			for (Iterator<Entity> it = vcfRepository.iterator(); it.hasNext();)
+			{
+				it.next();
+			}
+			assertEquals(vcfRepository.count(), 7);
+		}
+		finally
+		{
+			vcfRepository.close();
+		}
+	}
 }
@@ -35,6 +35,8 @@ public class VcfToEntityTest
 {
 	private VcfToEntity vcfToEntitySmall;
 	private VcfMeta vcfMetaSmall;
+	private VcfToEntity vcfToEntityPostfix;
+	private VcfMeta vcfMetaPostfix;
 
 	private static VcfMeta parseHeaders(String headers) throws IOException
 	{
@@ -57,6 +59,14 @@ public class VcfToEntityTest
 				+ "#CHROM	POS	ID	REF	ALT	QUAL	FILTER	INFO\n";
 		vcfMetaSmall = parseHeaders(headersSmall);
 		vcfToEntitySmall = new VcfToEntity("EntityNameSmall", vcfMetaSmall);
+
+		// INFO fields with the same name as a top-level attribute
+		String headersPostfix = "##fileformat=VCFv4.1\n" + "##contig=<ID=1,length=249240621>\n"
+				+ "##INFO=<ID=ID,Number=0,Type=Flag,Description=\"Flag field with attribute name\">\n"
+				+ "##INFO=<ID=QUAL,Number=1,Type=Integer,Description=\"Integer field with attribute name\">\n"
+				+ "#CHROM	POS	ID	REF	ALT	QUAL	FILTER	INFO\n";
+		vcfMetaPostfix = parseHeaders(headersPostfix);
+		vcfToEntityPostfix = new VcfToEntity("EntityNamePostfix", vcfMetaPostfix);
 	}
 
 	@Test
@@ -132,4 +142,77 @@ public class VcfToEntityTest
 		expected.set("DF2", true);
 		assertEquals(entity, expected);
 	}
+
+	@Test
+	public void testToEntityFlagsAbsent() throws IOException
+	{
+		VcfRecord record = new VcfRecord(vcfMetaSmall, new String[]
+		{ "10", "12345", "id3", "A", "C", "7.9123", "pass", "NS=3" });
+		Entity entity = vcfToEntitySmall.toEntity(record);
+		Entity expected = new MapEntity(vcfToEntitySmall.getEntityMetaData());
+		expected.set("#CHROM", "10");
+		expected.set("ALT", "C");
+		expected.set("POS", 12345);
+		expected.set("REF", "A");
+		expected.set("FILTER", "pass");
+		expected.set("QUAL", "7.9123");
+		expected.set("ID", "id3");
+		expected.set("INTERNAL_ID", entity.get("INTERNAL_ID"));
+		expected.set("NS", 3);
+		expected.set("DF", false);
+		expected.set("DF2", false);
+		assertEquals(entity, expected);
+	}
+
+	@Test
+	public void testToEntityNoInfo() throws IOException
+	{
+		VcfRecord record = new VcfRecord(vcfMetaSmall, new String[]
+		{ "10", "12345", "id3", "A", "C", "7.9123", "pass", "." });
+		Entity entity = vcfToEntitySmall.toEntity(record);
+		assertEquals(entity.get("NS"), null);
+		assertEquals(entity.get("DF"), false);
+		assertEquals(entity.get("DF2"), false);
+	}
+
+	@Test
+	public void testGetEntityMetaDataPostfix()
+	{
+		EntityMetaData entityMetaData = vcfToEntityPostfix.getEntityMetaData();
+		assertEquals(entityMetaData.getAttribute("ID_EntityNamePostfix").getDataType().getEnumType(),
+				MolgenisFieldTypes.FieldTypeEnum.BOOL);
+		assertEquals(entityMetaData.getAttribute("QUAL_EntityNamePostfix").getDataType().getEnumType(),
+				MolgenisFieldTypes.FieldTypeEnum.INT);
+	}
+
+	@Test
+	public void testToEntityPostfix() throws IOException
+	{
+		VcfRecord record = new VcfRecord(vcfMetaPostfix, new String[]
+		{ "10", "12345", "id3", "A", "C", "7.9123", "pass", "ID;QUAL=5" });
+		Entity entity = vcfToEntityPostfix.toEntity(record);
+		Entity expected = new MapEntity(vcfToEntityPostfix.getEntityMetaData());
+		expected.set("#CHROM", "10");
+		expected.set("ALT", "C");
+		expected.set("POS", 12345);
+		expected.set("REF", "A");
+		expected.set("FILTER", "pass");
+		expected.set("QUAL", "7.9123");
+		expected.set("ID", "id3");
+		expected.set("INTERNAL_ID", entity.get("INTERNAL_ID"));
+		expected.set("ID_EntityNamePostfix", true);
+		expected.set("QUAL_EntityNamePostfix", 5);
+		assertEquals(entity, expected);
+	}
+
+	@Test
+	public void testToEntityPostfixFlagAbsent() throws IOException
+	{
+		VcfRecord record = new VcfRecord(vcfMetaPostfix, new String[]
+		{ "10", "12345", "id3", "A", "C", "7.9123", "pass", "." });
+		Entity entity = vcfToEntityPostfix.toEntity(record);
+		assertEquals(entity.get("ID"), "id3");
+		assertEquals(entity.get("ID_EntityNamePostfix"), false);
+		assertEquals(entity.get("QUAL_EntityNamePostfix"), null);
+	}
 }
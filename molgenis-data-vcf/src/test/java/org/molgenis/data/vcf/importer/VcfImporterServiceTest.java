@@ -3,6 +3,7 @@ package org.molgenis.data.vcf.importer;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.molgenis.data.AttributeMetaData;
@@ -24,6 +25,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -38,7 +40,9 @@ import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -189,6 +193,14 @@ public class VcfImporterServiceTest
 		expectedEntityImportReport.addEntityCount(entityName0, entities.size());
 		assertEquals(entityImportReport, expectedEntityImportReport);
 
+		// samples are added before the vcf entities that refer to them, the vcf is parsed once
+		InOrder inOrder = inOrder(outSampleRepo0, outRepo0);
+		inOrder.verify(outSampleRepo0).add(any(Stream.class));
+		inOrder.verify(outRepo0).add(any(Stream.class));
+		inOrder.verify(outSampleRepo0).flush();
+		verify(repo0, times(1)).iterator();
+		verify(repo0, never()).stream();
+
 		verify(metaDataService, times(1)).addEntityMeta(argThat(eqName(sampleEntityMeta0)));
 		verify(metaDataService, times(1)).addEntityMeta(argThat(eqName(entityMeta0)));
 		verify(permissionSystemService, times(1)).giveUserEntityPermissions(securityContext,
@@ -197,6 +209,67 @@ public class VcfImporterServiceTest
 				singletonList(sampleEntityName0));
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void doImportVcfWithSamplesMultipleBatches()
+	{
+		String entityName0 = "entity0";
+		List<String> entityNames = Arrays.asList(entityName0);
+
+		String sampleEntityName0 = "entity0sample";
+		EntityMetaData sampleEntityMeta0 = mock(EntityMetaData.class);
+		when(sampleEntityMeta0.getName()).thenReturn(sampleEntityName0);
+		when(sampleEntityMeta0.getSimpleName()).thenReturn(sampleEntityName0);
+		when(sampleEntityMeta0.getOwnAttributes()).thenReturn(emptyList());
+		when(sampleEntityMeta0.getOwnLookupAttributes()).thenReturn(emptyList());
+		Repository outSampleRepo0 = mock(Repository.class);
+		when(outSampleRepo0.getName()).thenReturn(sampleEntityName0);
+		when(metaDataService.addEntityMeta(argThat(eqName(sampleEntityMeta0)))).thenReturn(outSampleRepo0);
+
+		AttributeMetaData sampleAttr = mock(AttributeMetaData.class);
+		when(sampleAttr.getName()).thenReturn(VcfRepository.SAMPLES);
+		when(sampleAttr.getRefEntity()).thenReturn(sampleEntityMeta0);
+		when(sampleAttr.getDataType()).thenReturn(MREF);
+		EntityMetaData entityMeta0 = mock(EntityMetaData.class);
+		when(entityMeta0.getName()).thenReturn(entityName0);
+		when(entityMeta0.getSimpleName()).thenReturn(entityName0);
+		when(entityMeta0.getAttribute(VcfRepository.SAMPLES)).thenReturn(sampleAttr);
+		when(entityMeta0.getOwnAttributes()).thenReturn(singletonList(sampleAttr));
+		when(entityMeta0.getOwnLookupAttributes()).thenReturn(emptyList());
+
+		// two batches of vcf entities with one sample each
+		int nrEntities = 1001;
+		List<Entity> entities = new ArrayList<>(nrEntities);
+		for (int i = 0; i < nrEntities; ++i)
+		{
+			Entity entity = mock(Entity.class);
+			when(entity.getEntities(VcfRepository.SAMPLES)).thenReturn(singletonList(mock(Entity.class)));
+			entities.add(entity);
+		}
+		Repository repo0 = mock(Repository.class);
+		when(repo0.getName()).thenReturn(entityName0);
+		when(repo0.getEntityMetaData()).thenReturn(entityMeta0);
+		when(repo0.iterator()).thenReturn(entities.iterator());
+		when(dataService.hasRepository(entityName0)).thenReturn(false);
+		Repository outRepo0 = mock(Repository.class);
+		when(metaDataService.addEntityMeta(argThat(eqName(entityMeta0)))).thenReturn(outRepo0);
+		RepositoryCollection source = mock(RepositoryCollection.class);
+		when(source.getEntityNames()).thenReturn(entityNames);
+		when(source.getRepository(entityName0)).thenReturn(repo0);
+		EntityImportReport entityImportReport = vcfImporterService.doImport(source, DatabaseAction.ADD, "package");
+		assertEquals(entityImportReport.getNrImportedEntitiesMap().get(sampleEntityName0), Integer.valueOf(nrEntities));
+		assertEquals(entityImportReport.getNrImportedEntitiesMap().get(entityName0), Integer.valueOf(nrEntities));
+
+		// the samples are flushed once after all batches are added
+		InOrder inOrder = inOrder(outSampleRepo0, outRepo0);
+		inOrder.verify(outSampleRepo0).add(any(Stream.class));
+		inOrder.verify(outRepo0).add(any(Stream.class));
+		inOrder.verify(outSampleRepo0).add(any(Stream.class));
+		inOrder.verify(outRepo0).add(any(Stream.class));
+		inOrder.verify(outSampleRepo0).flush();
+		verify(outSampleRepo0, times(1)).flush();
+	}
+
 	@Test(expectedExceptions = MolgenisDataException.class)
 	public void doImportAlreadyExists()
 	{
@@ -17,6 +17,7 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.molgenis.data.support.LazyEntity;
+import org.molgenis.data.support.LazyEntityResolver;
 import org.molgenis.data.support.PartialEntity;
 import org.molgenis.fieldtypes.FieldType;
 import org.molgenis.fieldtypes.MrefField;
@@ -47,7 +48,13 @@ public class EntityManagerImpl implements EntityManager
 	@Override
 	public Entity getReference(EntityMetaData entityMeta, Object id)
 	{
-		return new LazyEntity(entityMeta, dataService, id);
+		LazyEntityResolver lazyEntityResolver = LazyEntityResolver.getRequestResolver(dataService);
+		if (lazyEntityResolver == null)
+		{
+			return new LazyEntity(entityMeta, dataService, id);
+		}
+		lazyEntityResolver.register(entityMeta, id);
+		return new LazyEntity(entityMeta, dataService, lazyEntityResolver, id);
 	}
 
 	@Override
@@ -15,19 +15,28 @@ import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.transaction.EntityVersionService;
 
 /**
  * Decorator for the I18nString respository.
  * 
- * Clears the ResourceBundle cache after an update
+ * Clears the ResourceBundle cache and increases the entity version after an update
  */
 public class I18nStringDecorator implements Repository
 {
 	private final Repository decorated;
+	private final EntityVersionService entityVersionService;
 
-	public I18nStringDecorator(Repository decorated)
+	/**
+	 * @param decorated
+	 *            decorated repository
+	 * @param entityVersionService
+	 *            entity version service or null if versions are not kept
+	 */
+	public I18nStringDecorator(Repository decorated, EntityVersionService entityVersionService)
 	{
 		this.decorated = decorated;
+		this.entityVersionService = entityVersionService;
 	}
 
 	@Override
@@ -130,63 +139,63 @@ public class I18nStringDecorator implements Repository
 	public void update(Entity entity)
 	{
 		decorated.update(entity);
-		ResourceBundle.clearCache();
+		changed();
 	}
 
 	@Override
 	public void update(Stream<? extends Entity> records)
 	{
 		decorated.update(records);
-		ResourceBundle.clearCache();
+		changed();
 	}
 
 	@Override
 	public void delete(Entity entity)
 	{
 		decorated.delete(entity);
-		ResourceBundle.clearCache();
+		changed();
 	}
 
 	@Override
 	public void delete(Stream<? extends Entity> entities)
 	{
 		decorated.delete(entities);
-		ResourceBundle.clearCache();
+		changed();
 	}
 
 	@Override
 	public void deleteById(Object id)
 	{
 		decorated.deleteById(id);
-		ResourceBundle.clearCache();
+		changed();
 	}
 
 	@Override
 	public void deleteById(Stream<Object> ids)
 	{
 		decorated.deleteById(ids);
-		ResourceBundle.clearCache();
+		changed();
 	}
 
 	@Override
 	public void deleteAll()
 	{
 		decorated.deleteAll();
-		ResourceBundle.clearCache();
+		changed();
 	}
 
 	@Override
 	public void add(Entity entity)
 	{
 		decorated.add(entity);
-		ResourceBundle.clearCache();
+		changed();
 	}
 
 	@Override
 	public Integer add(Stream<? extends Entity> entities)
 	{
 		Integer result = decorated.add(entities);
-		ResourceBundle.clearCache();
+		changed();
 
 		return result;
 	}
@@ -214,7 +223,7 @@ public class I18nStringDecorator implements Repository
 	public void drop()
 	{
 		decorated.drop();
-		ResourceBundle.clearCache();
+		changed();
 	}
 
 	@Override
@@ -235,4 +244,10 @@ public class I18nStringDecorator implements Repository
 	{
 		decorated.removeEntityListener(entityListener);
 	}
+
+	private void changed()
+	{
+		ResourceBundle.clearCache();
+		if (entityVersionService != null) entityVersionService.increment(getName());
+	}
 }
@@ -21,16 +21,32 @@ import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.meta.AttributeMetaDataMetaData;
 import org.molgenis.data.meta.EntityMetaDataMetaData;
 import org.molgenis.data.support.DefaultAttributeMetaData;
+import org.molgenis.data.transaction.EntityVersionService;
 
+/**
+ * Decorator for the language repository that adds and removes the language attributes of the meta data and increases
+ * the entity version after an update
+ */
 public class LanguageRepositoryDecorator implements Repository
 {
 	private final Repository decorated;
 	private final DataService dataService;
-
-	public LanguageRepositoryDecorator(Repository decorated, DataService dataService)
+	private final EntityVersionService entityVersionService;
+
+	/**
+	 * @param decorated
+	 *            decorated repository
+	 * @param dataService
+	 *            data service
+	 * @param entityVersionService
+	 *            entity version service or null if versions are not kept
+	 */
+	public LanguageRepositoryDecorator(Repository decorated, DataService dataService,
+			EntityVersionService entityVersionService)
 	{
 		this.decorated = decorated;
 		this.dataService = dataService;
+		this.entityVersionService = entityVersionService;
 	}
 
 	@Override
@@ -133,12 +149,14 @@ public class LanguageRepositoryDecorator implements Repository
 	public void update(Entity entity)
 	{
 		decorated.update(entity);
+		incrementVersion();
 	}
 
 	@Override
 	public void update(Stream<? extends Entity> entities)
 	{
 		decorated.update(entities);
+		incrementVersion();
 	}
 
 	@Override
@@ -192,6 +210,7 @@ public class LanguageRepositoryDecorator implements Repository
 		// Delete language attribute from I18nStringMetaData
 		dataService.getMeta().getDefaultBackend().deleteAttribute(I18nStringMetaData.ENTITY_NAME, languageCode);
 		I18nStringMetaData.INSTANCE.removeLanguage(languageCode);
+		incrementVersion();
 	}
 
 	@Override
@@ -262,6 +281,7 @@ public class LanguageRepositoryDecorator implements Repository
 			dataService.getMeta().getDefaultBackend().addAttribute(I18nStringMetaData.ENTITY_NAME,
 					I18nStringMetaData.INSTANCE.getAttribute(languageCode));
 		}
+		incrementVersion();
 	}
 
 	@Override
@@ -317,4 +337,8 @@ public class LanguageRepositoryDecorator implements Repository
 		decorated.removeEntityListener(entityListener);
 	}
 
+	private void incrementVersion()
+	{
+		if (entityVersionService != null) entityVersionService.increment(getName());
+	}
 }
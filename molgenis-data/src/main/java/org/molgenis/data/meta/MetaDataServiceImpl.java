@@ -37,6 +37,7 @@ import org.molgenis.data.support.DataServiceImpl;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.NonDecoratingRepositoryDecoratorFactory;
+import org.molgenis.data.transaction.EntityVersionService;
 import org.molgenis.security.core.Permission;
 import org.molgenis.security.core.runas.RunAsSystem;
 import org.molgenis.security.core.runas.RunAsSystemProxy;
@@ -78,6 +79,7 @@ public class MetaDataServiceImpl implements MetaDataService
 	private final DataServiceImpl dataService;
 	private TransactionTemplate transactionTemplate;
 	private LanguageService languageService;
+	private EntityVersionService entityVersionService;
 
 	public MetaDataServiceImpl(DataServiceImpl dataService)
 	{
@@ -90,6 +92,12 @@ public class MetaDataServiceImpl implements MetaDataService
 		this.languageService = languageService;
 	}
 
+	@Autowired(required = false)
+	public void setEntityVersionService(EntityVersionService entityVersionService)
+	{
+		this.entityVersionService = entityVersionService;
+	}
+
 	@Autowired
 	public void setPlatformTransactionManager(PlatformTransactionManager transactionManager)
 	{
@@ -126,10 +134,10 @@ public class MetaDataServiceImpl implements MetaDataService
 	private void bootstrapMetaRepos()
 	{
 		Repository languageRepo = defaultBackend.addEntityMeta(LanguageMetaData.INSTANCE);
-		dataService.addRepository(new LanguageRepositoryDecorator(languageRepo, dataService));
+		dataService.addRepository(new LanguageRepositoryDecorator(languageRepo, dataService, entityVersionService));
 
 		Repository i18StringsRepo = defaultBackend.addEntityMeta(I18nStringMetaData.INSTANCE);
-		dataService.addRepository(new I18nStringDecorator(i18StringsRepo));
+		dataService.addRepository(new I18nStringDecorator(i18StringsRepo, entityVersionService));
 
 		Supplier<Stream<String>> languageCodes = () -> languageService.getLanguageCodes().stream();
 
@@ -200,6 +208,7 @@ public class MetaDataServiceImpl implements MetaDataService
 			entityMetaDataRepository.delete(entityName);
 			if (dataService.hasRepository(entityName)) dataService.removeRepository(entityName);
 			deleteEntityPermissions(entityName);
+			incrementVersion(entityName);
 
 			return null;
 		});
@@ -250,6 +259,7 @@ public class MetaDataServiceImpl implements MetaDataService
 		entityMetaDataRepository.removeAttribute(entityName, attributeName);
 		EntityMetaData emd = getEntityMetaData(entityName);
 		if (emd != null) getManageableRepositoryCollection(emd).deleteAttribute(entityName, attributeName);
+		incrementVersion(entityName);
 	}
 
 	private ManageableRepositoryCollection getManageableRepositoryCollection(EntityMetaData emd)
@@ -312,6 +322,7 @@ public class MetaDataServiceImpl implements MetaDataService
 		Repository decoratedRepo = decoratorFactory.createDecoratedRepository(repo);
 
 		dataService.addRepository(decoratedRepo);
+		incrementVersion(emd.getName());
 
 		// Return decorated repo
 		return dataService.getRepository(emd.getName());
@@ -333,6 +344,7 @@ public class MetaDataServiceImpl implements MetaDataService
 
 		EntityMetaData emd = entityMetaDataRepository.addAttribute(fullyQualifiedEntityName, attr);
 		getManageableRepositoryCollection(emd).addAttribute(fullyQualifiedEntityName, attr);
+		incrementVersion(fullyQualifiedEntityName);
 	}
 
 	@Override
@@ -343,6 +355,7 @@ public class MetaDataServiceImpl implements MetaDataService
 
 		EntityMetaData emd = entityMetaDataRepository.addAttribute(fullyQualifiedEntityName, attr);
 		getManageableRepositoryCollection(emd).addAttributeSync(fullyQualifiedEntityName, attr);
+		incrementVersion(fullyQualifiedEntityName);
 	}
 
 	@Override
@@ -499,6 +512,12 @@ public class MetaDataServiceImpl implements MetaDataService
 		if (entityMeta == null) throw new UnknownEntityException("Unknown entity '" + entityName + "'");
 		entityMeta.setBackend(backend);
 		entityMetaDataRepository.update(entityMeta);
+		incrementVersion(entityName);
+	}
+
+	private void incrementVersion(String entityName)
+	{
+		if (entityVersionService != null) entityVersionService.increment(entityName);
 	}
 
 	public void addToEntityMetaDataRepository(EntityMetaData entityMetaData)
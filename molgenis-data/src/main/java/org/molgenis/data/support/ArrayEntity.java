@@ -0,0 +1,453 @@
+package org.molgenis.data.support;
+
+import static com.google.common.collect.FluentIterable.from;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.StreamSupport.stream;
+
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.DataConverter;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.UnknownAttributeException;
+import org.molgenis.data.UnknownEntityException;
+import org.molgenis.fieldtypes.FieldType;
+import org.molgenis.fieldtypes.MrefField;
+import org.molgenis.fieldtypes.XrefField;
+import org.molgenis.util.MolgenisDateFormat;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import com.google.common.collect.Iterables;
+
+/**
+ * Entity that stores its values in an array. The position of a value in the array is the position of the
+ * corresponding attribute in {@link EntityMetaData#getAtomicAttributes()}. Values of attributes that are not part of
+ * the entity meta data are stored in a map.
+ *
+ * Values are converted to the type of the attribute as in {@link DefaultEntity}. The index based getters return
+ * values as stored.
+ */
+public class ArrayEntity extends AbstractEntity
+{
+	private static final long serialVersionUID = 1L;
+
+	private final EntityMetaData entityMetaData;
+	private transient final DataService dataService;
+	private Object[] values;
+	private Map<String, Object> otherValues;
+
+	public ArrayEntity(EntityMetaData entityMetaData)
+	{
+		this(entityMetaData, null);
+	}
+
+	/**
+	 * @param entityMetaData
+	 *            entity meta data
+	 * @param dataService
+	 *            data service used to retrieve referenced entities by id and to convert referenced entities to entity
+	 *            classes (can be null)
+	 */
+	public ArrayEntity(EntityMetaData entityMetaData, DataService dataService)
+	{
+		this.entityMetaData = requireNonNull(entityMetaData);
+		this.dataService = dataService;
+		this.values = new Object[getAtomicAttributeCount(entityMetaData)];
+	}
+
+	@Override
+	public EntityMetaData getEntityMetaData()
+	{
+		return entityMetaData;
+	}
+
+	@Override
+	public Iterable<String> getAttributeNames()
+	{
+		return EntityMetaDataUtils.getAttributeNames(entityMetaData.getAtomicAttributes());
+	}
+
+	@Override
+	public Object getIdValue()
+	{
+		AttributeMetaData idAttr = entityMetaData.getIdAttribute();
+		return idAttr != null ? get(idAttr.getName()) : null;
+	}
+
+	@Override
+	public Object get(String attributeName)
+	{
+		AttributeMetaData attribute = entityMetaData.getAttribute(attributeName);
+		if (attribute == null) throw new UnknownAttributeException(attributeName);
+
+		FieldTypeEnum dataType = attribute.getDataType().getEnumType();
+		switch (dataType)
+		{
+			case BOOL:
+				return getBoolean(attributeName);
+			case CATEGORICAL:
+			case XREF:
+			case FILE:
+				return getEntity(attributeName);
+			case COMPOUND:
+				throw new UnsupportedOperationException();
+			case DATE:
+				return getDate(attributeName);
+			case DATE_TIME:
+				return getUtilDate(attributeName);
+			case DECIMAL:
+				return getDouble(attributeName);
+			case EMAIL:
+			case ENUM:
+			case HTML:
+			case HYPERLINK:
+			case SCRIPT:
+			case STRING:
+			case TEXT:
+				return getString(attributeName);
+			case INT:
+				return getInt(attributeName);
+			case LONG:
+				return getLong(attributeName);
+			case CATEGORICAL_MREF:
+			case MREF:
+				return getEntities(attributeName);
+			default:
+				throw new RuntimeException("Unknown data type [" + dataType + "]");
+		}
+	}
+
+	/**
+	 * Returns the value of the attribute at the given position in {@link EntityMetaData#getAtomicAttributes()} as
+	 * stored
+	 *
+	 * @param attrIdx
+	 *            attribute index
+	 * @return attribute value
+	 */
+	public Object get(int attrIdx)
+	{
+		return attrIdx < values.length ? values[attrIdx] : null;
+	}
+
+	public String getString(int attrIdx)
+	{
+		return DataConverter.toString(get(attrIdx));
+	}
+
+	public Integer getInt(int attrIdx)
+	{
+		return DataConverter.toInt(get(attrIdx));
+	}
+
+	public Long getLong(int attrIdx)
+	{
+		return DataConverter.toLong(get(attrIdx));
+	}
+
+	public Boolean getBoolean(int attrIdx)
+	{
+		return DataConverter.toBoolean(get(attrIdx));
+	}
+
+	public Double getDouble(int attrIdx)
+	{
+		return DataConverter.toDouble(get(attrIdx));
+	}
+
+	@Override
+	public String getString(String attributeName)
+	{
+		AttributeMetaData attribute = entityMetaData.getAttribute(attributeName);
+		if (attribute != null && attribute.getDataType() instanceof XrefField)
+		{
+			return DataConverter.toString(getEntity(attributeName));
+		}
+		return DataConverter.toString(getValue(attributeName));
+	}
+
+	@Override
+	public Integer getInt(String attributeName)
+	{
+		return DataConverter.toInt(getValue(attributeName));
+	}
+
+	@Override
+	public Long getLong(String attributeName)
+	{
+		return DataConverter.toLong(getValue(attributeName));
+	}
+
+	@Override
+	public Boolean getBoolean(String attributeName)
+	{
+		return DataConverter.toBoolean(getValue(attributeName));
+	}
+
+	@Override
+	public Double getDouble(String attributeName)
+	{
+		return DataConverter.toDouble(getValue(attributeName));
+	}
+
+	@Override
+	public List<String> getList(String attributeName)
+	{
+		return DataConverter.toList(getValue(attributeName));
+	}
+
+	@Override
+	public List<Integer> getIntList(String attributeName)
+	{
+		return DataConverter.toIntList(getValue(attributeName));
+	}
+
+	@Override
+	public java.sql.Date getDate(String attributeName)
+	{
+		java.util.Date utilDate = getUtilDate(attributeName);
+		return utilDate != null ? new java.sql.Date(utilDate.getTime()) : null;
+	}
+
+	@Override
+	public java.util.Date getUtilDate(String attributeName)
+	{
+		Object value = getValue(attributeName);
+		if (value == null) return null;
+		if (value instanceof java.util.Date) return (java.util.Date) value;
+
+		try
+		{
+			AttributeMetaData attribute = entityMetaData.getAttribute(attributeName);
+			if (attribute == null) throw new UnknownAttributeException(attributeName);
+
+			FieldTypeEnum dataType = attribute.getDataType().getEnumType();
+			switch (dataType)
+			{
+				case DATE:
+					return MolgenisDateFormat.getDateFormat().parse(value.toString());
+				case DATE_TIME:
+					return MolgenisDateFormat.getDateTimeFormat().parse(value.toString());
+				// $CASES-OMITTED$
+				default:
+					throw new MolgenisDataException("Type [" + dataType + "] is not a date type");
+			}
+		}
+		catch (ParseException e)
+		{
+			throw new MolgenisDataException(e);
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(String attributeName)
+	{
+		java.util.Date utilDate = getUtilDate(attributeName);
+		return utilDate != null ? new Timestamp(utilDate.getTime()) : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Entity getEntity(String attributeName)
+	{
+		Object value = getValue(attributeName);
+		if (value == null) return null;
+		if (value instanceof Entity) return (Entity) value;
+
+		// value represents the id of the referenced entity
+		AttributeMetaData attribute = entityMetaData.getAttribute(attributeName);
+		if (attribute == null) throw new UnknownAttributeException(attributeName);
+
+		if (value instanceof Map)
+			return new DefaultEntity(attribute.getRefEntity(), dataService, (Map<String, Object>) value);
+
+		FieldType dataType = attribute.getDataType();
+		if (!(dataType instanceof XrefField))
+		{
+			throw new MolgenisDataException(
+					"can't use getEntity() on something that's not an xref, categorical or file");
+		}
+
+		value = dataType.convert(value);
+		Entity refEntity = dataService.findOne(attribute.getRefEntity().getName(), value);
+		if (refEntity == null) throw new UnknownEntityException(attribute.getRefEntity().getName() + " with "
+				+ attribute.getRefEntity().getIdAttribute().getName() + " [" + value + "] does not exist");
+
+		return refEntity;
+	}
+
+	@Override
+	public <E extends Entity> E getEntity(String attributeName, Class<E> clazz)
+	{
+		Entity entity = getEntity(attributeName);
+		return entity != null ? new ConvertingIterable<E>(clazz, Arrays.asList(entity), dataService).iterator().next()
+				: null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Iterable<Entity> getEntities(String attributeName)
+	{
+		AttributeMetaData attribute = entityMetaData.getAttribute(attributeName);
+		if (attribute == null) throw new UnknownAttributeException(attributeName);
+
+		FieldType dataType = attribute.getDataType();
+		if (!(dataType instanceof MrefField) && !(dataType instanceof XrefField))
+		{
+			throw new MolgenisDataException(
+					"can't use getEntities() on something that's not an xref, mref, categorical, categorical_mref or file");
+		}
+
+		Iterable<?> ids;
+
+		Object value = getValue(attributeName);
+		if (value instanceof String) ids = getList(attributeName);
+		else if (value instanceof Entity) return Collections.singletonList((Entity) value);
+		else ids = (Iterable<?>) value;
+
+		if ((ids == null) || !ids.iterator().hasNext()) return Collections.emptyList();
+
+		Object firstItem = ids.iterator().next();
+		if (firstItem instanceof Entity) return (Iterable<Entity>) ids;
+
+		if (firstItem instanceof Map)
+		{
+			return stream(ids.spliterator(), false)
+					.map(id -> new DefaultEntity(attribute.getRefEntity(), dataService, (Map<String, Object>) id))
+					.collect(Collectors.toList());
+		}
+		return from(ids).transform(dataType::convert)
+				.transform(convertedId -> (dataService.findOne(attribute.getRefEntity().getName(), convertedId)));
+	}
+
+	@Override
+	public <E extends Entity> Iterable<E> getEntities(String attributeName, Class<E> clazz)
+	{
+		Iterable<Entity> entities = getEntities(attributeName);
+		return new ConvertingIterable<E>(clazz, entities, dataService);
+	}
+
+	@Override
+	public void set(String attributeName, Object value)
+	{
+		int attrIdx = getAttributeIndex(entityMetaData, attributeName);
+		if (attrIdx != -1)
+		{
+			set(attrIdx, value);
+		}
+		else
+		{
+			if (otherValues == null)
+			{
+				otherValues = new LinkedCaseInsensitiveMap<>();
+			}
+			otherValues.put(attributeName, value);
+		}
+	}
+
+	/**
+	 * Sets the value of the attribute at the given position in {@link EntityMetaData#getAtomicAttributes()}
+	 *
+	 * @param attrIdx
+	 *            attribute index
+	 * @param value
+	 *            attribute value
+	 */
+	public void set(int attrIdx, Object value)
+	{
+		if (attrIdx >= values.length)
+		{
+			// attributes were added to the entity meta data after this entity was created
+			values = Arrays.copyOf(values, Math.max(attrIdx + 1, getAtomicAttributeCount(entityMetaData)));
+		}
+		values[attrIdx] = value;
+	}
+
+	@Override
+	public void set(Entity entity)
+	{
+		int attrIdx = 0;
+		for (AttributeMetaData attr : entityMetaData.getAtomicAttributes())
+		{
+			set(attrIdx++, entity.get(attr.getName()));
+		}
+	}
+
+	@Override
+	public int hashCode()
+	{
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + entityMetaData.hashCode();
+		result = prime * result + ((getIdValue() == null) ? 0 : getIdValue().hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (!(obj instanceof Entity)) return false;
+		Entity other = (Entity) obj;
+
+		if (!entityMetaData.equals(other.getEntityMetaData())) return false;
+		if (getIdValue() == null)
+		{
+			if (other.getIdValue() != null) return false;
+		}
+		else if (!getIdValue().equals(other.getIdValue())) return false;
+		return true;
+	}
+
+	/**
+	 * Returns the value of an attribute as stored
+	 */
+	private Object getValue(String attributeName)
+	{
+		int attrIdx = getAttributeIndex(entityMetaData, attributeName);
+		if (attrIdx != -1)
+		{
+			return get(attrIdx);
+		}
+		return otherValues != null ? otherValues.get(attributeName) : null;
+	}
+
+	private static int getAttributeIndex(EntityMetaData entityMeta, String attrName)
+	{
+		if (entityMeta instanceof DefaultEntityMetaData)
+		{
+			return ((DefaultEntityMetaData) entityMeta).getAttributeIndex(attrName);
+		}
+
+		int attrIdx = 0;
+		for (AttributeMetaData attr : entityMeta.getAtomicAttributes())
+		{
+			if (attr.getName().equalsIgnoreCase(attrName))
+			{
+				return attrIdx;
+			}
+			++attrIdx;
+		}
+		return -1;
+	}
+
+	private static int getAtomicAttributeCount(EntityMetaData entityMeta)
+	{
+		if (entityMeta instanceof DefaultEntityMetaData)
+		{
+			return ((DefaultEntityMetaData) entityMeta).getAtomicAttributeCount();
+		}
+		return Iterables.size(entityMeta.getAtomicAttributes());
+	}
+}
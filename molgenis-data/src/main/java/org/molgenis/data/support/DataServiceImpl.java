@@ -158,56 +158,112 @@ public class DataServiceImpl implements DataService
 	@Transactional
 	public void add(String entityName, Entity entity)
 	{
-		getRepository(entityName).add(entity);
+		try
+		{
+			getRepository(entityName).add(entity);
+		}
+		finally
+		{
+			LazyEntityResolver.evictFromRequestResolver(entityName);
+		}
 	}
 
 	@Override
 	@Transactional
 	public void add(String entityName, Stream<? extends Entity> entities)
 	{
-		getRepository(entityName).add(entities);
+		try
+		{
+			getRepository(entityName).add(entities);
+		}
+		finally
+		{
+			LazyEntityResolver.evictFromRequestResolver(entityName);
+		}
 	}
 
 	@Override
 	@Transactional
 	public void update(String entityName, Entity entity)
 	{
-		getRepository(entityName).update(entity);
+		try
+		{
+			getRepository(entityName).update(entity);
+		}
+		finally
+		{
+			LazyEntityResolver.evictFromRequestResolver(entityName);
+		}
 	}
 
 	@Override
 	@Transactional
 	public void update(String entityName, Stream<? extends Entity> entities)
 	{
-		getRepository(entityName).update(entities);
+		try
+		{
+			getRepository(entityName).update(entities);
+		}
+		finally
+		{
+			LazyEntityResolver.evictFromRequestResolver(entityName);
+		}
 	}
 
 	@Override
 	@Transactional
 	public void delete(String entityName, Entity entity)
 	{
-		getRepository(entityName).delete(entity);
+		try
+		{
+			getRepository(entityName).delete(entity);
+		}
+		finally
+		{
+			LazyEntityResolver.evictFromRequestResolver(entityName);
+		}
 	}
 
 	@Override
 	@Transactional
 	public void delete(String entityName, Stream<? extends Entity> entities)
 	{
-		getRepository(entityName).delete(entities);
+		try
+		{
+			getRepository(entityName).delete(entities);
+		}
+		finally
+		{
+			LazyEntityResolver.evictFromRequestResolver(entityName);
+		}
 	}
 
 	@Override
 	@Transactional
 	public void delete(String entityName, Object id)
 	{
-		getRepository(entityName).deleteById(id);
+		try
+		{
+			getRepository(entityName).deleteById(id);
+		}
+		finally
+		{
+			LazyEntityResolver.evictFromRequestResolver(entityName);
+		}
 	}
 
 	@Override
 	@Transactional
 	public void deleteAll(String entityName)
 	{
-		getRepository(entityName).deleteAll();
+		try
+		{
+			getRepository(entityName).deleteAll();
+		}
+		finally
+		{
+			LazyEntityResolver.evictFromRequestResolver(entityName);
+		}
 		LOG.info("All entities of repository [{}] deleted by user [{}]", entityName, getCurrentUsername());
 	}
 
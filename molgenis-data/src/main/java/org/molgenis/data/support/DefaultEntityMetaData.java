@@ -51,6 +51,8 @@ public class DefaultEntityMetaData implements EditableEntityMetaData
 	private transient AttributeMetaData cachedLabelAttr;
 	private transient Map<String, AttributeMetaData> cachedLookupAttrs;
 	private transient Boolean cachedHasAttrWithExpression;
+	private transient Map<String, Integer> cachedAtomicAttrIdxMap;
+	private transient int modificationCount;
 
 	public DefaultEntityMetaData(String simpleName)
 	{
@@ -357,6 +359,40 @@ public class DefaultEntityMetaData implements EditableEntityMetaData
 		return getCachedHasAttrWithExpression();
 	}
 
+	/**
+	 * Returns the position of an atomic attribute in {@link #getAtomicAttributes()}
+	 * 
+	 * @param attrName
+	 *            attribute name (case insensitive)
+	 * @return attribute index or -1 if this entity has no atomic attribute with the given name
+	 */
+	public int getAttributeIndex(String attrName)
+	{
+		Integer attrIdx = getCachedAtomicAttrIdxMap().get(attrName);
+		return attrIdx != null ? attrIdx : -1;
+	}
+
+	/**
+	 * Returns the number of atomic attributes including the atomic attributes of its parent class
+	 * 
+	 * @return number of atomic attributes
+	 */
+	public int getAtomicAttributeCount()
+	{
+		return getCachedAtomicAttrIdxMap().size();
+	}
+
+	/**
+	 * Returns a number that changes each time this entity meta data or one of its attributes is modified. Can be used
+	 * to invalidate data derived from this entity meta data.
+	 * 
+	 * @return modification count
+	 */
+	public int getModificationCount()
+	{
+		return modificationCount;
+	}
+
 	@Override
 	public AttributeMetaData getIdAttribute()
 	{
@@ -539,6 +575,21 @@ public class DefaultEntityMetaData implements EditableEntityMetaData
 		});
 	}
 
+	private Map<String, Integer> getCachedAtomicAttrIdxMap()
+	{
+		if (cachedAtomicAttrIdxMap == null)
+		{
+			Map<String, Integer> atomicAttrIdxMap = new LinkedCaseInsensitiveMap<>();
+			int attrIdx = 0;
+			for (AttributeMetaData attr : getAtomicAttributes())
+			{
+				atomicAttrIdxMap.put(attr.getName(), attrIdx++);
+			}
+			cachedAtomicAttrIdxMap = atomicAttrIdxMap;
+		}
+		return cachedAtomicAttrIdxMap;
+	}
+
 	private AttributeMetaData getCachedIdAttr()
 	{
 		if (cachedIdAttr == null)
@@ -624,6 +675,8 @@ public class DefaultEntityMetaData implements EditableEntityMetaData
 		cachedLabelAttr = null;
 		cachedLookupAttrs = null;
 		cachedHasAttrWithExpression = null;
+		cachedAtomicAttrIdxMap = null;
+		++modificationCount;
 	}
 
 	private static class AttributeChangeListenerImpl implements AttributeChangeListener
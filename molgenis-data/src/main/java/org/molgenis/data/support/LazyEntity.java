@@ -19,14 +19,32 @@ public class LazyEntity implements Entity
 
 	private final EntityMetaData entityMetaData;
 	private final DataService dataService;
+	private final LazyEntityResolver lazyEntityResolver;
 	private final Object id;
 
 	private Entity entity;
 
 	public LazyEntity(EntityMetaData entityMetaData, DataService dataService, Object id)
+	{
+		this(entityMetaData, dataService, null, id);
+	}
+
+	/**
+	 * @param entityMetaData
+	 *            referenced entity meta data
+	 * @param dataService
+	 *            data service
+	 * @param lazyEntityResolver
+	 *            resolver that loads this reference together with other references, may be null
+	 * @param id
+	 *            referenced entity id
+	 */
+	public LazyEntity(EntityMetaData entityMetaData, DataService dataService, LazyEntityResolver lazyEntityResolver,
+			Object id)
 	{
 		this.entityMetaData = requireNonNull(entityMetaData);
 		this.dataService = requireNonNull(dataService);
+		this.lazyEntityResolver = lazyEntityResolver;
 		this.id = requireNonNull(id);
 	}
 
@@ -184,7 +202,14 @@ public class LazyEntity implements Entity
 	{
 		if (entity == null)
 		{
-			entity = dataService.findOne(getEntityMetaData().getName(), id);
+			if (lazyEntityResolver != null)
+			{
+				entity = lazyEntityResolver.resolve(getEntityMetaData(), id);
+			}
+			else
+			{
+				entity = dataService.findOne(getEntityMetaData().getName(), id);
+			}
 			if (entity == null)
 			{
 				throw new UnknownEntityException("entity [" + getEntityMetaData().getName() + "] with "
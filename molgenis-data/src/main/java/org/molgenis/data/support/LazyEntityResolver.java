@@ -0,0 +1,218 @@
+package org.molgenis.data.support;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Loads the entities of {@link LazyEntity} references in batches. References are registered when they are created,
+ * the first access of a reference loads all registered references of the same entity in one query. Loaded entities are
+ * kept in an identity map so that each referenced entity is loaded once during the lifetime of the resolver. Loaded
+ * entities of an entity are evicted when entities of that entity are written through the {@link DataService}.
+ */
+public class LazyEntityResolver
+{
+	/**
+	 * Maximum number of pending references per entity, the oldest reference is discarded when exceeded
+	 */
+	static final int MAX_PENDING_IDS = 1000;
+	/**
+	 * Maximum number of loaded entities per entity, the least recently used entity is discarded when exceeded
+	 */
+	static final int MAX_LOADED_ENTITIES = 10000;
+
+	private static final String REQUEST_ATTR = LazyEntityResolver.class.getName();
+
+	private final DataService dataService;
+	/**
+	 * entity name --> ids of registered references that are not loaded yet
+	 */
+	private final Map<String, LinkedHashSet<Object>> pendingIdsMap = new HashMap<>();
+	/**
+	 * entity name --> entity id --> entity
+	 */
+	private final Map<String, Map<Object, Entity>> identityMap = new HashMap<>();
+	/**
+	 * entity name --> number of evictions, entities loaded before an eviction are not added to the identity map
+	 */
+	private final Map<String, Long> evictionCounts = new HashMap<>();
+
+	public LazyEntityResolver(DataService dataService)
+	{
+		this.dataService = requireNonNull(dataService);
+	}
+
+	/**
+	 * Returns the resolver of the current request, the resolver is created on first use.
+	 *
+	 * @param dataService
+	 *            data service used to create the resolver
+	 * @return request scoped resolver or null if there is no current request
+	 */
+	public static LazyEntityResolver getRequestResolver(DataService dataService)
+	{
+		RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		if (requestAttributes == null)
+		{
+			return null;
+		}
+
+		LazyEntityResolver lazyEntityResolver = (LazyEntityResolver) requestAttributes.getAttribute(REQUEST_ATTR,
+				RequestAttributes.SCOPE_REQUEST);
+		if (lazyEntityResolver == null)
+		{
+			lazyEntityResolver = new LazyEntityResolver(dataService);
+			requestAttributes.setAttribute(REQUEST_ATTR, lazyEntityResolver, RequestAttributes.SCOPE_REQUEST);
+		}
+		return lazyEntityResolver;
+	}
+
+	/**
+	 * Evicts the loaded entities of an entity from the resolver of the current request, if any.
+	 *
+	 * @param entityName
+	 *            name of the entity that was written
+	 */
+	public static void evictFromRequestResolver(String entityName)
+	{
+		RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		if (requestAttributes != null)
+		{
+			LazyEntityResolver lazyEntityResolver = (LazyEntityResolver) requestAttributes.getAttribute(REQUEST_ATTR,
+					RequestAttributes.SCOPE_REQUEST);
+			if (lazyEntityResolver != null)
+			{
+				lazyEntityResolver.evict(entityName);
+			}
+		}
+	}
+
+	/**
+	 * Registers a reference so that it is loaded together with the next reference of the same entity that is resolved
+	 *
+	 * @param entityMeta
+	 *            referenced entity meta data
+	 * @param id
+	 *            referenced entity id
+	 */
+	public synchronized void register(EntityMetaData entityMeta, Object id)
+	{
+		String entityName = entityMeta.getName();
+		Map<Object, Entity> entities = identityMap.get(entityName);
+		if (entities != null && entities.containsKey(id))
+		{
+			return;
+		}
+
+		LinkedHashSet<Object> pendingIds = pendingIdsMap.get(entityName);
+		if (pendingIds == null)
+		{
+			pendingIds = new LinkedHashSet<>();
+			pendingIdsMap.put(entityName, pendingIds);
+		}
+		if (pendingIds.add(id) && pendingIds.size() > MAX_PENDING_IDS)
+		{
+			Iterator<Object> it = pendingIds.iterator();
+			it.next();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Returns the referenced entity. Loads the entity and all pending references of the same entity if the entity was
+	 * not loaded before. Entities are loaded without holding the lock of this resolver.
+	 *
+	 * @param entityMeta
+	 *            referenced entity meta data
+	 * @param id
+	 *            referenced entity id
+	 * @return referenced entity or null if the entity does not exist
+	 */
+	public Entity resolve(EntityMetaData entityMeta, Object id)
+	{
+		String entityName = entityMeta.getName();
+		List<Object> ids = new ArrayList<>();
+		long evictionCount;
+		synchronized (this)
+		{
+			Map<Object, Entity> entities = identityMap.get(entityName);
+			Entity entity = entities != null ? entities.get(id) : null;
+			if (entity != null)
+			{
+				return entity;
+			}
+
+			ids.add(id);
+			LinkedHashSet<Object> pendingIds = pendingIdsMap.remove(entityName);
+			if (pendingIds != null)
+			{
+				pendingIds.remove(id);
+				ids.addAll(pendingIds);
+			}
+			evictionCount = evictionCounts.getOrDefault(entityName, 0L);
+		}
+
+		Map<Object, Entity> loadedEntities = new HashMap<>();
+		dataService.findAll(entityName, ids.stream()).forEach(
+				loadedEntity -> loadedEntities.put(loadedEntity.getIdValue(), loadedEntity));
+
+		Entity entity = loadedEntities.get(id);
+		if (entity == null)
+		{
+			// entity does not exist or id value type differs from the loaded id value type
+			entity = dataService.findOne(entityName, id);
+			if (entity != null)
+			{
+				loadedEntities.put(id, entity);
+			}
+		}
+
+		synchronized (this)
+		{
+			// entities written while loading might have been loaded before the write
+			if (evictionCounts.getOrDefault(entityName, 0L) == evictionCount)
+			{
+				identityMap.computeIfAbsent(entityName, key -> createIdentityMap()).putAll(loadedEntities);
+			}
+		}
+		return entity;
+	}
+
+	/**
+	 * Evicts the loaded entities of an entity so that they are loaded again on the next resolve.
+	 *
+	 * @param entityName
+	 *            name of the entity that was written
+	 */
+	public synchronized void evict(String entityName)
+	{
+		identityMap.remove(entityName);
+		evictionCounts.merge(entityName, 1L, Long::sum);
+	}
+
+	private static Map<Object, Entity> createIdentityMap()
+	{
+		return new LinkedHashMap<Object, Entity>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, Entity> eldest)
+			{
+				return size() > MAX_LOADED_ENTITIES;
+			}
+		};
+	}
+}
@@ -0,0 +1,107 @@
+package org.molgenis.data.transaction;
+
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.transaction.MolgenisTransactionManager.TRANSACTION_ID_RESOURCE_NAME;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps a change version per entity type that increases each time entities or meta data of the entity type change.
+ * Versions are kept in memory and start at zero, combine a version with {@link #getEpoch()} to compare versions over
+ * application restarts.
+ *
+ * Changes made in a transaction are not visible to others until the transaction is committed, the versions of the
+ * entity types changed in a transaction are therefore only increased after the transaction has been committed. They
+ * are not increased if the transaction is rolled back or the commit fails.
+ */
+public class EntityVersionService
+{
+	private final long epoch = System.currentTimeMillis();
+	private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Set<String>> transactionEntityNames = new ConcurrentHashMap<>();
+
+	/**
+	 * @return time in milliseconds at which this service started counting versions
+	 */
+	public long getEpoch()
+	{
+		return epoch;
+	}
+
+	/**
+	 * Returns the change version of an entity type
+	 *
+	 * @param entityName
+	 *            fully qualified entity name
+	 * @return version
+	 */
+	public long getVersion(String entityName)
+	{
+		AtomicLong version = versions.get(requireNonNull(entityName));
+		return version != null ? version.get() : 0L;
+	}
+
+	/**
+	 * Increases the change version of an entity type, call after the change is made. In a transaction the version is
+	 * increased after the transaction has been committed.
+	 *
+	 * @param entityName
+	 *            fully qualified entity name
+	 */
+	public void increment(String entityName)
+	{
+		requireNonNull(entityName);
+
+		String transactionId = (String) TransactionSynchronizationManager.getResource(TRANSACTION_ID_RESOURCE_NAME);
+		if (transactionId != null && TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			Set<String> entityNames = transactionEntityNames.get(transactionId);
+			if (entityNames == null)
+			{
+				entityNames = Collections.newSetFromMap(new ConcurrentHashMap<>());
+				transactionEntityNames.put(transactionId, entityNames);
+				TransactionSynchronizationManager.registerSynchronization(new VersionSynchronization(transactionId));
+			}
+			entityNames.add(entityName);
+		}
+		else
+		{
+			incrementVersion(entityName);
+		}
+	}
+
+	private void incrementVersion(String entityName)
+	{
+		versions.computeIfAbsent(entityName, name -> new AtomicLong()).incrementAndGet();
+	}
+
+	/**
+	 * Increases the versions of the entity types changed in a transaction once the transaction has been committed
+	 */
+	private class VersionSynchronization extends TransactionSynchronizationAdapter
+	{
+		private final String transactionId;
+
+		VersionSynchronization(String transactionId)
+		{
+			this.transactionId = transactionId;
+		}
+
+		@Override
+		public void afterCompletion(int status)
+		{
+			Set<String> entityNames = transactionEntityNames.remove(transactionId);
+			if (status == STATUS_COMMITTED && entityNames != null)
+			{
+				entityNames.forEach(EntityVersionService.this::incrementVersion);
+			}
+		}
+	}
+}
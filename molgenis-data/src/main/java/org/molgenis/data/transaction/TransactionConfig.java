@@ -45,6 +45,12 @@ public class TransactionConfig
 				molgenisTransactionLogEntryMetaData(), asyncTransactionLog());
 	}
 
+	@Bean
+	public EntityVersionService entityVersionService()
+	{
+		return new EntityVersionService();
+	}
+
 	@PostConstruct
 	public void init()
 	{
@@ -27,6 +27,19 @@ public class DependencyResolver
 	@Autowired
 	private DataService dataService;
 
+	public DependencyResolver()
+	{
+	}
+
+	/**
+	 * @param dataService
+	 *            used to check that self references to entities that are not being resolved exist
+	 */
+	public DependencyResolver(DataService dataService)
+	{
+		this.dataService = dataService;
+	}
+
 	/**
 	 * Determine the entity import order
 	 * 
@@ -0,0 +1,146 @@
+package org.molgenis.util;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.molgenis.data.MolgenisDataException;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Processes batches on a fixed pool of worker threads while the calling thread consumes the results in batch order.
+ * Worker threads run with the security context of the thread that submitted the batch. The pool is created on first
+ * use and shut down on {@link #close()}.
+ */
+public class OrderedBatchExecutor implements Closeable
+{
+	private final String threadNameFormat;
+	private final int nrThreads;
+	private ExecutorService executorService;
+	private boolean closed;
+
+	/**
+	 * @param threadNameFormat
+	 *            worker thread name format, e.g. "annotator-%d"
+	 * @param nrThreads
+	 *            number of worker threads
+	 */
+	public OrderedBatchExecutor(String threadNameFormat, int nrThreads)
+	{
+		if (nrThreads < 1)
+		{
+			throw new IllegalArgumentException("Number of threads must be at least 1");
+		}
+		this.threadNameFormat = threadNameFormat;
+		this.nrThreads = nrThreads;
+	}
+
+	public int getNrThreads()
+	{
+		return nrThreads;
+	}
+
+	/**
+	 * Returns the executor service of this batch executor, creates it if it does not exist yet.
+	 *
+	 * @throws IllegalStateException
+	 *             if this batch executor is closed
+	 */
+	public synchronized ExecutorService getExecutorService()
+	{
+		if (closed)
+		{
+			throw new IllegalStateException("Batch executor is closed");
+		}
+		if (executorService == null)
+		{
+			ExecutorService threadPool = Executors.newFixedThreadPool(nrThreads,
+					new ThreadFactoryBuilder().setDaemon(true).setNameFormat(threadNameFormat).build());
+			executorService = new DelegatingSecurityContextExecutorService(threadPool);
+		}
+		return executorService;
+	}
+
+	/**
+	 * Processes the batches on the worker threads and passes the results in batch order to the consumer on the calling
+	 * thread. At most one batch per worker thread plus one is processed or waiting to be consumed, so the calling
+	 * thread reads batches no faster than they are consumed. Batches that are still pending when the processor or
+	 * consumer fails are cancelled.
+	 *
+	 * @param batches
+	 *            batches, read on the calling thread
+	 * @param processor
+	 *            processes a batch on a worker thread
+	 * @param consumer
+	 *            consumes a processed batch on the calling thread
+	 */
+	public <T, R> void process(Iterator<T> batches, Function<? super T, ? extends R> processor,
+			Consumer<? super R> consumer)
+	{
+		ExecutorService executorService = getExecutorService();
+		Deque<Future<? extends R>> results = new ArrayDeque<>(nrThreads + 1);
+		try
+		{
+			while (batches.hasNext())
+			{
+				T batch = batches.next();
+				results.add(executorService.submit(() -> processor.apply(batch)));
+				while (results.size() > nrThreads)
+				{
+					consumer.accept(getResult(results.removeFirst()));
+				}
+			}
+			while (!results.isEmpty())
+			{
+				consumer.accept(getResult(results.removeFirst()));
+			}
+		}
+		finally
+		{
+			results.forEach(result -> result.cancel(true));
+		}
+	}
+
+	private static <R> R getResult(Future<? extends R> result)
+	{
+		try
+		{
+			return result.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new MolgenisDataException(e);
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new MolgenisDataException(cause);
+		}
+	}
+
+	/**
+	 * Stops the worker threads, batches that are still being processed are interrupted.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		closed = true;
+		if (executorService != null)
+		{
+			executorService.shutdownNow();
+			executorService = null;
+		}
+	}
+}
@@ -26,6 +26,7 @@ import org.molgenis.data.meta.MetaDataService;
 import org.molgenis.data.support.DataServiceImpl;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.LazyEntityResolver;
 import org.molgenis.data.support.NonDecoratingRepositoryDecoratorFactory;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.security.core.utils.SecurityUtils;
@@ -33,7 +34,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -103,6 +107,28 @@ public class DataServiceImplTest
 		verify(repo1, times(1)).delete(entities);
 	}
 
+	@Test
+	public void updateEvictsRequestResolver()
+	{
+		EntityMetaData entityMeta = when(mock(EntityMetaData.class).getName()).thenReturn("Entity1").getMock();
+		Entity entity = when(mock(Entity.class).getIdValue()).thenReturn("id0").getMock();
+		when(repo1.findAll(Mockito.<Stream<Object>> any())).thenAnswer(invocation -> Stream.of(entity));
+
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		try
+		{
+			LazyEntityResolver lazyEntityResolver = LazyEntityResolver.getRequestResolver(dataService);
+			lazyEntityResolver.resolve(entityMeta, "id0");
+			dataService.update("Entity1", entity);
+			lazyEntityResolver.resolve(entityMeta, "id0");
+			verify(repo1, times(2)).findAll(Mockito.<Stream<Object>> any());
+		}
+		finally
+		{
+			RequestContextHolder.resetRequestAttributes();
+		}
+	}
+
 	@Test
 	public void getEntityNames()
 	{
@@ -1,5 +1,7 @@
 package org.molgenis.data;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -15,6 +17,9 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.molgenis.data.support.DefaultEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -98,6 +103,45 @@ public class EntityManagerImplTest
 		assertFalse(it.hasNext());
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void getReferencesInRequest()
+	{
+		String entityName = "entity";
+		EntityMetaData entityMeta = when(mock(EntityMetaData.class).getName()).thenReturn(entityName).getMock();
+		AttributeMetaData idAttr = when(mock(AttributeMetaData.class).getName()).thenReturn("id").getMock();
+		AttributeMetaData lblAttr = when(mock(AttributeMetaData.class).getName()).thenReturn("label").getMock();
+		when(entityMeta.getIdAttribute()).thenReturn(idAttr);
+		when(entityMeta.getLabelAttribute()).thenReturn(lblAttr);
+
+		Integer id0 = Integer.valueOf(0);
+		Entity entity0 = when(mock(Entity.class).getLabelValue()).thenReturn("label0").getMock();
+		when(entity0.getIdValue()).thenReturn(id0);
+		Integer id1 = Integer.valueOf(1);
+		Entity entity1 = when(mock(Entity.class).getLabelValue()).thenReturn("label1").getMock();
+		when(entity1.getIdValue()).thenReturn(id1);
+		when(dataService.findAll(eq(entityName), any(Stream.class))).thenReturn(Stream.of(entity0, entity1));
+
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		try
+		{
+			Iterator<Entity> it = entityManagerImpl.getReferences(entityMeta, Arrays.asList(id0, id1)).iterator();
+			Entity entityReference0 = it.next();
+			Entity entityReference1 = it.next();
+			verifyNoMoreInteractions(dataService);
+
+			assertEquals(entityReference0.getLabelValue(), "label0");
+			assertEquals(entityReference1.getLabelValue(), "label1");
+			assertEquals(entityManagerImpl.getReference(entityMeta, id0).getLabelValue(), "label0");
+			verify(dataService, times(1)).findAll(eq(entityName), any(Stream.class));
+			verifyNoMoreInteractions(dataService);
+		}
+		finally
+		{
+			RequestContextHolder.resetRequestAttributes();
+		}
+	}
+
 	@Test
 	public void resolveReferencesNoFetch()
 	{
@@ -16,19 +16,23 @@ import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
+import org.molgenis.data.transaction.EntityVersionService;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 public class I18nStringDecoratorTest
 {
 	private Repository decoratedRepo;
+	private EntityVersionService entityVersionService;
 	private I18nStringDecorator i18nStringDecorator;
 
 	@BeforeMethod
 	public void setUpBeforeMethod()
 	{
 		decoratedRepo = mock(Repository.class);
-		i18nStringDecorator = new I18nStringDecorator(decoratedRepo);
+		when(decoratedRepo.getName()).thenReturn(I18nStringMetaData.ENTITY_NAME);
+		entityVersionService = new EntityVersionService();
+		i18nStringDecorator = new I18nStringDecorator(decoratedRepo, entityVersionService);
 	}
 
 	@Test
@@ -37,6 +41,7 @@ public class I18nStringDecoratorTest
 		Stream<Entity> entities = Stream.empty();
 		when(decoratedRepo.add(entities)).thenReturn(123);
 		assertEquals(i18nStringDecorator.add(entities), Integer.valueOf(123));
+		assertEquals(entityVersionService.getVersion(I18nStringMetaData.ENTITY_NAME), 1L);
 	}
 
 	@Test
@@ -45,6 +50,7 @@ public class I18nStringDecoratorTest
 		Stream<Entity> entities = Stream.empty();
 		i18nStringDecorator.delete(entities);
 		verify(decoratedRepo, times(1)).delete(entities);
+		assertEquals(entityVersionService.getVersion(I18nStringMetaData.ENTITY_NAME), 1L);
 	}
 
 	@SuppressWarnings(
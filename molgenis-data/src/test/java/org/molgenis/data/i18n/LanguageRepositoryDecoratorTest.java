@@ -19,6 +19,7 @@ import org.molgenis.data.ManageableRepositoryCollection;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
 import org.molgenis.data.meta.MetaDataService;
+import org.molgenis.data.transaction.EntityVersionService;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -26,6 +27,7 @@ public class LanguageRepositoryDecoratorTest
 {
 	private Repository decoratedRepo;
 	private DataService dataService;
+	private EntityVersionService entityVersionService;
 	private LanguageRepositoryDecorator languageRepositoryDecorator;
 
 	@BeforeMethod
@@ -33,12 +35,15 @@ public class LanguageRepositoryDecoratorTest
 	{
 		decoratedRepo = mock(Repository.class);
 		when(decoratedRepo.getEntityMetaData()).thenReturn(LanguageMetaData.INSTANCE);
+		when(decoratedRepo.getName()).thenReturn(LanguageMetaData.ENTITY_NAME);
 		dataService = mock(DataService.class);
 		MetaDataService metaDataService = mock(MetaDataService.class);
 		ManageableRepositoryCollection defaultBackend = mock(ManageableRepositoryCollection.class);
 		when(metaDataService.getDefaultBackend()).thenReturn(defaultBackend);
 		when(dataService.getMeta()).thenReturn(metaDataService);
-		languageRepositoryDecorator = new LanguageRepositoryDecorator(decoratedRepo, dataService);
+		entityVersionService = new EntityVersionService();
+		languageRepositoryDecorator = new LanguageRepositoryDecorator(decoratedRepo, dataService,
+				entityVersionService);
 	}
 
 	@Test
@@ -56,6 +61,7 @@ public class LanguageRepositoryDecoratorTest
 		assertEquals(languageRepositoryDecorator.add(entities), Integer.valueOf(2));
 		verify(decoratedRepo, times(1)).add(entity0);
 		verify(decoratedRepo, times(1)).add(entity1);
+		assertEquals(entityVersionService.getVersion(LanguageMetaData.ENTITY_NAME), 2L);
 	}
 
 	@Test
@@ -72,6 +78,7 @@ public class LanguageRepositoryDecoratorTest
 		languageRepositoryDecorator.delete(Stream.of(entity0, entity1));
 		verify(decoratedRepo, times(1)).delete(entity0);
 		verify(decoratedRepo, times(1)).delete(entity1);
+		assertEquals(entityVersionService.getVersion(LanguageMetaData.ENTITY_NAME), 2L);
 	}
 
 	@SuppressWarnings(
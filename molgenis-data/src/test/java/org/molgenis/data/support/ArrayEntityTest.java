@@ -0,0 +1,184 @@
+package org.molgenis.data.support;
+
+import static org.molgenis.MolgenisFieldTypes.FieldTypeEnum.COMPOUND;
+import static org.molgenis.MolgenisFieldTypes.FieldTypeEnum.INT;
+import static org.molgenis.MolgenisFieldTypes.FieldTypeEnum.STRING;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.molgenis.MolgenisFieldTypes;
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.UnknownAttributeException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class ArrayEntityTest
+{
+	private DefaultEntityMetaData entityMeta;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		DefaultAttributeMetaData compoundAttr = new DefaultAttributeMetaData("compound", COMPOUND);
+		compoundAttr.setAttributesMetaData(Arrays.<AttributeMetaData> asList(
+				new DefaultAttributeMetaData("str", STRING), new DefaultAttributeMetaData("int", INT)));
+		entityMeta.addAttributeMetaData(compoundAttr);
+	}
+
+	@Test(expectedExceptions = NullPointerException.class)
+	public void ArrayEntity()
+	{
+		new ArrayEntity(null);
+	}
+
+	@Test
+	public void getAttributeIndex()
+	{
+		assertEquals(entityMeta.getAttributeIndex("id"), 0);
+		assertEquals(entityMeta.getAttributeIndex("STR"), 1);
+		assertEquals(entityMeta.getAttributeIndex("int"), 2);
+		assertEquals(entityMeta.getAttributeIndex("compound"), -1);
+		assertEquals(entityMeta.getAtomicAttributeCount(), 3);
+	}
+
+	@Test
+	public void getSet()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("id", "id0");
+		entity.set("Str", "str0");
+		entity.set(2, 1);
+		assertEquals(entity.getIdValue(), "id0");
+		assertEquals(entity.get("str"), "str0");
+		assertEquals(entity.get(1), "str0");
+		assertEquals(entity.getInt("int"), Integer.valueOf(1));
+		assertEquals(entity.getString(2), "1");
+		assertEquals(Lists.newArrayList(entity.getAttributeNames()), Arrays.asList("id", "str", "int"));
+	}
+
+	@Test(expectedExceptions = UnknownAttributeException.class)
+	public void getUnknownAttribute()
+	{
+		new ArrayEntity(entityMeta).get("unknown");
+	}
+
+	@Test
+	public void setUnknownAttribute()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("unknown", "value");
+		assertEquals(entity.getString("UNKNOWN"), "value");
+	}
+
+	@Test
+	public void getConvertsValues()
+	{
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("refId", ROLE_ID).setDataType(MolgenisFieldTypes.INT);
+		entityMeta.addAttribute("xref").setDataType(MolgenisFieldTypes.XREF).setRefEntity(refEntityMeta);
+		entityMeta.addAttribute("bool").setDataType(MolgenisFieldTypes.BOOL);
+		entityMeta.addAttribute("decimal").setDataType(MolgenisFieldTypes.DECIMAL);
+
+		DataService dataService = mock(DataService.class);
+		Entity refEntity = mock(Entity.class);
+		when(dataService.findOne(eq("refEntity"), any(Object.class))).thenReturn(refEntity);
+
+		ArrayEntity entity = new ArrayEntity(entityMeta, dataService);
+		entity.set("int", "1");
+		entity.set("xref", "3");
+		entity.set("bool", "true");
+		entity.set("decimal", 1);
+		assertEquals(entity.get("int"), Integer.valueOf(1));
+		assertEquals(entity.get("xref"), refEntity);
+		assertEquals(entity.get("bool"), Boolean.TRUE);
+		assertEquals(entity.get("decimal"), Double.valueOf(1));
+
+		// index based getters return values as stored
+		assertEquals(entity.get(2), "1");
+	}
+
+	@Test
+	public void setAttributeAddedAfterCreation()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entityMeta.addAttribute("added");
+		entity.set("added", "value");
+		assertEquals(entity.get("added"), "value");
+		assertEquals(entity.get(3), "value");
+	}
+
+	@Test
+	public void setEntity()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("id", "id0");
+		entity.set("str", "str0");
+		ArrayEntity otherEntity = new ArrayEntity(entityMeta);
+		otherEntity.set(entity);
+		assertEquals(otherEntity.get("id"), "id0");
+		assertEquals(otherEntity.get("str"), "str0");
+		assertNull(otherEntity.get("int"));
+	}
+
+	@Test
+	public void equalsId()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("id", "id0");
+		DefaultEntity otherEntity = new DefaultEntity(entityMeta, null);
+		otherEntity.set("id", "id0");
+		assertEquals(entity, otherEntity);
+		assertEquals(otherEntity, entity);
+		assertEquals(entity.hashCode(), otherEntity.hashCode());
+	}
+
+	@Test
+	public void equalsOtherId()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("id", "id0");
+		DefaultEntity otherEntity = new DefaultEntity(entityMeta, null);
+		otherEntity.set("id", "id1");
+		assertNotEquals(entity, otherEntity);
+		assertNotEquals(otherEntity, entity);
+	}
+
+	@Test
+	public void equalsOtherEntityMetaData()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("id", "id0");
+		DefaultEntityMetaData otherEntityMeta = new DefaultEntityMetaData("otherEntity");
+		otherEntityMeta.addAttribute("id", ROLE_ID);
+		DefaultEntity otherEntity = new DefaultEntity(otherEntityMeta, null);
+		otherEntity.set("id", "id0");
+		assertNotEquals(entity, otherEntity);
+		assertNotEquals(otherEntity, entity);
+	}
+
+	@Test
+	public void equalsNoId()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("str", "str0");
+		DefaultEntity otherEntity = new DefaultEntity(entityMeta, null);
+		otherEntity.set("str", "str1");
+		assertEquals(entity, otherEntity);
+		assertEquals(otherEntity, entity);
+		assertEquals(entity.hashCode(), otherEntity.hashCode());
+	}
+}
@@ -363,6 +363,18 @@ public class DefaultEntityMetaDataTest
 		assertEquals(entityMeta.getLabelAttribute("xx"), labelDefaultAttr);
 	}
 
+	@Test
+	public void getModificationCount()
+	{
+		DefaultEntityMetaData entityMeta = new DefaultEntityMetaData("entity");
+		int modificationCount = entityMeta.getModificationCount();
+		DefaultAttributeMetaData attr = entityMeta.addAttribute("attr");
+		int addModificationCount = entityMeta.getModificationCount();
+		assertNotEquals(addModificationCount, modificationCount);
+		attr.setDataType(COMPOUND);
+		assertNotEquals(entityMeta.getModificationCount(), addModificationCount);
+	}
+
 	private void assertEntityMetaEquals(EntityMetaData actualEntityMeta, EntityMetaData expectedEntityMeta)
 	{
 		assertEquals(actualEntityMeta.getSimpleName(), expectedEntityMeta.getSimpleName());
@@ -0,0 +1,191 @@
+package org.molgenis.data.support;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.mockito.ArgumentCaptor;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LazyEntityResolverTest
+{
+	private DataService dataService;
+	private EntityMetaData entityMeta;
+	private LazyEntityResolver lazyEntityResolver;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		dataService = mock(DataService.class);
+		entityMeta = when(mock(EntityMetaData.class).getName()).thenReturn("entity").getMock();
+		lazyEntityResolver = new LazyEntityResolver(dataService);
+	}
+
+	@Test(expectedExceptions = NullPointerException.class)
+	public void LazyEntityResolver()
+	{
+		new LazyEntityResolver(null);
+	}
+
+	@SuppressWarnings(
+	{ "unchecked", "rawtypes" })
+	@Test
+	public void resolveLoadsRegisteredReferencesInOneQuery()
+	{
+		Entity entity0 = when(mock(Entity.class).getIdValue()).thenReturn(0).getMock();
+		Entity entity1 = when(mock(Entity.class).getIdValue()).thenReturn(1).getMock();
+		Entity entity2 = when(mock(Entity.class).getIdValue()).thenReturn(2).getMock();
+		when(dataService.findAll(eq("entity"), any(Stream.class))).thenReturn(Stream.of(entity1, entity0, entity2));
+
+		lazyEntityResolver.register(entityMeta, 0);
+		lazyEntityResolver.register(entityMeta, 1);
+		lazyEntityResolver.register(entityMeta, 2);
+
+		assertEquals(lazyEntityResolver.resolve(entityMeta, 1), entity1);
+		assertEquals(lazyEntityResolver.resolve(entityMeta, 0), entity0);
+		assertEquals(lazyEntityResolver.resolve(entityMeta, 2), entity2);
+
+		ArgumentCaptor<Stream> captor = ArgumentCaptor.forClass(Stream.class);
+		verify(dataService, times(1)).findAll(eq("entity"), captor.capture());
+		List<Object> ids = ((Stream<Object>) captor.getValue()).collect(Collectors.toList());
+		assertEquals(ids, Arrays.asList(1, 0, 2));
+		verifyNoMoreInteractions(dataService);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void resolveUnknownEntity()
+	{
+		when(dataService.findAll(eq("entity"), any(Stream.class))).thenReturn(Stream.empty());
+
+		assertNull(lazyEntityResolver.resolve(entityMeta, 0));
+		verify(dataService, times(1)).findOne("entity", 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void resolveFallbackFindOne()
+	{
+		Entity entity = mock(Entity.class);
+		when(dataService.findAll(eq("entity"), any(Stream.class))).thenReturn(Stream.empty());
+		when(dataService.findOne("entity", 0)).thenReturn(entity);
+
+		assertEquals(lazyEntityResolver.resolve(entityMeta, 0), entity);
+		assertEquals(lazyEntityResolver.resolve(entityMeta, 0), entity);
+		verify(dataService, times(1)).findAll(eq("entity"), any(Stream.class));
+		verify(dataService, times(1)).findOne("entity", 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void resolveAfterEvict()
+	{
+		Entity entity0 = when(mock(Entity.class).getIdValue()).thenReturn(0).getMock();
+		Entity updatedEntity0 = when(mock(Entity.class).getIdValue()).thenReturn(0).getMock();
+		when(dataService.findAll(eq("entity"), any(Stream.class))).thenReturn(Stream.of(entity0),
+				Stream.of(updatedEntity0));
+
+		assertEquals(lazyEntityResolver.resolve(entityMeta, 0), entity0);
+		lazyEntityResolver.evict("entity");
+		assertEquals(lazyEntityResolver.resolve(entityMeta, 0), updatedEntity0);
+		assertEquals(lazyEntityResolver.resolve(entityMeta, 0), updatedEntity0);
+		verify(dataService, times(2)).findAll(eq("entity"), any(Stream.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void resolveEvictWhileLoading()
+	{
+		Entity entity0 = when(mock(Entity.class).getIdValue()).thenReturn(0).getMock();
+		Entity updatedEntity0 = when(mock(Entity.class).getIdValue()).thenReturn(0).getMock();
+		when(dataService.findAll(eq("entity"), any(Stream.class))).thenAnswer(invocation -> {
+			// entity written by another thread of the same request while loading
+			lazyEntityResolver.evict("entity");
+			return Stream.of(entity0);
+		}).thenReturn(Stream.of(updatedEntity0));
+
+		assertEquals(lazyEntityResolver.resolve(entityMeta, 0), entity0);
+		assertEquals(lazyEntityResolver.resolve(entityMeta, 0), updatedEntity0);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void resolveLoadsWithoutLock() throws InterruptedException
+	{
+		Entity entity0 = when(mock(Entity.class).getIdValue()).thenReturn(0).getMock();
+		when(dataService.findAll(eq("entity"), any(Stream.class))).thenAnswer(invocation -> {
+			// other threads can register references while entities are loaded
+			Thread thread = new Thread(() -> lazyEntityResolver.register(entityMeta, 1));
+			thread.start();
+			thread.join(TimeUnit.SECONDS.toMillis(10));
+			assertTrue(!thread.isAlive());
+			return Stream.of(entity0);
+		});
+
+		assertEquals(lazyEntityResolver.resolve(entityMeta, 0), entity0);
+	}
+
+	@Test
+	public void getRequestResolver()
+	{
+		assertNull(LazyEntityResolver.getRequestResolver(dataService));
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		try
+		{
+			LazyEntityResolver requestResolver = LazyEntityResolver.getRequestResolver(dataService);
+			assertSame(LazyEntityResolver.getRequestResolver(dataService), requestResolver);
+		}
+		finally
+		{
+			RequestContextHolder.resetRequestAttributes();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void evictFromRequestResolver()
+	{
+		Entity entity0 = when(mock(Entity.class).getIdValue()).thenReturn(0).getMock();
+		when(dataService.findAll(eq("entity"), any(Stream.class))).thenReturn(Stream.of(entity0),
+				Stream.of(entity0));
+
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		try
+		{
+			LazyEntityResolver requestResolver = LazyEntityResolver.getRequestResolver(dataService);
+			requestResolver.resolve(entityMeta, 0);
+			LazyEntityResolver.evictFromRequestResolver("otherEntity");
+			requestResolver.resolve(entityMeta, 0);
+			verify(dataService, times(1)).findAll(eq("entity"), any(Stream.class));
+
+			LazyEntityResolver.evictFromRequestResolver("entity");
+			requestResolver.resolve(entityMeta, 0);
+			verify(dataService, times(2)).findAll(eq("entity"), any(Stream.class));
+		}
+		finally
+		{
+			RequestContextHolder.resetRequestAttributes();
+		}
+	}
+}
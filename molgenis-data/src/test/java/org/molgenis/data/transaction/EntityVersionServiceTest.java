@@ -0,0 +1,121 @@
+package org.molgenis.data.transaction;
+
+import static org.molgenis.data.transaction.MolgenisTransactionManager.TRANSACTION_ID_RESOURCE_NAME;
+import static org.testng.Assert.assertEquals;
+
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_COMMITTED;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_ROLLED_BACK;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_UNKNOWN;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class EntityVersionServiceTest
+{
+	private EntityVersionService entityVersionService;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		entityVersionService = new EntityVersionService();
+	}
+
+	@AfterMethod
+	public void tearDownAfterMethod()
+	{
+		TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_ID_RESOURCE_NAME);
+		if (TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void getVersionUnchanged()
+	{
+		assertEquals(entityVersionService.getVersion("entity"), 0L);
+	}
+
+	@Test
+	public void increment()
+	{
+		entityVersionService.increment("entity");
+		entityVersionService.increment("entity");
+		assertEquals(entityVersionService.getVersion("entity"), 2L);
+		assertEquals(entityVersionService.getVersion("otherEntity"), 0L);
+	}
+
+	@Test
+	public void incrementInTransactionCommit()
+	{
+		startTransaction("transaction");
+		entityVersionService.increment("entity");
+		entityVersionService.increment("entity");
+		entityVersionService.increment("otherEntity");
+
+		// changes are not visible to others while the transaction is in progress
+		assertEquals(entityVersionService.getVersion("entity"), 0L);
+
+		completeTransaction(STATUS_COMMITTED);
+		assertEquals(entityVersionService.getVersion("entity"), 1L);
+		assertEquals(entityVersionService.getVersion("otherEntity"), 1L);
+	}
+
+	@Test
+	public void incrementInTransactionRollback()
+	{
+		startTransaction("transaction");
+		entityVersionService.increment("entity");
+		completeTransaction(STATUS_ROLLED_BACK);
+		assertEquals(entityVersionService.getVersion("entity"), 0L);
+	}
+
+	@Test
+	public void incrementInTransactionCommitFailed()
+	{
+		startTransaction("transaction");
+		entityVersionService.increment("entity");
+		completeTransaction(STATUS_UNKNOWN);
+		assertEquals(entityVersionService.getVersion("entity"), 0L);
+	}
+
+	@Test
+	public void incrementInTransactionNextTransaction()
+	{
+		startTransaction("transaction");
+		entityVersionService.increment("entity");
+		completeTransaction(STATUS_COMMITTED);
+		TransactionSynchronizationManager.clearSynchronization();
+
+		// changes of a finished transaction are not counted again
+		startTransaction("otherTransaction");
+		entityVersionService.increment("otherEntity");
+		completeTransaction(STATUS_COMMITTED);
+		assertEquals(entityVersionService.getVersion("entity"), 1L);
+		assertEquals(entityVersionService.getVersion("otherEntity"), 1L);
+	}
+
+	@Test(expectedExceptions = NullPointerException.class)
+	public void incrementNull()
+	{
+		entityVersionService.increment(null);
+	}
+
+	private void startTransaction(String transactionId)
+	{
+		TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_ID_RESOURCE_NAME);
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.bindResource(TRANSACTION_ID_RESOURCE_NAME, transactionId);
+	}
+
+	private void completeTransaction(int status)
+	{
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations())
+		{
+			synchronization.afterCompletion(status);
+		}
+	}
+}
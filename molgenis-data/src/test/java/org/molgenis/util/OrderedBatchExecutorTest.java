@@ -0,0 +1,94 @@
+package org.molgenis.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class OrderedBatchExecutorTest
+{
+	private OrderedBatchExecutor orderedBatchExecutor;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		orderedBatchExecutor = new OrderedBatchExecutor("test-%d", 3);
+	}
+
+	@AfterMethod
+	public void tearDownAfterMethod()
+	{
+		orderedBatchExecutor.close();
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void OrderedBatchExecutorNoThreads()
+	{
+		new OrderedBatchExecutor("test-%d", 0);
+	}
+
+	@Test
+	public void process()
+	{
+		List<Integer> batches = new ArrayList<>();
+		for (int i = 0; i < 100; ++i)
+		{
+			batches.add(i);
+		}
+		List<Integer> results = new ArrayList<>();
+		orderedBatchExecutor.process(batches.iterator(), batch -> {
+			if (batch % 7 == 0)
+			{
+				// slow batches must not change the order of the results
+				try
+				{
+					Thread.sleep(5);
+				}
+				catch (InterruptedException e)
+				{
+					throw new RuntimeException(e);
+				}
+			}
+			return batch * 2;
+		}, results::add);
+
+		assertEquals(results.size(), 100);
+		for (int i = 0; i < 100; ++i)
+		{
+			assertEquals(results.get(i), Integer.valueOf(i * 2));
+		}
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "batch 1")
+	public void processBatchFails()
+	{
+		orderedBatchExecutor.process(Arrays.asList(0, 1, 2).iterator(), batch -> {
+			if (batch == 1) throw new IllegalStateException("batch 1");
+			return batch;
+		}, result -> {
+		});
+	}
+
+	@Test
+	public void close()
+	{
+		ExecutorService executorService = orderedBatchExecutor.getExecutorService();
+		orderedBatchExecutor.close();
+		assertTrue(executorService.isShutdown());
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void processClosed()
+	{
+		orderedBatchExecutor.close();
+		orderedBatchExecutor.process(Arrays.asList(0).iterator(), batch -> batch, result -> {
+		});
+	}
+}
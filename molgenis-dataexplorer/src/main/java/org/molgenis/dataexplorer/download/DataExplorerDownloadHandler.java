@@ -8,9 +8,11 @@ import java.io.OutputStream;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.csv.CsvWriter;
 import org.molgenis.data.excel.ExcelSheetWriter;
@@ -69,7 +71,10 @@ public class DataExplorerDownloadHandler
 					break;
 			}
 
-			excelSheetWriter.add(dataService.findAll(entityName, query));
+			try (Stream<Entity> entities = findAll(entityName, query))
+			{
+				excelSheetWriter.add(entities);
+			}
 			excelSheetWriter.close();
 		}
 		finally
@@ -118,11 +123,26 @@ public class DataExplorerDownloadHandler
 			}
 
 			QueryImpl query = dataRequest.getQuery();
-			csvWriter.add(dataService.findAll(entityName, query));
+			try (Stream<Entity> entities = findAll(entityName, query))
+			{
+				csvWriter.add(entities);
+			}
 		}
 		finally
 		{
 			csvWriter.close();
 		}
 	}
+
+	private Stream<Entity> findAll(String entityName, QueryImpl query)
+	{
+		// downloads without filters or sorting read all entities, stream them so that repositories can use their bulk
+		// read path
+		if (query.getRules().isEmpty() && query.getOffset() == 0 && query.getPageSize() == 0
+				&& query.getSort() == null)
+		{
+			return dataService.stream(entityName, query.getFetch());
+		}
+		return dataService.findAll(entityName, query);
+	}
 }
@@ -20,6 +20,7 @@ import org.molgenis.data.settings.AppSettings;
 import org.molgenis.data.support.DataServiceImpl;
 import org.molgenis.data.support.OwnedEntityMetaData;
 import org.molgenis.data.support.UuidGenerator;
+import org.molgenis.data.transaction.EntityVersionService;
 import org.molgenis.data.transaction.MolgenisTransactionManager;
 import org.molgenis.data.transaction.TransactionConfig;
 import org.molgenis.data.transaction.TransactionLogService;
@@ -66,6 +67,9 @@ public abstract class AbstractDataApiTestConfig
 	@Autowired
 	private TransactionLogService transactionLogService;
 
+	@Autowired
+	private EntityVersionService entityVersionService;
+
 	@Autowired
 	public ExpressionValidator expressionValidator;
 
@@ -152,8 +156,8 @@ public abstract class AbstractDataApiTestConfig
 			public Repository createDecoratedRepository(Repository repository)
 			{
 				return new MolgenisRepositoryDecoratorFactory(entityManager(), transactionLogService,
-						entityAttributesValidator(), idGenerator(), appSettings(), dataService(), expressionValidator,
-						repositoryDecoratorRegistry()).createDecoratedRepository(repository);
+						entityVersionService, entityAttributesValidator(), idGenerator(), appSettings(), dataService(),
+						expressionValidator, repositoryDecoratorRegistry()).createDecoratedRepository(repository);
 			}
 		};
 	}
@@ -0,0 +1,157 @@
+package org.molgenis.js;
+
+import static java.util.Objects.requireNonNull;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Evaluates scripts with a script library such as molgenis-script-evaluator.js.
+ *
+ * The library is evaluated once in a sealed scope that is shared by all evaluations. Scripts are compiled once and
+ * cached, the least recently used scripts are evicted when the cache is full. Contexts are reused per thread.
+ */
+class JsScriptEngine
+{
+	private static final String CREATE_SCRIPT_SCOPE_FUNCTION = "createScriptScope";
+
+	private final ScriptableObject sharedScope;
+	private final Function createScriptScope;
+	private final Cache<String, Script> compiledScripts;
+	private final ThreadLocal<Context> threadContexts = new ThreadLocal<>();
+
+	/**
+	 * @param library
+	 *            script library source that defines a createScriptScope(entity) function
+	 * @param libraryName
+	 *            name of the library used in error messages
+	 * @param maxCompiledScripts
+	 *            maximum number of compiled scripts to cache
+	 */
+	public JsScriptEngine(String library, String libraryName, int maxCompiledScripts)
+	{
+		requireNonNull(library);
+		this.compiledScripts = CacheBuilder.newBuilder().maximumSize(maxCompiledScripts).build();
+
+		Context cx = enterContext();
+		try
+		{
+			sharedScope = cx.initStandardObjects(null, true);
+			cx.evaluateString(sharedScope, library, libraryName, 1, null);
+			Object createScriptScopeObj = sharedScope.get(CREATE_SCRIPT_SCOPE_FUNCTION, sharedScope);
+			if (!(createScriptScopeObj instanceof Function))
+			{
+				throw new IllegalArgumentException(
+						"Script library [" + libraryName + "] does not define " + CREATE_SCRIPT_SCOPE_FUNCTION);
+			}
+			createScriptScope = (Function) createScriptScopeObj;
+			sharedScope.sealObject();
+		}
+		finally
+		{
+			Context.exit();
+		}
+	}
+
+	/**
+	 * Enters a context, call {@link Context#exit()} when done. Reuses the context of the current thread if possible.
+	 *
+	 * @return entered context
+	 */
+	public Context enterContext()
+	{
+		ContextFactory contextFactory = ContextFactory.getGlobal();
+		Context cx = threadContexts.get();
+		if (cx != null && cx.getFactory() != contextFactory)
+		{
+			cx = null;
+		}
+		cx = contextFactory.enterContext(cx);
+		threadContexts.set(cx);
+		return cx;
+	}
+
+	/**
+	 * @return sealed scope with the standard objects and the script library
+	 */
+	public ScriptableObject getSharedScope()
+	{
+		return sharedScope;
+	}
+
+	/**
+	 * Returns the compiled script for the given source
+	 *
+	 * @param cx
+	 *            entered context
+	 * @param source
+	 *            script source
+	 * @return compiled script
+	 * @throws org.mozilla.javascript.EcmaError
+	 *             SyntaxError if the source contains a syntax error
+	 */
+	public Script compile(Context cx, String source)
+	{
+		Script script = compiledScripts.getIfPresent(source);
+		if (script == null)
+		{
+			try
+			{
+				script = cx.compileString(source, "script", 1, null);
+			}
+			catch (EvaluatorException e)
+			{
+				// report syntax errors the same way as eval does
+				throw ScriptRuntime.constructError("SyntaxError", e.details());
+			}
+			compiledScripts.put(source, script);
+		}
+		return script;
+	}
+
+	/**
+	 * Creates a scope in which the library functions operate on the given entity
+	 *
+	 * @param cx
+	 *            entered context
+	 * @param scriptableEntity
+	 *            entity created in the shared scope
+	 * @return top-level scope of which the prototype is the shared scope
+	 */
+	public Scriptable createEntityScope(Context cx, Scriptable scriptableEntity)
+	{
+		Scriptable entityScope = (Scriptable) createScriptScope.call(cx, sharedScope, sharedScope, new Object[]
+		{ scriptableEntity });
+		entityScope.setPrototype(sharedScope);
+		entityScope.setParentScope(null);
+		return entityScope;
+	}
+
+	/**
+	 * Executes a compiled script in a new scope so that variables of one execution are not visible to the next
+	 *
+	 * @param cx
+	 *            entered context
+	 * @param script
+	 *            compiled script
+	 * @param entityScope
+	 *            scope created with {@link #createEntityScope(Context, Scriptable)}
+	 * @return script result
+	 */
+	public Object exec(Context cx, Script script, Scriptable entityScope)
+	{
+		Scriptable scope = cx.newObject(sharedScope);
+		scope.setPrototype(entityScope);
+		scope.setParentScope(null);
+		return script.exec(cx, scope);
+	}
+}
@@ -12,10 +12,8 @@ import java.util.List;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.mozilla.javascript.Context;
-import org.mozilla.javascript.ContextAction;
-import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.EcmaError;
-import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 import org.slf4j.Logger;
@@ -27,12 +25,17 @@ import com.google.common.collect.Lists;
 
 /**
  * Evaluate a script with molgenis-script-evaluator.js
+ * 
+ * The script library is loaded once and scripts are compiled once, see {@link JsScriptEngine}.
  */
 public class ScriptEvaluator
 {
 	private static final Logger LOG = LoggerFactory.getLogger(ScriptEvaluator.class);
 
-	private static String JS_SCRIPT = null;
+	private static final String JS_SCRIPT_RESOURCE = "/js/molgenis-script-evaluator.js";
+	private static final int MAX_COMPILED_SCRIPTS = 1000;
+
+	private static volatile JsScriptEngine SCRIPT_ENGINE = null;
 
 	/**
 	 * Evaluates a script for a single entity.
@@ -94,83 +97,97 @@ public class ScriptEvaluator
 	 * @throws EcmaError
 	 *             if there's a syntax error in the script
 	 */
-	@SuppressWarnings("unchecked")
 	protected static List<Object> eval(final List<String> sources, final Iterable<Entity> entities,
 			final EntityMetaData entityMetaData)
 	{
-		if (JS_SCRIPT == null)
+		JsScriptEngine scriptEngine = getScriptEngine();
+		Context cx = scriptEngine.enterContext();
+		try
 		{
-			try
+			ScriptableObject sharedScope = scriptEngine.getSharedScope();
+			List<Script> scripts = Lists.newArrayListWithExpectedSize(sources.size());
+			for (String source : sources)
 			{
-				JS_SCRIPT = FileCopyUtils.copyToString(new InputStreamReader(ScriptEvaluator.class
-						.getResourceAsStream("/js/molgenis-script-evaluator.js"), "UTF-8"));
+				scripts.add(scriptEngine.compile(cx, source));
 			}
-			catch (IOException e)
+
+			List<Object> result = Lists.newArrayList();
+			for (Entity entity : entities)
 			{
-				throw new UncheckedIOException(e);
+				try
+				{
+					Scriptable scriptableEntity = mapEntity(entity, entityMetaData, cx, sharedScope);
+					Scriptable entityScope = scriptEngine.createEntityScope(cx, scriptableEntity);
+
+					for (Script script : scripts)
+					{
+						result.add(scriptEngine.exec(cx, script, entityScope));
+					}
+				}
+				catch (EcmaError error)
+				{
+					if ("SyntaxError".equals(error.getName()))
+					{
+						throw error;
+					}
+					else
+					{
+						LOG.warn("EcmaError evaluating script, but it isn't a syntax error.", error);
+						result.add(error);
+					}
+				}
+				catch (RuntimeException ex)
+				{
+					result.add(ex);
+				}
 			}
+			return result;
 		}
+		finally
+		{
+			Context.exit();
+		}
+	}
 
-		Object result = ContextFactory.getGlobal().call(new ContextAction()
+	private static JsScriptEngine getScriptEngine()
+	{
+		JsScriptEngine scriptEngine = SCRIPT_ENGINE;
+		if (scriptEngine == null)
 		{
-			@Override
-			public Object run(Context cx)
+			synchronized (ScriptEvaluator.class)
 			{
-				ScriptableObject scriptableObject = cx.initStandardObjects();
-				cx.evaluateString(scriptableObject, JS_SCRIPT, null, 1, null);
-				Function evalScript = (Function) scriptableObject.get("evalScript", scriptableObject);
-
-				List<Object> result = Lists.newArrayList();
-
-				for (Entity entity : entities)
+				scriptEngine = SCRIPT_ENGINE;
+				if (scriptEngine == null)
 				{
+					String jsScript;
 					try
 					{
-						Scriptable scriptableEntity = mapEntity(entity, entityMetaData, cx, scriptableObject);
-
-						for (String source : sources)
-						{
-							result.add(evalScript.call(cx, scriptableObject, scriptableObject, new Object[]
-							{ source, scriptableEntity }));
-						}
-					}
-					catch (EcmaError error)
-					{
-						if ("SyntaxError".equals(error.getName()))
-						{
-							throw error;
-						}
-						else
-						{
-							LOG.warn("EcmaError evaluating script, but it isn't a syntax error.", error);
-							result.add(error);
-						}
+						jsScript = FileCopyUtils.copyToString(new InputStreamReader(
+								ScriptEvaluator.class.getResourceAsStream(JS_SCRIPT_RESOURCE), "UTF-8"));
 					}
-					catch (RuntimeException ex)
+					catch (IOException e)
 					{
-						result.add(ex);
+						throw new UncheckedIOException(e);
 					}
+					scriptEngine = new JsScriptEngine(jsScript, JS_SCRIPT_RESOURCE, MAX_COMPILED_SCRIPTS);
+					SCRIPT_ENGINE = scriptEngine;
 				}
-
-				scriptableObject.sealObject();
-
-				return result;
 			}
+		}
+		return scriptEngine;
+	}
 
-			protected Scriptable mapEntity(final Entity entity, final EntityMetaData entityMetaData, Context cx,
-					ScriptableObject scriptableObject)
-			{
-				Scriptable scriptableEntity = cx.newObject(scriptableObject);
-				scriptableEntity.setPrototype(scriptableObject);
-				entityMetaData.getAtomicAttributes().forEach(
-						attr -> {
-							scriptableEntity.put(attr.getName(), scriptableEntity,
-									javaToJS(entity.get(attr.getName()), cx, scriptableObject));
-						});
-				return scriptableEntity;
-			}
-		});
-		return (List<Object>) result;
+	private static Scriptable mapEntity(final Entity entity, final EntityMetaData entityMetaData, Context cx,
+			ScriptableObject scriptableObject)
+	{
+		Scriptable scriptableEntity = cx.newObject(scriptableObject);
+		scriptableEntity.setPrototype(scriptableObject);
+		entityMetaData.getAtomicAttributes().forEach(
+				attr -> {
+					scriptableEntity.put(attr.getName(), scriptableEntity,
+							javaToJS(entity.get(attr.getName()), cx, scriptableObject));
+				});
+		return scriptableEntity;
 	}
 
 	private static Object javaToJS(Object value, Context cx, Scriptable scope)
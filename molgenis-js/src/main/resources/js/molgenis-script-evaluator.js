@@ -8,6 +8,20 @@
  * @returns the evaluated script result
  */
 function evalScript(script, entity) {
+	var scope = createScriptScope(entity);
+	var attribute = scope.attribute, $ = scope.$, newValue = scope.newValue;
+	return eval(script);
+}
+
+/**
+ * Creates the functions that a script can use to access the values of an
+ * entity.
+ * 
+ * @param entity
+ *            the entity
+ * @returns object with the attribute, $ and newValue functions
+ */
+function createScriptScope(entity) {
 
 	function attribute(value){
 		
@@ -394,8 +408,11 @@ function evalScript(script, entity) {
 		return new attribute(value);
 	}
 
-	$ = $.bind(entity);
-	return eval(script);
+	return {
+		attribute : attribute,
+		$ : $.bind(entity),
+		newValue : newValue
+	};
 }
 /**
  * math.js
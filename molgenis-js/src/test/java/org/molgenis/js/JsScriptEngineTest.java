@@ -0,0 +1,148 @@
+package org.molgenis.js;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.EcmaError;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class JsScriptEngineTest
+{
+	private static final String LIBRARY = "var libraryVar = 'library';"
+			+ "function createScriptScope(entity) { return { value : function(name) { return entity[name]; } }; }";
+
+	private JsScriptEngine jsScriptEngine;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		new RhinoConfig().init();
+		jsScriptEngine = new JsScriptEngine(LIBRARY, "library", 2);
+	}
+
+	@Test
+	public void exec()
+	{
+		Context cx = jsScriptEngine.enterContext();
+		try
+		{
+			Scriptable scriptableEntity = createEntity(cx, 3);
+			Scriptable entityScope = jsScriptEngine.createEntityScope(cx, scriptableEntity);
+			Script script = jsScriptEngine.compile(cx, "libraryVar + value('height') * 2");
+			assertEquals(jsScriptEngine.exec(cx, script, entityScope), "library6");
+		}
+		finally
+		{
+			Context.exit();
+		}
+	}
+
+	@Test
+	public void compileCached()
+	{
+		Context cx = jsScriptEngine.enterContext();
+		try
+		{
+			Script script = jsScriptEngine.compile(cx, "1 + 1");
+			assertSame(jsScriptEngine.compile(cx, "1 + 1"), script);
+		}
+		finally
+		{
+			Context.exit();
+		}
+	}
+
+	@Test
+	public void compileCacheEviction()
+	{
+		Context cx = jsScriptEngine.enterContext();
+		try
+		{
+			Script script = jsScriptEngine.compile(cx, "1 + 1");
+			jsScriptEngine.compile(cx, "1 + 2");
+			jsScriptEngine.compile(cx, "1 + 3");
+			jsScriptEngine.compile(cx, "1 + 4");
+			assertNotSame(jsScriptEngine.compile(cx, "1 + 1"), script);
+		}
+		finally
+		{
+			Context.exit();
+		}
+	}
+
+	@Test
+	public void compileSyntaxError()
+	{
+		Context cx = jsScriptEngine.enterContext();
+		try
+		{
+			jsScriptEngine.compile(cx, "1 +");
+			fail("Syntax errors should throw exception");
+		}
+		catch (EcmaError e)
+		{
+			assertEquals(e.getName(), "SyntaxError");
+		}
+		finally
+		{
+			Context.exit();
+		}
+	}
+
+	@Test
+	public void enterContextReusedPerThread()
+	{
+		Context cx = jsScriptEngine.enterContext();
+		Context.exit();
+		Context otherCx = jsScriptEngine.enterContext();
+		Context.exit();
+		assertSame(otherCx, cx);
+	}
+
+	@Test(expectedExceptions = EvaluatorException.class)
+	public void sharedScopeSealed()
+	{
+		Context cx = jsScriptEngine.enterContext();
+		try
+		{
+			cx.evaluateString(jsScriptEngine.getSharedScope(), "libraryVar = 'changed'", null, 1, null);
+		}
+		finally
+		{
+			Context.exit();
+		}
+	}
+
+	@Test
+	public void execGlobalAssignmentNotShared()
+	{
+		Context cx = jsScriptEngine.enterContext();
+		try
+		{
+			Scriptable entityScope = jsScriptEngine.createEntityScope(cx, createEntity(cx, 3));
+			jsScriptEngine.exec(cx, jsScriptEngine.compile(cx, "libraryVar = 'changed'"), entityScope);
+			Object result = jsScriptEngine.exec(cx, jsScriptEngine.compile(cx, "libraryVar"), entityScope);
+			assertEquals(result, "library");
+			assertTrue(jsScriptEngine.getSharedScope().isSealed());
+		}
+		finally
+		{
+			Context.exit();
+		}
+	}
+
+	private Scriptable createEntity(Context cx, int height)
+	{
+		Scriptable scriptableEntity = cx.newObject(jsScriptEngine.getSharedScope());
+		scriptableEntity.put("height", scriptableEntity, height);
+		return scriptableEntity;
+	}
+}
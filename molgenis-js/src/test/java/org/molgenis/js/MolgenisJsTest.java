@@ -4,11 +4,16 @@ import static org.testng.Assert.assertEquals;
 
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.molgenis.MolgenisFieldTypes;
@@ -514,4 +519,46 @@ public class MolgenisJsTest
 			assertEquals(expected.getErrorMessage(), "missing ; before statement");
 		}
 	}
+
+	@Test
+	public void testVariablesNotSharedBetweenEvaluations()
+	{
+		DefaultEntityMetaData emd = new DefaultEntityMetaData("person");
+		emd.addAttribute("weight").setDataType(MolgenisFieldTypes.INT);
+
+		Entity person = new MapEntity();
+		person.set("weight", 82);
+
+		List<Object> results = ScriptEvaluator.eval(Arrays.asList("var x = $('weight').value(); y = x; x",
+				"typeof x + typeof y"), person, emd);
+		assertEquals(results, Arrays.asList(82, "undefinedundefined"));
+		assertEquals(ScriptEvaluator.eval("typeof x + typeof y", person, emd), "undefinedundefined");
+	}
+
+	@Test
+	public void testEvalConcurrent() throws InterruptedException, ExecutionException
+	{
+		DefaultEntityMetaData emd = new DefaultEntityMetaData("person");
+		emd.addAttribute("weight").setDataType(MolgenisFieldTypes.INT);
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<Object>> futures = new ArrayList<>();
+			for (int i = 0; i < 100; ++i)
+			{
+				Entity person = new MapEntity("weight", i);
+				futures.add(executorService.submit(() -> ScriptEvaluator.eval("$('weight').times(2).value()",
+						person, emd)));
+			}
+			for (int i = 0; i < 100; ++i)
+			{
+				assertEquals(((Number) futures.get(i).get()).intValue(), i * 2);
+			}
+		}
+		finally
+		{
+			executorService.shutdownNow();
+		}
+	}
 }